@@ -0,0 +1,73 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.build.jmh;
+
+import java.io.File;
+
+import me.champeau.gradle.JMHPlugin;
+import me.champeau.gradle.JMHPluginExtension;
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+import org.gradle.api.file.DuplicatesStrategy;
+import org.gradle.api.plugins.JavaPlugin;
+
+/**
+ * {@link Plugin} that applies conventions for JMH benchmarks in Spring Framework.
+ * <p>Benchmarks are declared in a {@code src/jmh/java} source set for each module
+ * and are run with the {@code jmh} task. Results are written in JSON format to
+ * {@code build/reports/jmh/results.json}, which serves as the baseline to compare
+ * the numbers of a performance-sensitive change against.
+ * <p>One can restrict the benchmarks to run with a dedicated property on the CLI:
+ * {@code "./gradlew :spring-core:jmh -PjmhInclude=AntPathMatcherBenchmark"}.
+ *
+ * @since 5.3
+ */
+public class JmhConventionsPlugin implements Plugin<Project> {
+
+	/**
+	 * The project property that can be used to restrict the benchmarks to run,
+	 * as a regular expression matched against benchmark names.
+	 */
+	public static final String JMH_INCLUDE_PROPERTY = "jmhInclude";
+
+	public static final String JMH_VERSION = "1.23";
+
+	@Override
+	public void apply(Project project) {
+		project.getPlugins().withType(JavaPlugin.class, javaPlugin -> applyJmhConventions(project));
+	}
+
+	/**
+	 * Applies the JMH plugin and configures the common options for running
+	 * benchmarks and reporting their results.
+	 * @param project the current project
+	 */
+	private void applyJmhConventions(Project project) {
+		project.getPlugins().apply(JMHPlugin.class);
+		JMHPluginExtension jmh = project.getExtensions().getByType(JMHPluginExtension.class);
+		jmh.setJmhVersion(JMH_VERSION);
+		jmh.setDuplicateClassesStrategy(DuplicatesStrategy.EXCLUDE);
+		jmh.setResultFormat("JSON");
+		File reportsDir = new File(project.getBuildDir(), "reports/jmh");
+		jmh.setResultsFile(new File(reportsDir, "results.json"));
+		jmh.setHumanOutputFile(new File(reportsDir, "human.txt"));
+		if (project.hasProperty(JMH_INCLUDE_PROPERTY)) {
+			jmh.setInclude(String.valueOf(project.property(JMH_INCLUDE_PROPERTY)));
+		}
+	}
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+
+/**
+ * Benchmarks for {@link DefaultListableBeanFactory#getBean} lookups of
+ * singleton and prototype beans, by name and by type.
+ */
+@BenchmarkMode(Mode.Throughput)
+public class DefaultListableBeanFactoryBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		public DefaultListableBeanFactory beanFactory;
+
+		@Setup
+		public void setup() {
+			this.beanFactory = new DefaultListableBeanFactory();
+			for (int i = 0; i < 100; i++) {
+				this.beanFactory.registerBeanDefinition("filler" + i, new RootBeanDefinition(Object.class));
+			}
+			this.beanFactory.registerBeanDefinition("repository", new RootBeanDefinition(TestRepository.class));
+
+			RootBeanDefinition service = new RootBeanDefinition(TestService.class);
+			service.getPropertyValues().add("repository", new RuntimeBeanReference("repository"));
+			service.getPropertyValues().add("name", "service");
+			this.beanFactory.registerBeanDefinition("service", service);
+
+			RootBeanDefinition prototype = new RootBeanDefinition(TestService.class);
+			prototype.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+			prototype.getPropertyValues().add("repository", new RuntimeBeanReference("repository"));
+			prototype.getPropertyValues().add("name", "prototype");
+			this.beanFactory.registerBeanDefinition("prototype", prototype);
+
+			this.beanFactory.preInstantiateSingletons();
+		}
+	}
+
+	@Benchmark
+	public void getSingletonByName(BenchmarkData data, Blackhole bh) {
+		bh.consume(data.beanFactory.getBean("service"));
+	}
+
+	@Benchmark
+	public void getSingletonByType(BenchmarkData data, Blackhole bh) {
+		bh.consume(data.beanFactory.getBean(TestRepository.class));
+	}
+
+	@Benchmark
+	public void getPrototypeByName(BenchmarkData data, Blackhole bh) {
+		bh.consume(data.beanFactory.getBean("prototype"));
+	}
+
+	@Benchmark
+	public void getBeanNamesForType(BenchmarkData data, Blackhole bh) {
+		bh.consume(data.beanFactory.getBeanNamesForType(TestService.class));
+	}
+
+
+	public static class TestRepository {
+	}
+
+	public static class TestService {
+
+		private TestRepository repository;
+
+		private String name;
+
+		public void setRepository(TestRepository repository) {
+			this.repository = repository;
+		}
+
+		public TestRepository getRepository() {
+			return this.repository;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -212,11 +212,19 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 			throw new InvalidPropertyException(getRootClass(), getNestedPath() + propertyName,
 					"No property '" + propertyName + "' found");
 		}
+		return convertForProperty(propertyName, null, value, getTypeDescriptor(cachedIntrospectionResults, pd));
+	}
+
+	/**
+	 * Return the cached {@link TypeDescriptor} for the given property,
+	 * creating and caching it on first access.
+	 */
+	private TypeDescriptor getTypeDescriptor(CachedIntrospectionResults cachedIntrospectionResults, PropertyDescriptor pd) {
 		TypeDescriptor td = cachedIntrospectionResults.getTypeDescriptor(pd);
 		if (td == null) {
 			td = cachedIntrospectionResults.addTypeDescriptor(pd, new TypeDescriptor(property(pd)));
 		}
-		return convertForProperty(propertyName, null, value, td);
+		return td;
 	}
 
 	private Property property(PropertyDescriptor pd) {
@@ -277,13 +285,21 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 
 		@Override
 		public TypeDescriptor toTypeDescriptor() {
-			return new TypeDescriptor(property(this.pd));
+			return getTypeDescriptor(getCachedIntrospectionResults(), this.pd);
 		}
 
 		@Override
 		@Nullable
 		public TypeDescriptor nested(int level) {
-			return TypeDescriptor.nested(property(this.pd), level);
+			CachedIntrospectionResults cachedIntrospectionResults = getCachedIntrospectionResults();
+			TypeDescriptor td = cachedIntrospectionResults.getNestedTypeDescriptor(this.pd, level);
+			if (td == null) {
+				td = TypeDescriptor.nested(property(this.pd), level);
+				if (td != null) {
+					td = cachedIntrospectionResults.addNestedTypeDescriptor(this.pd, level, td);
+				}
+			}
+			return td;
 		}
 
 		@Override
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -258,6 +258,9 @@ public final class CachedIntrospectionResults {
 	/** TypeDescriptor objects keyed by PropertyDescriptor. */
 	private final ConcurrentMap<PropertyDescriptor, TypeDescriptor> typeDescriptorCache;
 
+	/** Nested TypeDescriptor objects keyed by PropertyDescriptor and nesting level. */
+	private final ConcurrentMap<NestedTypeDescriptorKey, TypeDescriptor> nestedTypeDescriptorCache;
+
 
 	/**
 	 * Create a new CachedIntrospectionResults instance for the given class.
@@ -303,6 +306,7 @@ public final class CachedIntrospectionResults {
 			}
 
 			this.typeDescriptorCache = new ConcurrentReferenceHashMap<>();
+			this.nestedTypeDescriptorCache = new ConcurrentReferenceHashMap<>();
 		}
 		catch (IntrospectionException ex) {
 			throw new FatalBeanException("Failed to obtain BeanInfo for class [" + beanClass.getName() + "]", ex);
@@ -381,4 +385,48 @@ public final class CachedIntrospectionResults {
 		return this.typeDescriptorCache.get(pd);
 	}
 
+	TypeDescriptor addNestedTypeDescriptor(PropertyDescriptor pd, int nestingLevel, TypeDescriptor td) {
+		TypeDescriptor existing = this.nestedTypeDescriptorCache.putIfAbsent(
+				new NestedTypeDescriptorKey(pd, nestingLevel), td);
+		return (existing != null ? existing : td);
+	}
+
+	@Nullable
+	TypeDescriptor getNestedTypeDescriptor(PropertyDescriptor pd, int nestingLevel) {
+		return this.nestedTypeDescriptorCache.get(new NestedTypeDescriptorKey(pd, nestingLevel));
+	}
+
+
+	/**
+	 * Cache key for nested TypeDescriptor objects.
+	 */
+	private static final class NestedTypeDescriptorKey {
+
+		private final PropertyDescriptor pd;
+
+		private final int nestingLevel;
+
+		NestedTypeDescriptorKey(PropertyDescriptor pd, int nestingLevel) {
+			this.pd = pd;
+			this.nestingLevel = nestingLevel;
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof NestedTypeDescriptorKey)) {
+				return false;
+			}
+			NestedTypeDescriptorKey otherKey = (NestedTypeDescriptorKey) other;
+			return (this.pd.equals(otherKey.pd) && this.nestingLevel == otherKey.nestingLevel);
+		}
+
+		@Override
+		public int hashCode() {
+			return 29 * this.pd.hashCode() + this.nestingLevel;
+		}
+	}
+
 }
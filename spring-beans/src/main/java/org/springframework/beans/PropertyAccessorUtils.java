@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -145,6 +145,9 @@ public abstract class PropertyAccessorUtils {
 		if (propertyName == null) {
 			return "";
 		}
+		if (propertyName.indexOf(PropertyAccessor.PROPERTY_KEY_PREFIX_CHAR) == -1) {
+			return propertyName;
+		}
 
 		StringBuilder sb = new StringBuilder(propertyName);
 		int searchIndex = 0;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -42,6 +42,7 @@ import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TimeZone;
 import java.util.UUID;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
 import org.xml.sax.InputSource;
@@ -91,6 +92,83 @@ import org.springframework.util.ClassUtils;
  */
 public class PropertyEditorRegistrySupport implements PropertyEditorRegistry {
 
+	/**
+	 * Factories for the default editors, keyed by required type. Each registry
+	 * instance lazily creates its own editor for a type on first access, since
+	 * property editors are stateful and therefore cannot be shared.
+	 */
+	private static final Map<Class<?>, Supplier<PropertyEditor>> defaultEditorFactories = new HashMap<>(64);
+
+	/** Factories for the config value editors, keyed by required type. */
+	private static final Map<Class<?>, Supplier<PropertyEditor>> configValueEditorFactories = new HashMap<>(8);
+
+	static {
+		// Simple editors, without parameterization capabilities.
+		// The JDK does not contain a default editor for any of these target types.
+		defaultEditorFactories.put(Charset.class, CharsetEditor::new);
+		defaultEditorFactories.put(Class.class, ClassEditor::new);
+		defaultEditorFactories.put(Class[].class, ClassArrayEditor::new);
+		defaultEditorFactories.put(Currency.class, CurrencyEditor::new);
+		defaultEditorFactories.put(File.class, FileEditor::new);
+		defaultEditorFactories.put(InputStream.class, InputStreamEditor::new);
+		defaultEditorFactories.put(InputSource.class, InputSourceEditor::new);
+		defaultEditorFactories.put(Locale.class, LocaleEditor::new);
+		defaultEditorFactories.put(Path.class, PathEditor::new);
+		defaultEditorFactories.put(Pattern.class, PatternEditor::new);
+		defaultEditorFactories.put(Properties.class, PropertiesEditor::new);
+		defaultEditorFactories.put(Reader.class, ReaderEditor::new);
+		defaultEditorFactories.put(Resource[].class, ResourceArrayPropertyEditor::new);
+		defaultEditorFactories.put(TimeZone.class, TimeZoneEditor::new);
+		defaultEditorFactories.put(URI.class, URIEditor::new);
+		defaultEditorFactories.put(URL.class, URLEditor::new);
+		defaultEditorFactories.put(UUID.class, UUIDEditor::new);
+		defaultEditorFactories.put(ZoneId.class, ZoneIdEditor::new);
+
+		// Default instances of collection editors.
+		// Can be overridden by registering custom instances of those as custom editors.
+		defaultEditorFactories.put(Collection.class, () -> new CustomCollectionEditor(Collection.class));
+		defaultEditorFactories.put(Set.class, () -> new CustomCollectionEditor(Set.class));
+		defaultEditorFactories.put(SortedSet.class, () -> new CustomCollectionEditor(SortedSet.class));
+		defaultEditorFactories.put(List.class, () -> new CustomCollectionEditor(List.class));
+		defaultEditorFactories.put(SortedMap.class, () -> new CustomMapEditor(SortedMap.class));
+
+		// Default editors for primitive arrays.
+		defaultEditorFactories.put(byte[].class, ByteArrayPropertyEditor::new);
+		defaultEditorFactories.put(char[].class, CharArrayPropertyEditor::new);
+
+		// The JDK does not contain a default editor for char!
+		defaultEditorFactories.put(char.class, () -> new CharacterEditor(false));
+		defaultEditorFactories.put(Character.class, () -> new CharacterEditor(true));
+
+		// Spring's CustomBooleanEditor accepts more flag values than the JDK's default editor.
+		defaultEditorFactories.put(boolean.class, () -> new CustomBooleanEditor(false));
+		defaultEditorFactories.put(Boolean.class, () -> new CustomBooleanEditor(true));
+
+		// The JDK does not contain default editors for number wrapper types!
+		// Override JDK primitive number editors with our own CustomNumberEditor.
+		defaultEditorFactories.put(byte.class, () -> new CustomNumberEditor(Byte.class, false));
+		defaultEditorFactories.put(Byte.class, () -> new CustomNumberEditor(Byte.class, true));
+		defaultEditorFactories.put(short.class, () -> new CustomNumberEditor(Short.class, false));
+		defaultEditorFactories.put(Short.class, () -> new CustomNumberEditor(Short.class, true));
+		defaultEditorFactories.put(int.class, () -> new CustomNumberEditor(Integer.class, false));
+		defaultEditorFactories.put(Integer.class, () -> new CustomNumberEditor(Integer.class, true));
+		defaultEditorFactories.put(long.class, () -> new CustomNumberEditor(Long.class, false));
+		defaultEditorFactories.put(Long.class, () -> new CustomNumberEditor(Long.class, true));
+		defaultEditorFactories.put(float.class, () -> new CustomNumberEditor(Float.class, false));
+		defaultEditorFactories.put(Float.class, () -> new CustomNumberEditor(Float.class, true));
+		defaultEditorFactories.put(double.class, () -> new CustomNumberEditor(Double.class, false));
+		defaultEditorFactories.put(Double.class, () -> new CustomNumberEditor(Double.class, true));
+		defaultEditorFactories.put(BigDecimal.class, () -> new CustomNumberEditor(BigDecimal.class, true));
+		defaultEditorFactories.put(BigInteger.class, () -> new CustomNumberEditor(BigInteger.class, true));
+
+		// Config value editors, only registered if explicitly requested.
+		configValueEditorFactories.put(String[].class, StringArrayPropertyEditor::new);
+		configValueEditorFactories.put(short[].class, StringArrayPropertyEditor::new);
+		configValueEditorFactories.put(int[].class, StringArrayPropertyEditor::new);
+		configValueEditorFactories.put(long[].class, StringArrayPropertyEditor::new);
+	}
+
+
 	@Nullable
 	private ConversionService conversionService;
 
@@ -189,83 +267,28 @@ public class PropertyEditorRegistrySupport implements PropertyEditorRegistry {
 			}
 		}
 		if (this.defaultEditors == null) {
-			createDefaultEditors();
+			this.defaultEditors = new HashMap<>(16);
 		}
-		return this.defaultEditors.get(requiredType);
+		PropertyEditor editor = this.defaultEditors.get(requiredType);
+		if (editor == null) {
+			editor = createDefaultEditor(requiredType);
+			if (editor != null) {
+				this.defaultEditors.put(requiredType, editor);
+			}
+		}
+		return editor;
 	}
 
 	/**
-	 * Actually register the default editors for this registry instance.
+	 * Create the default editor for the given property type, if any.
 	 */
-	private void createDefaultEditors() {
-		this.defaultEditors = new HashMap<>(64);
-
-		// Simple editors, without parameterization capabilities.
-		// The JDK does not contain a default editor for any of these target types.
-		this.defaultEditors.put(Charset.class, new CharsetEditor());
-		this.defaultEditors.put(Class.class, new ClassEditor());
-		this.defaultEditors.put(Class[].class, new ClassArrayEditor());
-		this.defaultEditors.put(Currency.class, new CurrencyEditor());
-		this.defaultEditors.put(File.class, new FileEditor());
-		this.defaultEditors.put(InputStream.class, new InputStreamEditor());
-		this.defaultEditors.put(InputSource.class, new InputSourceEditor());
-		this.defaultEditors.put(Locale.class, new LocaleEditor());
-		this.defaultEditors.put(Path.class, new PathEditor());
-		this.defaultEditors.put(Pattern.class, new PatternEditor());
-		this.defaultEditors.put(Properties.class, new PropertiesEditor());
-		this.defaultEditors.put(Reader.class, new ReaderEditor());
-		this.defaultEditors.put(Resource[].class, new ResourceArrayPropertyEditor());
-		this.defaultEditors.put(TimeZone.class, new TimeZoneEditor());
-		this.defaultEditors.put(URI.class, new URIEditor());
-		this.defaultEditors.put(URL.class, new URLEditor());
-		this.defaultEditors.put(UUID.class, new UUIDEditor());
-		this.defaultEditors.put(ZoneId.class, new ZoneIdEditor());
-
-		// Default instances of collection editors.
-		// Can be overridden by registering custom instances of those as custom editors.
-		this.defaultEditors.put(Collection.class, new CustomCollectionEditor(Collection.class));
-		this.defaultEditors.put(Set.class, new CustomCollectionEditor(Set.class));
-		this.defaultEditors.put(SortedSet.class, new CustomCollectionEditor(SortedSet.class));
-		this.defaultEditors.put(List.class, new CustomCollectionEditor(List.class));
-		this.defaultEditors.put(SortedMap.class, new CustomMapEditor(SortedMap.class));
-
-		// Default editors for primitive arrays.
-		this.defaultEditors.put(byte[].class, new ByteArrayPropertyEditor());
-		this.defaultEditors.put(char[].class, new CharArrayPropertyEditor());
-
-		// The JDK does not contain a default editor for char!
-		this.defaultEditors.put(char.class, new CharacterEditor(false));
-		this.defaultEditors.put(Character.class, new CharacterEditor(true));
-
-		// Spring's CustomBooleanEditor accepts more flag values than the JDK's default editor.
-		this.defaultEditors.put(boolean.class, new CustomBooleanEditor(false));
-		this.defaultEditors.put(Boolean.class, new CustomBooleanEditor(true));
-
-		// The JDK does not contain default editors for number wrapper types!
-		// Override JDK primitive number editors with our own CustomNumberEditor.
-		this.defaultEditors.put(byte.class, new CustomNumberEditor(Byte.class, false));
-		this.defaultEditors.put(Byte.class, new CustomNumberEditor(Byte.class, true));
-		this.defaultEditors.put(short.class, new CustomNumberEditor(Short.class, false));
-		this.defaultEditors.put(Short.class, new CustomNumberEditor(Short.class, true));
-		this.defaultEditors.put(int.class, new CustomNumberEditor(Integer.class, false));
-		this.defaultEditors.put(Integer.class, new CustomNumberEditor(Integer.class, true));
-		this.defaultEditors.put(long.class, new CustomNumberEditor(Long.class, false));
-		this.defaultEditors.put(Long.class, new CustomNumberEditor(Long.class, true));
-		this.defaultEditors.put(float.class, new CustomNumberEditor(Float.class, false));
-		this.defaultEditors.put(Float.class, new CustomNumberEditor(Float.class, true));
-		this.defaultEditors.put(double.class, new CustomNumberEditor(Double.class, false));
-		this.defaultEditors.put(Double.class, new CustomNumberEditor(Double.class, true));
-		this.defaultEditors.put(BigDecimal.class, new CustomNumberEditor(BigDecimal.class, true));
-		this.defaultEditors.put(BigInteger.class, new CustomNumberEditor(BigInteger.class, true));
-
-		// Only register config value editors if explicitly requested.
-		if (this.configValueEditorsActive) {
-			StringArrayPropertyEditor sae = new StringArrayPropertyEditor();
-			this.defaultEditors.put(String[].class, sae);
-			this.defaultEditors.put(short[].class, sae);
-			this.defaultEditors.put(int[].class, sae);
-			this.defaultEditors.put(long[].class, sae);
+	@Nullable
+	private PropertyEditor createDefaultEditor(Class<?> requiredType) {
+		Supplier<PropertyEditor> factory = defaultEditorFactories.get(requiredType);
+		if (factory == null && this.configValueEditorsActive) {
+			factory = configValueEditorFactories.get(requiredType);
 		}
+		return (factory != null ? factory.get() : null);
 	}
 
 	/**
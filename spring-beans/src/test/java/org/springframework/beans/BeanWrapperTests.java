@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,13 +16,17 @@
 
 package org.springframework.beans;
 
+import java.beans.PropertyEditor;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
 
 import org.junit.jupiter.api.Test;
 
+import org.springframework.beans.propertyeditors.CustomNumberEditor;
+import org.springframework.beans.propertyeditors.StringArrayPropertyEditor;
 import org.springframework.beans.testfixture.beans.TestBean;
+import org.springframework.core.convert.TypeDescriptor;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
@@ -209,6 +213,33 @@ public class BeanWrapperTests extends AbstractPropertyAccessorTests {
 			.satisfies(ex -> assertThat(ex.getPossibleMatches()).isNull());
 	}
 
+	@Test
+	public void defaultEditorsAreCreatedPerInstance() {
+		BeanWrapperImpl accessor = createAccessor(new TestBean());
+		BeanWrapperImpl otherAccessor = createAccessor(new TestBean());
+
+		PropertyEditor editor = accessor.getDefaultEditor(int.class);
+		assertThat(editor).isInstanceOf(CustomNumberEditor.class);
+		assertThat(accessor.getDefaultEditor(int.class)).isSameAs(editor);
+		assertThat(otherAccessor.getDefaultEditor(int.class)).isNotSameAs(editor);
+		assertThat(accessor.getDefaultEditor(TestBean.class)).isNull();
+
+		assertThat(accessor.getDefaultEditor(String[].class)).isNull();
+		accessor.useConfigValueEditors();
+		assertThat(accessor.getDefaultEditor(String[].class)).isInstanceOf(StringArrayPropertyEditor.class);
+	}
+
+	@Test
+	public void propertyTypeDescriptorsAreCached() {
+		TypeDescriptor td = createAccessor(new TestBean()).getPropertyTypeDescriptor("stringArray");
+		TypeDescriptor nestedTd = createAccessor(new TestBean()).getPropertyTypeDescriptor("stringArray[0]");
+		assertThat(td.getType()).isEqualTo(String[].class);
+		assertThat(nestedTd.getType()).isEqualTo(String.class);
+
+		assertThat(createAccessor(new TestBean()).getPropertyTypeDescriptor("stringArray")).isSameAs(td);
+		assertThat(createAccessor(new TestBean()).getPropertyTypeDescriptor("stringArray[1]")).isSameAs(nestedTd);
+	}
+
 
 	private interface BaseProperty {
 
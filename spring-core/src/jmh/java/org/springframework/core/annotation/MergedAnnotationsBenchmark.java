@@ -0,0 +1,136 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Method;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
+
+/**
+ * Benchmarks for {@link MergedAnnotations} lookups on types and methods,
+ * with composed annotations and attribute aliases, as performed when
+ * processing configuration classes and detecting handler methods.
+ */
+@BenchmarkMode(Mode.Throughput)
+public class MergedAnnotationsBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		public Class<?> type = AnnotatedController.class;
+
+		public Method method;
+
+		public Method plainMethod;
+
+		@Setup
+		public void setup() throws Exception {
+			this.method = AnnotatedController.class.getMethod("handle");
+			this.plainMethod = AnnotatedController.class.getMethod("toString");
+		}
+	}
+
+	@Benchmark
+	public void getComposedAnnotationOnType(BenchmarkData data, Blackhole bh) {
+		MergedAnnotation<Mapping> mapping = MergedAnnotations.from(data.type).get(Mapping.class);
+		bh.consume(mapping.getStringArray("path"));
+	}
+
+	@Benchmark
+	public void synthesizeComposedAnnotationOnMethod(BenchmarkData data, Blackhole bh) {
+		bh.consume(MergedAnnotations.from(data.method, SearchStrategy.TYPE_HIERARCHY)
+				.get(Mapping.class).synthesize());
+	}
+
+	@Benchmark
+	public void isPresentOnMethod(BenchmarkData data, Blackhole bh) {
+		bh.consume(MergedAnnotations.from(data.method, SearchStrategy.TYPE_HIERARCHY).isPresent(Mapping.class));
+		bh.consume(MergedAnnotations.from(data.plainMethod, SearchStrategy.TYPE_HIERARCHY).isPresent(Mapping.class));
+	}
+
+	@Benchmark
+	public void findMergedAnnotation(BenchmarkData data, Blackhole bh) {
+		bh.consume(AnnotatedElementUtils.findMergedAnnotation(data.method, Mapping.class));
+		bh.consume(AnnotatedElementUtils.findMergedAnnotation(data.type, Mapping.class));
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+	@Documented
+	@Inherited
+	public @interface Mapping {
+
+		@AliasFor("path")
+		String[] value() default {};
+
+		@AliasFor("value")
+		String[] path() default {};
+
+		String[] produces() default {};
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.METHOD})
+	@Documented
+	@Mapping
+	public @interface GetMapping {
+
+		@AliasFor(annotation = Mapping.class)
+		String[] value() default {};
+
+		@AliasFor(annotation = Mapping.class)
+		String[] produces() default {};
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target(ElementType.TYPE)
+	@Documented
+	@Mapping("/api")
+	public @interface ApiController {
+	}
+
+	public interface Handler {
+
+		@GetMapping(value = "/resource", produces = "application/json")
+		String handle();
+	}
+
+	@ApiController
+	public static class AnnotatedController implements Handler {
+
+		@Override
+		public String handle() {
+			return "resource";
+		}
+	}
+
+}
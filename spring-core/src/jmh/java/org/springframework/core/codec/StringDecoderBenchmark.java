@@ -0,0 +1,95 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Benchmarks for {@link StringDecoder}, splitting text that is spread across
+ * several buffers into lines.
+ */
+@BenchmarkMode(Mode.Throughput)
+public class StringDecoderBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		@Param({"10000"})
+		public int lineCount;
+
+		@Param({"20", "200"})
+		public int lineLength;
+
+		@Param({"8192"})
+		public int bufferSize;
+
+		public StringDecoder decoder = StringDecoder.allMimeTypes();
+
+		public DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+		public List<byte[]> chunks;
+
+		@Setup
+		public void setup() {
+			StringBuilder builder = new StringBuilder();
+			for (int i = 0; i < this.lineCount; i++) {
+				for (int j = 0; j < this.lineLength; j++) {
+					builder.append((char) ('a' + (i + j) % 26));
+				}
+				builder.append(i % 2 == 0 ? "\n" : "\r\n");
+			}
+			byte[] content = builder.toString().getBytes(StandardCharsets.UTF_8);
+			this.chunks = new ArrayList<>();
+			for (int offset = 0; offset < content.length; offset += this.bufferSize) {
+				byte[] chunk = new byte[Math.min(this.bufferSize, content.length - offset)];
+				System.arraycopy(content, offset, chunk, 0, chunk.length);
+				this.chunks.add(chunk);
+			}
+		}
+
+		public Flux<DataBuffer> input() {
+			return Flux.fromIterable(this.chunks).map(this.bufferFactory::wrap);
+		}
+	}
+
+	@Benchmark
+	public void decodeLines(BenchmarkData data, Blackhole bh) {
+		data.decoder.decode(data.input(), ResolvableType.forClass(String.class),
+				MimeTypeUtils.TEXT_PLAIN, Collections.emptyMap())
+				.doOnNext(bh::consume)
+				.blockLast();
+	}
+
+}
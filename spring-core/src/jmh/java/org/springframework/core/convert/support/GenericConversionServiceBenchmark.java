@@ -0,0 +1,87 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.convert.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.core.convert.TypeDescriptor;
+
+/**
+ * Benchmarks for {@link GenericConversionService}, converting request
+ * parameters and collections as done for data binding.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GenericConversionServiceBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		@Param({"10"})
+		public int collectionSize;
+
+		public GenericConversionService conversionService = new DefaultConversionService();
+
+		public List<String> source;
+
+		public TypeDescriptor sourceType = TypeDescriptor.collection(List.class, TypeDescriptor.valueOf(String.class));
+
+		public TypeDescriptor targetType = TypeDescriptor.collection(Set.class, TypeDescriptor.valueOf(Integer.class));
+
+		@Setup
+		public void setup() {
+			this.source = new ArrayList<>(this.collectionSize);
+			for (int i = 0; i < this.collectionSize; i++) {
+				this.source.add(String.valueOf(i));
+			}
+		}
+	}
+
+	@Benchmark
+	public void convertStringToInteger(BenchmarkData data, Blackhole bh) {
+		bh.consume(data.conversionService.convert("42", Integer.class));
+	}
+
+	@Benchmark
+	public void convertStringToEnum(BenchmarkData data, Blackhole bh) {
+		bh.consume(data.conversionService.convert("MILLISECONDS", TimeUnit.class));
+	}
+
+	@Benchmark
+	public void convertListOfStringToSetOfInteger(BenchmarkData data, Blackhole bh) {
+		bh.consume(data.conversionService.convert(data.source, data.sourceType, data.targetType));
+	}
+
+	@Benchmark
+	public void canConvert(BenchmarkData data, Blackhole bh) {
+		bh.consume(data.conversionService.canConvert(data.sourceType, data.targetType));
+	}
+
+}
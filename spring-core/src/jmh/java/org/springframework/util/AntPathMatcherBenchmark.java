@@ -0,0 +1,102 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link AntPathMatcher}, matching request paths against the
+ * routes of a typical web application, as done by handler mappings,
+ * interceptors, and CORS mappings for every request.
+ */
+@BenchmarkMode(Mode.Throughput)
+public class AntPathMatcherBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		@Param({"true", "false"})
+		public boolean cachePatterns;
+
+		public AntPathMatcher pathMatcher;
+
+		public List<String> patterns = Arrays.asList(
+				"/", "/login", "/logout", "/static/**", "/webjars/**", "/favicon.ico",
+				"/blog", "/blog.atom", "/blog/category/{category}", "/blog/{year:\\d+}/{month:\\d+}/{day:\\d+}/{slug}",
+				"/projects", "/projects/{id}", "/projects/{id}/releases", "/projects/{id}/releases/{version}",
+				"/guides", "/guides/gs/{guide}", "/guides/tutorials/{guide}", "/guides/*.html",
+				"/api/users/{user}", "/api/users/{user}/repos", "/api/repos/{owner}/{repo}/issues/{number}",
+				"/admin/**", "/admin/projects/{id}/*.json");
+
+		public List<String> paths = Arrays.asList(
+				"/", "/login", "/static/css/main.css", "/webjars/jquery/3.4.1/jquery.min.js",
+				"/blog/category/releases", "/blog/2020/02/25/spring-framework-5-2-4-available-now",
+				"/projects/spring-framework/releases/5.2.4.RELEASE", "/guides/gs/rest-service",
+				"/guides/index.html", "/api/repos/spring-projects/spring-framework/issues/24500",
+				"/admin/projects/spring-boot/settings.json", "/unknown/path/to/nowhere");
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.pathMatcher = new AntPathMatcher();
+			this.pathMatcher.setCachePatterns(this.cachePatterns);
+		}
+	}
+
+	@Benchmark
+	public void matchAllPatterns(BenchmarkData data, Blackhole bh) {
+		for (String path : data.paths) {
+			for (String pattern : data.patterns) {
+				bh.consume(data.pathMatcher.match(pattern, path));
+			}
+		}
+	}
+
+	@Benchmark
+	public void matchAndSortPatterns(BenchmarkData data, Blackhole bh) {
+		for (String path : data.paths) {
+			List<String> matches = new ArrayList<>();
+			for (String pattern : data.patterns) {
+				if (data.pathMatcher.match(pattern, path)) {
+					matches.add(pattern);
+				}
+			}
+			matches.sort(data.pathMatcher.getPatternComparator(path));
+			bh.consume(matches);
+		}
+	}
+
+	@Benchmark
+	public void extractUriTemplateVariables(BenchmarkData data, Blackhole bh) {
+		bh.consume(data.pathMatcher.extractUriTemplateVariables(
+				"/api/repos/{owner}/{repo}/issues/{number}", "/api/repos/spring-projects/spring-framework/issues/24500"));
+		bh.consume(data.pathMatcher.extractUriTemplateVariables(
+				"/blog/{year:\\d+}/{month:\\d+}/{day:\\d+}/{slug}", "/blog/2020/02/25/spring-framework-5-2-4-available-now"));
+	}
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link ConcurrentLruCache}, under concurrent access
+ * with a varying number of keys relative to the cache capacity.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Threads(4)
+public class ConcurrentLruCacheBenchmark {
+
+	@Benchmark
+	public void lruCache(BenchmarkData data, Blackhole bh) {
+		for (String element : data.elements) {
+			bh.consume(data.lruCache.get(element));
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		ConcurrentLruCache<String, String> lruCache;
+
+		@Param({"100"})
+		public int capacity;
+
+		/**
+		 * Number of distinct keys requested, relative to the capacity:
+		 * below 1 all keys are served from the cache, above 1 keys get evicted.
+		 */
+		@Param({"0.1", "1.0", "2.0"})
+		public float keyRatio;
+
+		public List<String> elements;
+
+		@Setup(Level.Iteration)
+		public void setup() {
+			this.lruCache = new ConcurrentLruCache<>(this.capacity, key -> key + "value");
+			int keyCount = Math.max(1, (int) (this.capacity * this.keyRatio));
+			Random random = new Random(42);
+			this.elements = new ArrayList<>(this.capacity);
+			for (int i = 0; i < this.capacity; i++) {
+				this.elements.add("key" + random.nextInt(keyCount));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link MimeTypeUtils#parseMimeType(String)}, which is called
+ * for {@code Content-Type} and {@code Accept} headers of every request.
+ */
+@BenchmarkMode(Mode.Throughput)
+public class MimeTypeUtilsBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		/**
+		 * A few recurring values (served from the cache), and a set of values
+		 * beyond the cache capacity that forces parsing.
+		 */
+		@Param({"12", "200"})
+		public int mimeTypesCount;
+
+		public String[] mimeTypes;
+
+		@Setup
+		public void setup() {
+			String[] common = new String[] {
+					"application/json", "application/json;charset=UTF-8", "text/html",
+					"text/html; charset=ISO-8859-1", "text/plain;charset=UTF-8", "application/xml",
+					"application/x-www-form-urlencoded", "multipart/form-data; boundary=----WebKitFormBoundary",
+					"image/png", "application/octet-stream", "text/event-stream", "*/*"};
+			this.mimeTypes = new String[this.mimeTypesCount];
+			for (int i = 0; i < this.mimeTypesCount; i++) {
+				String mimeType = common[i % common.length];
+				this.mimeTypes[i] = (i < common.length ? mimeType : mimeType + ";param=" + i);
+			}
+		}
+	}
+
+	@Benchmark
+	public void parseMimeType(BenchmarkData data, Blackhole bh) {
+		for (String mimeType : data.mimeTypes) {
+			bh.consume(MimeTypeUtils.parseMimeType(mimeType));
+		}
+	}
+
+	@Benchmark
+	public void parseMimeTypes(Blackhole bh) {
+		bh.consume(MimeTypeUtils.parseMimeTypes(
+				"text/html, application/xhtml+xml, application/xml;q=0.9, image/webp, */*;q=0.8"));
+	}
+
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Splits a stream of data buffers into strings at a set of delimiters.
+ * Used by {@link StringDecoder}, with one instance per decoded stream.
+ *
+ * <p>Each buffer is scanned as a byte array, checking every byte against a
+ * lookup table of the final bytes of all delimiters, and only comparing the
+ * full delimiters when that table matches. Complete lines are decoded straight
+ * from the array of the buffer. The bytes of an incomplete line at the end of
+ * a buffer are kept in a reusable array, and are prepended to the rest of the
+ * line once its delimiter is found. Buffers are released as soon as they have
+ * been scanned.
+ *
+ * <p>When several delimiters end at the same position, the longest one is
+ * used, so that {@code "\r\n"} is preferred over {@code "\n"}.
+ *
+ * @since 5.3
+ */
+final class LineSplitter {
+
+	private static final byte[] EMPTY_BYTES = new byte[0];
+
+
+	private final Delimiters delimiters;
+
+	private final boolean stripDelimiter;
+
+	private final Charset charset;
+
+	private final int maxInMemorySize;
+
+	/** Bytes of the current line received in previous buffers. */
+	private byte[] partial = EMPTY_BYTES;
+
+	private int partialLength;
+
+	/** Whether data has been received since the last delimiter. */
+	private boolean pending;
+
+	/** Used to access the contents of buffers that are not backed by an array. */
+	private byte[] scratch = EMPTY_BYTES;
+
+	@Nullable
+	private DataBufferLimitException limitException;
+
+
+	LineSplitter(Delimiters delimiters, boolean stripDelimiter, Charset charset, int maxInMemorySize) {
+		this.delimiters = delimiters;
+		this.stripDelimiter = stripDelimiter;
+		this.charset = charset;
+		this.maxInMemorySize = maxInMemorySize;
+	}
+
+
+	/**
+	 * Split the given buffer, and release it.
+	 * @param buffer the next buffer of the stream
+	 * @return the lines completed by the given buffer
+	 * @throws DataBufferLimitException if a line exceeds the maximum in-memory
+	 * size; lines completed before that line are returned first, and the
+	 * exception is thrown on the next invocation of this method or
+	 * {@link #remainder()}
+	 */
+	List<String> split(DataBuffer buffer) {
+		try {
+			throwLimitExceptionIfNecessary();
+			ByteBuffer byteBuffer = buffer.asByteBuffer();
+			int length = byteBuffer.remaining();
+			if (byteBuffer.hasArray()) {
+				int offset = byteBuffer.arrayOffset() + byteBuffer.position();
+				return split(byteBuffer.array(), offset, offset + length);
+			}
+			else {
+				if (this.scratch.length < length) {
+					this.scratch = new byte[length];
+				}
+				byteBuffer.get(this.scratch, 0, length);
+				return split(this.scratch, 0, length);
+			}
+		}
+		finally {
+			DataBufferUtils.release(buffer);
+		}
+	}
+
+	private List<String> split(byte[] array, int offset, int end) {
+		List<String> lines = Collections.emptyList();
+		boolean[] endBytes = this.delimiters.endBytes;
+		int lineStart = offset;
+		for (int i = offset; i < end; i++) {
+			if (endBytes[array[i] & 0xFF]) {
+				int delimiterLength = matchDelimiter(array, i, lineStart);
+				if (delimiterLength > 0) {
+					int lineLength = this.partialLength + (i + 1 - lineStart);
+					if (this.maxInMemorySize >= 0 && lineLength > this.maxInMemorySize) {
+						return limitExceeded(lines);
+					}
+					if (lines.isEmpty()) {
+						lines = new ArrayList<>();
+					}
+					lines.add(toString(array, lineStart, lineLength - (this.stripDelimiter ? delimiterLength : 0)));
+					lineStart = i + 1;
+				}
+			}
+		}
+		if (lineStart < end) {
+			append(array, lineStart, end - lineStart);
+			if (this.maxInMemorySize >= 0 && this.partialLength > this.maxInMemorySize) {
+				return limitExceeded(lines);
+			}
+		}
+		this.pending = (lines.isEmpty() || lineStart < end);
+		return lines;
+	}
+
+	/**
+	 * Return the length of the longest delimiter that ends at index {@code i}
+	 * and starts at or after the start of the current line, or 0 if none.
+	 */
+	private int matchDelimiter(byte[] array, int i, int lineStart) {
+		int available = this.partialLength + (i + 1 - lineStart);
+		for (byte[] delimiter : this.delimiters.delimiters) {
+			int length = delimiter.length;
+			if (length > available || delimiter[length - 1] != array[i]) {
+				continue;
+			}
+			int j = length - 2;
+			for (; j >= 0; j--) {
+				int index = i - (length - 1 - j);
+				byte b = (index >= lineStart ? array[index] : this.partial[this.partialLength - (lineStart - index)]);
+				if (b != delimiter[j]) {
+					break;
+				}
+			}
+			if (j < 0) {
+				return length;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Return the current line, consisting of the partial line plus the given
+	 * bytes, up to the given length.
+	 */
+	private String toString(byte[] array, int offset, int length) {
+		if (this.partialLength == 0) {
+			return new String(array, offset, length, this.charset);
+		}
+		if (length > this.partialLength) {
+			append(array, offset, length - this.partialLength);
+		}
+		String result = new String(this.partial, 0, length, this.charset);
+		this.partialLength = 0;
+		return result;
+	}
+
+	private void append(byte[] array, int offset, int length) {
+		int newLength = this.partialLength + length;
+		if (newLength > this.partial.length) {
+			this.partial = Arrays.copyOf(this.partial, Math.max(newLength, this.partial.length * 2));
+		}
+		System.arraycopy(array, offset, this.partial, this.partialLength, length);
+		this.partialLength = newLength;
+	}
+
+	private List<String> limitExceeded(List<String> lines) {
+		this.limitException = new DataBufferLimitException(
+				"Exceeded limit on max bytes to buffer : " + this.maxInMemorySize);
+		this.partial = EMPTY_BYTES;
+		this.partialLength = 0;
+		this.pending = false;
+		if (lines.isEmpty()) {
+			throwLimitExceptionIfNecessary();
+		}
+		return lines;
+	}
+
+	private void throwLimitExceptionIfNecessary() {
+		if (this.limitException != null) {
+			throw this.limitException;
+		}
+	}
+
+	/**
+	 * Return the last line of the stream, i.e. the data received after the
+	 * last delimiter, if any.
+	 */
+	@Nullable
+	String remainder() {
+		throwLimitExceptionIfNecessary();
+		if (!this.pending) {
+			return null;
+		}
+		String result = new String(this.partial, 0, this.partialLength, this.charset);
+		this.partial = EMPTY_BYTES;
+		this.partialLength = 0;
+		this.pending = false;
+		return result;
+	}
+
+
+	/**
+	 * Encoded delimiters, prepared for use by a {@code LineSplitter}.
+	 */
+	static final class Delimiters {
+
+		/** Delimiters, longest first. */
+		final byte[][] delimiters;
+
+		/** Whether a byte value is the final byte of any delimiter. */
+		final boolean[] endBytes = new boolean[256];
+
+		Delimiters(byte[][] delimiters) {
+			this.delimiters = delimiters.clone();
+			Arrays.sort(this.delimiters, Comparator.comparingInt((byte[] delimiter) -> delimiter.length).reversed());
+			for (byte[] delimiter : this.delimiters) {
+				Assert.isTrue(delimiter.length > 0, "Delimiter must not be empty");
+				this.endBytes[delimiter[delimiter.length - 1] & 0xFF] = true;
+			}
+		}
+	}
+
+}
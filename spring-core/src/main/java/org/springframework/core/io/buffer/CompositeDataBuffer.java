@@ -0,0 +1,539 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link DataBuffer} that presents a number of component buffers as one
+ * logical buffer, without copying their contents. Used by
+ * {@link DefaultDataBufferFactory#compose(List)}.
+ *
+ * <p>Reading, searching, and {@linkplain #asInputStream() streaming} operate on
+ * the components directly, as do {@linkplain #slice(int, int) slices} and
+ * {@linkplain #asByteBuffer(int, int) byte buffers} that fall within a single
+ * component. Operations that need the contents to be contiguous, i.e. writing,
+ * changing the capacity, or exposing a byte buffer that spans several
+ * components, first consolidate the components into a single buffer, copying
+ * their contents once, and operate on that buffer from then on.
+ *
+ * <p>The components are released when this buffer is released.
+ *
+ * @since 5.3
+ */
+final class CompositeDataBuffer implements PooledDataBuffer {
+
+	private final DataBufferFactory dataBufferFactory;
+
+	@Nullable
+	private DataBuffer[] components;
+
+	/** Index of the first byte of each component within this buffer. */
+	private final int[] offsets;
+
+	private final int capacity;
+
+	private int readPosition;
+
+	private int writePosition;
+
+	/** Last component used, as a starting point for the next lookup. */
+	private int lastComponent;
+
+	@Nullable
+	private DataBuffer consolidated;
+
+	private final AtomicInteger refCount = new AtomicInteger(1);
+
+
+	CompositeDataBuffer(DataBufferFactory dataBufferFactory, List<? extends DataBuffer> dataBuffers) {
+		Assert.notNull(dataBufferFactory, "DataBufferFactory must not be null");
+		Assert.notEmpty(dataBuffers, "DataBuffer List must not be empty");
+		this.dataBufferFactory = dataBufferFactory;
+		this.components = new DataBuffer[dataBuffers.size()];
+		this.offsets = new int[dataBuffers.size()];
+		int capacity = 0;
+		for (int i = 0; i < this.components.length; i++) {
+			DataBuffer component = dataBuffers.get(i);
+			this.components[i] = component;
+			this.offsets[i] = capacity;
+			capacity += component.readableByteCount();
+		}
+		this.capacity = capacity;
+		this.writePosition = capacity;
+	}
+
+
+	@Override
+	public DataBufferFactory factory() {
+		return this.dataBufferFactory;
+	}
+
+	@Override
+	public int indexOf(IntPredicate predicate, int fromIndex) {
+		if (this.consolidated != null) {
+			return this.consolidated.indexOf(predicate, fromIndex);
+		}
+		Assert.notNull(predicate, "IntPredicate must not be null");
+		if (fromIndex < 0) {
+			fromIndex = 0;
+		}
+		else if (fromIndex >= this.writePosition) {
+			return -1;
+		}
+		for (int i = fromIndex; i < this.writePosition; i++) {
+			if (predicate.test(getByte(i))) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public int lastIndexOf(IntPredicate predicate, int fromIndex) {
+		if (this.consolidated != null) {
+			return this.consolidated.lastIndexOf(predicate, fromIndex);
+		}
+		Assert.notNull(predicate, "IntPredicate must not be null");
+		for (int i = Math.min(fromIndex, this.writePosition - 1); i >= 0; i--) {
+			if (predicate.test(getByte(i))) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public int readableByteCount() {
+		return (this.consolidated != null ? this.consolidated.readableByteCount() :
+				this.writePosition - this.readPosition);
+	}
+
+	@Override
+	public int writableByteCount() {
+		return (this.consolidated != null ? this.consolidated.writableByteCount() :
+				this.capacity - this.writePosition);
+	}
+
+	@Override
+	public int capacity() {
+		return (this.consolidated != null ? this.consolidated.capacity() : this.capacity);
+	}
+
+	@Override
+	public DataBuffer capacity(int capacity) {
+		consolidate().capacity(capacity);
+		return this;
+	}
+
+	@Override
+	public DataBuffer ensureCapacity(int capacity) {
+		if (this.consolidated != null || capacity > writableByteCount()) {
+			consolidate().ensureCapacity(capacity);
+		}
+		return this;
+	}
+
+	@Override
+	public int readPosition() {
+		return (this.consolidated != null ? this.consolidated.readPosition() : this.readPosition);
+	}
+
+	@Override
+	public DataBuffer readPosition(int readPosition) {
+		if (this.consolidated != null) {
+			this.consolidated.readPosition(readPosition);
+			return this;
+		}
+		assertIndex(readPosition >= 0, "'readPosition' %d must be >= 0", readPosition);
+		assertIndex(readPosition <= this.writePosition, "'readPosition' %d must be <= %d",
+				readPosition, this.writePosition);
+		this.readPosition = readPosition;
+		return this;
+	}
+
+	@Override
+	public int writePosition() {
+		return (this.consolidated != null ? this.consolidated.writePosition() : this.writePosition);
+	}
+
+	@Override
+	public DataBuffer writePosition(int writePosition) {
+		if (this.consolidated != null) {
+			this.consolidated.writePosition(writePosition);
+			return this;
+		}
+		assertIndex(writePosition >= this.readPosition, "'writePosition' %d must be >= %d",
+				writePosition, this.readPosition);
+		assertIndex(writePosition <= this.capacity, "'writePosition' %d must be <= %d",
+				writePosition, this.capacity);
+		this.writePosition = writePosition;
+		return this;
+	}
+
+	@Override
+	public byte getByte(int index) {
+		if (this.consolidated != null) {
+			return this.consolidated.getByte(index);
+		}
+		assertIndex(index >= 0, "index %d must be >= 0", index);
+		assertIndex(index <= this.writePosition - 1, "index %d must be <= %d", index, this.writePosition - 1);
+		int i = componentIndex(index);
+		DataBuffer component = component(i);
+		return component.getByte(component.readPosition() + index - this.offsets[i]);
+	}
+
+	@Override
+	public byte read() {
+		if (this.consolidated != null) {
+			return this.consolidated.read();
+		}
+		byte b = getByte(this.readPosition);
+		this.readPosition++;
+		return b;
+	}
+
+	@Override
+	public DataBuffer read(byte[] destination) {
+		return read(destination, 0, destination.length);
+	}
+
+	@Override
+	public DataBuffer read(byte[] destination, int offset, int length) {
+		if (this.consolidated != null) {
+			this.consolidated.read(destination, offset, length);
+			return this;
+		}
+		Assert.notNull(destination, "Byte array must not be null");
+		assertIndex(length <= readableByteCount(), "length %d must be <= %d", length, readableByteCount());
+		copy(this.readPosition, destination, offset, length);
+		this.readPosition += length;
+		return this;
+	}
+
+	@Override
+	public DataBuffer write(byte b) {
+		consolidate().write(b);
+		return this;
+	}
+
+	@Override
+	public DataBuffer write(byte[] source) {
+		consolidate().write(source);
+		return this;
+	}
+
+	@Override
+	public DataBuffer write(byte[] source, int offset, int length) {
+		consolidate().write(source, offset, length);
+		return this;
+	}
+
+	@Override
+	public DataBuffer write(DataBuffer... buffers) {
+		consolidate().write(buffers);
+		return this;
+	}
+
+	@Override
+	public DataBuffer write(ByteBuffer... buffers) {
+		consolidate().write(buffers);
+		return this;
+	}
+
+	@Override
+	public DataBuffer slice(int index, int length) {
+		if (this.consolidated != null) {
+			return this.consolidated.slice(index, length);
+		}
+		checkIndex(index, length);
+		int i = componentIndex(index);
+		DataBuffer component = component(i);
+		int componentIndex = index - this.offsets[i];
+		if (componentIndex + length <= component.readableByteCount()) {
+			return component.slice(component.readPosition() + componentIndex, length);
+		}
+		return consolidate().slice(index, length);
+	}
+
+	@Override
+	public ByteBuffer asByteBuffer() {
+		return asByteBuffer(readPosition(), readableByteCount());
+	}
+
+	@Override
+	public ByteBuffer asByteBuffer(int index, int length) {
+		if (this.consolidated != null) {
+			return this.consolidated.asByteBuffer(index, length);
+		}
+		checkIndex(index, length);
+		int i = componentIndex(index);
+		DataBuffer component = component(i);
+		int componentIndex = index - this.offsets[i];
+		if (componentIndex + length <= component.readableByteCount()) {
+			return component.asByteBuffer(component.readPosition() + componentIndex, length);
+		}
+		return consolidate().asByteBuffer(index, length);
+	}
+
+	@Override
+	public InputStream asInputStream() {
+		return new CompositeDataBufferInputStream(false);
+	}
+
+	@Override
+	public InputStream asInputStream(boolean releaseOnClose) {
+		return new CompositeDataBufferInputStream(releaseOnClose);
+	}
+
+	@Override
+	public OutputStream asOutputStream() {
+		return consolidate().asOutputStream();
+	}
+
+	@Override
+	public String toString(int index, int length, Charset charset) {
+		if (this.consolidated != null) {
+			return this.consolidated.toString(index, length, charset);
+		}
+		checkIndex(index, length);
+		Assert.notNull(charset, "Charset must not be null");
+		int i = componentIndex(index);
+		DataBuffer component = component(i);
+		int componentIndex = index - this.offsets[i];
+		if (componentIndex + length <= component.readableByteCount()) {
+			return component.toString(component.readPosition() + componentIndex, length, charset);
+		}
+		byte[] bytes = new byte[length];
+		copy(index, bytes, 0, length);
+		return new String(bytes, charset);
+	}
+
+	@Override
+	public boolean isAllocated() {
+		return this.refCount.get() > 0;
+	}
+
+	@Override
+	public PooledDataBuffer retain() {
+		int count;
+		do {
+			count = this.refCount.get();
+			Assert.state(count > 0, "DataBuffer has already been released");
+		}
+		while (!this.refCount.compareAndSet(count, count + 1));
+		return this;
+	}
+
+	@Override
+	public boolean release() {
+		int count = this.refCount.decrementAndGet();
+		if (count > 0) {
+			return false;
+		}
+		else if (count < 0) {
+			this.refCount.incrementAndGet();
+			throw new IllegalStateException("DataBuffer has already been released");
+		}
+		if (this.consolidated != null) {
+			DataBufferUtils.release(this.consolidated);
+		}
+		else if (this.components != null) {
+			for (DataBuffer component : this.components) {
+				DataBufferUtils.release(component);
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Copy the contents of all components into a single buffer, and release
+	 * the components.
+	 */
+	private DataBuffer consolidate() {
+		DataBuffer consolidated = this.consolidated;
+		if (consolidated == null) {
+			DataBuffer[] components = this.components;
+			Assert.state(components != null, "No components");
+			consolidated = this.dataBufferFactory.allocateBuffer(this.capacity);
+			for (DataBuffer component : components) {
+				consolidated.write(component.asByteBuffer());
+			}
+			consolidated.readPosition(this.readPosition);
+			consolidated.writePosition(this.writePosition);
+			for (DataBuffer component : components) {
+				DataBufferUtils.release(component);
+			}
+			this.components = null;
+			this.consolidated = consolidated;
+		}
+		return consolidated;
+	}
+
+	private DataBuffer component(int index) {
+		Assert.state(this.components != null, "No components");
+		return this.components[index];
+	}
+
+	/**
+	 * Return the index of the component that holds the byte at the given index.
+	 */
+	private int componentIndex(int index) {
+		int i = this.lastComponent;
+		if (index >= this.offsets[i] && (i + 1 == this.offsets.length || index < this.offsets[i + 1])) {
+			return i;
+		}
+		int low = 0;
+		int high = this.offsets.length - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (this.offsets[mid] <= index) {
+				low = mid;
+			}
+			else {
+				high = mid - 1;
+			}
+		}
+		this.lastComponent = low;
+		return low;
+	}
+
+	/**
+	 * Copy {@code length} bytes starting at {@code index} into the given array.
+	 */
+	private void copy(int index, byte[] destination, int offset, int length) {
+		while (length > 0) {
+			int i = componentIndex(index);
+			DataBuffer component = component(i);
+			int componentIndex = index - this.offsets[i];
+			int count = Math.min(length, component.readableByteCount() - componentIndex);
+			component.asByteBuffer(component.readPosition() + componentIndex, count).get(destination, offset, count);
+			index += count;
+			offset += count;
+			length -= count;
+		}
+	}
+
+	private void checkIndex(int index, int length) {
+		assertIndex(index >= 0, "index %d must be >= 0", index);
+		assertIndex(length >= 0, "length %d must be >= 0", length);
+		assertIndex(index + length <= this.capacity, "index + length %d must be <= %d",
+				index + length, this.capacity);
+	}
+
+	private void assertIndex(boolean expression, String format, Object... args) {
+		if (!expression) {
+			String message = String.format(format, args);
+			throw new IndexOutOfBoundsException(message);
+		}
+	}
+
+
+	@Override
+	public boolean equals(@Nullable Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof CompositeDataBuffer)) {
+			return false;
+		}
+		CompositeDataBuffer otherBuffer = (CompositeDataBuffer) other;
+		int readableByteCount = readableByteCount();
+		if (readableByteCount != otherBuffer.readableByteCount()) {
+			return false;
+		}
+		int readPosition = readPosition();
+		int otherReadPosition = otherBuffer.readPosition();
+		for (int i = 0; i < readableByteCount; i++) {
+			if (getByte(readPosition + i) != otherBuffer.getByte(otherReadPosition + i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		int hashCode = 1;
+		int writePosition = writePosition();
+		for (int i = readPosition(); i < writePosition; i++) {
+			hashCode = 31 * hashCode + getByte(i);
+		}
+		return hashCode;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("CompositeDataBuffer (r: %d, w: %d, c: %d, components: %d)",
+				readPosition(), writePosition(), capacity(),
+				(this.components != null ? this.components.length : 1));
+	}
+
+
+	private class CompositeDataBufferInputStream extends InputStream {
+
+		private final boolean releaseOnClose;
+
+		private boolean closed;
+
+		CompositeDataBufferInputStream(boolean releaseOnClose) {
+			this.releaseOnClose = releaseOnClose;
+		}
+
+		@Override
+		public int available() {
+			return readableByteCount();
+		}
+
+		@Override
+		public int read() {
+			return (available() > 0 ? CompositeDataBuffer.this.read() & 0xFF : -1);
+		}
+
+		@Override
+		public int read(byte[] bytes, int off, int len) {
+			int available = available();
+			if (available > 0) {
+				len = Math.min(len, available);
+				CompositeDataBuffer.this.read(bytes, off, len);
+				return len;
+			}
+			else {
+				return -1;
+			}
+		}
+
+		@Override
+		public void close() {
+			if (this.releaseOnClose && !this.closed) {
+				this.closed = true;
+				DataBufferUtils.release(CompositeDataBuffer.this);
+			}
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -62,6 +62,24 @@ public interface DataBufferFactory {
 	 */
 	DataBuffer wrap(byte[] bytes);
 
+	/**
+	 * Wrap the given {@link ByteBuffer} in a read-only {@code DataBuffer}, for
+	 * memory that this factory does not own, such as a region of a
+	 * {@linkplain java.nio.MappedByteBuffer memory-mapped file}. Releasing the
+	 * returned buffer never recycles the memory of the given byte buffer; it
+	 * remains valid for as long as it is referenced.
+	 * <p>The default implementation {@linkplain #wrap(ByteBuffer) wraps} a
+	 * {@linkplain ByteBuffer#asReadOnlyBuffer() read-only view} of the given
+	 * byte buffer.
+	 * @param byteBuffer the NIO byte buffer to wrap
+	 * @return the wrapped buffer
+	 * @since 5.3
+	 * @see DataBufferUtils#readMapped(java.nio.file.Path, long, long, DataBufferFactory, int)
+	 */
+	default DataBuffer wrapReadOnly(ByteBuffer byteBuffer) {
+		return wrap(byteBuffer.asReadOnlyBuffer());
+	}
+
 	/**
 	 * Return a new {@code DataBuffer} composed of the {@code dataBuffers} elements joined together.
 	 * Depending on the implementation, the returned buffer may be a single buffer containing all
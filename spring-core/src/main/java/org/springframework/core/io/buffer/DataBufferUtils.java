@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,11 +20,13 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.channels.AsynchronousFileChannel;
 import java.nio.channels.Channel;
 import java.nio.channels.Channels;
 import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.nio.file.OpenOption;
@@ -32,6 +34,7 @@ import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -230,6 +233,99 @@ public abstract class DataBufferUtils {
 	}
 
 
+	/**
+	 * Read the given {@code Resource} into a {@code Flux} of read-only
+	 * {@code DataBuffer}s that share the memory of a memory-mapped file,
+	 * rather than being copied into newly allocated buffers.
+	 * <p>See {@link #readMapped(Path, long, long, DataBufferFactory, int)} for
+	 * details. If the resource is not a file, this method falls back on
+	 * {@link #read(Resource, long, DataBufferFactory, int)}.
+	 * @param resource the resource to read from
+	 * @param position the position to start reading from
+	 * @param bufferFactory the factory to wrap the mapped regions with
+	 * @param bufferSize the maximum size of the data buffers
+	 * @return a Flux of data buffers read from the given resource
+	 * @since 5.3
+	 */
+	public static Flux<DataBuffer> readMapped(
+			Resource resource, long position, DataBufferFactory bufferFactory, int bufferSize) {
+
+		try {
+			if (resource.isFile()) {
+				return readMapped(resource.getFile().toPath(), position, Long.MAX_VALUE, bufferFactory, bufferSize);
+			}
+		}
+		catch (IOException ignore) {
+			// fallback to read, below
+		}
+		return read(resource, position, bufferFactory, bufferSize);
+	}
+
+	/**
+	 * Read a region of the given file into a {@code Flux} of read-only
+	 * {@code DataBuffer}s that share the memory of a memory-mapped file,
+	 * rather than being copied into newly allocated buffers. The buffers are
+	 * created through {@link DataBufferFactory#wrapReadOnly(ByteBuffer)}.
+	 * <p>Mappings of files up to 32 MB are kept in a bounded cache that is
+	 * shared by all invocations of this method, and reused for as long as the
+	 * size and modification time of the file are unchanged. Larger files are
+	 * mapped in windows for each invocation. See
+	 * {@link #readMapped(Path, long, long, DataBufferFactory, int, boolean)}
+	 * for mapping without the cache.
+	 * <p>This mode suits large, frequently read files that are not modified
+	 * while being read. Note that the file contents are read lazily, as the
+	 * returned buffers are accessed, which may block the accessing thread if
+	 * the contents are not in the page cache of the operating system.
+	 * Also, cached mappings keep their files open, which on Windows prevents
+	 * them from being deleted or replaced, and a file truncated while mapped
+	 * raises an {@link InternalError} rather than an {@link IOException} when
+	 * the missing contents are accessed.
+	 * @param path the file to read from
+	 * @param position the position to start reading from
+	 * @param count the maximum number of bytes to read
+	 * @param bufferFactory the factory to wrap the mapped regions with
+	 * @param bufferSize the maximum size of the data buffers
+	 * @return a Flux of data buffers read from the given file
+	 * @since 5.3
+	 */
+	public static Flux<DataBuffer> readMapped(
+			Path path, long position, long count, DataBufferFactory bufferFactory, int bufferSize) {
+
+		return readMapped(path, position, count, bufferFactory, bufferSize, true);
+	}
+
+	/**
+	 * Variant of {@link #readMapped(Path, long, long, DataBufferFactory, int)}
+	 * that allows for the shared cache of mappings to be bypassed, in which
+	 * case files of any size are mapped in windows for each invocation only,
+	 * and are no longer kept open once the returned {@code Flux} terminates.
+	 * @param path the file to read from
+	 * @param position the position to start reading from
+	 * @param count the maximum number of bytes to read
+	 * @param bufferFactory the factory to wrap the mapped regions with
+	 * @param bufferSize the maximum size of the data buffers
+	 * @param useCache whether to use the shared cache of mappings
+	 * @return a Flux of data buffers read from the given file
+	 * @since 5.3
+	 */
+	public static Flux<DataBuffer> readMapped(Path path, long position, long count,
+			DataBufferFactory bufferFactory, int bufferSize, boolean useCache) {
+
+		Assert.notNull(path, "Path must not be null");
+		Assert.notNull(bufferFactory, "BufferFactory must not be null");
+		Assert.isTrue(position >= 0, "'position' must be >= 0");
+		Assert.isTrue(count >= 0, "'count' must be >= 0");
+		Assert.isTrue(bufferSize > 0, "'bufferSize' must be > 0");
+
+		Flux<DataBuffer> flux = Flux.using(
+				() -> new MappedFileGenerator(path, position, count, bufferFactory, bufferSize, useCache),
+				Flux::generate,
+				MappedFileGenerator::close);
+
+		return flux.doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
+	}
+
+
 	//---------------------------------------------------------------------
 	// Writing
 	//---------------------------------------------------------------------
@@ -519,6 +615,11 @@ public abstract class DataBufferUtils {
 	 * {@linkplain #release(DataBuffer) released}.
 	 * <p>Note that the given data buffers do <strong>not</strong> have to be
 	 * released. They will be released as part of the returned composite.
+	 * <p>As of 5.3, buffers from a {@link DefaultDataBufferFactory} are joined
+	 * through {@link DefaultDataBufferFactory#compose(List)}: the returned
+	 * buffer is then a reference-counted {@link PooledDataBuffer} rather than a
+	 * {@link DefaultDataBuffer}, and should be {@linkplain #release(DataBuffer)
+	 * released} once consumed so that the given buffers are released as well.
 	 * @param dataBuffers the data buffers that are to be composed
 	 * @return a buffer that is composed from the {@code dataBuffers} argument
 	 * @since 5.0.3
@@ -550,10 +651,19 @@ public abstract class DataBufferUtils {
 		return Flux.from(buffers)
 				.collect(() -> new LimitedDataBufferList(maxByteCount), LimitedDataBufferList::add)
 				.filter(list -> !list.isEmpty())
-				.map(list -> list.get(0).factory().join(list))
+				.map(DataBufferUtils::join)
 				.doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
 	}
 
+	private static DataBuffer join(List<? extends DataBuffer> dataBuffers) {
+		DataBufferFactory factory = dataBuffers.get(0).factory();
+		if (factory instanceof DefaultDataBufferFactory) {
+			// Refer to the buffers rather than copying them
+			return ((DefaultDataBufferFactory) factory).compose(dataBuffers);
+		}
+		return factory.join(dataBuffers);
+	}
+
 	/**
 	 * Return a {@link Matcher} for the given delimiter.
 	 * The matcher can be used to find the delimiters in data buffers.
@@ -659,6 +769,97 @@ public abstract class DataBufferUtils {
 	}
 
 
+	private static class MappedFileGenerator implements Consumer<SynchronousSink<DataBuffer>> {
+
+		/** The maximum size of a mapping of a file that is not cached. */
+		private static final long MAX_WINDOW_SIZE = 64 * 1024 * 1024;
+
+		private final Path path;
+
+		private final DataBufferFactory dataBufferFactory;
+
+		private final int bufferSize;
+
+		private final boolean useCache;
+
+		private long position;
+
+		private long remaining;
+
+		@Nullable
+		private ByteBuffer mapping;
+
+		@Nullable
+		private FileChannel channel;
+
+		public MappedFileGenerator(Path path, long position, long count,
+				DataBufferFactory dataBufferFactory, int bufferSize, boolean useCache) {
+
+			this.path = path;
+			this.position = position;
+			this.remaining = count;
+			this.dataBufferFactory = dataBufferFactory;
+			this.bufferSize = bufferSize;
+			this.useCache = useCache;
+		}
+
+		@Override
+		public void accept(SynchronousSink<DataBuffer> sink) {
+			try {
+				ByteBuffer mapping = this.mapping;
+				if (mapping == null || !mapping.hasRemaining()) {
+					mapping = nextMapping();
+					if (mapping == null) {
+						sink.complete();
+						return;
+					}
+					this.mapping = mapping;
+				}
+				int length = Math.min(mapping.remaining(), this.bufferSize);
+				ByteBuffer slice = mapping.slice();
+				((Buffer) slice).limit(length);
+				((Buffer) mapping).position(mapping.position() + length);
+				sink.next(this.dataBufferFactory.wrapReadOnly(slice));
+			}
+			catch (IOException ex) {
+				sink.error(ex);
+			}
+		}
+
+		@Nullable
+		private ByteBuffer nextMapping() throws IOException {
+			if (this.remaining <= 0) {
+				return null;
+			}
+			if (this.channel == null) {
+				ByteBuffer file = (this.useCache ? MappedFileCache.SHARED.get(this.path) : null);
+				if (file != null) {
+					long size = Math.min(this.remaining, file.capacity() - this.position);
+					this.remaining = 0;
+					if (size <= 0) {
+						return null;
+					}
+					((Buffer) file).position((int) this.position).limit((int) (this.position + size));
+					return file;
+				}
+				this.channel = FileChannel.open(this.path, StandardOpenOption.READ);
+			}
+			long size = Math.min(Math.min(this.remaining, this.channel.size() - this.position), MAX_WINDOW_SIZE);
+			if (size <= 0) {
+				return null;
+			}
+			ByteBuffer window = this.channel.map(FileChannel.MapMode.READ_ONLY, this.position, size);
+			this.position += size;
+			this.remaining -= size;
+			return window;
+		}
+
+		public void close() {
+			closeChannel(this.channel);
+		}
+	}
+
+
 	private static class ReadCompletionHandler implements CompletionHandler<Integer, DataBuffer> {
 
 		private final AsynchronousFileChannel channel;
@@ -104,6 +104,7 @@ public class DefaultDataBufferFactory implements DataBufferFactory {
 	 * {@inheritDoc}
 	 * <p>This implementation creates a single {@link DefaultDataBuffer}
 	 * to contain the data in {@code dataBuffers}.
+	 * @see #compose(List)
 	 */
 	@Override
 	public DefaultDataBuffer join(List<? extends DataBuffer> dataBuffers) {
@@ -115,6 +116,26 @@ public class DefaultDataBufferFactory implements DataBufferFactory {
 		return result;
 	}
 
+	/**
+	 * Variant of {@link #join(List)} that returns a composite buffer referring
+	 * to the given buffers, rather than copying their contents. The contents
+	 * are only copied into a single buffer when the composite is written to,
+	 * or when a {@link DataBuffer#asByteBuffer() ByteBuffer} spanning several
+	 * of the given buffers is requested. A single given buffer is returned as-is.
+	 * <p>As with {@link #join(List)}, the given data buffers are released as
+	 * part of the returned buffer.
+	 * @param dataBuffers the data buffers to be composed
+	 * @return a buffer that is composed from the {@code dataBuffers} argument
+	 * @since 5.3
+	 * @see DataBufferUtils#join(org.reactivestreams.Publisher)
+	 */
+	public DataBuffer compose(List<? extends DataBuffer> dataBuffers) {
+		Assert.notEmpty(dataBuffers, "DataBuffer List must not be empty");
+		if (dataBuffers.size() == 1) {
+			return dataBuffers.get(0);
+		}
+		return new CompositeDataBuffer(this, dataBuffers);
+	}
 
 	@Override
 	public String toString() {
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Bounded, least-recently-used cache of read-only memory mappings of whole
+ * files, used by {@link DataBufferUtils#readMapped}.
+ *
+ * <p>A mapping is reused for as long as the size and last modification time
+ * of its file are unchanged, and is replaced otherwise. Files larger than the
+ * maximum file size are not cached. Evicted mappings are not unmapped
+ * explicitly, but are left to the garbage collector, so that buffers still
+ * referring to them remain valid.
+ *
+ * @since 5.3
+ */
+final class MappedFileCache {
+
+	/** The default maximum number of cached mappings. */
+	static final int DEFAULT_MAX_ENTRIES = 256;
+
+	/** The default maximum total size of all cached mappings. */
+	static final long DEFAULT_MAX_TOTAL_SIZE = 256 * 1024 * 1024;
+
+	/** The default maximum size of a file for its mapping to be cached. */
+	static final long DEFAULT_MAX_FILE_SIZE = 32 * 1024 * 1024;
+
+	static final MappedFileCache SHARED =
+			new MappedFileCache(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_TOTAL_SIZE, DEFAULT_MAX_FILE_SIZE);
+
+
+	private final int maxEntries;
+
+	private final long maxTotalSize;
+
+	private final long maxFileSize;
+
+	private final Map<Path, Mapping> mappings = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long totalSize;
+
+
+	MappedFileCache(int maxEntries, long maxTotalSize, long maxFileSize) {
+		this.maxEntries = maxEntries;
+		this.maxTotalSize = maxTotalSize;
+		this.maxFileSize = Math.min(maxFileSize, maxTotalSize);
+	}
+
+
+	/**
+	 * Return a mapping of the entire given file, positioned at 0.
+	 * @param path the file to map
+	 * @return an independent view of the mapping, or {@code null} if the file
+	 * is too large to be cached
+	 * @throws IOException in case of I/O errors
+	 */
+	@Nullable
+	ByteBuffer get(Path path) throws IOException {
+		BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		long size = attributes.size();
+		if (size > this.maxFileSize) {
+			return null;
+		}
+		FileTime lastModified = attributes.lastModifiedTime();
+		synchronized (this.mappings) {
+			Mapping mapping = this.mappings.get(path);
+			if (mapping != null && mapping.matches(size, lastModified)) {
+				return mapping.buffer.duplicate();
+			}
+		}
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		}
+		synchronized (this.mappings) {
+			Mapping previous = this.mappings.put(path, new Mapping(buffer, size, lastModified));
+			if (previous != null) {
+				this.totalSize -= previous.size;
+			}
+			this.totalSize += size;
+			Iterator<Mapping> iterator = this.mappings.values().iterator();
+			while (this.mappings.size() > this.maxEntries || this.totalSize > this.maxTotalSize) {
+				this.totalSize -= iterator.next().size;
+				iterator.remove();
+			}
+		}
+		return buffer.duplicate();
+	}
+
+	/**
+	 * Return whether a mapping of the given file is cached.
+	 */
+	boolean contains(Path path) {
+		synchronized (this.mappings) {
+			return this.mappings.containsKey(path);
+		}
+	}
+
+	/**
+	 * Return the number of cached mappings.
+	 */
+	int size() {
+		synchronized (this.mappings) {
+			return this.mappings.size();
+		}
+	}
+
+	/**
+	 * Return the total size of all cached mappings.
+	 */
+	long totalSize() {
+		synchronized (this.mappings) {
+			return this.totalSize;
+		}
+	}
+
+
+	private static final class Mapping {
+
+		final ByteBuffer buffer;
+
+		final long size;
+
+		final FileTime lastModified;
+
+		Mapping(ByteBuffer buffer, long size, FileTime lastModified) {
+			this.buffer = buffer;
+			this.size = size;
+			this.lastModified = lastModified;
+		}
+
+		boolean matches(long size, FileTime lastModified) {
+			return (this.size == size && this.lastModified.equals(lastModified));
+		}
+	}
+
+}
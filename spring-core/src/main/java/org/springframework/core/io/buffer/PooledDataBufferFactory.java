@@ -0,0 +1,502 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link DefaultDataBufferFactory} subclass that recycles the memory of
+ * released buffers. Allocated buffers implement {@link PooledDataBuffer}: they
+ * start with a reference count of 1, and return their memory to this factory
+ * once {@linkplain PooledDataBuffer#release() released} down to 0.
+ *
+ * <p>Memory is cached in size classes: each requested capacity is rounded up
+ * to the next power of two, starting at {@code 256} bytes, and served from the
+ * cache of that size class when possible. Requests larger than the
+ * {@linkplain #getMaxPooledCapacity() maximum pooled capacity} are not cached,
+ * but are still reference counted. Each size class holds at most
+ * {@linkplain #getMaxBuffersPerSizeClass() a fixed number} of idle buffers;
+ * buffers released beyond that number are left to the garbage collector.
+ *
+ * <p>This factory is meant for servers that do not come with their own
+ * buffer pool, such as Tomcat and Undertow, where every request and response
+ * chunk would otherwise be a new allocation, and can be configured on their
+ * adapters as an opt-in. As with Netty's pooled buffers, a buffer must not be
+ * used after it has been released, since its memory may already have been
+ * handed out to another buffer. This rules out servers that hold on to
+ * written buffers beyond the write call, such as Jetty.
+ *
+ * <p>Buffers that are garbage collected without having been released are
+ * simply not returned to the pool. When {@linkplain #setLeakDetection(boolean)
+ * leak detection} is enabled, such buffers are reported as a warning, along
+ * with the stack trace of their allocation.
+ *
+ * @since 5.3
+ */
+public class PooledDataBufferFactory extends DefaultDataBufferFactory {
+
+	/**
+	 * The default maximum capacity of buffers that are pooled.
+	 * @see #PooledDataBufferFactory(boolean, int, int)
+	 */
+	public static final int DEFAULT_MAX_POOLED_CAPACITY = 64 * 1024;
+
+	/**
+	 * The default maximum number of idle buffers kept per size class.
+	 * @see #PooledDataBufferFactory(boolean, int, int)
+	 */
+	public static final int DEFAULT_MAX_BUFFERS_PER_SIZE_CLASS = 32;
+
+	private static final int MIN_SIZE_CLASS_SHIFT = 8;
+
+
+	private static final Log logger = LogFactory.getLog(PooledDataBufferFactory.class);
+
+	private final boolean preferDirect;
+
+	private final int maxPooledCapacity;
+
+	private final int maxBuffersPerSizeClass;
+
+	private final SizeClass[] sizeClasses;
+
+	private volatile boolean leakDetection;
+
+	private final ReferenceQueue<DataBuffer> leakQueue = new ReferenceQueue<>();
+
+	private final Map<LeakTracker, Boolean> leakTrackers = new ConcurrentHashMap<>();
+
+	private final LongAdder allocations = new LongAdder();
+
+	private final LongAdder pooledAllocations = new LongAdder();
+
+	private final LongAdder releases = new LongAdder();
+
+	private final LongAdder leaks = new LongAdder();
+
+
+	/**
+	 * Creates a new {@code PooledDataBufferFactory} for heap buffers,
+	 * with default settings.
+	 */
+	public PooledDataBufferFactory() {
+		this(false);
+	}
+
+	/**
+	 * Creates a new {@code PooledDataBufferFactory}, indicating whether direct
+	 * buffers should be created by {@link #allocateBuffer()} and
+	 * {@link #allocateBuffer(int)}.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 */
+	public PooledDataBufferFactory(boolean preferDirect) {
+		this(preferDirect, DEFAULT_MAX_POOLED_CAPACITY, DEFAULT_MAX_BUFFERS_PER_SIZE_CLASS);
+	}
+
+	/**
+	 * Creates a new {@code PooledDataBufferFactory} with the given pool settings.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 * @param maxPooledCapacity the capacity above which buffers are not pooled
+	 * @param maxBuffersPerSizeClass the maximum number of idle buffers kept
+	 * per size class
+	 */
+	public PooledDataBufferFactory(boolean preferDirect, int maxPooledCapacity, int maxBuffersPerSizeClass) {
+		super(preferDirect);
+		Assert.isTrue(maxPooledCapacity >= 1 << MIN_SIZE_CLASS_SHIFT,
+				"'maxPooledCapacity' should be at least " + (1 << MIN_SIZE_CLASS_SHIFT));
+		Assert.isTrue(maxBuffersPerSizeClass > 0, "'maxBuffersPerSizeClass' should be larger than 0");
+		this.preferDirect = preferDirect;
+		this.maxBuffersPerSizeClass = maxBuffersPerSizeClass;
+		int maxShift = 32 - Integer.numberOfLeadingZeros(maxPooledCapacity - 1);
+		this.maxPooledCapacity = 1 << maxShift;
+		this.sizeClasses = new SizeClass[maxShift - MIN_SIZE_CLASS_SHIFT + 1];
+		for (int i = 0; i < this.sizeClasses.length; i++) {
+			this.sizeClasses[i] = new SizeClass(1 << (MIN_SIZE_CLASS_SHIFT + i), maxBuffersPerSizeClass);
+		}
+	}
+
+
+	/**
+	 * Enable or disable tracking of buffers that are garbage collected without
+	 * having been released. Detected leaks are logged as a warning, including
+	 * the stack trace of the allocation, and counted in {@link #getLeakCount()}.
+	 * <p>Since every allocation records a stack trace, this is meant for
+	 * diagnostics rather than for production use. By default this is off.
+	 */
+	public void setLeakDetection(boolean leakDetection) {
+		this.leakDetection = leakDetection;
+	}
+
+	/**
+	 * Whether {@linkplain #setLeakDetection(boolean) leak detection} is enabled.
+	 */
+	public boolean isLeakDetection() {
+		return this.leakDetection;
+	}
+
+	/**
+	 * Return the capacity above which buffers are not pooled, rounded up to
+	 * a power of two.
+	 */
+	public int getMaxPooledCapacity() {
+		return this.maxPooledCapacity;
+	}
+
+	/**
+	 * Return the maximum number of idle buffers kept per size class.
+	 */
+	public int getMaxBuffersPerSizeClass() {
+		return this.maxBuffersPerSizeClass;
+	}
+
+
+	@Override
+	public DefaultDataBuffer allocateBuffer(int initialCapacity) {
+		Assert.isTrue(initialCapacity >= 0, "'initialCapacity' should not be negative");
+		this.allocations.increment();
+		if (this.leakDetection) {
+			reportLeaks();
+		}
+		ByteBuffer segment = acquireSegment(initialCapacity, this.preferDirect);
+		ByteBuffer byteBuffer = (ByteBuffer) ((Buffer) segment.duplicate()).limit(initialCapacity);
+		PooledDefaultDataBuffer dataBuffer = new PooledDefaultDataBuffer(this, segment, byteBuffer);
+		if (this.leakDetection) {
+			dataBuffer.leakTracker = new LeakTracker(dataBuffer, this.leakQueue);
+			this.leakTrackers.put(dataBuffer.leakTracker, Boolean.TRUE);
+		}
+		return dataBuffer;
+	}
+
+	/**
+	 * Return a segment with a capacity of at least {@code capacity} bytes,
+	 * taken from the pool if possible.
+	 */
+	ByteBuffer acquireSegment(int capacity, boolean direct) {
+		SizeClass sizeClass = (direct == this.preferDirect ? sizeClassFor(capacity) : null);
+		if (sizeClass != null) {
+			ByteBuffer segment = sizeClass.poll();
+			if (segment != null) {
+				this.pooledAllocations.increment();
+				return segment;
+			}
+			capacity = sizeClass.segmentSize;
+		}
+		return (direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity));
+	}
+
+	/**
+	 * Return the given segment to the pool, if it fits in a size class that
+	 * still has room.
+	 */
+	void releaseSegment(ByteBuffer segment) {
+		if (segment.isDirect() == this.preferDirect) {
+			SizeClass sizeClass = sizeClassFor(segment.capacity());
+			if (sizeClass != null && sizeClass.segmentSize == segment.capacity()) {
+				((Buffer) segment).clear();
+				sizeClass.offer(segment);
+			}
+		}
+	}
+
+	@Nullable
+	private SizeClass sizeClassFor(int capacity) {
+		if (capacity > this.maxPooledCapacity) {
+			return null;
+		}
+		int shift = (capacity <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(capacity - 1));
+		return this.sizeClasses[Math.max(shift - MIN_SIZE_CLASS_SHIFT, 0)];
+	}
+
+	private void bufferReleased(PooledDefaultDataBuffer dataBuffer) {
+		this.releases.increment();
+		LeakTracker leakTracker = dataBuffer.leakTracker;
+		if (leakTracker != null) {
+			leakTracker.clear();
+			this.leakTrackers.remove(leakTracker);
+		}
+	}
+
+	private void reportLeaks() {
+		Reference<? extends DataBuffer> reference;
+		while ((reference = this.leakQueue.poll()) != null) {
+			LeakTracker leakTracker = (LeakTracker) reference;
+			if (this.leakTrackers.remove(leakTracker) != null) {
+				this.leaks.increment();
+				if (logger.isWarnEnabled()) {
+					logger.warn("LEAK: DataBuffer was garbage collected without being released. " +
+							"Allocated at:", leakTracker.allocation);
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Return the total number of buffers allocated by this factory.
+	 */
+	public long getAllocationCount() {
+		return this.allocations.sum();
+	}
+
+	/**
+	 * Return the number of allocations that were served from the pool.
+	 */
+	public long getPooledAllocationCount() {
+		return this.pooledAllocations.sum();
+	}
+
+	/**
+	 * Return the number of buffers that have been released.
+	 */
+	public long getReleaseCount() {
+		return this.releases.sum();
+	}
+
+	/**
+	 * Return the number of buffers allocated by this factory that have not
+	 * been released yet.
+	 */
+	public long getActiveCount() {
+		return this.allocations.sum() - this.releases.sum();
+	}
+
+	/**
+	 * Return the number of idle buffers currently held in the pool.
+	 */
+	public int getPooledCount() {
+		int count = 0;
+		for (SizeClass sizeClass : this.sizeClasses) {
+			count += sizeClass.size();
+		}
+		return count;
+	}
+
+	/**
+	 * Return the total capacity in bytes of the idle buffers currently held in
+	 * the pool.
+	 */
+	public long getPooledBytes() {
+		long bytes = 0;
+		for (SizeClass sizeClass : this.sizeClasses) {
+			bytes += (long) sizeClass.size() * sizeClass.segmentSize;
+		}
+		return bytes;
+	}
+
+	/**
+	 * Return the number of leaked buffers detected so far.
+	 * @see #setLeakDetection(boolean)
+	 */
+	public long getLeakCount() {
+		if (this.leakDetection) {
+			reportLeaks();
+		}
+		return this.leaks.sum();
+	}
+
+
+	@Override
+	public String toString() {
+		return "PooledDataBufferFactory (preferDirect=" + this.preferDirect +
+				", maxPooledCapacity=" + this.maxPooledCapacity +
+				", maxBuffersPerSizeClass=" + this.maxBuffersPerSizeClass + ")";
+	}
+
+
+	/**
+	 * Bounded stack of idle segments with the same capacity.
+	 */
+	private static final class SizeClass {
+
+		final int segmentSize;
+
+		private final ByteBuffer[] segments;
+
+		private int size;
+
+		SizeClass(int segmentSize, int maxSegments) {
+			this.segmentSize = segmentSize;
+			this.segments = new ByteBuffer[maxSegments];
+		}
+
+		@Nullable
+		synchronized ByteBuffer poll() {
+			if (this.size == 0) {
+				return null;
+			}
+			ByteBuffer segment = this.segments[--this.size];
+			this.segments[this.size] = null;
+			return segment;
+		}
+
+		synchronized void offer(ByteBuffer segment) {
+			if (this.size < this.segments.length) {
+				this.segments[this.size++] = segment;
+			}
+		}
+
+		synchronized int size() {
+			return this.size;
+		}
+	}
+
+
+	/**
+	 * Weak reference to an allocated buffer, enqueued when that buffer is
+	 * garbage collected before being released.
+	 */
+	private static final class LeakTracker extends WeakReference<DataBuffer> {
+
+		final Throwable allocation = new Throwable();
+
+		LeakTracker(DataBuffer referent, ReferenceQueue<DataBuffer> queue) {
+			super(referent, queue);
+		}
+	}
+
+
+	/**
+	 * Reference counted {@link DefaultDataBuffer} backed by a pooled segment.
+	 */
+	private static final class PooledDefaultDataBuffer extends DefaultDataBuffer implements PooledDataBuffer {
+
+		private final PooledDataBufferFactory factory;
+
+		private final AtomicInteger refCount = new AtomicInteger(1);
+
+		private ByteBuffer segment;
+
+		@Nullable
+		private LeakTracker leakTracker;
+
+		PooledDefaultDataBuffer(PooledDataBufferFactory factory, ByteBuffer segment, ByteBuffer byteBuffer) {
+			super(factory, byteBuffer);
+			this.factory = factory;
+			this.segment = segment;
+		}
+
+		@Override
+		ByteBuffer allocateNativeBuffer(int capacity, boolean direct) {
+			this.segment = this.factory.acquireSegment(capacity, direct);
+			return ((ByteBuffer) ((Buffer) this.segment.duplicate()).limit(capacity)).slice();
+		}
+
+		@Override
+		public DefaultDataBuffer capacity(int newCapacity) {
+			ByteBuffer oldSegment = this.segment;
+			super.capacity(newCapacity);
+			if (oldSegment != this.segment) {
+				// Contents have been copied to the new segment by now
+				this.factory.releaseSegment(oldSegment);
+			}
+			return this;
+		}
+
+		@Override
+		DefaultDataBuffer createSlice(ByteBuffer slice, int length) {
+			return new PooledSlicedDataBuffer(slice, this.factory, length, this);
+		}
+
+		@Override
+		public boolean isAllocated() {
+			return this.refCount.get() > 0;
+		}
+
+		@Override
+		public PooledDataBuffer retain() {
+			int count;
+			do {
+				count = this.refCount.get();
+				Assert.state(count > 0, "DataBuffer has already been released");
+			}
+			while (!this.refCount.compareAndSet(count, count + 1));
+			return this;
+		}
+
+		@Override
+		public boolean release() {
+			int count = this.refCount.decrementAndGet();
+			if (count > 0) {
+				return false;
+			}
+			else if (count < 0) {
+				this.refCount.incrementAndGet();
+				throw new IllegalStateException("DataBuffer has already been released");
+			}
+			this.factory.bufferReleased(this);
+			this.factory.releaseSegment(this.segment);
+			return true;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("PooledDefaultDataBuffer (r: %d, w: %d, c: %d, refCnt: %d)",
+					readPosition(), writePosition(), capacity(), this.refCount.get());
+		}
+	}
+
+
+	/**
+	 * Slice of a {@link PooledDefaultDataBuffer}, sharing the reference count
+	 * of that buffer.
+	 */
+	private static final class PooledSlicedDataBuffer extends DefaultDataBuffer.SlicedDefaultDataBuffer
+			implements PooledDataBuffer {
+
+		private final PooledDefaultDataBuffer parent;
+
+		PooledSlicedDataBuffer(ByteBuffer byteBuffer, DefaultDataBufferFactory dataBufferFactory,
+				int length, PooledDefaultDataBuffer parent) {
+
+			super(byteBuffer, dataBufferFactory, length);
+			this.parent = parent;
+		}
+
+		@Override
+		public boolean isAllocated() {
+			return this.parent.isAllocated();
+		}
+
+		@Override
+		public PooledDataBuffer retain() {
+			this.parent.retain();
+			return this;
+		}
+
+		@Override
+		public boolean release() {
+			return this.parent.release();
+		}
+	}
+
+}
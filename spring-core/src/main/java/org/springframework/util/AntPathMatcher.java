@@ -16,12 +16,12 @@
 
 package org.springframework.util;
 
+import java.lang.reflect.Method;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -75,7 +75,7 @@ public class AntPathMatcher implements PathMatcher {
 	/** Default path separator: "/". */
 	public static final String DEFAULT_PATH_SEPARATOR = "/";
 
-	private static final int CACHE_TURNOFF_THRESHOLD = 65536;
+	private static final int CACHE_LIMIT = 65536;
 
 	private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\{[^/]+?}");
 
@@ -93,9 +93,14 @@ public class AntPathMatcher implements PathMatcher {
 	@Nullable
 	private volatile Boolean cachePatterns;
 
-	private final Map<String, String[]> tokenizedPatternCache = new ConcurrentHashMap<>(256);
+	private final boolean customTokenizePath = (getClass() != AntPathMatcher.class &&
+			isTokenizePathOverridden(getClass()));
 
-	final Map<String, AntPathStringMatcher> stringMatcherCache = new ConcurrentHashMap<>(256);
+	volatile ConcurrentLruCache<String, String[]> tokenizedPatternCache =
+			new ConcurrentLruCache<>(CACHE_LIMIT, this::tokenizePath);
+
+	volatile ConcurrentLruCache<String, AntPathStringMatcher> stringMatcherCache =
+			new ConcurrentLruCache<>(CACHE_LIMIT, pattern -> new AntPathStringMatcher(pattern, this.caseSensitive));
 
 
 	/**
@@ -149,21 +154,21 @@ public class AntPathMatcher implements PathMatcher {
 	 * into this matcher's {@link #match} method. A value of {@code true}
 	 * activates an unlimited pattern cache; a value of {@code false} turns
 	 * the pattern cache off completely.
-	 * <p>Default is for the cache to be on, but with the variant to automatically
-	 * turn it off when encountering too many patterns to cache at runtime
-	 * (the threshold is 65536), assuming that arbitrary permutations of patterns
-	 * are coming in, with little chance for encountering a recurring pattern.
+	 * <p>Default is for the cache to be on but bounded: once it holds 65536
+	 * patterns, the least recently used ones are evicted to make room for new
+	 * ones. As of 5.3, the cache is no longer turned off when encountering too
+	 * many patterns, so that recurring patterns keep being served from it even
+	 * if arbitrary permutations of patterns are coming in as well.
 	 * @since 4.0.1
 	 * @see #getStringMatcher(String)
 	 */
 	public void setCachePatterns(boolean cachePatterns) {
 		this.cachePatterns = cachePatterns;
-	}
-
-	private void deactivatePatternCache() {
-		this.cachePatterns = false;
-		this.tokenizedPatternCache.clear();
-		this.stringMatcherCache.clear();
+		if (cachePatterns) {
+			this.tokenizedPatternCache = new ConcurrentLruCache<>(Integer.MAX_VALUE, this::tokenizePath);
+			this.stringMatcherCache = new ConcurrentLruCache<>(Integer.MAX_VALUE,
+					pattern -> new AntPathStringMatcher(pattern, this.caseSensitive));
+		}
 	}
 
 
@@ -201,6 +206,12 @@ public class AntPathMatcher implements PathMatcher {
 
 	/**
 	 * Actually match the given {@code path} against the given {@code pattern}.
+	 * <p>As of 5.3, the path is split into segments in place rather than
+	 * through {@link #tokenizePath(String)}, and each segment is matched
+	 * against the corresponding {@link #getStringMatcher String matcher}
+	 * without being copied into a String of its own. Subclasses that
+	 * override {@link #tokenizePath(String)} still have it applied to the
+	 * path.
 	 * @param pattern the pattern to match against
 	 * @param path the path to test
 	 * @param fullMatch whether a full pattern match is required (else a pattern match
@@ -215,15 +226,16 @@ public class AntPathMatcher implements PathMatcher {
 		}
 
 		String[] pattDirs = tokenizePattern(pattern);
-		if (fullMatch && this.caseSensitive && !isPotentialMatch(path, pattDirs)) {
+		if (fullMatch && this.caseSensitive && !this.customTokenizePath && !isPotentialMatch(path, pattDirs)) {
 			return false;
 		}
 
-		String[] pathDirs = tokenizePath(path);
+		PathSegments pathDirs = (this.customTokenizePath ?
+				new PathSegments(tokenizePath(path)) : new PathSegments(path));
 		int pattIdxStart = 0;
 		int pattIdxEnd = pattDirs.length - 1;
 		int pathIdxStart = 0;
-		int pathIdxEnd = pathDirs.length - 1;
+		int pathIdxEnd = pathDirs.size() - 1;
 
 		// Match all elements up to the first **
 		while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
@@ -231,7 +243,7 @@ public class AntPathMatcher implements PathMatcher {
 			if ("**".equals(pattDir)) {
 				break;
 			}
-			if (!matchStrings(pattDir, pathDirs[pathIdxStart], uriTemplateVariables)) {
+			if (!matchStrings(pattDir, pathDirs, pathIdxStart, uriTemplateVariables)) {
 				return false;
 			}
 			pattIdxStart++;
@@ -271,7 +283,7 @@ public class AntPathMatcher implements PathMatcher {
 			if (pattDir.equals("**")) {
 				break;
 			}
-			if (!matchStrings(pattDir, pathDirs[pathIdxEnd], uriTemplateVariables)) {
+			if (!matchStrings(pattDir, pathDirs, pathIdxEnd, uriTemplateVariables)) {
 				return false;
 			}
 			pattIdxEnd--;
@@ -310,8 +322,7 @@ public class AntPathMatcher implements PathMatcher {
 			for (int i = 0; i <= strLength - patLength; i++) {
 				for (int j = 0; j < patLength; j++) {
 					String subPat = pattDirs[pattIdxStart + j + 1];
-					String subStr = pathDirs[pathIdxStart + i + j];
-					if (!matchStrings(subPat, subStr, uriTemplateVariables)) {
+					if (!matchStrings(subPat, pathDirs, pathIdxStart + i + j, uriTemplateVariables)) {
 						continue strLoop;
 					}
 				}
@@ -395,29 +406,18 @@ public class AntPathMatcher implements PathMatcher {
 	 * @return the tokenized pattern parts
 	 */
 	protected String[] tokenizePattern(String pattern) {
-		String[] tokenized = null;
 		Boolean cachePatterns = this.cachePatterns;
 		if (cachePatterns == null || cachePatterns.booleanValue()) {
-			tokenized = this.tokenizedPatternCache.get(pattern);
-		}
-		if (tokenized == null) {
-			tokenized = tokenizePath(pattern);
-			if (cachePatterns == null && this.tokenizedPatternCache.size() >= CACHE_TURNOFF_THRESHOLD) {
-				// Try to adapt to the runtime situation that we're encountering:
-				// There are obviously too many different patterns coming in here...
-				// So let's turn off the cache since the patterns are unlikely to be reoccurring.
-				deactivatePatternCache();
-				return tokenized;
-			}
-			if (cachePatterns == null || cachePatterns.booleanValue()) {
-				this.tokenizedPatternCache.put(pattern, tokenized);
-			}
+			return this.tokenizedPatternCache.get(pattern);
 		}
-		return tokenized;
+		return tokenizePath(pattern);
 	}
 
 	/**
 	 * Tokenize the given path into parts, based on this matcher's settings.
+	 * <p>As of 5.3, paths passed to {@link #doMatch} are split into segments
+	 * in place, consistent with this method's default algorithm, unless this
+	 * method is overridden in which case it is used for paths as well.
 	 * @param path the path to tokenize
 	 * @return the tokenized path parts
 	 */
@@ -426,15 +426,17 @@ public class AntPathMatcher implements PathMatcher {
 	}
 
 	/**
-	 * Test whether or not a string matches against a pattern.
+	 * Test whether or not a path segment matches against a pattern.
 	 * @param pattern the pattern to match against (never {@code null})
-	 * @param str the String which must be matched against the pattern (never {@code null})
-	 * @return {@code true} if the string matches against the pattern, or {@code false} otherwise
+	 * @param segments the segments of the path to match (never {@code null})
+	 * @param index the index of the segment which must be matched against the pattern
+	 * @return {@code true} if the segment matches against the pattern, or {@code false} otherwise
 	 */
-	private boolean matchStrings(String pattern, String str,
+	private boolean matchStrings(String pattern, PathSegments segments, int index,
 			@Nullable Map<String, String> uriTemplateVariables) {
 
-		return getStringMatcher(pattern).matchStrings(str, uriTemplateVariables);
+		return getStringMatcher(pattern).matchStrings(
+				segments.path, segments.start(index), segments.end(index), uriTemplateVariables);
 	}
 
 	/**
@@ -442,34 +444,19 @@ public class AntPathMatcher implements PathMatcher {
 	 * <p>The default implementation checks this AntPathMatcher's internal cache
 	 * (see {@link #setCachePatterns}), creating a new AntPathStringMatcher instance
 	 * if no cached copy is found.
-	 * <p>When encountering too many patterns to cache at runtime (the threshold is 65536),
-	 * it turns the default cache off, assuming that arbitrary permutations of patterns
-	 * are coming in, with little chance for encountering a recurring pattern.
+	 * <p>By default the cache is bounded to 65536 patterns, evicting the least
+	 * recently used ones when new patterns are coming in.
 	 * <p>This method may be overridden to implement a custom cache strategy.
 	 * @param pattern the pattern to match against (never {@code null})
 	 * @return a corresponding AntPathStringMatcher (never {@code null})
 	 * @see #setCachePatterns
 	 */
 	protected AntPathStringMatcher getStringMatcher(String pattern) {
-		AntPathStringMatcher matcher = null;
 		Boolean cachePatterns = this.cachePatterns;
 		if (cachePatterns == null || cachePatterns.booleanValue()) {
-			matcher = this.stringMatcherCache.get(pattern);
+			return this.stringMatcherCache.get(pattern);
 		}
-		if (matcher == null) {
-			matcher = new AntPathStringMatcher(pattern, this.caseSensitive);
-			if (cachePatterns == null && this.stringMatcherCache.size() >= CACHE_TURNOFF_THRESHOLD) {
-				// Try to adapt to the runtime situation that we're encountering:
-				// There are obviously too many different patterns coming in here...
-				// So let's turn off the cache since the patterns are unlikely to be reoccurring.
-				deactivatePatternCache();
-				return matcher;
-			}
-			if (cachePatterns == null || cachePatterns.booleanValue()) {
-				this.stringMatcherCache.put(pattern, matcher);
-			}
-		}
-		return matcher;
+		return new AntPathStringMatcher(pattern, this.caseSensitive);
 	}
 
 	/**
@@ -635,9 +622,12 @@ public class AntPathMatcher implements PathMatcher {
 
 
 	/**
-	 * Tests whether or not a string matches against a pattern via a {@link Pattern}.
+	 * Tests whether or not a string matches against a pattern.
 	 * <p>The pattern may contain special characters: '*' means zero or more characters; '?' means one and
 	 * only one character; '{' and '}' indicate a URI template pattern. For example <tt>/users/{user}</tt>.
+	 * <p>As of 5.3, patterns without URI template variables are matched directly
+	 * against the characters of the string rather than through a regular
+	 * expression {@link Pattern}.
 	 */
 	protected static class AntPathStringMatcher {
 
@@ -645,7 +635,16 @@ public class AntPathMatcher implements PathMatcher {
 
 		private static final String DEFAULT_VARIABLE_PATTERN = "(.*)";
 
-		private final Pattern pattern;
+		private final String rawPattern;
+
+		private final boolean caseSensitive;
+
+		private final boolean exactMatch;
+
+		private final boolean wildcardMatch;
+
+		@Nullable
+		private volatile Pattern pattern;
 
 		private final List<String> variableNames = new LinkedList<>();
 
@@ -654,6 +653,19 @@ public class AntPathMatcher implements PathMatcher {
 		}
 
 		public AntPathStringMatcher(String pattern, boolean caseSensitive) {
+			this.rawPattern = pattern;
+			this.caseSensitive = caseSensitive;
+			boolean uriVar = (pattern.indexOf('{') != -1);
+			boolean wildcard = (pattern.indexOf('*') != -1 || pattern.indexOf('?') != -1);
+			this.exactMatch = (!uriVar && !wildcard);
+			this.wildcardMatch = (!uriVar && wildcard);
+			if (uriVar) {
+				this.pattern = compilePattern();
+			}
+		}
+
+		private Pattern compilePattern() {
+			String pattern = this.rawPattern;
 			StringBuilder patternBuilder = new StringBuilder();
 			Matcher matcher = GLOB_PATTERN.matcher(pattern);
 			int end = 0;
@@ -684,7 +696,7 @@ public class AntPathMatcher implements PathMatcher {
 				end = matcher.end();
 			}
 			patternBuilder.append(quote(pattern, end, pattern.length()));
-			this.pattern = (caseSensitive ? Pattern.compile(patternBuilder.toString()) :
+			return (this.caseSensitive ? Pattern.compile(patternBuilder.toString()) :
 					Pattern.compile(patternBuilder.toString(), Pattern.CASE_INSENSITIVE));
 		}
 
@@ -700,13 +712,40 @@ public class AntPathMatcher implements PathMatcher {
 		 * @return {@code true} if the string matches against the pattern, or {@code false} otherwise.
 		 */
 		public boolean matchStrings(String str, @Nullable Map<String, String> uriTemplateVariables) {
-			Matcher matcher = this.pattern.matcher(str);
+			return matchStrings(str, 0, str.length(), uriTemplateVariables);
+		}
+
+		/**
+		 * Variant of {@link #matchStrings(String, Map)} that matches a region
+		 * of the given string only, e.g. a single segment of a path.
+		 * @param str the string containing the region to match
+		 * @param start the start index of the region (inclusive)
+		 * @param end the end index of the region (exclusive)
+		 * @param uriTemplateVariables a map to add extracted URI template variables to, if any
+		 * @return {@code true} if the region matches against the pattern, or {@code false} otherwise.
+		 * @since 5.3
+		 */
+		public boolean matchStrings(String str, int start, int end,
+				@Nullable Map<String, String> uriTemplateVariables) {
+
+			if (this.exactMatch) {
+				return (end - start == this.rawPattern.length() && matchChars(str, start, end, 0));
+			}
+			if (this.wildcardMatch && !hasSpecialChars(str, start, end)) {
+				return matchWildcards(str, start, end);
+			}
+			Pattern pattern = this.pattern;
+			if (pattern == null) {
+				pattern = compilePattern();
+				this.pattern = pattern;
+			}
+			Matcher matcher = pattern.matcher(str).region(start, end);
 			if (matcher.matches()) {
 				if (uriTemplateVariables != null) {
 					// SPR-8455
 					if (this.variableNames.size() != matcher.groupCount()) {
 						throw new IllegalArgumentException("The number of capturing groups in the pattern segment " +
-								this.pattern + " does not match the number of URI template variables it defines, " +
+								pattern + " does not match the number of URI template variables it defines, " +
 								"which can occur if capturing groups are used in a URI template regex. " +
 								"Use non-capturing groups instead.");
 					}
@@ -722,6 +761,179 @@ public class AntPathMatcher implements PathMatcher {
 				return false;
 			}
 		}
+
+		/**
+		 * Match '*' and '?' wildcards, backtracking to the last '*' on mismatch.
+		 */
+		private boolean matchWildcards(String str, int start, int end) {
+			String pattern = this.rawPattern;
+			int patternLength = pattern.length();
+			int patternPos = 0;
+			int pos = start;
+			int starPatternPos = -1;
+			int starPos = -1;
+			while (pos < end) {
+				char c = (patternPos < patternLength ? pattern.charAt(patternPos) : 0);
+				if (patternPos < patternLength && c != '*' && (c == '?' || matchChar(c, str.charAt(pos)))) {
+					patternPos++;
+					pos++;
+				}
+				else if (c == '*' && patternPos < patternLength) {
+					starPatternPos = patternPos++;
+					starPos = pos;
+				}
+				else if (starPatternPos != -1) {
+					patternPos = starPatternPos + 1;
+					pos = ++starPos;
+				}
+				else {
+					return false;
+				}
+			}
+			while (patternPos < patternLength && pattern.charAt(patternPos) == '*') {
+				patternPos++;
+			}
+			return (patternPos == patternLength);
+		}
+
+		private boolean matchChars(String str, int start, int end, int patternPos) {
+			for (int i = start; i < end; i++) {
+				if (!matchChar(this.rawPattern.charAt(patternPos++), str.charAt(i))) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Compare a pattern character to a string character, in case-insensitive
+		 * mode for US-ASCII characters only, consistent with
+		 * {@link Pattern#CASE_INSENSITIVE}.
+		 */
+		private boolean matchChar(char patternChar, char c) {
+			if (patternChar == c) {
+				return true;
+			}
+			if (this.caseSensitive || patternChar >= 128 || c >= 128) {
+				return false;
+			}
+			return (Character.toLowerCase(patternChar) == Character.toLowerCase(c));
+		}
+
+		/**
+		 * Whether the given region contains line terminators or surrogate pairs,
+		 * which wildcards treat differently than a single, plain character.
+		 * Such (rare) input is left to the regular expression to match.
+		 */
+		private static boolean hasSpecialChars(String str, int start, int end) {
+			for (int i = start; i < end; i++) {
+				char c = str.charAt(i);
+				if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029' ||
+						Character.isSurrogate(c)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+
+	private static boolean isTokenizePathOverridden(Class<?> clazz) {
+		Method method = ReflectionUtils.findMethod(clazz, "tokenizePath", String.class);
+		return (method != null && method.getDeclaringClass() != AntPathMatcher.class);
+	}
+
+
+	/**
+	 * The start and end positions of the segments of a path, determined in
+	 * place, consistent with {@link AntPathMatcher#tokenizePath(String)}.
+	 */
+	private final class PathSegments {
+
+		final String path;
+
+		private final int[] positions;
+
+		private final int size;
+
+		PathSegments(String path) {
+			this.path = path;
+			int length = path.length();
+			int[] positions = new int[countSegments(path) * 2];
+			int size = 0;
+			int pos = 0;
+			while (pos < length) {
+				while (pos < length && isSeparatorChar(path.charAt(pos))) {
+					pos++;
+				}
+				int start = pos;
+				while (pos < length && !isSeparatorChar(path.charAt(pos))) {
+					pos++;
+				}
+				int end = pos;
+				if (trimTokens) {
+					while (start < end && path.charAt(start) <= ' ') {
+						start++;
+					}
+					while (end > start && path.charAt(end - 1) <= ' ') {
+						end--;
+					}
+				}
+				if (start < end) {
+					positions[size * 2] = start;
+					positions[size * 2 + 1] = end;
+					size++;
+				}
+			}
+			this.positions = positions;
+			this.size = size;
+		}
+
+		/**
+		 * Create an instance from path segments that were tokenized through
+		 * a custom {@link AntPathMatcher#tokenizePath(String)} implementation.
+		 */
+		PathSegments(String[] tokens) {
+			int[] positions = new int[tokens.length * 2];
+			StringBuilder builder = new StringBuilder();
+			for (int i = 0; i < tokens.length; i++) {
+				positions[i * 2] = builder.length();
+				builder.append(tokens[i]);
+				positions[i * 2 + 1] = builder.length();
+			}
+			this.path = builder.toString();
+			this.positions = positions;
+			this.size = tokens.length;
+		}
+
+		private int countSegments(String path) {
+			int count = 0;
+			boolean inSegment = false;
+			for (int i = 0; i < path.length(); i++) {
+				boolean separator = isSeparatorChar(path.charAt(i));
+				if (!separator && !inSegment) {
+					count++;
+				}
+				inSegment = !separator;
+			}
+			return count;
+		}
+
+		private boolean isSeparatorChar(char c) {
+			return (pathSeparator.indexOf(c) != -1);
+		}
+
+		int size() {
+			return this.size;
+		}
+
+		int start(int index) {
+			return this.positions[index * 2];
+		}
+
+		int end(int index) {
+			return this.positions[index * 2 + 1];
+		}
 	}
 
 
@@ -0,0 +1,661 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Simple LRU (Least Recently Used) cache, bounded by a specified cache capacity.
+ *
+ * <p>This is a simplified, opinionated implementation of an LRU cache for internal
+ * use in Spring Framework. It is inspired from
+ * <a href="https://github.com/ben-manes/concurrentlinkedhashmap">ConcurrentLinkedHashMap</a>.
+ *
+ * <p>Values are stored in a {@code ConcurrentHashMap}, so cache hits are lock-free.
+ * Instead of reordering the access queue on every read, reads are recorded in
+ * lossy, striped read buffers which are drained in batches under a lock, moving
+ * the accessed entries to the back of a doubly-linked access queue in O(1) each.
+ * Writes are drained right away, evicting the least recently used entries once
+ * the capacity is exceeded.
+ *
+ * <p>Cache values are computed through the generator function given at
+ * construction time; on a cache miss, the generator may be called concurrently
+ * for the same key, with the first computed value being retained in the cache.
+ * Neither keys nor values may be {@code null}.
+ *
+ * <p>The cache keeps track of {@link #hitCount() hits}, {@link #missCount() misses}
+ * and {@link #evictionCount() evictions} for monitoring purposes.
+ *
+ * @since 5.3
+ * @param <K> the type of the key used for cache retrieval
+ * @param <V> the type of the cached values
+ */
+public final class ConcurrentLruCache<K, V> {
+
+	private final int capacity;
+
+	private final AtomicInteger currentSize = new AtomicInteger();
+
+	private final ConcurrentHashMap<K, Node<K, V>> cache;
+
+	private final Function<K, V> generator;
+
+	private final ReadOperations<K, V> readOperations;
+
+	private final WriteOperations writeOperations;
+
+	private final ReentrantLock evictionLock = new ReentrantLock();
+
+	/*
+	 * Queue that contains all ACTIVE cache entries, ordered with least recently used entries first.
+	 * Guarded by the evictionLock.
+	 */
+	private final EvictionQueue<K, V> evictionQueue = new EvictionQueue<>();
+
+	private final AtomicReference<DrainStatus> drainStatus = new AtomicReference<>(DrainStatus.IDLE);
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder evictions = new LongAdder();
+
+
+	/**
+	 * Create a new cache instance with the given capacity and generator function.
+	 * @param capacity the maximum number of entries in the cache
+	 * (0 indicates no caching, always generating a new value)
+	 * @param generator a function to generate a new value for a given key
+	 */
+	public ConcurrentLruCache(int capacity, Function<K, V> generator) {
+		Assert.isTrue(capacity >= 0, "Capacity must be >= 0");
+		Assert.notNull(generator, "Generator function must not be null");
+		this.capacity = capacity;
+		this.cache = new ConcurrentHashMap<>(Math.min(capacity, 16), 0.75f);
+		this.generator = generator;
+		this.readOperations = new ReadOperations<>(this.evictionQueue);
+		this.writeOperations = new WriteOperations();
+	}
+
+
+	/**
+	 * Retrieve an entry from the cache, potentially triggering generation of the value.
+	 * @param key the key to retrieve the entry for
+	 * @return the cached or newly generated value
+	 */
+	public V get(K key) {
+		if (this.capacity == 0) {
+			this.misses.increment();
+			return this.generator.apply(key);
+		}
+		Node<K, V> node = this.cache.get(key);
+		if (node == null) {
+			this.misses.increment();
+			V value = this.generator.apply(key);
+			return put(key, value);
+		}
+		this.hits.increment();
+		processRead(node);
+		return node.getValue();
+	}
+
+	/**
+	 * Determine whether the given key is present in this cache.
+	 * <p>This does not count as an access to the cache entry.
+	 * @param key the key to check for
+	 * @return {@code true} if the key is present, {@code false} if there was no matching key
+	 */
+	public boolean contains(K key) {
+		return this.cache.containsKey(key);
+	}
+
+	/**
+	 * Immediately remove the given key and any associated value.
+	 * @param key the key to evict the entry for
+	 * @return {@code true} if the key was present before,
+	 * {@code false} if there was no matching key
+	 */
+	public boolean remove(K key) {
+		Node<K, V> node = this.cache.remove(key);
+		if (node == null) {
+			return false;
+		}
+		markForRemoval(node);
+		processWrite(new RemovalTask(node));
+		return true;
+	}
+
+	/**
+	 * Immediately remove all entries from this cache.
+	 */
+	public void clear() {
+		this.evictionLock.lock();
+		try {
+			this.writeOperations.drainAll();
+			Node<K, V> node;
+			while ((node = this.evictionQueue.poll()) != null) {
+				this.cache.remove(node.key, node);
+				markAsRemoved(node);
+			}
+			this.readOperations.clear();
+		}
+		finally {
+			this.evictionLock.unlock();
+		}
+	}
+
+	/**
+	 * Return the maximum number of entries in the cache
+	 * (0 indicates no caching, always generating a new value).
+	 * @see #size()
+	 */
+	public int capacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Return the current size of the cache.
+	 * @see #capacity()
+	 */
+	public int size() {
+		return this.cache.size();
+	}
+
+	/**
+	 * Return the number of times a value has been served from the cache.
+	 */
+	public long hitCount() {
+		return this.hits.sum();
+	}
+
+	/**
+	 * Return the number of times a value had to be generated for a key
+	 * that was not present in the cache.
+	 */
+	public long missCount() {
+		return this.misses.sum();
+	}
+
+	/**
+	 * Return the number of entries that have been evicted from the cache
+	 * in order to stay within its {@link #capacity()}.
+	 * <p>Explicit {@link #remove removals} and {@link #clear clearing}
+	 * do not count as evictions.
+	 */
+	public long evictionCount() {
+		return this.evictions.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "ConcurrentLruCache: size=" + size() + ", capacity=" + this.capacity +
+				", hits=" + hitCount() + ", misses=" + missCount() + ", evictions=" + evictionCount();
+	}
+
+
+	private V put(K key, V value) {
+		Assert.notNull(key, "key must not be null");
+		Assert.notNull(value, "value must not be null");
+		Node<K, V> node = new Node<>(key, new CacheEntry<>(value, CacheEntryState.ACTIVE));
+		Node<K, V> prior = this.cache.putIfAbsent(key, node);
+		if (prior == null) {
+			processWrite(new AddTask(node));
+			return value;
+		}
+		// Concurrent generation for the same key: keep the value that made it into the cache
+		processRead(prior);
+		return prior.getValue();
+	}
+
+	private void processRead(Node<K, V> node) {
+		boolean delayable = this.readOperations.recordRead(node);
+		DrainStatus status = this.drainStatus.get();
+		if (status.shouldDrainBuffers(delayable)) {
+			drainOperations();
+		}
+	}
+
+	private void processWrite(Runnable task) {
+		this.writeOperations.add(task);
+		this.drainStatus.lazySet(DrainStatus.REQUIRED);
+		drainOperations();
+	}
+
+	private void drainOperations() {
+		if (this.evictionLock.tryLock()) {
+			try {
+				this.drainStatus.lazySet(DrainStatus.PROCESSING);
+				this.readOperations.drain();
+				this.writeOperations.drain();
+			}
+			finally {
+				this.drainStatus.compareAndSet(DrainStatus.PROCESSING, DrainStatus.IDLE);
+				this.evictionLock.unlock();
+			}
+		}
+	}
+
+	private void evictEntries() {
+		while (this.currentSize.get() > this.capacity) {
+			Node<K, V> node = this.evictionQueue.poll();
+			if (node == null) {
+				return;
+			}
+			this.cache.remove(node.key, node);
+			markAsRemoved(node);
+			this.evictions.increment();
+		}
+	}
+
+	private void markForRemoval(Node<K, V> node) {
+		for (;;) {
+			CacheEntry<V> current = node.get();
+			if (!current.isActive()) {
+				return;
+			}
+			CacheEntry<V> pendingRemoval = new CacheEntry<>(current.value, CacheEntryState.PENDING_REMOVAL);
+			if (node.compareAndSet(current, pendingRemoval)) {
+				return;
+			}
+		}
+	}
+
+	private void markAsRemoved(Node<K, V> node) {
+		for (;;) {
+			CacheEntry<V> current = node.get();
+			if (current.state == CacheEntryState.REMOVED) {
+				return;
+			}
+			CacheEntry<V> removed = new CacheEntry<>(current.value, CacheEntryState.REMOVED);
+			if (node.compareAndSet(current, removed)) {
+				this.currentSize.lazySet(this.currentSize.get() - 1);
+				return;
+			}
+		}
+	}
+
+
+	/**
+	 * Write operation recorded when a new entry is added to the cache.
+	 */
+	private final class AddTask implements Runnable {
+
+		private final Node<K, V> node;
+
+		AddTask(Node<K, V> node) {
+			this.node = node;
+		}
+
+		@Override
+		public void run() {
+			currentSize.lazySet(currentSize.get() + 1);
+			if (this.node.get().isActive()) {
+				evictionQueue.add(this.node);
+				evictEntries();
+			}
+		}
+	}
+
+
+	/**
+	 * Write operation recorded when an entry is explicitly removed from the cache.
+	 */
+	private final class RemovalTask implements Runnable {
+
+		private final Node<K, V> node;
+
+		RemovalTask(Node<K, V> node) {
+			this.node = node;
+		}
+
+		@Override
+		public void run() {
+			evictionQueue.remove(this.node);
+			markAsRemoved(this.node);
+		}
+	}
+
+
+	/**
+	 * Draining status for the read/write buffers.
+	 */
+	private enum DrainStatus {
+
+		/**
+		 * No drain operation currently running.
+		 */
+		IDLE {
+			@Override
+			boolean shouldDrainBuffers(boolean delayable) {
+				return !delayable;
+			}
+		},
+
+		/**
+		 * A drain operation is required due to a pending write modification.
+		 */
+		REQUIRED {
+			@Override
+			boolean shouldDrainBuffers(boolean delayable) {
+				return true;
+			}
+		},
+
+		/**
+		 * A drain operation is in progress.
+		 */
+		PROCESSING {
+			@Override
+			boolean shouldDrainBuffers(boolean delayable) {
+				return false;
+			}
+		};
+
+		/**
+		 * Determine whether the buffers should be drained.
+		 * @param delayable if a drain should be delayed until required
+		 * @return if a drain should be attempted
+		 */
+		abstract boolean shouldDrainBuffers(boolean delayable);
+	}
+
+
+	private enum CacheEntryState {
+
+		ACTIVE, PENDING_REMOVAL, REMOVED
+	}
+
+
+	private static final class CacheEntry<V> {
+
+		final V value;
+
+		final CacheEntryState state;
+
+		CacheEntry(V value, CacheEntryState state) {
+			this.value = value;
+			this.state = state;
+		}
+
+		boolean isActive() {
+			return (this.state == CacheEntryState.ACTIVE);
+		}
+	}
+
+
+	/**
+	 * Striped, lossy buffers recording read accesses to cache entries.
+	 * Each thread records its reads in the buffer selected by its thread id;
+	 * if a buffer is full, reads are dropped rather than blocking the caller.
+	 */
+	private static final class ReadOperations<K, V> {
+
+		private static final int BUFFER_COUNT = detectNumberOfBuffers();
+
+		private static final int BUFFERS_MASK = BUFFER_COUNT - 1;
+
+		private static final int MAX_PENDING_OPERATIONS = 32;
+
+		private static final int MAX_DRAIN_COUNT = 2 * MAX_PENDING_OPERATIONS;
+
+		private static final int BUFFER_SIZE = 2 * MAX_DRAIN_COUNT;
+
+		private static final int BUFFER_INDEX_MASK = BUFFER_SIZE - 1;
+
+		private static int detectNumberOfBuffers() {
+			int availableProcessors = Runtime.getRuntime().availableProcessors();
+			int nextPowerOfTwo = 1 << (Integer.SIZE - Integer.numberOfLeadingZeros(availableProcessors - 1));
+			return Math.min(4, nextPowerOfTwo);
+		}
+
+		/*
+		 * Number of operations recorded, for each buffer
+		 */
+		private final AtomicLongArray recordedCount = new AtomicLongArray(BUFFER_COUNT);
+
+		/*
+		 * Number of operations read, for each buffer. Guarded by the evictionLock.
+		 */
+		private final long[] readCount = new long[BUFFER_COUNT];
+
+		/*
+		 * Number of operations processed, for each buffer
+		 */
+		private final AtomicLongArray processedCount = new AtomicLongArray(BUFFER_COUNT);
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		private final AtomicReferenceArray<Node<K, V>>[] buffers = new AtomicReferenceArray[BUFFER_COUNT];
+
+		private final EvictionQueue<K, V> evictionQueue;
+
+		ReadOperations(EvictionQueue<K, V> evictionQueue) {
+			this.evictionQueue = evictionQueue;
+			for (int i = 0; i < BUFFER_COUNT; i++) {
+				this.buffers[i] = new AtomicReferenceArray<>(BUFFER_SIZE);
+			}
+		}
+
+		private static int getBufferIndex() {
+			return ((int) Thread.currentThread().getId()) & BUFFERS_MASK;
+		}
+
+		/**
+		 * Record a read access to the given node.
+		 * @return {@code true} if draining the buffers may be delayed,
+		 * {@code false} if enough reads are pending to trigger a drain
+		 */
+		boolean recordRead(Node<K, V> node) {
+			int bufferIndex = getBufferIndex();
+			long writeCount = this.recordedCount.get(bufferIndex);
+			this.recordedCount.lazySet(bufferIndex, writeCount + 1);
+			int index = (int) (writeCount & BUFFER_INDEX_MASK);
+			this.buffers[bufferIndex].lazySet(index, node);
+			long pending = (writeCount - this.processedCount.get(bufferIndex));
+			return (pending < MAX_PENDING_OPERATIONS);
+		}
+
+		/**
+		 * Drain all read buffers, starting with the current thread's one.
+		 * Must be called under the evictionLock.
+		 */
+		void drain() {
+			int start = (int) Thread.currentThread().getId();
+			int end = start + BUFFER_COUNT;
+			for (int i = start; i < end; i++) {
+				drainReadBuffer(i & BUFFERS_MASK);
+			}
+		}
+
+		void clear() {
+			for (int i = 0; i < BUFFER_COUNT; i++) {
+				AtomicReferenceArray<Node<K, V>> buffer = this.buffers[i];
+				for (int j = 0; j < BUFFER_SIZE; j++) {
+					buffer.lazySet(j, null);
+				}
+				long recorded = this.recordedCount.get(i);
+				this.readCount[i] = recorded;
+				this.processedCount.lazySet(i, recorded);
+			}
+		}
+
+		private void drainReadBuffer(int bufferIndex) {
+			long writeCount = this.recordedCount.get(bufferIndex);
+			for (int i = 0; i < MAX_DRAIN_COUNT; i++) {
+				int index = (int) (this.readCount[bufferIndex] & BUFFER_INDEX_MASK);
+				AtomicReferenceArray<Node<K, V>> buffer = this.buffers[bufferIndex];
+				Node<K, V> node = buffer.get(index);
+				if (node == null) {
+					break;
+				}
+				buffer.lazySet(index, null);
+				this.evictionQueue.moveToBack(node);
+				this.readCount[bufferIndex]++;
+			}
+			this.processedCount.lazySet(bufferIndex, writeCount);
+		}
+	}
+
+
+	/**
+	 * Queue of pending write operations, drained under the evictionLock.
+	 */
+	private static final class WriteOperations {
+
+		private final ConcurrentLinkedQueue<Runnable> operations = new ConcurrentLinkedQueue<>();
+
+		void add(Runnable task) {
+			this.operations.add(task);
+		}
+
+		void drain() {
+			// Bound the work done per drain so that a single caller does not
+			// end up processing writes from other threads indefinitely
+			int size = this.operations.size();
+			for (int i = 0; i < size; i++) {
+				Runnable task = this.operations.poll();
+				if (task == null) {
+					break;
+				}
+				task.run();
+			}
+		}
+
+		void drainAll() {
+			Runnable task;
+			while ((task = this.operations.poll()) != null) {
+				task.run();
+			}
+		}
+	}
+
+
+	/**
+	 * A cache entry node, linked into the {@link EvictionQueue} while active.
+	 */
+	@SuppressWarnings("serial")
+	private static final class Node<K, V> extends AtomicReference<CacheEntry<V>> {
+
+		final K key;
+
+		/* Guarded by the evictionLock */
+		@Nullable
+		Node<K, V> prev;
+
+		/* Guarded by the evictionLock */
+		@Nullable
+		Node<K, V> next;
+
+		Node(K key, CacheEntry<V> cacheEntry) {
+			super(cacheEntry);
+			this.key = key;
+		}
+
+		V getValue() {
+			return get().value;
+		}
+	}
+
+
+	/**
+	 * Doubly-linked queue of cache entry nodes, least recently used first.
+	 * Not thread-safe: all operations must be called under the evictionLock.
+	 */
+	private static final class EvictionQueue<K, V> {
+
+		@Nullable
+		Node<K, V> first;
+
+		@Nullable
+		Node<K, V> last;
+
+		@Nullable
+		Node<K, V> poll() {
+			Node<K, V> f = this.first;
+			if (f == null) {
+				return null;
+			}
+			unlink(f);
+			return f;
+		}
+
+		void add(Node<K, V> node) {
+			if (contains(node)) {
+				return;
+			}
+			linkLast(node);
+		}
+
+		void remove(Node<K, V> node) {
+			if (contains(node)) {
+				unlink(node);
+			}
+		}
+
+		void moveToBack(Node<K, V> node) {
+			if (contains(node) && node != this.last) {
+				unlink(node);
+				linkLast(node);
+			}
+		}
+
+		private boolean contains(Node<K, V> node) {
+			return (node.prev != null || node.next != null || node == this.first);
+		}
+
+		private void linkLast(Node<K, V> node) {
+			Node<K, V> l = this.last;
+			this.last = node;
+			if (l == null) {
+				this.first = node;
+			}
+			else {
+				l.next = node;
+				node.prev = l;
+			}
+		}
+
+		private void unlink(Node<K, V> node) {
+			Node<K, V> prev = node.prev;
+			Node<K, V> next = node.next;
+			if (prev == null) {
+				this.first = next;
+			}
+			else {
+				prev.next = next;
+				node.prev = null;
+			}
+			if (next == null) {
+				this.last = prev;
+			}
+			else {
+				next.prev = prev;
+				node.next = null;
+			}
+		}
+	}
+
+}
@@ -190,6 +190,57 @@ class StringDecoderTests extends AbstractDecoderTests<StringDecoder> {
 				.verify());
 	}
 
+	@Test
+	void decodeDelimiterAcrossBuffers() {
+		Flux<DataBuffer> input = Flux.just(
+				stringBuffer("abc\r"),
+				stringBuffer("\ndef\r"),
+				stringBuffer("\r\n"));
+
+		testDecode(input, String.class, step -> step
+				.expectNext("abc")
+				.expectNext("def\r")
+				.expectComplete()
+				.verify());
+	}
+
+	@Test
+	void decodeCustomDelimiters() {
+		this.decoder = StringDecoder.allMimeTypes(Arrays.asList("--", "-+-", "\n"), true);
+
+		Flux<DataBuffer> input = Flux.just(
+				stringBuffer("abc---def-"),
+				stringBuffer("+-ghi-"),
+				stringBuffer("-jkl\nmno"));
+
+		testDecode(input, String.class, step -> step
+				.expectNext("abc")
+				.expectNext("-def")
+				.expectNext("ghi")
+				.expectNext("jkl")
+				.expectNext("mno")
+				.expectComplete()
+				.verify());
+	}
+
+	@Test
+	void maxInMemoryLimitAfterCompleteLinesInSameBuffer() {
+		Flux<DataBuffer> input = Flux.just(stringBuffer("abc\ndefg\nhijklm\n"));
+
+		this.decoder.setMaxInMemorySize(5);
+		testDecode(input, String.class, step ->
+				step.expectNext("abc", "defg").verifyError(DataBufferLimitException.class));
+	}
+
+	@Test
+	void maxInMemoryLimitAcrossBuffers() {
+		Flux<DataBuffer> input = Flux.just(stringBuffer("abc\nde"), stringBuffer("fg"), stringBuffer("hi\n"));
+
+		this.decoder.setMaxInMemorySize(5);
+		testDecode(input, String.class, step ->
+				step.expectNext("abc").verifyError(DataBufferLimitException.class));
+	}
+
 	@Test
 	void decodeEmptyFlux() {
 		Flux<DataBuffer> input = Flux.empty();
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.util.StreamUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Unit tests for {@link CompositeDataBuffer}.
+ */
+class CompositeDataBufferTests {
+
+	private final PooledDataBufferFactory bufferFactory = new PooledDataBufferFactory();
+
+
+	@Test
+	void read() {
+		DataBuffer composite = join("foo", "", "bar", "baz");
+		assertThat(composite).isInstanceOf(CompositeDataBuffer.class);
+		assertThat(composite.readableByteCount()).isEqualTo(9);
+		assertThat(composite.getByte(3)).isEqualTo((byte) 'b');
+		assertThat(composite.read()).isEqualTo((byte) 'f');
+
+		byte[] bytes = new byte[5];
+		composite.read(bytes);
+		assertThat(new String(bytes, StandardCharsets.UTF_8)).isEqualTo("oobar");
+		assertThat(composite.readPosition()).isEqualTo(6);
+		assertThat(composite.toString(StandardCharsets.UTF_8)).isEqualTo("baz");
+
+		release(composite);
+	}
+
+	@Test
+	void indexOf() {
+		DataBuffer composite = join("foo", "bar", "baz");
+		assertThat(composite.indexOf(b -> b == 'a', 0)).isEqualTo(4);
+		assertThat(composite.indexOf(b -> b == 'a', 5)).isEqualTo(7);
+		assertThat(composite.lastIndexOf(b -> b == 'o', 8)).isEqualTo(2);
+		assertThat(composite.indexOf(b -> b == 'x', 0)).isEqualTo(-1);
+		release(composite);
+	}
+
+	@Test
+	void toStringAcrossComponents() {
+		DataBuffer composite = join("foo", "bar", "baz");
+		assertThat(composite.toString(2, 5, StandardCharsets.UTF_8)).isEqualTo("obarb");
+		assertThat(composite.toString(3, 3, StandardCharsets.UTF_8)).isEqualTo("bar");
+		release(composite);
+	}
+
+	@Test
+	void sliceWithinComponentSharesMemory() {
+		DataBuffer foo = stringBuffer("foo");
+		DataBuffer bar = stringBuffer("bar");
+		ByteBuffer barMemory = bar.asByteBuffer();
+		DataBuffer composite = this.bufferFactory.compose(Arrays.asList(foo, bar));
+
+		DataBuffer slice = composite.slice(4, 2);
+		assertThat(slice.toString(StandardCharsets.UTF_8)).isEqualTo("ar");
+		slice.writePosition(0).write((byte) 'o');
+		assertThat(barMemory.get(1)).isEqualTo((byte) 'o');
+
+		assertThat(composite.slice(2, 2).toString(StandardCharsets.UTF_8)).isEqualTo("ob");
+		release(composite);
+	}
+
+	@Test
+	void asByteBuffer() {
+		DataBuffer composite = join("foo", "bar");
+		assertThat(composite.asByteBuffer(3, 3)).isEqualTo(ByteBuffer.wrap("bar".getBytes(StandardCharsets.UTF_8)));
+		assertThat(composite.asByteBuffer()).isEqualTo(ByteBuffer.wrap("foobar".getBytes(StandardCharsets.UTF_8)));
+		release(composite);
+	}
+
+	@Test
+	void writeConsolidates() {
+		DataBuffer composite = join("foo", "bar");
+		composite.read();
+		composite.write((byte) '!');
+		assertThat(composite.readPosition()).isEqualTo(1);
+		assertThat(composite.toString(StandardCharsets.UTF_8)).isEqualTo("oobar!");
+		// components are released once consolidated
+		assertThat(this.bufferFactory.getActiveCount()).isEqualTo(1);
+		release(composite);
+	}
+
+	@Test
+	void writePositionWithinComponents() {
+		DataBuffer composite = join("foo", "bar\n");
+		composite.writePosition(composite.writePosition() - 1);
+		assertThat(composite.toString(StandardCharsets.UTF_8)).isEqualTo("foobar");
+		assertThatExceptionOfType(IndexOutOfBoundsException.class).isThrownBy(() -> composite.getByte(6));
+		release(composite);
+	}
+
+	@Test
+	void inputStream() throws Exception {
+		DataBuffer composite = join("foo", "bar", "baz");
+		try (InputStream inputStream = composite.asInputStream(true)) {
+			assertThat(inputStream.read()).isEqualTo('f');
+			assertThat(StreamUtils.copyToString(inputStream, StandardCharsets.UTF_8)).isEqualTo("oobarbaz");
+		}
+		assertThat(((PooledDataBuffer) composite).isAllocated()).isFalse();
+		assertThat(this.bufferFactory.getActiveCount()).isEqualTo(0);
+	}
+
+	@Test
+	void releaseReleasesComponents() {
+		DataBuffer composite = join("foo", "bar");
+		DataBufferUtils.retain(composite);
+		assertThat(DataBufferUtils.release(composite)).isFalse();
+		assertThat(this.bufferFactory.getActiveCount()).isEqualTo(2);
+		assertThat(DataBufferUtils.release(composite)).isTrue();
+		assertThat(this.bufferFactory.getActiveCount()).isEqualTo(0);
+	}
+
+	@Test
+	void singleBufferIsNotWrapped() {
+		DataBuffer foo = stringBuffer("foo");
+		assertThat(this.bufferFactory.compose(Arrays.asList(foo))).isSameAs(foo);
+		release(foo);
+	}
+
+	@Test
+	void equalsIsSymmetric() {
+		DataBuffer composite = join("foo", "bar");
+		DataBuffer other = join("fo", "obar");
+		DataBuffer single = stringBuffer("foobar");
+
+		assertThat(composite).isEqualTo(other);
+		assertThat(composite.hashCode()).isEqualTo(other.hashCode());
+		assertThat(composite).isNotEqualTo(single);
+		assertThat(single).isNotEqualTo(composite);
+
+		DataBufferUtils.release(composite);
+		DataBufferUtils.release(other);
+		release(single);
+	}
+
+
+	private DataBuffer join(String... values) {
+		DataBuffer[] buffers = new DataBuffer[values.length];
+		for (int i = 0; i < values.length; i++) {
+			buffers[i] = stringBuffer(values[i]);
+		}
+		return this.bufferFactory.compose(Arrays.asList(buffers));
+	}
+
+	private DataBuffer stringBuffer(String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		return this.bufferFactory.allocateBuffer(bytes.length).write(bytes);
+	}
+
+	private void release(DataBuffer buffer) {
+		DataBufferUtils.release(buffer);
+		assertThat(this.bufferFactory.getActiveCount()).isEqualTo(0);
+	}
+
+}
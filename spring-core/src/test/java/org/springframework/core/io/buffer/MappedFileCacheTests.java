@@ -0,0 +1,113 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link MappedFileCache}.
+ */
+class MappedFileCacheTests {
+
+	@TempDir
+	Path tempDir;
+
+
+	@Test
+	void reusesMapping() throws Exception {
+		MappedFileCache cache = new MappedFileCache(2, 1024, 1024);
+		Path foo = file("foo", "foo");
+
+		ByteBuffer first = cache.get(foo);
+		ByteBuffer second = cache.get(foo);
+
+		assertThat(first).isEqualTo(ByteBuffer.wrap("foo".getBytes(StandardCharsets.UTF_8)));
+		assertThat(first.isReadOnly()).isTrue();
+		assertThat(second).isNotSameAs(first).isEqualTo(first);
+		assertThat(cache.size()).isEqualTo(1);
+		assertThat(cache.totalSize()).isEqualTo(3);
+	}
+
+	@Test
+	void remapsModifiedFile() throws Exception {
+		MappedFileCache cache = new MappedFileCache(2, 1024, 1024);
+		Path foo = file("foo", "foo");
+		cache.get(foo);
+
+		Files.write(foo, "foobar".getBytes(StandardCharsets.UTF_8));
+		Files.setLastModifiedTime(foo, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+
+		assertThat(cache.get(foo)).isEqualTo(ByteBuffer.wrap("foobar".getBytes(StandardCharsets.UTF_8)));
+		assertThat(cache.size()).isEqualTo(1);
+		assertThat(cache.totalSize()).isEqualTo(6);
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedBeyondMaxEntries() throws Exception {
+		MappedFileCache cache = new MappedFileCache(2, 1024, 1024);
+		Path foo = file("foo", "foo");
+		Path bar = file("bar", "bar");
+		Path baz = file("baz", "baz");
+
+		cache.get(foo);
+		ByteBuffer evicted = cache.get(bar);
+		cache.get(foo);
+		cache.get(baz);
+
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(cache.totalSize()).isEqualTo(6);
+		assertThat(cache.contains(foo)).isTrue();
+		assertThat(cache.contains(bar)).isFalse();
+		assertThat(cache.contains(baz)).isTrue();
+		// evicted mappings remain valid
+		assertThat(evicted).isEqualTo(ByteBuffer.wrap("bar".getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	void evictsBeyondMaxTotalSize() throws Exception {
+		MappedFileCache cache = new MappedFileCache(16, 8, 8);
+		cache.get(file("foo", "foo"));
+		cache.get(file("bar", "bar"));
+		cache.get(file("bazqux", "bazqux"));
+
+		assertThat(cache.size()).isEqualTo(1);
+		assertThat(cache.totalSize()).isEqualTo(6);
+	}
+
+	@Test
+	void doesNotCacheLargeFiles() throws Exception {
+		MappedFileCache cache = new MappedFileCache(16, 1024, 4);
+
+		assertThat(cache.get(file("foobar", "foobar"))).isNull();
+		assertThat(cache.size()).isEqualTo(0);
+	}
+
+
+	private Path file(String name, String content) throws Exception {
+		return Files.write(this.tempDir.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Unit tests for {@link PooledDataBufferFactory}.
+ */
+class PooledDataBufferFactoryTests {
+
+	private final PooledDataBufferFactory bufferFactory = new PooledDataBufferFactory(false, 4096, 2);
+
+
+	@Test
+	void releasedMemoryIsReused() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(100);
+		ByteBuffer memory = buffer.asByteBuffer(0, 1);
+		assertThat(buffer).isInstanceOf(PooledDataBuffer.class);
+		assertThat(buffer.capacity()).isEqualTo(100);
+		assertThat(DataBufferUtils.release(buffer)).isTrue();
+		assertThat(this.bufferFactory.getPooledCount()).isEqualTo(1);
+		assertThat(this.bufferFactory.getPooledBytes()).isEqualTo(256);
+
+		// same size class
+		DataBuffer other = this.bufferFactory.allocateBuffer(200);
+		assertThat(other.capacity()).isEqualTo(200);
+		assertThat(other.asByteBuffer(0, 1).array()).isSameAs(memory.array());
+		assertThat(this.bufferFactory.getPooledCount()).isEqualTo(0);
+		assertThat(this.bufferFactory.getPooledAllocationCount()).isEqualTo(1);
+		DataBufferUtils.release(other);
+
+		// different size class
+		DataBuffer larger = this.bufferFactory.allocateBuffer(300);
+		assertThat(larger.asByteBuffer(0, 1).array()).isNotSameAs(memory.array());
+		DataBufferUtils.release(larger);
+
+		assertThat(this.bufferFactory.getAllocationCount()).isEqualTo(3);
+		assertThat(this.bufferFactory.getReleaseCount()).isEqualTo(3);
+		assertThat(this.bufferFactory.getActiveCount()).isEqualTo(0);
+	}
+
+	@Test
+	void sizeClassIsBounded() {
+		DataBuffer[] buffers = new DataBuffer[3];
+		for (int i = 0; i < buffers.length; i++) {
+			buffers[i] = this.bufferFactory.allocateBuffer(10);
+		}
+		for (DataBuffer buffer : buffers) {
+			DataBufferUtils.release(buffer);
+		}
+		assertThat(this.bufferFactory.getPooledCount()).isEqualTo(2);
+	}
+
+	@Test
+	void largeBuffersAreNotPooled() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(4097);
+		assertThat(buffer.capacity()).isEqualTo(4097);
+		assertThat(DataBufferUtils.release(buffer)).isTrue();
+		assertThat(this.bufferFactory.getPooledCount()).isEqualTo(0);
+		assertThat(this.bufferFactory.getActiveCount()).isEqualTo(0);
+	}
+
+	@Test
+	void slicesShareReferenceCount() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(10);
+		buffer.write("foo".getBytes(StandardCharsets.UTF_8));
+		DataBuffer slice = buffer.slice(1, 2);
+		assertThat(slice).isInstanceOf(PooledDataBuffer.class);
+
+		DataBufferUtils.retain(slice);
+		assertThat(DataBufferUtils.release(buffer)).isFalse();
+		assertThat(slice.toString(StandardCharsets.UTF_8)).isEqualTo("oo");
+		assertThat(DataBufferUtils.release(slice)).isTrue();
+		assertThat(((PooledDataBuffer) buffer).isAllocated()).isFalse();
+		assertThat(this.bufferFactory.getPooledCount()).isEqualTo(1);
+	}
+
+	@Test
+	void growingReturnsPreviousMemory() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(10);
+		buffer.write("foo".getBytes(StandardCharsets.UTF_8));
+		buffer.ensureCapacity(1000);
+		assertThat(buffer.capacity()).isGreaterThanOrEqualTo(1000);
+		assertThat(this.bufferFactory.getPooledCount()).isEqualTo(1);
+		assertThat(buffer.toString(StandardCharsets.UTF_8)).isEqualTo("foo");
+
+		DataBufferUtils.release(buffer);
+		assertThat(this.bufferFactory.getPooledCount()).isEqualTo(2);
+		assertThat(this.bufferFactory.getActiveCount()).isEqualTo(0);
+	}
+
+	@Test
+	void tooManyReleases() {
+		PooledDataBuffer buffer = (PooledDataBuffer) this.bufferFactory.allocateBuffer(10);
+		buffer.release();
+		assertThatIllegalStateException().isThrownBy(buffer::release);
+		assertThatIllegalStateException().isThrownBy(buffer::retain);
+		assertThat(this.bufferFactory.getReleaseCount()).isEqualTo(1);
+	}
+
+	@Test
+	void joinReleasesSources() {
+		DataBuffer foo = this.bufferFactory.allocateBuffer(3).write("foo".getBytes(StandardCharsets.UTF_8));
+		DataBuffer bar = this.bufferFactory.allocateBuffer(3).write("bar".getBytes(StandardCharsets.UTF_8));
+		DataBuffer result = this.bufferFactory.join(Arrays.asList(foo, bar));
+		assertThat(result.toString(StandardCharsets.UTF_8)).isEqualTo("foobar");
+		assertThat(this.bufferFactory.getActiveCount()).isEqualTo(1);
+		DataBufferUtils.release(result);
+	}
+
+	@Test
+	void leakDetection() throws Exception {
+		this.bufferFactory.setLeakDetection(true);
+		this.bufferFactory.allocateBuffer(10);
+		DataBufferUtils.release(this.bufferFactory.allocateBuffer(10));
+
+		for (int i = 0; i < 50 && this.bufferFactory.getLeakCount() == 0; i++) {
+			System.gc();
+			Thread.sleep(50);
+		}
+		assertThat(this.bufferFactory.getLeakCount()).isEqualTo(1);
+	}
+
+}
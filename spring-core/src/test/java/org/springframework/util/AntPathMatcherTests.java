@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -625,8 +625,78 @@ class AntPathMatcherTests {
 		for (int i = 0; i < 65536; i++) {
 			pathMatcher.match("test" + i, "test");
 		}
-		// Cache turned off because it went beyond the threshold
-		assertThat(pathMatcher.stringMatcherCache.isEmpty()).isTrue();
+		// Cache stays active but evicts least recently used patterns beyond the limit
+		assertThat(pathMatcher.tokenizedPatternCache.size()).isEqualTo(pathMatcher.tokenizedPatternCache.capacity());
+		assertThat(pathMatcher.tokenizedPatternCache.evictionCount()).isGreaterThan(0);
+		assertThat(pathMatcher.stringMatcherCache.size()).isGreaterThan(20);
+	}
+
+	@Test
+	void defaultCacheSettingEvictsLeastRecentlyUsed() {
+		pathMatcher.match("/recurring/*", "/recurring/test");
+		for (int i = 0; i < 65536; i++) {
+			pathMatcher.match("test" + i, "test" + i);
+			pathMatcher.match("/recurring/*", "/recurring/test");
+		}
+		assertThat(pathMatcher.stringMatcherCache.size()).isEqualTo(pathMatcher.stringMatcherCache.capacity());
+		assertThat(pathMatcher.stringMatcherCache.contains("*")).isTrue();
+		assertThat(pathMatcher.stringMatcherCache.contains("test0")).isFalse();
+	}
+
+	@Test
+	void wildcardsCaseInsensitive() {
+		pathMatcher.setCaseSensitive(false);
+
+		assertThat(pathMatcher.match("/Test*/T?st", "/testing/tEst")).isTrue();
+		assertThat(pathMatcher.match("/*.JPG", "/image.jpg")).isTrue();
+		assertThat(pathMatcher.match("/*.jpg", "/image.png")).isFalse();
+		// Consistent with regular expressions: non-ASCII characters are case-sensitive
+		assertThat(pathMatcher.match("/\u00e9*", "/\u00c9t\u00e9")).isFalse();
+	}
+
+	@Test
+	void wildcardsWithLineTerminatorsAndSurrogates() {
+		assertThat(pathMatcher.match("/foo*bar", "/foo\nbar")).isFalse();
+		assertThat(pathMatcher.match("/foo?bar", "/foo\rbar")).isFalse();
+		assertThat(pathMatcher.match("/foo\nbar", "/foo\nbar")).isTrue();
+		assertThat(pathMatcher.match("/a?b", "/a\uD83D\uDE00b")).isTrue();
+		assertThat(pathMatcher.match("/a??b", "/a\uD83D\uDE00b")).isFalse();
+	}
+
+	@Test
+	void wildcardsBacktracking() {
+		assertThat(pathMatcher.match("/*a*b*c", "/xaxbxaxbxc")).isTrue();
+		assertThat(pathMatcher.match("/*a*b*c", "/xaxbxaxbx")).isFalse();
+		assertThat(pathMatcher.match("/a*a*a", "/aaaa")).isTrue();
+		assertThat(pathMatcher.match("/a*a*a", "/aa")).isFalse();
+		assertThat(pathMatcher.match("/**/*.*", "/docs/readme")).isFalse();
+		assertThat(pathMatcher.match("/**/*.*", "/docs/read.me")).isTrue();
+	}
+
+	@Test
+	void customPathSeparatorAndTrimTokens() {
+		AntPathMatcher matcher = new AntPathMatcher(".");
+		matcher.setTrimTokens(true);
+
+		assertThat(matcher.match("com.*.service", "com. example .service")).isTrue();
+		assertThat(matcher.match("com.**", "com..example...service")).isTrue();
+		assertThat(matcher.extractUriTemplateVariables("com.{name}.service", "com. example .service"))
+				.containsEntry("name", "example");
+	}
+
+	@Test
+	void customTokenizePathAppliedToPath() {
+		AntPathMatcher matcher = new AntPathMatcher() {
+			@Override
+			protected String[] tokenizePath(String path) {
+				return super.tokenizePath(path.toLowerCase());
+			}
+		};
+
+		assertThat(matcher.match("/docs/{name}/index", "/Docs/Spring/Index")).isTrue();
+		assertThat(matcher.match("/docs/*/index", "/DOCS/spring/other")).isFalse();
+		assertThat(matcher.extractUriTemplateVariables("/docs/{name}", "/Docs/Spring"))
+				.containsEntry("name", "spring");
 	}
 
 	@Test
@@ -678,7 +748,7 @@ class AntPathMatcherTests {
 	void cachePatternsSetToFalse() {
 		pathMatcher.setCachePatterns(false);
 		match();
-		assertThat(pathMatcher.stringMatcherCache.isEmpty()).isTrue();
+		assertThat(pathMatcher.stringMatcherCache.size()).isEqualTo(0);
 	}
 
 	@Test
@@ -918,6 +918,41 @@ public class JdbcTemplateTests {
 		verify(this.connection).close();
 	}
 
+	@Test
+	public void testFatalWarningWithStream() throws Exception {
+		String sql = "SELECT forename from custmr";
+		SQLWarning warnings = new SQLWarning("My warning");
+
+		given(this.connection.createStatement()).willReturn(this.statement);
+		given(this.statement.getWarnings()).willReturn(warnings);
+
+		JdbcTemplate t = new JdbcTemplate(this.dataSource);
+		t.setIgnoreWarnings(false);
+
+		assertThatExceptionOfType(SQLWarningException.class).isThrownBy(() ->
+				t.queryForStream(sql, (rs, rowNum) -> rs.getString(1)))
+			.withCause(warnings);
+		verify(this.statement).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void testFatalWarningWithPreparedStatementStream() throws Exception {
+		String sql = "SELECT forename from custmr where id = ?";
+		SQLWarning warnings = new SQLWarning("My warning");
+
+		given(this.preparedStatement.getWarnings()).willReturn(warnings);
+
+		JdbcTemplate t = new JdbcTemplate(this.dataSource);
+		t.setIgnoreWarnings(false);
+
+		assertThatExceptionOfType(SQLWarningException.class).isThrownBy(() ->
+				t.queryForStream(sql, (rs, rowNum) -> rs.getString(1), 1))
+			.withCause(warnings);
+		verify(this.preparedStatement).close();
+		verify(this.connection).close();
+	}
+
 	@Test
 	public void testIgnoredWarning() throws Exception {
 		String sql = "SELECT forename from custmr";
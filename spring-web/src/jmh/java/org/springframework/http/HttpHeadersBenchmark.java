@@ -0,0 +1,94 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link HttpHeaders}, populating the headers of a typical
+ * request and reading the ones that are parsed for every exchange.
+ */
+@BenchmarkMode(Mode.Throughput)
+public class HttpHeadersBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		public HttpHeaders requestHeaders;
+
+		@Setup
+		public void setup() {
+			this.requestHeaders = createRequestHeaders();
+		}
+	}
+
+	@Benchmark
+	public void createHeaders(Blackhole bh) {
+		bh.consume(createRequestHeaders());
+	}
+
+	@Benchmark
+	public void getHeaderValues(BenchmarkData data, Blackhole bh) {
+		bh.consume(data.requestHeaders.getFirst("user-agent"));
+		bh.consume(data.requestHeaders.get(HttpHeaders.ACCEPT_LANGUAGE));
+		bh.consume(data.requestHeaders.containsKey("X-Requested-With"));
+	}
+
+	@Benchmark
+	public void getParsedHeaders(BenchmarkData data, Blackhole bh) {
+		bh.consume(data.requestHeaders.getContentType());
+		bh.consume(data.requestHeaders.getAccept());
+		bh.consume(data.requestHeaders.getContentLength());
+	}
+
+	@Benchmark
+	public void setResponseHeaders(Blackhole bh) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(new MediaType(MediaType.APPLICATION_JSON, StandardCharsets.UTF_8));
+		headers.setContentLength(1024);
+		headers.setCacheControl(CacheControl.noCache());
+		headers.setVary(Arrays.asList(HttpHeaders.ORIGIN, HttpHeaders.ACCEPT_ENCODING));
+		headers.setETag("\"0123456789abcdef\"");
+		bh.consume(headers);
+	}
+
+
+	private static HttpHeaders createRequestHeaders() {
+		HttpHeaders headers = new HttpHeaders();
+		headers.add(HttpHeaders.HOST, "spring.io");
+		headers.add(HttpHeaders.USER_AGENT, "Mozilla/5.0 (X11; Linux x86_64; rv:73.0) Gecko/20100101 Firefox/73.0");
+		headers.add(HttpHeaders.ACCEPT, "text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,*/*;q=0.8");
+		headers.add(HttpHeaders.ACCEPT_LANGUAGE, "en-US,en;q=0.5");
+		headers.add(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate, br");
+		headers.add(HttpHeaders.CONTENT_TYPE, "application/json;charset=UTF-8");
+		headers.add(HttpHeaders.CONTENT_LENGTH, "256");
+		headers.add(HttpHeaders.CONNECTION, "keep-alive");
+		headers.add(HttpHeaders.COOKIE, "SESSION=8e2c5e4a-ef0b-4fbd-9ab1-1c6a5b93c2a7");
+		headers.add("X-Requested-With", "XMLHttpRequest");
+		return headers;
+	}
+
+}
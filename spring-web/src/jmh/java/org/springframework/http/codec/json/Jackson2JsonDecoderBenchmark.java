@@ -0,0 +1,154 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.json;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+
+/**
+ * Benchmarks for {@link Jackson2JsonDecoder}, decoding a JSON array split
+ * across several buffers into a stream of elements, and into a single list.
+ */
+@BenchmarkMode(Mode.Throughput)
+public class Jackson2JsonDecoderBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		@Param({"10", "1000"})
+		public int elementCount;
+
+		@Param({"8192"})
+		public int bufferSize;
+
+		public Jackson2JsonDecoder decoder = new Jackson2JsonDecoder();
+
+		public DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+		public List<byte[]> chunks;
+
+		@Setup
+		public void setup() {
+			StringBuilder builder = new StringBuilder("[");
+			for (int i = 0; i < this.elementCount; i++) {
+				if (i > 0) {
+					builder.append(',');
+				}
+				builder.append("{\"id\":").append(i).append(",\"name\":\"Project ").append(i)
+						.append("\",\"description\":\"A sample project used to benchmark JSON decoding\"")
+						.append(",\"tags\":[\"spring\",\"reactive\",\"json\"],\"active\":true}");
+			}
+			byte[] content = builder.append(']').toString().getBytes(StandardCharsets.UTF_8);
+			this.chunks = new ArrayList<>();
+			for (int offset = 0; offset < content.length; offset += this.bufferSize) {
+				byte[] chunk = new byte[Math.min(this.bufferSize, content.length - offset)];
+				System.arraycopy(content, offset, chunk, 0, chunk.length);
+				this.chunks.add(chunk);
+			}
+		}
+
+		public Flux<DataBuffer> input() {
+			return Flux.fromIterable(this.chunks).map(this.bufferFactory::wrap);
+		}
+	}
+
+	@Benchmark
+	public void decodeToFlux(BenchmarkData data, Blackhole bh) {
+		data.decoder.decode(data.input(), ResolvableType.forClass(Project.class),
+				MediaType.APPLICATION_JSON, Collections.emptyMap())
+				.doOnNext(bh::consume)
+				.blockLast();
+	}
+
+	@Benchmark
+	public void decodeToMono(BenchmarkData data, Blackhole bh) {
+		bh.consume(data.decoder.decodeToMono(data.input(), ResolvableType.forClassWithGenerics(List.class, Project.class),
+				MediaType.APPLICATION_JSON, Collections.emptyMap()).block());
+	}
+
+
+	public static class Project {
+
+		private long id;
+
+		private String name;
+
+		private String description;
+
+		private List<String> tags;
+
+		private boolean active;
+
+		public long getId() {
+			return this.id;
+		}
+
+		public void setId(long id) {
+			this.id = id;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public String getDescription() {
+			return this.description;
+		}
+
+		public void setDescription(String description) {
+			this.description = description;
+		}
+
+		public List<String> getTags() {
+			return this.tags;
+		}
+
+		public void setTags(List<String> tags) {
+			this.tags = tags;
+		}
+
+		public boolean isActive() {
+			return this.active;
+		}
+
+		public void setActive(boolean active) {
+			this.active = active;
+		}
+	}
+
+}
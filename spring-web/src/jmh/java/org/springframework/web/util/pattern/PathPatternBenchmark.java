@@ -0,0 +1,111 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util.pattern;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.RequestPath;
+
+/**
+ * Benchmarks for matching parsed {@link PathPattern}s against request paths,
+ * with the same routes and paths as the {@code AntPathMatcher} benchmark in
+ * {@code spring-core}, to compare both strategies.
+ */
+@BenchmarkMode(Mode.Throughput)
+public class PathPatternBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		public List<String> patternValues = Arrays.asList(
+				"/", "/login", "/logout", "/static/**", "/webjars/**", "/favicon.ico",
+				"/blog", "/blog.atom", "/blog/category/{category}", "/blog/{year:\\d+}/{month:\\d+}/{day:\\d+}/{slug}",
+				"/projects", "/projects/{id}", "/projects/{id}/releases", "/projects/{id}/releases/{version}",
+				"/guides", "/guides/gs/{guide}", "/guides/tutorials/{guide}", "/guides/*.html",
+				"/api/users/{user}", "/api/users/{user}/repos", "/api/repos/{owner}/{repo}/issues/{number}",
+				"/admin/**", "/admin/projects/{id}/*.json");
+
+		public List<String> pathValues = Arrays.asList(
+				"/", "/login", "/static/css/main.css", "/webjars/jquery/3.4.1/jquery.min.js",
+				"/blog/category/releases", "/blog/2020/02/25/spring-framework-5-2-4-available-now",
+				"/projects/spring-framework/releases/5.2.4.RELEASE", "/guides/gs/rest-service",
+				"/guides/index.html", "/api/repos/spring-projects/spring-framework/issues/24500",
+				"/admin/projects/spring-boot/settings.json", "/unknown/path/to/nowhere");
+
+		public List<PathPattern> patterns = new ArrayList<>();
+
+		public List<PathContainer> paths = new ArrayList<>();
+
+		@Setup
+		public void setup() {
+			PathPatternParser parser = new PathPatternParser();
+			this.patternValues.forEach(value -> this.patterns.add(parser.parse(value)));
+			this.pathValues.forEach(value -> this.paths.add(PathContainer.parsePath(value)));
+		}
+	}
+
+	@Benchmark
+	public void parsePath(BenchmarkData data, Blackhole bh) {
+		for (String path : data.pathValues) {
+			bh.consume(RequestPath.parse(path, null));
+		}
+	}
+
+	@Benchmark
+	public void matchAllPatterns(BenchmarkData data, Blackhole bh) {
+		for (PathContainer path : data.paths) {
+			for (PathPattern pattern : data.patterns) {
+				bh.consume(pattern.matches(path));
+			}
+		}
+	}
+
+	@Benchmark
+	public void matchAndSortPatterns(BenchmarkData data, Blackhole bh) {
+		for (PathContainer path : data.paths) {
+			List<PathPattern> matches = new ArrayList<>();
+			for (PathPattern pattern : data.patterns) {
+				if (pattern.matches(path)) {
+					matches.add(pattern);
+				}
+			}
+			matches.sort(PathPattern.SPECIFICITY_COMPARATOR);
+			bh.consume(matches);
+		}
+	}
+
+	@Benchmark
+	public void matchAndExtract(BenchmarkData data, Blackhole bh) {
+		for (PathContainer path : data.paths) {
+			for (PathPattern pattern : data.patterns) {
+				bh.consume(pattern.matchAndExtract(path));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,720 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Compact, case-insensitive {@link MultiValueMap} used as the default storage
+ * of {@link HttpHeaders}.
+ *
+ * <p>Entries are kept in insertion order in flat arrays of names, hashes and
+ * values, rather than in a hash map plus a second map of lower-case names.
+ * Lookups compare a case-insensitive hash of the name, computed without
+ * creating a lower-case copy, and check for an identical name instance
+ * first, which is the common case for the {@code HttpHeaders} constants.
+ * Names of well-known headers are interned, so that names parsed from
+ * requests share the same instances. Values are held in lists that store
+ * their first element inline, as most headers only have a single value.
+ *
+ * <p>As with {@link org.springframework.util.LinkedCaseInsensitiveMap}, the
+ * case of the most recently put name is retained.
+ *
+ * @since 5.3
+ */
+final class CaseInsensitiveHeadersMap extends AbstractMap<String, List<String>>
+		implements MultiValueMap<String, String>, Serializable {
+
+	private static final long serialVersionUID = -2297420734528476658L;
+
+	private static final String[] WELL_KNOWN_NAMES = {
+			HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_CHARSET, HttpHeaders.ACCEPT_ENCODING,
+			HttpHeaders.ACCEPT_LANGUAGE, HttpHeaders.ACCEPT_RANGES,
+			HttpHeaders.ACCESS_CONTROL_ALLOW_CREDENTIALS, HttpHeaders.ACCESS_CONTROL_ALLOW_HEADERS,
+			HttpHeaders.ACCESS_CONTROL_ALLOW_METHODS, HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN,
+			HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, HttpHeaders.ACCESS_CONTROL_MAX_AGE,
+			HttpHeaders.ACCESS_CONTROL_REQUEST_HEADERS, HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD,
+			HttpHeaders.AGE, HttpHeaders.ALLOW, HttpHeaders.AUTHORIZATION, HttpHeaders.CACHE_CONTROL,
+			HttpHeaders.CONNECTION, HttpHeaders.CONTENT_ENCODING, HttpHeaders.CONTENT_DISPOSITION,
+			HttpHeaders.CONTENT_LANGUAGE, HttpHeaders.CONTENT_LENGTH, HttpHeaders.CONTENT_LOCATION,
+			HttpHeaders.CONTENT_RANGE, HttpHeaders.CONTENT_TYPE, HttpHeaders.COOKIE, HttpHeaders.DATE,
+			HttpHeaders.ETAG, HttpHeaders.EXPECT, HttpHeaders.EXPIRES, HttpHeaders.FROM, HttpHeaders.HOST,
+			HttpHeaders.IF_MATCH, HttpHeaders.IF_MODIFIED_SINCE, HttpHeaders.IF_NONE_MATCH,
+			HttpHeaders.IF_RANGE, HttpHeaders.IF_UNMODIFIED_SINCE, HttpHeaders.LAST_MODIFIED,
+			HttpHeaders.LINK, HttpHeaders.LOCATION, HttpHeaders.MAX_FORWARDS, HttpHeaders.ORIGIN,
+			HttpHeaders.PRAGMA, HttpHeaders.PROXY_AUTHENTICATE, HttpHeaders.PROXY_AUTHORIZATION,
+			HttpHeaders.RANGE, HttpHeaders.REFERER, HttpHeaders.RETRY_AFTER, HttpHeaders.SERVER,
+			HttpHeaders.SET_COOKIE, HttpHeaders.SET_COOKIE2, HttpHeaders.TE, HttpHeaders.TRAILER,
+			HttpHeaders.TRANSFER_ENCODING, HttpHeaders.UPGRADE, HttpHeaders.USER_AGENT, HttpHeaders.VARY,
+			HttpHeaders.VIA, HttpHeaders.WARNING, HttpHeaders.WWW_AUTHENTICATE,
+			"Keep-Alive", "X-Forwarded-For", "X-Forwarded-Host", "X-Forwarded-Port",
+			"X-Forwarded-Proto", "X-Forwarded-Prefix", "X-Requested-With"
+	};
+
+	/** Open-addressing table of interned names, in canonical and lower case. */
+	private static final String[] INTERNED_NAMES = new String[512];
+
+	static {
+		for (String name : WELL_KNOWN_NAMES) {
+			addInternedName(name);
+			addInternedName(name.toLowerCase(Locale.ENGLISH));
+		}
+	}
+
+	private static final int DEFAULT_CAPACITY = 8;
+
+
+	private String[] names;
+
+	private int[] hashes;
+
+	private List<String>[] values;
+
+	private int size;
+
+	private transient int modCount;
+
+	@Nullable
+	private transient Set<String> keySet;
+
+	@Nullable
+	private transient Set<Entry<String, List<String>>> entrySet;
+
+
+	/**
+	 * Create a new, empty map.
+	 */
+	CaseInsensitiveHeadersMap() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Create a new, empty map for the given number of headers.
+	 * @param initialCapacity the initial capacity
+	 */
+	@SuppressWarnings("unchecked")
+	CaseInsensitiveHeadersMap(int initialCapacity) {
+		int capacity = Math.max(initialCapacity, 1);
+		this.names = new String[capacity];
+		this.hashes = new int[capacity];
+		this.values = (List<String>[]) new List<?>[capacity];
+	}
+
+
+	// MultiValueMap
+
+	@Override
+	@Nullable
+	public String getFirst(String key) {
+		int index = indexOf(key);
+		if (index < 0) {
+			return null;
+		}
+		List<String> values = this.values[index];
+		return (values != null && !values.isEmpty() ? values.get(0) : null);
+	}
+
+	@Override
+	public void add(String key, @Nullable String value) {
+		int hash = hash(key);
+		int index = indexOf(key, hash);
+		if (index >= 0 && this.values[index] != null) {
+			this.values[index].add(value);
+		}
+		else if (index >= 0) {
+			this.values[index] = new HeaderValues(value);
+		}
+		else {
+			append(key, hash, new HeaderValues(value));
+		}
+	}
+
+	@Override
+	public void addAll(String key, List<? extends String> values) {
+		computeIfAbsent(key, k -> new HeaderValues()).addAll(values);
+	}
+
+	@Override
+	public void addAll(MultiValueMap<String, String> values) {
+		values.forEach(this::addAll);
+	}
+
+	@Override
+	public void set(String key, @Nullable String value) {
+		put(key, new HeaderValues(value));
+	}
+
+	@Override
+	public void setAll(Map<String, String> values) {
+		values.forEach(this::set);
+	}
+
+	@Override
+	public Map<String, String> toSingleValueMap() {
+		LinkedHashMap<String, String> singleValueMap = new LinkedHashMap<>(this.size);
+		for (int i = 0; i < this.size; i++) {
+			singleValueMap.put(this.names[i], this.values[i].get(0));
+		}
+		return singleValueMap;
+	}
+
+
+	// Map
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return (this.size == 0);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return (key instanceof String && indexOf((String) key) >= 0);
+	}
+
+	@Override
+	@Nullable
+	public List<String> get(Object key) {
+		if (key instanceof String) {
+			int index = indexOf((String) key);
+			if (index >= 0) {
+				return this.values[index];
+			}
+		}
+		return null;
+	}
+
+	@Override
+	@Nullable
+	public List<String> getOrDefault(Object key, List<String> defaultValue) {
+		if (key instanceof String) {
+			int index = indexOf((String) key);
+			if (index >= 0) {
+				return this.values[index];
+			}
+		}
+		return defaultValue;
+	}
+
+	@Override
+	@Nullable
+	public List<String> put(String key, @Nullable List<String> value) {
+		int hash = hash(key);
+		int index = indexOf(key, hash);
+		if (index < 0) {
+			append(key, hash, value);
+			return null;
+		}
+		List<String> oldValue = this.values[index];
+		if (this.names[index].equals(key)) {
+			this.values[index] = value;
+		}
+		else {
+			removeAt(index);
+			append(key, hash, value);
+		}
+		return oldValue;
+	}
+
+	@Override
+	@Nullable
+	public List<String> putIfAbsent(String key, @Nullable List<String> value) {
+		int hash = hash(key);
+		int index = indexOf(key, hash);
+		if (index >= 0) {
+			return this.values[index];
+		}
+		append(key, hash, value);
+		return null;
+	}
+
+	@Override
+	@Nullable
+	public List<String> computeIfAbsent(String key, Function<? super String, ? extends List<String>> mappingFunction) {
+		int hash = hash(key);
+		int index = indexOf(key, hash);
+		if (index >= 0 && this.values[index] != null) {
+			return this.values[index];
+		}
+		List<String> value = mappingFunction.apply(key);
+		if (value != null) {
+			if (index >= 0) {
+				this.values[index] = value;
+			}
+			else {
+				append(key, hash, value);
+			}
+		}
+		return value;
+	}
+
+	@Override
+	@Nullable
+	public List<String> remove(Object key) {
+		if (key instanceof String) {
+			int index = indexOf((String) key);
+			if (index >= 0) {
+				List<String> oldValue = this.values[index];
+				removeAt(index);
+				return oldValue;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(this.names, 0, this.size, null);
+		Arrays.fill(this.values, 0, this.size, null);
+		this.size = 0;
+		this.modCount++;
+	}
+
+	@Override
+	public void forEach(BiConsumer<? super String, ? super List<String>> action) {
+		int expectedModCount = this.modCount;
+		for (int i = 0; i < this.size; i++) {
+			action.accept(this.names[i], this.values[i]);
+			if (this.modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+	}
+
+	@Override
+	public Set<String> keySet() {
+		Set<String> keySet = this.keySet;
+		if (keySet == null) {
+			keySet = new KeySet();
+			this.keySet = keySet;
+		}
+		return keySet;
+	}
+
+	@Override
+	public Set<Entry<String, List<String>>> entrySet() {
+		Set<Entry<String, List<String>>> entrySet = this.entrySet;
+		if (entrySet == null) {
+			entrySet = new EntrySet();
+			this.entrySet = entrySet;
+		}
+		return entrySet;
+	}
+
+
+	private int indexOf(String key) {
+		String[] names = this.names;
+		for (int i = 0; i < this.size; i++) {
+			if (names[i] == key) {
+				return i;
+			}
+		}
+		return indexOf(key, hash(key));
+	}
+
+	private int indexOf(String key, int hash) {
+		String[] names = this.names;
+		int[] hashes = this.hashes;
+		for (int i = 0; i < this.size; i++) {
+			if (hashes[i] == hash && (names[i] == key || names[i].equalsIgnoreCase(key))) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private void append(String key, int hash, @Nullable List<String> value) {
+		if (this.size == this.names.length) {
+			int capacity = this.size * 2;
+			this.names = Arrays.copyOf(this.names, capacity);
+			this.hashes = Arrays.copyOf(this.hashes, capacity);
+			this.values = Arrays.copyOf(this.values, capacity);
+		}
+		this.names[this.size] = intern(key, hash);
+		this.hashes[this.size] = hash;
+		this.values[this.size] = value;
+		this.size++;
+		this.modCount++;
+	}
+
+	private void removeAt(int index) {
+		int moved = this.size - index - 1;
+		if (moved > 0) {
+			System.arraycopy(this.names, index + 1, this.names, index, moved);
+			System.arraycopy(this.hashes, index + 1, this.hashes, index, moved);
+			System.arraycopy(this.values, index + 1, this.values, index, moved);
+		}
+		this.size--;
+		this.names[this.size] = null;
+		this.values[this.size] = null;
+		this.modCount++;
+	}
+
+
+	/**
+	 * Return a hash of the given name that is equal for names that are
+	 * {@linkplain String#equalsIgnoreCase(String) equal ignoring case}.
+	 */
+	private static int hash(String name) {
+		int hash = 0;
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (c >= 'A' && c <= 'Z') {
+				c += 'a' - 'A';
+			}
+			else if (c >= 0x80) {
+				c = Character.toLowerCase(Character.toUpperCase(c));
+			}
+			hash = 31 * hash + c;
+		}
+		return hash;
+	}
+
+	private static String intern(String name, int hash) {
+		String[] table = INTERNED_NAMES;
+		int mask = table.length - 1;
+		for (int i = (hash ^ (hash >>> 16)) & mask; table[i] != null; i = (i + 1) & mask) {
+			if (table[i].equals(name)) {
+				return table[i];
+			}
+		}
+		return name;
+	}
+
+	private static void addInternedName(String name) {
+		int hash = hash(name);
+		String[] table = INTERNED_NAMES;
+		int mask = table.length - 1;
+		int i = (hash ^ (hash >>> 16)) & mask;
+		while (table[i] != null) {
+			if (table[i].equals(name)) {
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+		table[i] = name;
+	}
+
+
+	private class KeySet extends AbstractSet<String> {
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return containsKey(o);
+		}
+
+		@Override
+		public Iterator<String> iterator() {
+			Iterator<Entry<String, List<String>>> iterator = new EntryIterator();
+			return new Iterator<String>() {
+				@Override
+				public boolean hasNext() {
+					return iterator.hasNext();
+				}
+				@Override
+				public String next() {
+					return iterator.next().getKey();
+				}
+				@Override
+				public void remove() {
+					iterator.remove();
+				}
+			};
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			if (o instanceof String) {
+				int index = indexOf((String) o);
+				if (index >= 0) {
+					removeAt(index);
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public void clear() {
+			CaseInsensitiveHeadersMap.this.clear();
+		}
+	}
+
+
+	private class EntrySet extends AbstractSet<Entry<String, List<String>>> {
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public Iterator<Entry<String, List<String>>> iterator() {
+			return new EntryIterator();
+		}
+
+		@Override
+		public void clear() {
+			CaseInsensitiveHeadersMap.this.clear();
+		}
+	}
+
+
+	private class EntryIterator implements Iterator<Entry<String, List<String>>> {
+
+		private int next;
+
+		private int last = -1;
+
+		private int expectedModCount = modCount;
+
+		@Override
+		public boolean hasNext() {
+			return (this.next < size);
+		}
+
+		@Override
+		public Entry<String, List<String>> next() {
+			checkForComodification();
+			if (this.next >= size) {
+				throw new NoSuchElementException();
+			}
+			this.last = this.next++;
+			return new HeaderEntry(this.last);
+		}
+
+		@Override
+		public void remove() {
+			if (this.last < 0) {
+				throw new IllegalStateException();
+			}
+			checkForComodification();
+			removeAt(this.last);
+			this.next = this.last;
+			this.last = -1;
+			this.expectedModCount = modCount;
+		}
+
+		private void checkForComodification() {
+			if (modCount != this.expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+	}
+
+
+	private class HeaderEntry implements Entry<String, List<String>> {
+
+		private final String key;
+
+		private int index;
+
+		HeaderEntry(int index) {
+			this.key = names[index];
+			this.index = index;
+		}
+
+		@Override
+		public String getKey() {
+			return this.key;
+		}
+
+		@Override
+		public List<String> getValue() {
+			return values[currentIndex()];
+		}
+
+		@Override
+		public List<String> setValue(List<String> value) {
+			int index = currentIndex();
+			List<String> oldValue = values[index];
+			values[index] = value;
+			return oldValue;
+		}
+
+		private int currentIndex() {
+			if (this.index >= size || names[this.index] != this.key) {
+				this.index = indexOf(this.key);
+				if (this.index < 0) {
+					throw new IllegalStateException("Header '" + this.key + "' has been removed");
+				}
+			}
+			return this.index;
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof Map.Entry)) {
+				return false;
+			}
+			Map.Entry<?, ?> otherEntry = (Map.Entry<?, ?>) other;
+			return (this.key.equals(otherEntry.getKey()) &&
+					ObjectUtils.nullSafeEquals(getValue(), otherEntry.getValue()));
+		}
+
+		@Override
+		public int hashCode() {
+			List<String> value = getValue();
+			return this.key.hashCode() ^ (value != null ? value.hashCode() : 0);
+		}
+
+		@Override
+		public String toString() {
+			return this.key + "=" + getValue();
+		}
+	}
+
+
+	/**
+	 * Mutable list of header values that stores its first element inline,
+	 * and only allocates an array once a second element is added.
+	 */
+	private static final class HeaderValues extends AbstractList<String> implements RandomAccess, Serializable {
+
+		private static final long serialVersionUID = 6232930744616418834L;
+
+		@Nullable
+		private String first;
+
+		@Nullable
+		private String[] rest;
+
+		private int size;
+
+		HeaderValues() {
+		}
+
+		HeaderValues(@Nullable String value) {
+			this.first = value;
+			this.size = 1;
+		}
+
+		@Override
+		public int size() {
+			return this.size;
+		}
+
+		@Override
+		@Nullable
+		public String get(int index) {
+			checkIndex(index, this.size);
+			return elementAt(index);
+		}
+
+		@Override
+		@Nullable
+		public String set(int index, @Nullable String value) {
+			checkIndex(index, this.size);
+			String oldValue = elementAt(index);
+			setElementAt(index, value);
+			return oldValue;
+		}
+
+		@Override
+		public void add(int index, @Nullable String value) {
+			checkIndex(index, this.size + 1);
+			if (this.size > 0) {
+				if (this.rest == null) {
+					this.rest = new String[4];
+				}
+				else if (this.rest.length < this.size) {
+					this.rest = Arrays.copyOf(this.rest, this.rest.length * 2);
+				}
+			}
+			for (int i = this.size; i > index; i--) {
+				setElementAt(i, elementAt(i - 1));
+			}
+			setElementAt(index, value);
+			this.size++;
+			this.modCount++;
+		}
+
+		@Override
+		@Nullable
+		public String remove(int index) {
+			checkIndex(index, this.size);
+			String oldValue = elementAt(index);
+			for (int i = index; i < this.size - 1; i++) {
+				setElementAt(i, elementAt(i + 1));
+			}
+			this.size--;
+			setElementAt(this.size, null);
+			this.modCount++;
+			return oldValue;
+		}
+
+		@Override
+		public void clear() {
+			this.first = null;
+			this.rest = null;
+			this.size = 0;
+			this.modCount++;
+		}
+
+		@Nullable
+		private String elementAt(int index) {
+			return (index == 0 ? this.first : this.rest[index - 1]);
+		}
+
+		private void setElementAt(int index, @Nullable String value) {
+			if (index == 0) {
+				this.first = value;
+			}
+			else {
+				this.rest[index - 1] = value;
+			}
+		}
+
+		private static void checkIndex(int index, int size) {
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			}
+		}
+	}
+
+}
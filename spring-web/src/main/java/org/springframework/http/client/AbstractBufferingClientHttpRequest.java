@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,37 +16,48 @@
 
 package org.springframework.http.client;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 
 import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.util.FastByteArrayOutputStream;
 
 /**
  * Base implementation of {@link ClientHttpRequest} that buffers output
  * in a byte array before sending it over the wire.
  *
+ * <p>If the {@code Content-Length} is known when the body is first requested,
+ * the buffer is sized to match, so that the content is not copied again
+ * before it is sent.
+ *
  * @author Arjen Poutsma
  * @since 3.0.6
  */
 abstract class AbstractBufferingClientHttpRequest extends AbstractClientHttpRequest {
 
-	private ByteArrayOutputStream bufferedOutput = new ByteArrayOutputStream(1024);
+	@Nullable
+	private FastByteArrayOutputStream bufferedOutput;
 
 
 	@Override
 	protected OutputStream getBodyInternal(HttpHeaders headers) throws IOException {
+		if (this.bufferedOutput == null) {
+			long contentLength = headers.getContentLength();
+			this.bufferedOutput = new FastByteArrayOutputStream(
+					contentLength > 0 && contentLength <= Integer.MAX_VALUE ? (int) contentLength : 1024);
+		}
 		return this.bufferedOutput;
 	}
 
 	@Override
 	protected ClientHttpResponse executeInternal(HttpHeaders headers) throws IOException {
-		byte[] bytes = this.bufferedOutput.toByteArray();
+		byte[] bytes = (this.bufferedOutput != null ? this.bufferedOutput.toByteArrayUnsafe() : new byte[0]);
 		if (headers.getContentLength() < 0) {
 			headers.setContentLength(bytes.length);
 		}
 		ClientHttpResponse result = executeInternal(headers, bytes);
-		this.bufferedOutput = new ByteArrayOutputStream(0);
+		this.bufferedOutput = null;
 		return result;
 	}
 
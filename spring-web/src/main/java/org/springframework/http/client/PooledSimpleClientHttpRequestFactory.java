@@ -0,0 +1,461 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link SimpleClientHttpRequestFactory} variant that streams request bodies
+ * and bounds the number of concurrently open connections, in total as well as
+ * per route (scheme, host and port).
+ *
+ * <p>Connections of the standard JDK {@link HttpURLConnection} are pooled and
+ * kept alive by the JDK itself, JVM-wide, when the response body is fully
+ * consumed and closed. This factory does not replace that cache but caps the
+ * number of connections in use: a request acquires a permit before it
+ * connects, i.e. when its body is first obtained or when it is executed,
+ * whichever comes first, waiting up to the {@linkplain #setConnectionRequestTimeout
+ * connection request timeout} if none is available. The permit is released
+ * when the {@link ClientHttpResponse} is closed, when the request body stream
+ * is closed before the request is executed, or as soon as writing the body or
+ * executing the request fails, in which case the connection is disconnected.
+ * A request that is abandoned after its body was obtained, e.g. because a
+ * message converter failed, can be {@linkplain java.io.Closeable#close() closed}
+ * to release its permit, as {@link org.springframework.web.client.RestTemplate}
+ * does. For connections to be reused, the {@code http.maxConnections} system
+ * property (5 by default) should be at least as large as the
+ * {@linkplain #setMaxConnectionsPerRoute per-route limit}.
+ *
+ * <p>Request bodies are {@linkplain #setBufferRequestBody(boolean) not buffered}
+ * by default, and asynchronous requests are not subject to the limits.
+ *
+ * @since 5.3
+ */
+public class PooledSimpleClientHttpRequestFactory extends SimpleClientHttpRequestFactory {
+
+	private int maxConnections = 50;
+
+	private int maxConnectionsPerRoute = 10;
+
+	private long connectionRequestTimeout = -1;
+
+	private boolean keepAlive = true;
+
+	@Nullable
+	private volatile Semaphore totalPermits;
+
+	private final Map<String, Semaphore> routePermits = new ConcurrentHashMap<>();
+
+
+	/**
+	 * Create a new instance of the {@code PooledSimpleClientHttpRequestFactory}.
+	 */
+	public PooledSimpleClientHttpRequestFactory() {
+		setBufferRequestBody(false);
+	}
+
+
+	/**
+	 * Set the maximum number of connections in use at any time.
+	 * <p>Default is 50.
+	 */
+	public void setMaxConnections(int maxConnections) {
+		Assert.isTrue(maxConnections > 0, "'maxConnections' must be greater than 0");
+		Assert.state(this.totalPermits == null, "Factory already in use");
+		this.maxConnections = maxConnections;
+	}
+
+	/**
+	 * Return the maximum number of connections in use at any time.
+	 */
+	public int getMaxConnections() {
+		return this.maxConnections;
+	}
+
+	/**
+	 * Set the maximum number of connections in use per route, i.e. per scheme,
+	 * host and port combination.
+	 * <p>Default is 10.
+	 */
+	public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+		Assert.isTrue(maxConnectionsPerRoute > 0, "'maxConnectionsPerRoute' must be greater than 0");
+		Assert.state(this.routePermits.isEmpty(), "Factory already in use");
+		this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+	}
+
+	/**
+	 * Return the maximum number of connections in use per route.
+	 */
+	public int getMaxConnectionsPerRoute() {
+		return this.maxConnectionsPerRoute;
+	}
+
+	/**
+	 * Set the time in milliseconds to wait for a connection to become available
+	 * when the limits are reached, before an {@link IOException} is raised.
+	 * <p>Default is -1, which means to wait indefinitely.
+	 */
+	public void setConnectionRequestTimeout(long connectionRequestTimeout) {
+		this.connectionRequestTimeout = connectionRequestTimeout;
+	}
+
+	/**
+	 * Return the connection request timeout in milliseconds.
+	 */
+	public long getConnectionRequestTimeout() {
+		return this.connectionRequestTimeout;
+	}
+
+	/**
+	 * Whether connections should be kept alive for reuse by subsequent requests.
+	 * <p>Default is {@code true}. When set to {@code false}, requests are sent
+	 * with a {@code "Connection: close"} header.
+	 */
+	public void setKeepAlive(boolean keepAlive) {
+		this.keepAlive = keepAlive;
+	}
+
+	/**
+	 * Return whether connections are kept alive.
+	 */
+	public boolean isKeepAlive() {
+		return this.keepAlive;
+	}
+
+
+	@Override
+	public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+		HttpURLConnection connection = createConnection(uri, httpMethod);
+		return new PooledClientHttpRequest(createRequest(connection), connection, uri);
+	}
+
+	@Override
+	protected void prepareConnection(HttpURLConnection connection, String httpMethod) throws IOException {
+		super.prepareConnection(connection, httpMethod);
+		if (!this.keepAlive) {
+			connection.setRequestProperty(HttpHeaders.CONNECTION, "close");
+		}
+	}
+
+	private Semaphore getTotalPermits() {
+		Semaphore permits = this.totalPermits;
+		if (permits == null) {
+			synchronized (this.routePermits) {
+				permits = this.totalPermits;
+				if (permits == null) {
+					permits = new Semaphore(this.maxConnections, true);
+					this.totalPermits = permits;
+				}
+			}
+		}
+		return permits;
+	}
+
+	private Semaphore getRoutePermits(URI uri) {
+		int port = uri.getPort();
+		if (port == -1) {
+			port = ("https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80);
+		}
+		String route = uri.getScheme() + "://" + uri.getHost() + ":" + port;
+		return this.routePermits.computeIfAbsent(route, key -> new Semaphore(this.maxConnectionsPerRoute, true));
+	}
+
+	/**
+	 * Return the number of connections to the route of the given URI that
+	 * can be opened without waiting, for testing purposes.
+	 */
+	int getAvailableConnections(URI uri) {
+		return Math.min(getRoutePermits(uri).availablePermits(), getTotalPermits().availablePermits());
+	}
+
+	private void acquire(Semaphore permits, URI uri) throws IOException {
+		try {
+			if (this.connectionRequestTimeout < 0) {
+				permits.acquire();
+			}
+			else if (!permits.tryAcquire(this.connectionRequestTimeout, TimeUnit.MILLISECONDS)) {
+				throw new IOException("Timeout waiting for connection to " + uri);
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for connection to " + uri);
+		}
+	}
+
+
+	/**
+	 * {@link ClientHttpRequest} decorator that holds a connection permit from
+	 * the time the connection is opened until the response is closed.
+	 */
+	private class PooledClientHttpRequest implements ClientHttpRequest, Closeable {
+
+		private final ClientHttpRequest delegate;
+
+		private final HttpURLConnection connection;
+
+		private final URI uri;
+
+		@Nullable
+		private Semaphore routePermits;
+
+		@Nullable
+		private Semaphore totalPermits;
+
+		private boolean executed;
+
+		PooledClientHttpRequest(ClientHttpRequest delegate, HttpURLConnection connection, URI uri) {
+			this.delegate = delegate;
+			this.connection = connection;
+			this.uri = uri;
+		}
+
+		@Override
+		public HttpMethod getMethod() {
+			return this.delegate.getMethod();
+		}
+
+		@Override
+		public String getMethodValue() {
+			return this.delegate.getMethodValue();
+		}
+
+		@Override
+		public URI getURI() {
+			return this.delegate.getURI();
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return this.delegate.getHeaders();
+		}
+
+		@Override
+		public OutputStream getBody() throws IOException {
+			acquirePermits();
+			try {
+				return new PooledBodyOutputStream(this.delegate.getBody(), this::bodyClosed, this::abort);
+			}
+			catch (IOException | RuntimeException ex) {
+				abort();
+				throw ex;
+			}
+		}
+
+		@Override
+		public ClientHttpResponse execute() throws IOException {
+			ClientHttpResponse response = null;
+			try {
+				acquirePermits();
+				response = new PooledClientHttpResponse(this.delegate.execute(), this::releasePermits);
+				this.executed = true;
+				return response;
+			}
+			finally {
+				if (response == null) {
+					abort();
+				}
+			}
+		}
+
+		/**
+		 * Release the permit of a request that is abandoned before it is
+		 * executed, and disconnect its connection, if any.
+		 */
+		@Override
+		public void close() {
+			abort();
+		}
+
+		private void acquirePermits() throws IOException {
+			if (this.totalPermits != null) {
+				return;
+			}
+			Semaphore routePermits = getRoutePermits(this.uri);
+			acquire(routePermits, this.uri);
+			Semaphore totalPermits = getTotalPermits();
+			try {
+				acquire(totalPermits, this.uri);
+			}
+			catch (IOException ex) {
+				routePermits.release();
+				throw ex;
+			}
+			this.routePermits = routePermits;
+			this.totalPermits = totalPermits;
+		}
+
+		private void releasePermits() {
+			Semaphore routePermits = this.routePermits;
+			Semaphore totalPermits = this.totalPermits;
+			if (routePermits != null && totalPermits != null) {
+				this.routePermits = null;
+				this.totalPermits = null;
+				totalPermits.release();
+				routePermits.release();
+			}
+		}
+
+		private void bodyClosed() {
+			if (!this.executed) {
+				releasePermits();
+			}
+		}
+
+		private void abort() {
+			if (!this.executed) {
+				releasePermits();
+				this.connection.disconnect();
+			}
+		}
+	}
+
+
+	/**
+	 * {@link OutputStream} decorator that releases the connection permit of
+	 * its request once closed, and aborts the request if writing fails, since
+	 * it cannot be executed after that.
+	 */
+	private static class PooledBodyOutputStream extends OutputStream {
+
+		private final OutputStream delegate;
+
+		private final Runnable closeCallback;
+
+		private final Runnable failureCallback;
+
+		PooledBodyOutputStream(OutputStream delegate, Runnable closeCallback, Runnable failureCallback) {
+			this.delegate = delegate;
+			this.closeCallback = closeCallback;
+			this.failureCallback = failureCallback;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			try {
+				this.delegate.write(b);
+			}
+			catch (IOException | RuntimeException ex) {
+				this.failureCallback.run();
+				throw ex;
+			}
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			try {
+				this.delegate.write(b, off, len);
+			}
+			catch (IOException | RuntimeException ex) {
+				this.failureCallback.run();
+				throw ex;
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			try {
+				this.delegate.flush();
+			}
+			catch (IOException | RuntimeException ex) {
+				this.failureCallback.run();
+				throw ex;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				this.delegate.close();
+			}
+			catch (IOException | RuntimeException ex) {
+				this.failureCallback.run();
+				throw ex;
+			}
+			this.closeCallback.run();
+		}
+	}
+
+
+	/**
+	 * {@link ClientHttpResponse} decorator that releases the connection permit
+	 * of its request once closed.
+	 */
+	private static class PooledClientHttpResponse implements ClientHttpResponse {
+
+		private final ClientHttpResponse delegate;
+
+		private final Runnable releaseCallback;
+
+		PooledClientHttpResponse(ClientHttpResponse delegate, Runnable releaseCallback) {
+			this.delegate = delegate;
+			this.releaseCallback = releaseCallback;
+		}
+
+		@Override
+		public HttpStatus getStatusCode() throws IOException {
+			return this.delegate.getStatusCode();
+		}
+
+		@Override
+		public int getRawStatusCode() throws IOException {
+			return this.delegate.getRawStatusCode();
+		}
+
+		@Override
+		public String getStatusText() throws IOException {
+			return this.delegate.getStatusText();
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return this.delegate.getHeaders();
+		}
+
+		@Override
+		public InputStream getBody() throws IOException {
+			return this.delegate.getBody();
+		}
+
+		@Override
+		public void close() {
+			try {
+				this.delegate.close();
+			}
+			finally {
+				this.releaseCallback.run();
+			}
+		}
+	}
+
+}
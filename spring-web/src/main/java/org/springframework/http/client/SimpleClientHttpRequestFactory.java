@@ -142,9 +142,22 @@ public class SimpleClientHttpRequestFactory implements ClientHttpRequestFactory,
 
 	@Override
 	public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+		return createRequest(createConnection(uri, httpMethod));
+	}
+
+	/**
+	 * Open and prepare a connection for the given URI and HTTP method.
+	 */
+	HttpURLConnection createConnection(URI uri, HttpMethod httpMethod) throws IOException {
 		HttpURLConnection connection = openConnection(uri.toURL(), this.proxy);
 		prepareConnection(connection, httpMethod.name());
+		return connection;
+	}
 
+	/**
+	 * Create a request for the given, prepared connection.
+	 */
+	ClientHttpRequest createRequest(HttpURLConnection connection) {
 		if (this.bufferRequestBody) {
 			return new SimpleBufferingClientHttpRequest(connection, this.outputStreaming);
 		}
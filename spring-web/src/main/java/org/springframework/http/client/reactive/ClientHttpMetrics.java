@@ -0,0 +1,361 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client.reactive;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+
+/**
+ * Timings and other metrics collected for a single HTTP exchange, from the
+ * time the exchange is started until the response body has been consumed.
+ *
+ * <p>An instance is made available to the {@link ClientHttpConnector} through
+ * the Reactor {@link reactor.util.context.Context Context} under
+ * {@link #CONTEXT_KEY}. Connectors that support it record the connection,
+ * request and time-to-first-byte {@linkplain Phase phases}, while the
+ * {@link Phase#RESPONSE RESPONSE} and {@link Phase#RESPONSE_BODY RESPONSE_BODY}
+ * phases, the number of bytes sent and received, and the outcome are
+ * independent of the connector.
+ *
+ * <p>Instances are safe to use from multiple threads.
+ *
+ * @since 5.3
+ */
+public final class ClientHttpMetrics {
+
+	/**
+	 * Name of the Reactor {@link reactor.util.context.Context Context} attribute
+	 * under which the {@code ClientHttpMetrics} for the current exchange are
+	 * made available to the {@link ClientHttpConnector}.
+	 */
+	public static final String CONTEXT_KEY = ClientHttpMetrics.class.getName();
+
+
+	private final HttpMethod method;
+
+	private final URI uri;
+
+	private final long startTime = System.nanoTime();
+
+	private final AtomicLongArray phases = new AtomicLongArray(Phase.values().length);
+
+	private final AtomicLong bytesSent = new AtomicLong();
+
+	private final AtomicLong bytesReceived = new AtomicLong();
+
+	private volatile boolean connectionReused;
+
+	private volatile int statusCode = -1;
+
+	@Nullable
+	private volatile Throwable error;
+
+	private volatile boolean cancelled;
+
+	private volatile long endTime;
+
+	private final AtomicBoolean completed = new AtomicBoolean();
+
+
+	/**
+	 * Create a new instance for an exchange that starts now.
+	 * @param method the HTTP method of the request
+	 * @param uri the URI of the request
+	 */
+	public ClientHttpMetrics(HttpMethod method, URI uri) {
+		this.method = method;
+		this.uri = uri;
+		for (int i = 0; i < this.phases.length(); i++) {
+			this.phases.set(i, -1);
+		}
+	}
+
+
+	/**
+	 * Return the HTTP method of the request.
+	 */
+	public HttpMethod getMethod() {
+		return this.method;
+	}
+
+	/**
+	 * Return the URI of the request.
+	 */
+	public URI getUri() {
+		return this.uri;
+	}
+
+	/**
+	 * Return the value of {@link System#nanoTime()} when the exchange started,
+	 * for use in computing the duration of a phase.
+	 */
+	public long getStartTime() {
+		return this.startTime;
+	}
+
+	/**
+	 * Record the duration of the given phase.
+	 * @param phase the phase
+	 * @param nanos the duration in nanoseconds
+	 */
+	public void recordPhase(Phase phase, long nanos) {
+		this.phases.set(phase.ordinal(), nanos);
+	}
+
+	/**
+	 * Return the duration of the given phase, or {@code null} if it was not
+	 * recorded, e.g. because the connector does not support it, or because
+	 * the exchange ended before the phase was completed.
+	 */
+	@Nullable
+	public Duration getPhase(Phase phase) {
+		long nanos = this.phases.get(phase.ordinal());
+		return (nanos != -1 ? Duration.ofNanos(nanos) : null);
+	}
+
+	/**
+	 * Add to the number of bytes of the request body sent.
+	 */
+	public void addBytesSent(long bytes) {
+		this.bytesSent.addAndGet(bytes);
+	}
+
+	/**
+	 * Return the number of bytes of the request body sent.
+	 */
+	public long getBytesSent() {
+		return this.bytesSent.get();
+	}
+
+	/**
+	 * Add to the number of bytes of the response body received.
+	 */
+	public void addBytesReceived(long bytes) {
+		this.bytesReceived.addAndGet(bytes);
+	}
+
+	/**
+	 * Return the number of bytes of the response body received.
+	 */
+	public long getBytesReceived() {
+		return this.bytesReceived.get();
+	}
+
+	/**
+	 * Indicate whether the request was sent on a pooled connection that was
+	 * reused rather than newly established, in which case the
+	 * {@link Phase#CONNECTION CONNECTION} phase is the time spent waiting for
+	 * the pool.
+	 */
+	public void setConnectionReused(boolean connectionReused) {
+		this.connectionReused = connectionReused;
+	}
+
+	/**
+	 * Whether the request was sent on a reused pooled connection.
+	 */
+	public boolean isConnectionReused() {
+		return this.connectionReused;
+	}
+
+	/**
+	 * Set the raw status code of the response.
+	 */
+	public void setStatusCode(int statusCode) {
+		this.statusCode = statusCode;
+	}
+
+	/**
+	 * Return the raw status code of the response, or -1 if no response was
+	 * received.
+	 */
+	public int getStatusCode() {
+		return this.statusCode;
+	}
+
+	/**
+	 * Set the error the exchange ended with.
+	 */
+	public void setError(Throwable error) {
+		this.error = error;
+	}
+
+	/**
+	 * Return the error the exchange ended with, if any.
+	 */
+	@Nullable
+	public Throwable getError() {
+		return this.error;
+	}
+
+	/**
+	 * Mark the exchange as cancelled before it was completed.
+	 */
+	public void setCancelled() {
+		this.cancelled = true;
+	}
+
+	/**
+	 * Whether the exchange was cancelled before it was completed.
+	 */
+	public boolean isCancelled() {
+		return this.cancelled;
+	}
+
+	/**
+	 * Mark the exchange as completed, once the response body has been consumed,
+	 * or the exchange ended before that.
+	 * @return {@code true} if the exchange was marked as completed as a result
+	 * of this call, or {@code false} if it was already completed
+	 */
+	public boolean complete() {
+		if (this.completed.compareAndSet(false, true)) {
+			this.endTime = System.nanoTime();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Return the total duration of the exchange, or {@code null} if it has not
+	 * completed yet.
+	 */
+	@Nullable
+	public Duration getDuration() {
+		return (this.completed.get() ? Duration.ofNanos(this.endTime - this.startTime) : null);
+	}
+
+	/**
+	 * Return the outcome of the exchange, suitable as a low cardinality tag.
+	 */
+	public Outcome getOutcome() {
+		if (this.error != null) {
+			return Outcome.ERROR;
+		}
+		if (this.cancelled) {
+			return Outcome.CANCELLED;
+		}
+		HttpStatus.Series series = HttpStatus.Series.resolve(this.statusCode);
+		if (series == null) {
+			return Outcome.UNKNOWN;
+		}
+		switch (series) {
+			case INFORMATIONAL:
+				return Outcome.INFORMATIONAL;
+			case SUCCESSFUL:
+				return Outcome.SUCCESS;
+			case REDIRECTION:
+				return Outcome.REDIRECTION;
+			case CLIENT_ERROR:
+				return Outcome.CLIENT_ERROR;
+			default:
+				return Outcome.SERVER_ERROR;
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder(this.method.name()).append(' ').append(this.uri)
+				.append(", outcome=").append(getOutcome());
+		for (Phase phase : Phase.values()) {
+			Duration duration = getPhase(phase);
+			if (duration != null) {
+				builder.append(", ").append(phase.name().toLowerCase(Locale.ENGLISH)).append('=')
+						.append(TimeUnit.NANOSECONDS.toMicros(duration.toNanos())).append("us");
+			}
+		}
+		return builder.append(", sent=").append(getBytesSent())
+				.append(", received=").append(getBytesReceived()).toString();
+	}
+
+
+	/**
+	 * The phases of an HTTP exchange.
+	 */
+	public enum Phase {
+
+		/**
+		 * Obtaining a connection, including the time waiting for a pooled
+		 * connection, or resolving the host name, connecting and performing
+		 * the TLS handshake for a new one. Recorded by the connector.
+		 */
+		CONNECTION,
+
+		/**
+		 * Writing the request headers and body. Recorded by the connector.
+		 */
+		REQUEST,
+
+		/**
+		 * From the time the request was written until the response headers
+		 * were received. Recorded by the connector.
+		 */
+		TIME_TO_FIRST_BYTE,
+
+		/**
+		 * From the start of the exchange until the response headers were
+		 * received, spanning all the phases above.
+		 */
+		RESPONSE,
+
+		/**
+		 * Reading and decoding the response body.
+		 */
+		RESPONSE_BODY
+	}
+
+
+	/**
+	 * The outcome of an HTTP exchange.
+	 */
+	public enum Outcome {
+
+		/** A 1xx response was received. */
+		INFORMATIONAL,
+
+		/** A 2xx response was received. */
+		SUCCESS,
+
+		/** A 3xx response was received. */
+		REDIRECTION,
+
+		/** A 4xx response was received. */
+		CLIENT_ERROR,
+
+		/** A 5xx response was received. */
+		SERVER_ERROR,
+
+		/** A response with a non-standard status code was received. */
+		UNKNOWN,
+
+		/** The exchange failed with an error. */
+		ERROR,
+
+		/** The exchange was cancelled. */
+		CANCELLED
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -44,10 +44,14 @@ class JettyClientHttpResponse implements ClientHttpResponse {
 
 	private final Flux<DataBuffer> content;
 
+	private final HttpHeaders headers;
+
 
 	public JettyClientHttpResponse(ReactiveResponse reactiveResponse, Publisher<DataBuffer> content) {
 		this.reactiveResponse = reactiveResponse;
 		this.content = Flux.from(content);
+		this.headers = HttpHeaders.readOnlyHttpHeaders(
+				new HttpHeaders(new JettyHeadersAdapter(reactiveResponse.getHeaders())));
 	}
 
 
@@ -88,10 +92,7 @@ class JettyClientHttpResponse implements ClientHttpResponse {
 
 	@Override
 	public HttpHeaders getHeaders() {
-		HttpHeaders headers = new HttpHeaders();
-		this.reactiveResponse.getHeaders().stream()
-				.forEach(field -> headers.add(field.getName(), field.getValue()));
-		return headers;
+		return this.headers;
 	}
 
 }
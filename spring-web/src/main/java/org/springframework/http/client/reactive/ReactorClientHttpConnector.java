@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,10 +17,12 @@
 package org.springframework.http.client.reactive;
 
 import java.net.URI;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
 import io.netty.buffer.ByteBufAllocator;
 import reactor.core.publisher.Mono;
+import reactor.netty.ConnectionObserver;
 import reactor.netty.NettyInbound;
 import reactor.netty.NettyOutbound;
 import reactor.netty.http.client.HttpClient;
@@ -35,6 +37,14 @@ import org.springframework.util.Assert;
 /**
  * Reactor-Netty implementation of {@link ClientHttpConnector}.
  *
+ * <p>When {@link ClientHttpMetrics} are present in the Reactor context, the
+ * {@link ClientHttpMetrics.Phase#CONNECTION CONNECTION},
+ * {@link ClientHttpMetrics.Phase#REQUEST REQUEST} and
+ * {@link ClientHttpMetrics.Phase#TIME_TO_FIRST_BYTE TIME_TO_FIRST_BYTE} phases
+ * are recorded, along with whether a pooled connection was reused. Reactor
+ * Netty does not report name resolution and the TLS handshake separately, so
+ * they are part of the connection phase.
+ *
  * @author Brian Clozel
  * @since 5.0
  * @see reactor.netty.http.client.HttpClient
@@ -104,12 +114,37 @@ public class ReactorClientHttpConnector implements ClientHttpConnector {
 			return Mono.error(new IllegalArgumentException("URI is not absolute: " + uri));
 		}
 
-		return this.httpClient
-				.request(io.netty.handler.codec.http.HttpMethod.valueOf(method.name()))
-				.uri(uri.toString())
-				.send((request, outbound) -> requestCallback.apply(adaptRequest(method, uri, request, outbound)))
-				.responseConnection((res, con) -> Mono.just(adaptResponse(res, con.inbound(), con.outbound().alloc())))
-				.next();
+		return Mono.deferWithContext(context -> {
+			ClientHttpMetrics metrics = context.getOrDefault(ClientHttpMetrics.CONTEXT_KEY, null);
+			HttpClient client = (metrics != null ? initMetrics(this.httpClient, metrics) : this.httpClient);
+			return client
+					.request(io.netty.handler.codec.http.HttpMethod.valueOf(method.name()))
+					.uri(uri.toString())
+					.send((request, outbound) -> requestCallback.apply(adaptRequest(method, uri, request, outbound)))
+					.responseConnection((res, con) -> Mono.just(adaptResponse(res, con.inbound(), con.outbound().alloc())))
+					.next();
+		});
+	}
+
+	private static HttpClient initMetrics(HttpClient client, ClientHttpMetrics metrics) {
+		AtomicLong lastEventTime = new AtomicLong(System.nanoTime());
+		return client
+				.observe((connection, state) -> {
+					if (state == ConnectionObserver.State.ACQUIRED) {
+						metrics.setConnectionReused(true);
+					}
+				})
+				.doOnRequest((request, connection) ->
+						recordPhase(metrics, ClientHttpMetrics.Phase.CONNECTION, lastEventTime))
+				.doAfterRequest((request, connection) ->
+						recordPhase(metrics, ClientHttpMetrics.Phase.REQUEST, lastEventTime))
+				.doOnResponse((response, connection) ->
+						recordPhase(metrics, ClientHttpMetrics.Phase.TIME_TO_FIRST_BYTE, lastEventTime));
+	}
+
+	private static void recordPhase(ClientHttpMetrics metrics, ClientHttpMetrics.Phase phase, AtomicLong lastEventTime) {
+		long now = System.nanoTime();
+		metrics.recordPhase(phase, now - lastEventTime.getAndSet(now));
 	}
 
 	private ReactorClientHttpRequest adaptRequest(HttpMethod method, URI uri, HttpClientRequest request,
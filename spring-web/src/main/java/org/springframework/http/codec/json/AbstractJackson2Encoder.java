@@ -17,8 +17,10 @@
 package org.springframework.http.codec.json;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.nio.charset.Charset;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -28,7 +30,6 @@ import java.util.Map;
 import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.util.ByteArrayBuilder;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -47,6 +48,7 @@ import org.springframework.core.codec.EncodingException;
 import org.springframework.core.codec.Hints;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.core.log.LogFormatUtils;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.HttpMessageEncoder;
@@ -61,6 +63,12 @@ import org.springframework.util.MimeType;
  * cases, {@link Flux} elements are collected into a {@link List} before serialization for
  * performance reason.
  *
+ * <p>Values are serialized straight into {@link DataBuffer DataBuffers} allocated
+ * from the given {@link DataBufferFactory}, so pooled buffers are used when the
+ * factory provides them. For streaming use cases, a single {@link JsonGenerator}
+ * is used for all elements of the stream, and small elements may optionally be
+ * batched into a single buffer, see {@link #setStreamingBatch}.
+ *
  * @author Sebastien Deleuze
  * @author Arjen Poutsma
  * @since 5.0
@@ -80,6 +88,12 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 
 	private final List<MediaType> streamingMediaTypes = new ArrayList<>(1);
 
+	private int streamingBatchMaxElements = 1;
+
+	private int streamingBatchMaxBytes = Integer.MAX_VALUE;
+
+	private Duration streamingBatchMaxDelay = Duration.ZERO;
+
 
 	/**
 	 * Constructor with a Jackson {@link ObjectMapper} to use.
@@ -101,6 +115,31 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 		this.streamingMediaTypes.addAll(mediaTypes);
 	}
 
+	/**
+	 * Batch elements of "streaming" media types into fewer, larger buffers,
+	 * which reduces the number of buffers allocated and flushed for streams
+	 * of many small elements.
+	 * <p>Elements are collected for up to {@code maxDelay} after the first
+	 * element of a batch, or until {@code maxElements} elements are available,
+	 * and are then serialized into a single buffer. A new buffer is started
+	 * whenever the current one holds {@code maxBytes} or more.
+	 * <p>By default, batching is turned off and each element is flushed
+	 * as soon as it is serialized.
+	 * @param maxElements the maximum number of elements per batch;
+	 * 1 turns batching off
+	 * @param maxBytes the number of bytes after which a new buffer is started
+	 * @param maxDelay the maximum time to wait for a batch to fill up
+	 * @since 5.3
+	 */
+	public void setStreamingBatch(int maxElements, int maxBytes, Duration maxDelay) {
+		Assert.isTrue(maxElements > 0, "'maxElements' must be greater than 0");
+		Assert.isTrue(maxBytes > 0, "'maxBytes' must be greater than 0");
+		Assert.notNull(maxDelay, "'maxDelay' must not be null");
+		this.streamingBatchMaxElements = maxElements;
+		this.streamingBatchMaxBytes = maxBytes;
+		this.streamingBatchMaxDelay = maxDelay;
+	}
+
 
 	@Override
 	public boolean canEncode(ResolvableType elementType, @Nullable MimeType mimeType) {
@@ -125,20 +164,31 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 		else {
 			byte[] separator = streamSeparator(mimeType);
 			if (separator != null) { // streaming
-				try {
-					ObjectWriter writer = createObjectWriter(elementType, mimeType, hints);
-					ByteArrayBuilder byteBuilder = new ByteArrayBuilder(writer.getFactory()._getBufferRecycler());
-					JsonEncoding encoding = getJsonEncoding(mimeType);
-					JsonGenerator generator = getObjectMapper().getFactory().createGenerator(byteBuilder, encoding);
-					SequenceWriter sequenceWriter = writer.writeValues(generator);
-
+				return Flux.defer(() -> {
+					DataBufferOutputStream outputStream = new DataBufferOutputStream();
+					JsonGenerator generator;
+					SequenceWriter sequenceWriter;
+					try {
+						ObjectWriter writer = createObjectWriter(elementType, mimeType, hints);
+						JsonEncoding encoding = getJsonEncoding(mimeType);
+						generator = getObjectMapper().getFactory().createGenerator(outputStream, encoding);
+						sequenceWriter = writer.writeValues(generator);
+					}
+					catch (IOException ex) {
+						return Flux.error(ex);
+					}
+					if (this.streamingBatchMaxElements > 1) {
+						return Flux.from(inputStream)
+								.bufferTimeout(this.streamingBatchMaxElements, this.streamingBatchMaxDelay)
+								.concatMapIterable(values -> encodeStreamingValues(values, bufferFactory, hints,
+										sequenceWriter, outputStream, separator))
+								.doFinally(signalType -> closeGenerator(generator));
+					}
 					return Flux.from(inputStream)
-							.map(value -> encodeStreamingValue(value, bufferFactory, hints, sequenceWriter, byteBuilder,
-									separator));
-				}
-				catch (IOException ex) {
-					return Flux.error(ex);
-				}
+							.map(value -> encodeStreamingValue(value, bufferFactory, hints, sequenceWriter,
+									outputStream, separator))
+							.doFinally(signalType -> closeGenerator(generator));
+				});
 			}
 			else { // non-streaming
 				ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
@@ -156,15 +206,16 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 			ResolvableType valueType, @Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
 
 		ObjectWriter writer = createObjectWriter(valueType, mimeType, hints);
-		ByteArrayBuilder byteBuilder = new ByteArrayBuilder(writer.getFactory()._getBufferRecycler());
 		JsonEncoding encoding = getJsonEncoding(mimeType);
 
 		logValue(hints, value);
 
-		try {
-			JsonGenerator generator = getObjectMapper().getFactory().createGenerator(byteBuilder, encoding);
+		DataBuffer buffer = bufferFactory.allocateBuffer();
+		boolean release = true;
+		try (JsonGenerator generator = getObjectMapper().getFactory().createGenerator(buffer.asOutputStream(), encoding)) {
 			writer.writeValue(generator, value);
 			generator.flush();
+			release = false;
 		}
 		catch (MismatchedInputException ex) {  // specific kind of JsonMappingException
 			throw new EncodingException("Invalid JSON input: " + ex.getOriginalMessage(), ex);
@@ -179,24 +230,29 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 			throw new EncodingException("JSON encoding error: " + ex.getOriginalMessage(), ex);
 		}
 		catch (IOException ex) {
-			throw new IllegalStateException("Unexpected I/O error while writing to byte array builder", ex);
+			throw new IllegalStateException("Unexpected I/O error while writing to data buffer", ex);
+		}
+		finally {
+			if (release) {
+				DataBufferUtils.release(buffer);
+			}
 		}
-
-		byte[] bytes = byteBuilder.toByteArray();
-		DataBuffer buffer = bufferFactory.allocateBuffer(bytes.length);
-		buffer.write(bytes);
 
 		return buffer;
 	}
 
 	private DataBuffer encodeStreamingValue(Object value, DataBufferFactory bufferFactory, @Nullable Map<String, Object> hints,
-			SequenceWriter sequenceWriter, ByteArrayBuilder byteArrayBuilder, byte[] separator) {
+			SequenceWriter sequenceWriter, DataBufferOutputStream outputStream, byte[] separator) {
 
 		logValue(hints, value);
 
+		DataBuffer buffer = bufferFactory.allocateBuffer();
+		outputStream.setBuffer(buffer);
+		boolean release = true;
 		try {
 			sequenceWriter.write(value);
 			sequenceWriter.flush();
+			release = false;
 		}
 		catch (InvalidDefinitionException ex) {
 			throw new CodecException("Type definition error: " + ex.getType(), ex);
@@ -205,30 +261,81 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 			throw new EncodingException("JSON encoding error: " + ex.getOriginalMessage(), ex);
 		}
 		catch (IOException ex) {
-			throw new IllegalStateException("Unexpected I/O error while writing to byte array builder", ex);
+			throw new IllegalStateException("Unexpected I/O error while writing to data buffer", ex);
+		}
+		finally {
+			outputStream.setBuffer(null);
+			if (release) {
+				DataBufferUtils.release(buffer);
+			}
 		}
 
-		byte[] bytes = byteArrayBuilder.toByteArray();
-		byteArrayBuilder.reset();
-
-		int offset;
-		int length;
-		if (bytes.length > 0 && bytes[0] == ' ') {
+		int readPosition = buffer.readPosition();
+		if (buffer.readableByteCount() > 0 && buffer.getByte(readPosition) == ' ') {
 			// SequenceWriter writes an unnecessary space in between values
-			offset = 1;
-			length = bytes.length - 1;
-		}
-		else {
-			offset = 0;
-			length = bytes.length;
+			buffer.readPosition(readPosition + 1);
 		}
-		DataBuffer buffer = bufferFactory.allocateBuffer(length + separator.length);
-		buffer.write(bytes, offset, length);
 		buffer.write(separator);
 
 		return buffer;
 	}
 
+	private List<DataBuffer> encodeStreamingValues(List<?> values, DataBufferFactory bufferFactory,
+			@Nullable Map<String, Object> hints, SequenceWriter sequenceWriter,
+			DataBufferOutputStream outputStream, byte[] separator) {
+
+		List<DataBuffer> result = new ArrayList<>(1);
+		DataBuffer buffer = bufferFactory.allocateBuffer();
+		boolean release = true;
+		try {
+			for (Object value : values) {
+				logValue(hints, value);
+				if (buffer.readableByteCount() >= this.streamingBatchMaxBytes) {
+					result.add(buffer);
+					buffer = bufferFactory.allocateBuffer();
+				}
+				outputStream.setBuffer(buffer);
+				// SequenceWriter writes an unnecessary space in between values
+				outputStream.skipLeadingSpace(separator.length > 0);
+				sequenceWriter.write(value);
+				sequenceWriter.flush();
+				outputStream.setBuffer(null);
+				buffer.write(separator);
+			}
+			result.add(buffer);
+			release = false;
+		}
+		catch (InvalidDefinitionException ex) {
+			throw new CodecException("Type definition error: " + ex.getType(), ex);
+		}
+		catch (JsonProcessingException ex) {
+			throw new EncodingException("JSON encoding error: " + ex.getOriginalMessage(), ex);
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Unexpected I/O error while writing to data buffer", ex);
+		}
+		finally {
+			outputStream.setBuffer(null);
+			if (release) {
+				result.forEach(DataBufferUtils::release);
+				if (result.isEmpty() || result.get(result.size() - 1) != buffer) {
+					DataBufferUtils.release(buffer);
+				}
+			}
+		}
+		return result;
+	}
+
+	private void closeGenerator(JsonGenerator generator) {
+		try {
+			// returns the generator's internal buffers to Jackson's recycler
+			generator.close();
+		}
+		catch (IOException ex) {
+			// ignore: nothing is written to a data buffer at this point
+		}
+	}
+
 	private void logValue(@Nullable Map<String, Object> hints, Object value) {
 		if (!Hints.isLoggingSuppressed(hints)) {
 			LogFormatUtils.traceDebug(logger, traceOn -> {
@@ -315,4 +422,59 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 		return parameter.getMethodAnnotation(annotType);
 	}
 
+
+	/**
+	 * {@link OutputStream} that writes to the {@link DataBuffer} currently set,
+	 * which allows for a single {@link JsonGenerator} (and its internal buffers)
+	 * to be used for a stream of values, each written straight into its own
+	 * data buffer. Bytes written while no buffer is set are discarded.
+	 */
+	private static class DataBufferOutputStream extends OutputStream {
+
+		@Nullable
+		private DataBuffer buffer;
+
+		private boolean skipLeadingSpace;
+
+		public void setBuffer(@Nullable DataBuffer buffer) {
+			this.buffer = buffer;
+			this.skipLeadingSpace = false;
+		}
+
+		/**
+		 * Whether to drop the first byte written to the current buffer
+		 * if it is a space.
+		 */
+		public void skipLeadingSpace(boolean skipLeadingSpace) {
+			this.skipLeadingSpace = skipLeadingSpace;
+		}
+
+		@Override
+		public void write(int b) {
+			if (this.buffer != null) {
+				if (this.skipLeadingSpace) {
+					this.skipLeadingSpace = false;
+					if (b == ' ') {
+						return;
+					}
+				}
+				this.buffer.write((byte) b);
+			}
+		}
+
+		@Override
+		public void write(byte[] bytes, int off, int len) {
+			if (this.buffer != null) {
+				if (this.skipLeadingSpace && len > 0) {
+					this.skipLeadingSpace = false;
+					if (bytes[off] == ' ') {
+						off++;
+						len--;
+					}
+				}
+				this.buffer.write(bytes, off, len);
+			}
+		}
+	}
+
 }
@@ -17,6 +17,7 @@
 package org.springframework.http.codec.json;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Function;
@@ -64,12 +65,32 @@ final class Jackson2Tokenizer {
 
 	private int arrayDepth;
 
-	private int byteCount;
-
 	private TokenBuffer tokenBuffer;
 
+	/**
+	 * Number of bytes fed to the parser so far.
+	 */
+	private long bytesFed;
+
+	/**
+	 * Stream offset of the first token of the value currently being tokenized
+	 * or, until that token is complete, following the last completed value.
+	 * Bytes from there on are held by the parser and the token buffer,
+	 * including any incomplete token that the parser is still buffering.
+	 */
+	private long valueStart;
+
+	private boolean valueStarted;
+
+	/**
+	 * Array used to feed the contents of buffers that are not backed by an
+	 * accessible byte array, reused for every such buffer.
+	 */
+	private byte[] feedArray = new byte[0];
 
-	// TODO: change to ByteBufferFeeder when supported by Jackson
+
+	// Jackson 2.10 does not provide a ByteBufferFeeder yet; heap buffers are
+	// fed through their backing array instead, without copying.
 	// See https://github.com/FasterXML/jackson-core/issues/478
 	private final ByteArrayFeeder inputFeeder;
 
@@ -89,15 +110,10 @@ final class Jackson2Tokenizer {
 
 
 	private List<TokenBuffer> tokenize(DataBuffer dataBuffer) {
-		int bufferSize = dataBuffer.readableByteCount();
-		byte[] bytes = new byte[bufferSize];
-		dataBuffer.read(bytes);
-		DataBufferUtils.release(dataBuffer);
-
 		try {
-			this.inputFeeder.feedInput(bytes, 0, bytes.length);
+			feedInput(dataBuffer);
 			List<TokenBuffer> result = parseTokenBufferFlux();
-			assertInMemorySize(bufferSize, result);
+			assertInMemorySize();
 			return result;
 		}
 		catch (JsonProcessingException ex) {
@@ -106,6 +122,27 @@ final class Jackson2Tokenizer {
 		catch (IOException ex) {
 			throw Exceptions.propagate(ex);
 		}
+		finally {
+			// the parser copies what it needs to retain, once all available tokens are read
+			DataBufferUtils.release(dataBuffer);
+		}
+	}
+
+	private void feedInput(DataBuffer dataBuffer) throws IOException {
+		ByteBuffer byteBuffer = dataBuffer.asByteBuffer();
+		int length = byteBuffer.remaining();
+		this.bytesFed += length;
+		if (byteBuffer.hasArray()) {
+			int offset = byteBuffer.arrayOffset() + byteBuffer.position();
+			this.inputFeeder.feedInput(byteBuffer.array(), offset, offset + length);
+		}
+		else {
+			if (this.feedArray.length < length) {
+				this.feedArray = new byte[length];
+			}
+			byteBuffer.get(this.feedArray, 0, length);
+			this.inputFeeder.feedInput(this.feedArray, 0, length);
+		}
 	}
 
 	private Flux<TokenBuffer> endOfInput() {
@@ -170,26 +207,44 @@ final class Jackson2Tokenizer {
 	}
 
 	private void processTokenNormal(JsonToken token, List<TokenBuffer> result) throws IOException {
-		this.tokenBuffer.copyCurrentEvent(this.parser);
+		copyCurrentEvent(token);
 
 		if ((token.isStructEnd() || token.isScalarValue()) && this.objectDepth == 0 && this.arrayDepth == 0) {
-			result.add(this.tokenBuffer);
-			this.tokenBuffer = createToken();
+			addTokenBuffer(result);
 		}
 	}
 
 	private void processTokenArray(JsonToken token, List<TokenBuffer> result) throws IOException {
 		if (!isTopLevelArrayToken(token)) {
-			this.tokenBuffer.copyCurrentEvent(this.parser);
+			copyCurrentEvent(token);
+		}
+		else if (token == JsonToken.START_ARRAY) {
+			this.valueStart = this.parser.getCurrentLocation().getByteOffset();
 		}
 
 		if (this.objectDepth == 0 && (this.arrayDepth == 0 || this.arrayDepth == 1) &&
 				(token == JsonToken.END_OBJECT || token.isScalarValue())) {
-			result.add(this.tokenBuffer);
-			this.tokenBuffer = createToken();
+			addTokenBuffer(result);
 		}
 	}
 
+	private void copyCurrentEvent(JsonToken token) throws IOException {
+		if (!this.valueStarted) {
+			// A value starts with a structure start, or is a single scalar that completes it
+			long offset = this.parser.getCurrentLocation().getByteOffset();
+			this.valueStart = (token.isStructStart() ? offset - 1 : offset);
+			this.valueStarted = true;
+		}
+		this.tokenBuffer.copyCurrentEvent(this.parser);
+	}
+
+	private void addTokenBuffer(List<TokenBuffer> result) {
+		result.add(this.tokenBuffer);
+		this.tokenBuffer = createToken();
+		this.valueStart = this.parser.getCurrentLocation().getByteOffset();
+		this.valueStarted = false;
+	}
+
 	private TokenBuffer createToken() {
 		TokenBuffer tokenBuffer = new TokenBuffer(this.parser, this.deserializationContext);
 		tokenBuffer.forceUseOfBigDecimal(this.forceUseOfBigDecimal);
@@ -201,20 +256,17 @@ final class Jackson2Tokenizer {
 				(token == JsonToken.END_ARRAY && this.arrayDepth == 0));
 	}
 
-	private void assertInMemorySize(int currentBufferSize, List<TokenBuffer> result) {
+	/**
+	 * Check the number of bytes of the value that is still in progress, i.e.
+	 * that is held in memory awaiting further input, against the limit. This
+	 * includes a single token, e.g. a long string, spanning several buffers.
+	 */
+	private void assertInMemorySize() {
 		if (this.maxInMemorySize >= 0) {
-			if (!result.isEmpty()) {
-				this.byteCount = 0;
-			}
-			else if (currentBufferSize > Integer.MAX_VALUE - this.byteCount) {
+			long byteCount = this.bytesFed - this.valueStart;
+			if (byteCount > this.maxInMemorySize) {
 				raiseLimitException();
 			}
-			else {
-				this.byteCount += currentBufferSize;
-				if (this.byteCount > this.maxInMemorySize) {
-					raiseLimitException();
-				}
-			}
 		}
 	}
 
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.io.IOException;
+import java.nio.channels.Channel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMessage;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+
+/**
+ * Various static utility methods for dealing with multipart parsing.
+ *
+ * @since 5.3
+ */
+abstract class MultipartUtils {
+
+	/**
+	 * Return the character set of the given headers, as defined in the
+	 * {@link HttpHeaders#getContentType()} header, or UTF-8 if not set.
+	 */
+	public static Charset charset(HttpHeaders headers) {
+		MediaType contentType = headers.getContentType();
+		if (contentType != null) {
+			Charset charset = contentType.getCharset();
+			if (charset != null) {
+				return charset;
+			}
+		}
+		return StandardCharsets.UTF_8;
+	}
+
+	/**
+	 * Return the boundary parameter of the {@code Content-Type} of the given
+	 * message, encoded with the given charset, or {@code null} if not found.
+	 */
+	@Nullable
+	public static byte[] boundary(HttpMessage message, Charset headersCharset) {
+		MediaType contentType = message.getHeaders().getContentType();
+		if (contentType != null) {
+			String boundary = contentType.getParameter("boundary");
+			if (boundary != null) {
+				int length = boundary.length();
+				if (length > 2 && boundary.charAt(0) == '"' && boundary.charAt(length - 1) == '"') {
+					boundary = boundary.substring(1, length - 1);
+				}
+				return boundary.getBytes(headersCharset);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Concatenates the given array of byte arrays.
+	 */
+	public static byte[] concat(byte[]... byteArrays) {
+		int length = 0;
+		for (byte[] byteArray : byteArrays) {
+			length += byteArray.length;
+		}
+		byte[] result = new byte[length];
+		length = 0;
+		for (byte[] byteArray : byteArrays) {
+			System.arraycopy(byteArray, 0, result, length, byteArray.length);
+			length += byteArray.length;
+		}
+		return result;
+	}
+
+	/**
+	 * Slices the given buffer up to and including the given index.
+	 * The returned slice is retained and needs to be released separately.
+	 */
+	public static DataBuffer sliceTo(DataBuffer buf, int idx) {
+		int pos = buf.readPosition();
+		int len = idx - pos + 1;
+		return buf.retainedSlice(pos, len);
+	}
+
+	/**
+	 * Slices the given buffer from after the given index to its write position.
+	 * The returned slice is retained and needs to be released separately.
+	 */
+	public static DataBuffer sliceFrom(DataBuffer buf, int idx) {
+		int len = buf.writePosition() - idx - 1;
+		return buf.retainedSlice(idx + 1, len);
+	}
+
+	/**
+	 * Whether the given headers describe a form field, i.e. a part without
+	 * filename and with either no or a {@code text/plain} content type.
+	 */
+	public static boolean isFormField(HttpHeaders headers) {
+		MediaType contentType = headers.getContentType();
+		return (contentType == null || MediaType.TEXT_PLAIN.equalsTypeAndSubtype(contentType)) &&
+				headers.getContentDisposition().getFilename() == null;
+	}
+
+	public static void closeChannel(Channel channel) {
+		try {
+			if (channel.isOpen()) {
+				channel.close();
+			}
+		}
+		catch (IOException ignore) {
+		}
+	}
+
+	public static void deleteFile(Path file) {
+		try {
+			Files.delete(file);
+		}
+		catch (IOException ignore) {
+		}
+	}
+
+}
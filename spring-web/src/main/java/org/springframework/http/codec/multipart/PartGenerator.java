@@ -0,0 +1,822 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.io.IOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+
+/**
+ * Subscribes to a token stream (i.e. the result of
+ * {@link MultipartParser#parse(Flux, byte[], int, java.nio.charset.Charset)}),
+ * and produces a flux of {@link Part} objects.
+ *
+ * <p>Unless streaming, the content of each part is collected in memory up to
+ * the configured in-memory size, and written to a temporary file beyond that.
+ * File writes go through an {@link AsynchronousFileChannel}, directly from the
+ * incoming data buffers, and without blocking the thread delivering them.
+ *
+ * @since 5.3
+ */
+final class PartGenerator extends BaseSubscriber<MultipartParser.Token> {
+
+	private static final Log logger = LogFactory.getLog(PartGenerator.class);
+
+
+	private final AtomicReference<State> state = new AtomicReference<>(new InitialState());
+
+	private final AtomicInteger partCount = new AtomicInteger();
+
+	private final AtomicBoolean requestOutstanding = new AtomicBoolean();
+
+	private final FluxSink<Part> sink;
+
+	private final int maxParts;
+
+	private final boolean streaming;
+
+	private final int maxInMemorySize;
+
+	private final long maxDiskUsagePerPart;
+
+	private final Mono<Path> fileStorageDirectory;
+
+	private final Scheduler blockingOperationScheduler;
+
+
+	private PartGenerator(FluxSink<Part> sink, int maxParts, int maxInMemorySize, long maxDiskUsagePerPart,
+			boolean streaming, Mono<Path> fileStorageDirectory, Scheduler blockingOperationScheduler) {
+
+		this.sink = sink;
+		this.maxParts = maxParts;
+		this.maxInMemorySize = maxInMemorySize;
+		this.maxDiskUsagePerPart = maxDiskUsagePerPart;
+		this.streaming = streaming;
+		this.fileStorageDirectory = fileStorageDirectory;
+		this.blockingOperationScheduler = blockingOperationScheduler;
+	}
+
+	/**
+	 * Creates parts from a given stream of tokens.
+	 */
+	public static Flux<Part> createParts(Flux<MultipartParser.Token> tokens, int maxParts, int maxInMemorySize,
+			long maxDiskUsagePerPart, boolean streaming, Mono<Path> fileStorageDirectory,
+			Scheduler blockingOperationScheduler) {
+
+		return Flux.create(sink -> {
+			PartGenerator generator = new PartGenerator(sink, maxParts, maxInMemorySize, maxDiskUsagePerPart,
+					streaming, fileStorageDirectory, blockingOperationScheduler);
+			sink.onCancel(generator::onSinkCancel);
+			sink.onRequest(l -> generator.requestToken());
+			tokens.subscribe(generator);
+		});
+	}
+
+
+	@Override
+	protected void hookOnSubscribe(Subscription subscription) {
+		requestToken();
+	}
+
+	/**
+	 * Handles each token in turn, and only then requests the next one:
+	 * states never request tokens themselves while a token is processed,
+	 * so that a concurrent request cannot deliver a body token of the next
+	 * part to a state still completing the current one.
+	 */
+	@Override
+	protected void hookOnNext(MultipartParser.Token token) {
+		if (token instanceof MultipartParser.HeadersToken) {
+			HttpHeaders headers = token.headers();
+			this.state.get().partComplete(() -> newPart(headers));
+		}
+		else {
+			this.state.get().body(token.buffer());
+		}
+		this.requestOutstanding.set(false);
+		requestToken();
+	}
+
+	@Override
+	protected void hookOnComplete() {
+		this.state.get().partComplete(this::emitComplete);
+	}
+
+	@Override
+	protected void hookOnError(Throwable throwable) {
+		this.state.get().error(throwable);
+		changeStateInternal(DisposedState.INSTANCE);
+		this.sink.error(throwable);
+	}
+
+	private void onSinkCancel() {
+		changeStateInternal(DisposedState.INSTANCE);
+		cancel();
+	}
+
+	private void newPart(HttpHeaders headers) {
+		int count = this.partCount.incrementAndGet();
+		if (this.maxParts > 0 && count > this.maxParts) {
+			emitError(new DecodingException("Too many parts (" + count + "/" + this.maxParts + " allowed)"));
+		}
+		else if (MultipartUtils.isFormField(headers)) {
+			changeStateInternal(new FormFieldState(headers));
+		}
+		else if (!this.streaming) {
+			changeStateInternal(new InMemoryState(headers));
+		}
+		else {
+			StreamingState newState = new StreamingState();
+			changeStateInternal(newState);
+			emitPart(DefaultParts.part(headers, newState.content()));
+		}
+	}
+
+	boolean changeState(State oldState, State newState) {
+		if (this.state.compareAndSet(oldState, newState)) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Changed state: " + oldState + " -> " + newState);
+			}
+			oldState.dispose();
+			return true;
+		}
+		return false;
+	}
+
+	private boolean changeStateInternal(State newState) {
+		State oldState = this.state.get();
+		return (oldState != DisposedState.INSTANCE && changeState(oldState, newState));
+	}
+
+	void emitPart(Part part) {
+		if (logger.isTraceEnabled()) {
+			logger.trace("Emitting: " + part);
+		}
+		this.sink.next(part);
+	}
+
+	void emitComplete() {
+		this.sink.complete();
+	}
+
+	void emitError(Throwable t) {
+		if (changeStateInternal(DisposedState.INSTANCE)) {
+			cancel();
+			this.sink.error(t);
+		}
+	}
+
+	void requestToken() {
+		if (upstream() != null &&
+				!this.sink.isCancelled() &&
+				this.state.get().canRequest() &&
+				this.requestOutstanding.compareAndSet(false, true)) {
+			request(1);
+		}
+	}
+
+
+	/**
+	 * Represents the internal state of the {@link PartGenerator} for
+	 * creating a single {@link Part}.
+	 * {@link State} instances are stateful, and created when a new
+	 * {@link MultipartParser.HeadersToken} is accepted (see
+	 * {@link #newPart(HttpHeaders)}).
+	 * The following rules determine which state the creator will have:
+	 * <ol>
+	 * <li>If the part is a {@linkplain MultipartUtils#isFormField(HttpHeaders) form field},
+	 * the creator will be in the {@link FormFieldState}.</li>
+	 * <li>If {@linkplain #streaming} is enabled, the creator will be in the
+	 * {@link StreamingState}.</li>
+	 * <li>Otherwise, the creator will initially be in the
+	 * {@link InMemoryState}, but will switch over to {@link CreateFileState}
+	 * and {@link WritingFileState} when the part byte count exceeds
+	 * {@link #maxInMemorySize}.</li>
+	 * </ol>
+	 */
+	private interface State {
+
+		/**
+		 * Invoked when a {@link MultipartParser.BodyToken} is received.
+		 */
+		void body(DataBuffer dataBuffer);
+
+		/**
+		 * Invoked when all tokens for the part have been received,
+		 * i.e. when the next part starts or when the stream completes.
+		 * @param next the action to invoke once the part has been emitted
+		 */
+		void partComplete(Runnable next);
+
+		/**
+		 * Whether a token may be requested in this state.
+		 */
+		default boolean canRequest() {
+			return true;
+		}
+
+		/**
+		 * Invoked when an error has been received.
+		 */
+		default void error(Throwable throwable) {
+		}
+
+		/**
+		 * Cleans up any state.
+		 */
+		default void dispose() {
+		}
+	}
+
+
+	/**
+	 * The initial state of the creator. Throws an exception for {@link #body(DataBuffer)}.
+	 */
+	private final class InitialState implements State {
+
+		@Override
+		public void body(DataBuffer dataBuffer) {
+			DataBufferUtils.release(dataBuffer);
+			emitError(new IllegalStateException("Body token not expected"));
+		}
+
+		@Override
+		public void partComplete(Runnable next) {
+			next.run();
+		}
+
+		@Override
+		public boolean canRequest() {
+			return (sink.requestedFromDownstream() > 0);
+		}
+
+		@Override
+		public String toString() {
+			return "INITIAL";
+		}
+	}
+
+
+	/**
+	 * The creator state when a {@linkplain MultipartUtils#isFormField(HttpHeaders) form field} is received.
+	 * Stores all body buffers in memory (up until {@link #maxInMemorySize}).
+	 */
+	private final class FormFieldState implements State {
+
+		private final List<DataBuffer> content = new ArrayList<>();
+
+		private final HttpHeaders headers;
+
+		private long byteCount;
+
+		public FormFieldState(HttpHeaders headers) {
+			this.headers = headers;
+		}
+
+		@Override
+		public void body(DataBuffer dataBuffer) {
+			this.byteCount += dataBuffer.readableByteCount();
+			if (maxInMemorySize == -1 || this.byteCount <= maxInMemorySize) {
+				this.content.add(dataBuffer);
+			}
+			else {
+				DataBufferUtils.release(dataBuffer);
+				emitError(new DataBufferLimitException("Form field value exceeded the memory usage limit of " +
+						maxInMemorySize + " bytes"));
+			}
+		}
+
+		@Override
+		public void partComplete(Runnable next) {
+			byte[] bytes = new byte[(int) this.byteCount];
+			int offset = 0;
+			for (DataBuffer buffer : this.content) {
+				int count = buffer.readableByteCount();
+				buffer.read(bytes, offset, count);
+				offset += count;
+				DataBufferUtils.release(buffer);
+			}
+			this.content.clear();
+			String value = new String(bytes, MultipartUtils.charset(this.headers));
+			emitPart(DefaultParts.formFieldPart(this.headers, value));
+			next.run();
+		}
+
+		@Override
+		public boolean canRequest() {
+			return (sink.requestedFromDownstream() > 0);
+		}
+
+		@Override
+		public void dispose() {
+			this.content.forEach(DataBufferUtils::release);
+			this.content.clear();
+		}
+
+		@Override
+		public String toString() {
+			return "FORM-FIELD";
+		}
+	}
+
+
+	/**
+	 * The creator state when {@link #streaming} is {@code true} (and not
+	 * handling a form field). Relays all received buffers to the content
+	 * of the part, which must be subscribed to (once) in order for parsing
+	 * to continue. Tokens are only requested when the content subscriber
+	 * has demand, or after it cancelled, in which case the remaining buffers
+	 * of the part are released.
+	 */
+	private final class StreamingState implements State {
+
+		private final Queue<DataBuffer> queue = new ConcurrentLinkedQueue<>();
+
+		@Nullable
+		private FluxSink<DataBuffer> bodySink;
+
+		@Nullable
+		private Runnable next;
+
+		@Nullable
+		private Throwable error;
+
+		private boolean disposed;
+
+		public Flux<DataBuffer> content() {
+			return Flux.create(contentSink -> {
+				Runnable next;
+				synchronized (this) {
+					if (this.bodySink != null) {
+						contentSink.error(new IllegalStateException(
+								"The content of a streamed part can only be subscribed to once"));
+						return;
+					}
+					this.bodySink = contentSink;
+					DataBuffer dataBuffer;
+					while ((dataBuffer = this.queue.poll()) != null) {
+						contentSink.next(dataBuffer);
+					}
+					if (this.error != null) {
+						contentSink.error(this.error);
+						return;
+					}
+					if (this.disposed) {
+						contentSink.complete();
+						return;
+					}
+					next = this.next;
+					if (next == null) {
+						contentSink.onRequest(l -> requestToken());
+						contentSink.onCancel(PartGenerator.this::requestToken);
+					}
+				}
+				if (next != null) {
+					// all tokens of the part were received before the subscription
+					this.next = null;
+					contentSink.complete();
+					next.run();
+					requestToken();
+				}
+			});
+		}
+
+		@Override
+		public void body(DataBuffer dataBuffer) {
+			synchronized (this) {
+				FluxSink<DataBuffer> bodySink = this.bodySink;
+				if (bodySink == null) {
+					this.queue.add(dataBuffer);
+				}
+				else if (bodySink.isCancelled()) {
+					DataBufferUtils.release(dataBuffer);
+				}
+				else {
+					bodySink.next(dataBuffer);
+				}
+			}
+		}
+
+		@Override
+		public void partComplete(Runnable next) {
+			FluxSink<DataBuffer> bodySink;
+			synchronized (this) {
+				bodySink = this.bodySink;
+				if (bodySink == null) {
+					// content not subscribed to yet: complete on subscription
+					this.next = next;
+					return;
+				}
+			}
+			bodySink.complete();
+			next.run();
+		}
+
+		@Override
+		public boolean canRequest() {
+			FluxSink<DataBuffer> bodySink = this.bodySink;
+			return (bodySink != null && (bodySink.isCancelled() || bodySink.requestedFromDownstream() > 0));
+		}
+
+		@Override
+		public void error(Throwable throwable) {
+			FluxSink<DataBuffer> bodySink;
+			synchronized (this) {
+				bodySink = this.bodySink;
+				if (bodySink == null) {
+					this.error = throwable;
+					return;
+				}
+			}
+			bodySink.error(throwable);
+		}
+
+		@Override
+		public void dispose() {
+			synchronized (this) {
+				this.disposed = true;
+				if (this.bodySink == null) {
+					this.queue.forEach(DataBufferUtils::release);
+					this.queue.clear();
+				}
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "STREAMING";
+		}
+	}
+
+
+	/**
+	 * The creator state when {@link #streaming} is {@code false} (and not
+	 * handling a form field). Stores all received buffers in memory.
+	 * If the byte count exceeds {@link #maxInMemorySize}, the creator state
+	 * is changed to {@link CreateFileState}, and eventually to
+	 * {@link WritingFileState}.
+	 */
+	private final class InMemoryState implements State {
+
+		private final List<DataBuffer> content = new ArrayList<>();
+
+		private final HttpHeaders headers;
+
+		private long byteCount;
+
+		public InMemoryState(HttpHeaders headers) {
+			this.headers = headers;
+		}
+
+		@Override
+		public void body(DataBuffer dataBuffer) {
+			this.byteCount += dataBuffer.readableByteCount();
+			this.content.add(dataBuffer);
+			if (maxInMemorySize != -1 && this.byteCount > maxInMemorySize) {
+				switchToFile();
+			}
+		}
+
+		private void switchToFile() {
+			CreateFileState newState = new CreateFileState(this.headers, this.content, this.byteCount);
+			this.content.clear();
+			if (changeState(this, newState)) {
+				newState.createFile();
+			}
+			else {
+				newState.dispose();
+			}
+		}
+
+		@Override
+		public void partComplete(Runnable next) {
+			List<DataBuffer> content = new ArrayList<>(this.content);
+			this.content.clear();
+			emitPart(DefaultParts.part(this.headers, Flux.fromIterable(content)));
+			next.run();
+		}
+
+		@Override
+		public boolean canRequest() {
+			return (sink.requestedFromDownstream() > 0);
+		}
+
+		@Override
+		public void dispose() {
+			this.content.forEach(DataBufferUtils::release);
+			this.content.clear();
+		}
+
+		@Override
+		public String toString() {
+			return "IN-MEMORY";
+		}
+	}
+
+
+	/**
+	 * The creator state when waiting for a temporary file to be created.
+	 * {@link InMemoryState} initially switches to this state when the byte
+	 * count exceeds {@link #maxInMemorySize}, and then calls
+	 * {@link #createFile()} to switch to {@link WritingFileState}.
+	 */
+	private final class CreateFileState implements State {
+
+		private final HttpHeaders headers;
+
+		private final List<DataBuffer> content;
+
+		private final long byteCount;
+
+		@Nullable
+		private Runnable next;
+
+		private boolean handedOver;
+
+		public CreateFileState(HttpHeaders headers, List<DataBuffer> content, long byteCount) {
+			this.headers = headers;
+			this.content = new ArrayList<>(content);
+			this.byteCount = byteCount;
+		}
+
+		public void createFile() {
+			fileStorageDirectory
+					.map(this::createFileState)
+					.subscribeOn(blockingOperationScheduler)
+					.subscribe(this::fileCreated, PartGenerator.this::emitError);
+		}
+
+		private WritingFileState createFileState(Path directory) {
+			try {
+				Path tempFile = Files.createTempFile(directory, null, ".multipart");
+				if (logger.isTraceEnabled()) {
+					logger.trace("Storing multipart data in file " + tempFile);
+				}
+				AsynchronousFileChannel channel = AsynchronousFileChannel.open(tempFile, StandardOpenOption.WRITE);
+				return new WritingFileState(this.headers, tempFile, channel, this.byteCount);
+			}
+			catch (IOException ex) {
+				throw new DecodingException("Could not create temporary file: " + ex.getMessage(), ex);
+			}
+		}
+
+		private void fileCreated(WritingFileState newState) {
+			List<DataBuffer> content;
+			Runnable next;
+			synchronized (this) {
+				// mark as handed over first, as changing the state disposes this one
+				this.handedOver = true;
+				if (!changeState(this, newState)) {
+					this.handedOver = false;
+					newState.dispose();
+					return;
+				}
+				content = new ArrayList<>(this.content);
+				this.content.clear();
+				next = this.next;
+			}
+			newState.writeBuffers(content, next);
+		}
+
+		/**
+		 * Body tokens are not requested in this state, but may still arrive
+		 * if requested concurrently with the switch to this state.
+		 */
+		@Override
+		public synchronized void body(DataBuffer dataBuffer) {
+			this.content.add(dataBuffer);
+		}
+
+		@Override
+		public synchronized void partComplete(Runnable next) {
+			this.next = next;
+		}
+
+		@Override
+		public boolean canRequest() {
+			return false;
+		}
+
+		@Override
+		public synchronized void dispose() {
+			if (!this.handedOver) {
+				this.content.forEach(DataBufferUtils::release);
+				this.content.clear();
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "CREATE-FILE";
+		}
+	}
+
+
+	/**
+	 * The creator state when writing buffers to a temporary file. Buffers
+	 * are written one at a time, straight from the incoming data buffers,
+	 * through {@link DataBufferUtils#write(org.reactivestreams.Publisher,
+	 * AsynchronousFileChannel, long)}. No further tokens are requested
+	 * while a write is in progress.
+	 */
+	private final class WritingFileState implements State {
+
+		private final HttpHeaders headers;
+
+		private final Path file;
+
+		private final AsynchronousFileChannel channel;
+
+		private final Queue<DataBuffer> queue = new ConcurrentLinkedQueue<>();
+
+		private final AtomicBoolean writing = new AtomicBoolean(true);
+
+		private final AtomicBoolean finished = new AtomicBoolean();
+
+		private volatile long position;
+
+		private volatile long byteCount;
+
+		@Nullable
+		private volatile Runnable next;
+
+		private volatile boolean disposed;
+
+		public WritingFileState(HttpHeaders headers, Path file, AsynchronousFileChannel channel, long byteCount) {
+			this.headers = headers;
+			this.file = file;
+			this.channel = channel;
+			this.byteCount = byteCount;
+		}
+
+		/**
+		 * Writes the buffers collected in memory so far, and then continues
+		 * with the remaining body buffers of the part, if any.
+		 */
+		public void writeBuffers(List<DataBuffer> content, @Nullable Runnable next) {
+			this.queue.addAll(content);
+			this.next = next;
+			if (checkDiskUsage(this.byteCount)) {
+				this.writing.set(false);
+				writeNext();
+			}
+		}
+
+		@Override
+		public void body(DataBuffer dataBuffer) {
+			long count = this.byteCount + dataBuffer.readableByteCount();
+			this.byteCount = count;
+			this.queue.add(dataBuffer);
+			if (checkDiskUsage(count)) {
+				writeNext();
+			}
+		}
+
+		private boolean checkDiskUsage(long count) {
+			if (maxDiskUsagePerPart == -1 || count <= maxDiskUsagePerPart) {
+				return true;
+			}
+			emitError(new DataBufferLimitException("Part exceeded the disk usage limit of " +
+					maxDiskUsagePerPart + " bytes"));
+			return false;
+		}
+
+		@Override
+		public void partComplete(Runnable next) {
+			this.next = next;
+			writeNext();
+		}
+
+		private void writeNext() {
+			if (this.disposed || !this.writing.compareAndSet(false, true)) {
+				return;
+			}
+			DataBuffer dataBuffer = this.queue.poll();
+			if (dataBuffer != null) {
+				int count = dataBuffer.readableByteCount();
+				DataBufferUtils.write(Mono.just(dataBuffer), this.channel, this.position)
+						.subscribe(DataBufferUtils::release,
+								PartGenerator.this::emitError,
+								() -> {
+									this.position += count;
+									this.writing.set(false);
+									writeNext();
+								});
+			}
+			else {
+				this.writing.set(false);
+				Runnable next = this.next;
+				if (!this.queue.isEmpty()) {
+					// buffer added concurrently
+					writeNext();
+				}
+				else if (next != null) {
+					finish(next);
+				}
+				else {
+					requestToken();
+				}
+			}
+		}
+
+		private void finish(Runnable next) {
+			if (this.finished.compareAndSet(false, true)) {
+				MultipartUtils.closeChannel(this.channel);
+				emitPart(DefaultParts.part(this.headers, this.file, blockingOperationScheduler));
+				next.run();
+				requestToken();
+			}
+		}
+
+		@Override
+		public boolean canRequest() {
+			return (!this.writing.get() && this.queue.isEmpty() && this.next == null);
+		}
+
+		@Override
+		public void dispose() {
+			this.disposed = true;
+			DataBuffer dataBuffer;
+			while ((dataBuffer = this.queue.poll()) != null) {
+				DataBufferUtils.release(dataBuffer);
+			}
+			if (!this.finished.get()) {
+				MultipartUtils.closeChannel(this.channel);
+				MultipartUtils.deleteFile(this.file);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "WRITE-FILE";
+		}
+	}
+
+
+	private static final class DisposedState implements State {
+
+		public static final DisposedState INSTANCE = new DisposedState();
+
+		private DisposedState() {
+		}
+
+		@Override
+		public void body(DataBuffer dataBuffer) {
+			DataBufferUtils.release(dataBuffer);
+		}
+
+		@Override
+		public void partComplete(Runnable next) {
+		}
+
+		@Override
+		public boolean canRequest() {
+			return false;
+		}
+
+		@Override
+		public String toString() {
+			return "DISPOSED";
+		}
+	}
+
+}
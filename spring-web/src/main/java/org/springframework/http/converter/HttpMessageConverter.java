@@ -17,6 +17,7 @@
 package org.springframework.http.converter;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 
 import org.springframework.http.HttpInputMessage;
@@ -66,6 +67,20 @@ public interface HttpMessageConverter<T> {
 	 */
 	List<MediaType> getSupportedMediaTypes();
 
+	/**
+	 * Return the list of media types supported by this converter for the given
+	 * class. The list may differ from {@link #getSupportedMediaTypes()} if the
+	 * converter does not support the given Class or if it supports it only for
+	 * a subset of media types.
+	 * @param clazz the type of class to check
+	 * @return the list of media types supported for the given class
+	 * @since 5.3
+	 */
+	default List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+		return (canRead(clazz, null) || canWrite(clazz, null) ?
+				getSupportedMediaTypes() : Collections.emptyList());
+	}
+
 	/**
 	 * 读取消息，读取信息
 	 *
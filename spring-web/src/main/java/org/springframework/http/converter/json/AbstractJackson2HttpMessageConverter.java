@@ -19,9 +19,13 @@ package org.springframework.http.converter.json;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
 import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonGenerator;
@@ -34,6 +38,7 @@ import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.exc.InvalidDefinitionException;
 import com.fasterxml.jackson.databind.exc.MismatchedInputException;
@@ -41,6 +46,7 @@ import com.fasterxml.jackson.databind.ser.FilterProvider;
 import com.fasterxml.jackson.databind.type.TypeFactory;
 
 import org.springframework.core.GenericTypeResolver;
+import org.springframework.core.ResolvableType;
 import org.springframework.http.HttpInputMessage;
 import org.springframework.http.HttpOutputMessage;
 import org.springframework.http.MediaType;
@@ -85,6 +91,9 @@ public abstract class AbstractJackson2HttpMessageConverter extends AbstractGener
 	@Nullable
 	private PrettyPrinter ssePrettyPrinter;
 
+	private List<MediaType> streamingMediaTypes =
+			Arrays.asList(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_STREAM_JSON);
+
 
 	protected AbstractJackson2HttpMessageConverter(ObjectMapper objectMapper) {
 		this.objectMapper = objectMapper;
@@ -142,6 +151,28 @@ public abstract class AbstractJackson2HttpMessageConverter extends AbstractGener
 		configurePrettyPrint();
 	}
 
+	/**
+	 * Configure the media types for which {@link Stream} and {@link Iterator}
+	 * values are written as a sequence of values, each followed by a newline
+	 * and flushed, rather than as a single array.
+	 * <p>By default this is set to {@link MediaType#APPLICATION_NDJSON} and
+	 * {@link MediaType#APPLICATION_STREAM_JSON}.
+	 * @param mediaTypes the streaming media types
+	 * @since 5.3
+	 */
+	public void setStreamingMediaTypes(List<MediaType> mediaTypes) {
+		Assert.notNull(mediaTypes, "MediaTypes must not be null");
+		this.streamingMediaTypes = mediaTypes;
+	}
+
+	/**
+	 * Return the configured {@linkplain #setStreamingMediaTypes streaming media types}.
+	 * @since 5.3
+	 */
+	public List<MediaType> getStreamingMediaTypes() {
+		return Collections.unmodifiableList(this.streamingMediaTypes);
+	}
+
 	private void configurePrettyPrint() {
 		if (this.prettyPrint != null) {
 			this.objectMapper.configure(SerializationFeature.INDENT_OUTPUT, this.prettyPrint);
@@ -170,6 +201,9 @@ public abstract class AbstractJackson2HttpMessageConverter extends AbstractGener
 
 	@Override
 	public boolean canWrite(Class<?> clazz, @Nullable MediaType mediaType) {
+		if (isElementStream(clazz)) {
+			return (canWrite(mediaType) || isStreamingMediaType(mediaType));
+		}
 		if (!canWrite(mediaType)) {
 			return false;
 		}
@@ -181,6 +215,27 @@ public abstract class AbstractJackson2HttpMessageConverter extends AbstractGener
 		return false;
 	}
 
+	/**
+	 * Return the supported media types for the given class, which for
+	 * {@link Stream} and {@link Iterator} values also include the
+	 * {@linkplain #setStreamingMediaTypes streaming media types}.
+	 * @since 5.3
+	 */
+	@Override
+	public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+		List<MediaType> mediaTypes = super.getSupportedMediaTypes(clazz);
+		if (!isElementStream(clazz)) {
+			return mediaTypes;
+		}
+		List<MediaType> result = new ArrayList<>(mediaTypes);
+		for (MediaType streamingMediaType : this.streamingMediaTypes) {
+			if (!result.contains(streamingMediaType)) {
+				result.add(streamingMediaType);
+			}
+		}
+		return Collections.unmodifiableList(result);
+	}
+
 	/**
 	 * Determine whether to log the given exception coming from a
 	 * {@link ObjectMapper#canDeserialize} / {@link ObjectMapper#canSerialize} check.
@@ -283,6 +338,12 @@ public abstract class AbstractJackson2HttpMessageConverter extends AbstractGener
 			if (filters != null) {
 				objectWriter = objectWriter.with(filters);
 			}
+			if (isElementStream(value.getClass())) {
+				writeElements(generator, objectWriter, value, type, contentType);
+				writeSuffix(generator, object);
+				generator.flush();
+				return;
+			}
 			if (javaType != null && javaType.isContainerType()) {
 				objectWriter = objectWriter.forType(javaType);
 			}
@@ -310,6 +371,90 @@ public abstract class AbstractJackson2HttpMessageConverter extends AbstractGener
 		}
 	}
 
+	/**
+	 * Whether the given class is a {@link Stream} or {@link Iterator}, and
+	 * should therefore be written element by element.
+	 */
+	private boolean isElementStream(Class<?> clazz) {
+		return (supportsElementStreaming() &&
+				(Stream.class.isAssignableFrom(clazz) || Iterator.class.isAssignableFrom(clazz)));
+	}
+
+	/**
+	 * Whether this converter writes {@link Stream} and {@link Iterator} values
+	 * element by element, so that they are never held in memory as a whole.
+	 * Elements are written as an array or, for the
+	 * {@linkplain #setStreamingMediaTypes streaming media types}, as a sequence
+	 * of values that are each followed by a newline and flushed. Streams are
+	 * closed once written, which releases any resources they hold, such as the
+	 * cursor of a {@code JdbcTemplate.queryForStream} query.
+	 * <p>The default implementation returns {@code true}.
+	 * @since 5.3
+	 */
+	protected boolean supportsElementStreaming() {
+		return true;
+	}
+
+	private void writeElements(JsonGenerator generator, ObjectWriter objectWriter, Object value,
+			@Nullable Type type, @Nullable MediaType contentType) throws IOException {
+
+		try {
+			Iterator<?> iterator = (value instanceof Stream ? ((Stream<?>) value).iterator() : (Iterator<?>) value);
+			objectWriter = objectWriter.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+			JavaType elementType = getElementType(type, value.getClass());
+			if (elementType != null && elementType.isContainerType()) {
+				objectWriter = objectWriter.forType(elementType);
+			}
+			if (isStreamingMediaType(contentType)) {
+				objectWriter = objectWriter.without(SerializationFeature.INDENT_OUTPUT);
+				generator.setRootValueSeparator(null);
+				try (SequenceWriter sequenceWriter = objectWriter.writeValues(generator)) {
+					while (iterator.hasNext()) {
+						sequenceWriter.write(iterator.next());
+						generator.writeRaw('\n');
+						generator.flush();
+					}
+				}
+			}
+			else {
+				// Jackson writes to the output stream whenever its buffer is full
+				try (SequenceWriter sequenceWriter = objectWriter.writeValues(generator).init(true)) {
+					while (iterator.hasNext()) {
+						sequenceWriter.write(iterator.next());
+					}
+				}
+			}
+		}
+		finally {
+			if (value instanceof Stream) {
+				((Stream<?>) value).close();
+			}
+		}
+	}
+
+	@Nullable
+	private JavaType getElementType(@Nullable Type type, Class<?> valueClass) {
+		if (type == null || !TypeUtils.isAssignable(type, valueClass)) {
+			return null;
+		}
+		ResolvableType resolvableType = ResolvableType.forType(type);
+		ResolvableType elementType = (Stream.class.isAssignableFrom(valueClass) ?
+				resolvableType.as(Stream.class) : resolvableType.as(Iterator.class)).getGeneric();
+		return (elementType.resolve() != null ? getJavaType(elementType.getType(), null) : null);
+	}
+
+	private boolean isStreamingMediaType(@Nullable MediaType contentType) {
+		if (contentType == null) {
+			return false;
+		}
+		for (MediaType streamingMediaType : this.streamingMediaTypes) {
+			if (streamingMediaType.isCompatibleWith(contentType)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Write a prefix before the main content.
 	 * @param generator the generator to use for writing content.
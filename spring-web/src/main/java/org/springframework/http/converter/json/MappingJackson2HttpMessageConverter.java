@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -34,6 +34,12 @@ import org.springframework.lang.Nullable;
  * with {@code UTF-8} character set. This can be overridden by setting the
  * {@link #setSupportedMediaTypes supportedMediaTypes} property.
  *
+ * <p>As of 5.3, {@link java.util.stream.Stream} and {@link java.util.Iterator} values are
+ * written element by element, as a JSON array or, for {@code application/x-ndjson} and
+ * {@code application/stream+json}, as newline delimited JSON that is flushed after each
+ * element. Those streaming media types are only supported for such values, see
+ * {@link #setStreamingMediaTypes}.
+ *
  * <p>The default constructor uses the default configuration provided by {@link Jackson2ObjectMapperBuilder}.
  *
  * <p>Compatible with Jackson 2.9 and higher, as of Spring 5.0.
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -76,4 +76,13 @@ public class MappingJackson2XmlHttpMessageConverter extends AbstractJackson2Http
 		super.setObjectMapper(objectMapper);
 	}
 
+	/**
+	 * XML has no representation for a sequence of root elements,
+	 * so streams are not written element by element.
+	 */
+	@Override
+	protected boolean supportsElementStreaming() {
+		return false;
+	}
+
 }
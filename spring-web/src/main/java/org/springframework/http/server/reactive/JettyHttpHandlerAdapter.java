@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -33,6 +33,7 @@ import org.eclipse.jetty.server.Response;
 
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.PooledDataBufferFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.util.Assert;
@@ -53,6 +54,19 @@ public class JettyHttpHandlerAdapter extends ServletHttpHandlerAdapter {
 	}
 
 
+	/**
+	 * {@inheritDoc}
+	 * <p>A {@link PooledDataBufferFactory} is rejected, since Jetty retains the
+	 * {@code ByteBuffer} of a written buffer until the asynchronous write has
+	 * completed, i.e. after the buffer has been released and recycled.
+	 */
+	@Override
+	public void setDataBufferFactory(DataBufferFactory dataBufferFactory) {
+		Assert.isTrue(!(dataBufferFactory instanceof PooledDataBufferFactory),
+				"PooledDataBufferFactory is not supported with Jetty");
+		super.setDataBufferFactory(dataBufferFactory);
+	}
+
 	@Override
 	protected ServletServerHttpRequest createRequest(HttpServletRequest request, AsyncContext context)
 			throws IOException, URISyntaxException {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -73,6 +73,8 @@ public class ServletHttpHandlerAdapter implements Servlet {
 
 	private DataBufferFactory dataBufferFactory = new DefaultDataBufferFactory(false);
 
+	private boolean useMappedFileCache;
+
 
 	public ServletHttpHandlerAdapter(HttpHandler httpHandler) {
 		Assert.notNull(httpHandler, "HttpHandler must not be null");
@@ -108,6 +110,15 @@ public class ServletHttpHandlerAdapter implements Servlet {
 		return this.servletPath;
 	}
 
+	/**
+	 * Set the {@code DataBufferFactory} to use for request and response buffers.
+	 * <p>By default a {@link DefaultDataBufferFactory} for heap buffers is used.
+	 * A {@link org.springframework.core.io.buffer.PooledDataBufferFactory
+	 * PooledDataBufferFactory} may be configured instead to recycle the memory
+	 * of released buffers.
+	 * <p><strong>Note:</strong> pooled buffers must not be used with Jetty,
+	 * which retains written buffers until an asynchronous write completes.
+	 */
 	public void setDataBufferFactory(DataBufferFactory dataBufferFactory) {
 		Assert.notNull(dataBufferFactory, "DataBufferFactory must not be null");
 		this.dataBufferFactory = dataBufferFactory;
@@ -117,6 +128,31 @@ public class ServletHttpHandlerAdapter implements Servlet {
 		return this.dataBufferFactory;
 	}
 
+	/**
+	 * Whether to keep the memory mappings of files written through
+	 * {@link org.springframework.http.ZeroCopyHttpOutputMessage} in the shared
+	 * cache of {@link org.springframework.core.io.buffer.DataBufferUtils#readMapped
+	 * DataBufferUtils.readMapped}, so that frequently served files are not
+	 * mapped again for every response.
+	 * <p>By default this is set to {@code false}, and files are mapped for the
+	 * duration of the write only. Note that cached mappings keep files open:
+	 * on Windows, such files cannot be deleted or replaced. Also, a file that
+	 * is truncated while it is mapped raises an {@link InternalError} rather
+	 * than an {@link IOException} when it is accessed.
+	 * @since 5.3
+	 */
+	public void setUseMappedFileCache(boolean useMappedFileCache) {
+		this.useMappedFileCache = useMappedFileCache;
+	}
+
+	/**
+	 * Whether the mappings of files are kept in a shared cache.
+	 * @since 5.3
+	 */
+	public boolean isUseMappedFileCache() {
+		return this.useMappedFileCache;
+	}
+
 
 	// Servlet methods...
 
@@ -179,7 +215,10 @@ public class ServletHttpHandlerAdapter implements Servlet {
 			return;
 		}
 
-		ServerHttpResponse httpResponse = createResponse(((HttpServletResponse) response), asyncContext, httpRequest);
+		ServletServerHttpResponse servletResponse =
+				createResponse(((HttpServletResponse) response), asyncContext, httpRequest);
+		servletResponse.setUseMappedFileCache(this.useMappedFileCache);
+		ServerHttpResponse httpResponse = servletResponse;
 		if (httpRequest.getMethod() == HttpMethod.HEAD) {
 			httpResponse = new HttpHeadResponseDecorator(httpResponse);
 		}
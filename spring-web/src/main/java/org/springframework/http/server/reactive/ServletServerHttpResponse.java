@@ -18,7 +18,9 @@ package org.springframework.http.server.reactive;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.file.Path;
 import java.util.List;
 
 import javax.servlet.AsyncContext;
@@ -30,6 +32,7 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.reactivestreams.Processor;
 import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
 
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferFactory;
@@ -38,16 +41,30 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseCookie;
+import org.springframework.http.ZeroCopyHttpOutputMessage;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 
 /**
  * Adapt {@link ServerHttpResponse} to the Servlet {@link HttpServletResponse}.
  *
+ * <p>As of 5.3, file regions written through {@link ZeroCopyHttpOutputMessage}
+ * are mapped into memory and written as read-only slices of the mapping, rather
+ * than being read into buffers first. The Servlet API has no send-file support
+ * that can be combined with non-blocking I/O, but containers that write
+ * {@link ByteBuffer ByteBuffers} directly, such as Tomcat and Jetty, can then
+ * write from the page cache without an intermediate copy. By default, a file
+ * is mapped for the duration of the write only; alternatively, mappings can be
+ * {@linkplain #setUseMappedFileCache(boolean) shared} across responses.
+ *
  * @author Rossen Stoyanchev
  * @since 5.0
  */
-class ServletServerHttpResponse extends AbstractListenerServerHttpResponse {
+class ServletServerHttpResponse extends AbstractListenerServerHttpResponse implements ZeroCopyHttpOutputMessage {
+
+	/** The size of the slices of a mapped file that are written one at a time. */
+	private static final int MAPPED_SLICE_SIZE = 64 * 1024;
+
 
 	private final HttpServletResponse response;
 
@@ -65,6 +82,8 @@ class ServletServerHttpResponse extends AbstractListenerServerHttpResponse {
 
 	private final ServletServerHttpRequest request;
 
+	private boolean useMappedFileCache;
+
 	public ServletServerHttpResponse(HttpServletResponse response, AsyncContext asyncContext,
 			DataBufferFactory bufferFactory, int bufferSize, ServletServerHttpRequest request) throws IOException {
 
@@ -92,6 +111,16 @@ class ServletServerHttpResponse extends AbstractListenerServerHttpResponse {
 	}
 
 
+	/**
+	 * Whether to share the mappings of files written through
+	 * {@link DataBufferUtils#readMapped(Path, long, long, DataBufferFactory, int, boolean)}
+	 * across responses, rather than mapping them for each response only.
+	 * @see ServletHttpHandlerAdapter#setUseMappedFileCache(boolean)
+	 */
+	void setUseMappedFileCache(boolean useMappedFileCache) {
+		this.useMappedFileCache = useMappedFileCache;
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public <T> T getNativeResponse() {
@@ -165,6 +194,12 @@ class ServletServerHttpResponse extends AbstractListenerServerHttpResponse {
 		}
 	}
 
+	@Override
+	public Mono<Void> writeWith(Path file, long position, long count) {
+		return writeWith(DataBufferUtils.readMapped(
+				file, position, count, bufferFactory(), MAPPED_SLICE_SIZE, this.useMappedFileCache));
+	}
+
 	@Override
 	protected Processor<? super Publisher<? extends DataBuffer>, Void> createBodyFlushProcessor() {
 		ResponseBodyFlushProcessor processor = new ResponseBodyFlushProcessor();
@@ -328,6 +328,12 @@ class UndertowServerHttpResponse extends AbstractListenerServerHttpResponse impl
 
 		public void transfer(StreamSinkChannel destination) {
 			try {
+				// Write the response headers first: while they are pending, Undertow
+				// buffers file content along with them, ignoring position and count
+				if (!destination.flush()) {
+					destination.resumeWrites();
+					return;
+				}
 				while (this.count > 0) {
 					long len = destination.transferFrom(this.source, this.position, this.count);
 					if (len != 0) {
@@ -339,6 +345,8 @@ class UndertowServerHttpResponse extends AbstractListenerServerHttpResponse impl
 						return;
 					}
 				}
+				destination.getWriteSetter().set(null);
+				destination.suspendWrites();
 				this.sink.success();
 			}
 			catch (IOException ex) {
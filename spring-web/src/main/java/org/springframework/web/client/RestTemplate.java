@@ -16,6 +16,7 @@
 
 package org.springframework.web.client;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.net.URI;
@@ -734,7 +735,21 @@ public class RestTemplate extends InterceptingHttpAccessor implements RestOperat
 		try {
 			ClientHttpRequest request = createRequest(url, method);
 			if (requestCallback != null) {
-				requestCallback.doWithRequest(request);
+				try {
+					requestCallback.doWithRequest(request);
+				}
+				catch (IOException | RuntimeException ex) {
+					// Let the request release resources held for it, e.g. a pooled connection
+					if (request instanceof Closeable) {
+						try {
+							((Closeable) request).close();
+						}
+						catch (IOException closeEx) {
+							// ignore
+						}
+					}
+					throw ex;
+				}
 			}
 			response = request.execute();
 			handleResponse(url, method, response);
@@ -0,0 +1,427 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.filter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Locale;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.DispatcherType;
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletResponseWrapper;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.util.FastByteArrayOutputStream;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+/**
+ * {@link javax.servlet.Filter} that uses Servlet 3.1 non-blocking I/O to read
+ * request bodies before, and to write response bodies after, the rest of the
+ * filter chain, so that no container thread is held while waiting for a slow
+ * client.
+ *
+ * <p>A request body is read with a {@link ReadListener} into memory, after which
+ * the request is dispatched again through {@link AsyncContext#dispatch()}, and
+ * handled with the buffered body. Form and multipart requests are left to the
+ * container. A response body is buffered, as with {@link ShallowEtagHeaderFilter},
+ * and if it is at least as large as the {@linkplain #setAsyncWriteThreshold
+ * asynchronous write threshold}, it is written with a {@link WriteListener}
+ * once the handler has returned.
+ *
+ * <p>This filter should be mapped to both {@code REQUEST} and {@code ASYNC}
+ * dispatches, and be placed first in the filter chain: any filters ahead of it
+ * see the request as completed as soon as the body is being read or written,
+ * and any filters that are not mapped to {@code ASYNC} dispatches are skipped
+ * for requests with a body.
+ *
+ * @since 5.3
+ * @see ReadListener
+ * @see WriteListener
+ */
+public class NonBlockingBodyFilter extends OncePerRequestFilter {
+
+	private static final String REQUEST_BODY_ATTRIBUTE = NonBlockingBodyFilter.class.getName() + ".REQUEST_BODY";
+
+
+	private int maxRequestBodySize = 256 * 1024;
+
+	private int asyncWriteThreshold = 8 * 1024;
+
+
+	/**
+	 * Set the maximum number of bytes of a request body to buffer. Requests
+	 * with a larger body are rejected with status 413.
+	 * <p>By default this is set to 256K. If set to -1, the size is unlimited.
+	 */
+	public void setMaxRequestBodySize(int maxRequestBodySize) {
+		this.maxRequestBodySize = maxRequestBodySize;
+	}
+
+	/**
+	 * Return the configured maximum request body size.
+	 */
+	public int getMaxRequestBodySize() {
+		return this.maxRequestBodySize;
+	}
+
+	/**
+	 * Set the minimum size of a response body, in bytes, for it to be written
+	 * asynchronously. Smaller bodies are copied to the response on the current
+	 * thread, as a single write is unlikely to block.
+	 * <p>By default this is set to 8K.
+	 */
+	public void setAsyncWriteThreshold(int asyncWriteThreshold) {
+		this.asyncWriteThreshold = asyncWriteThreshold;
+	}
+
+	/**
+	 * Return the configured asynchronous write threshold.
+	 */
+	public int getAsyncWriteThreshold() {
+		return this.asyncWriteThreshold;
+	}
+
+
+	/**
+	 * The default value is {@code false} so that the filter can complete
+	 * the dispatch that follows the reading of the request body, as well as
+	 * write the response body at the end of asynchronous request processing.
+	 */
+	@Override
+	protected boolean shouldNotFilterAsyncDispatch() {
+		return false;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+
+		HttpServletRequest requestToUse = request;
+		if (DispatcherType.ASYNC.equals(request.getDispatcherType())) {
+			byte[] body = (byte[]) request.getAttribute(REQUEST_BODY_ATTRIBUTE);
+			if (body != null) {
+				request.removeAttribute(REQUEST_BODY_ATTRIBUTE);
+				requestToUse = new BufferedBodyRequestWrapper(request, body);
+			}
+		}
+		else if (shouldReadRequestBody(request)) {
+			if (this.maxRequestBodySize >= 0 && request.getContentLengthLong() > this.maxRequestBodySize) {
+				response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+				return;
+			}
+			AsyncContext asyncContext = request.startAsync();
+			ServletInputStream inputStream = request.getInputStream();
+			inputStream.setReadListener(new RequestBodyReadListener(request, response, asyncContext, inputStream));
+			return;
+		}
+
+		HttpServletResponse responseToUse = response;
+		if (!isAsyncDispatch(request) && !(response instanceof ContentCachingResponseWrapper)) {
+			responseToUse = new ShallowEtagHeaderFilter.HttpStreamingAwareContentCachingResponseWrapper(response, request);
+		}
+
+		filterChain.doFilter(requestToUse, responseToUse);
+
+		if (!isAsyncStarted(request) && !ShallowEtagHeaderFilter.isContentCachingDisabled(request)) {
+			ContentCachingResponseWrapper responseWrapper =
+					WebUtils.getNativeResponse(responseToUse, ContentCachingResponseWrapper.class);
+			if (responseWrapper != null) {
+				writeResponseBody(request, responseWrapper);
+			}
+		}
+	}
+
+	private boolean shouldReadRequestBody(HttpServletRequest request) {
+		if (!request.isAsyncSupported() || request.isAsyncStarted()) {
+			return false;
+		}
+		if (request.getContentLengthLong() <= 0 && request.getHeader(HttpHeaders.TRANSFER_ENCODING) == null) {
+			return false;
+		}
+		String contentType = request.getContentType();
+		if (contentType != null) {
+			contentType = contentType.toLowerCase(Locale.ENGLISH);
+			return !(contentType.startsWith(MediaType.APPLICATION_FORM_URLENCODED_VALUE) ||
+					contentType.startsWith("multipart/"));
+		}
+		return true;
+	}
+
+	private void writeResponseBody(HttpServletRequest request, ContentCachingResponseWrapper responseWrapper)
+			throws IOException {
+
+		HttpServletResponse rawResponse = (HttpServletResponse) responseWrapper.getResponse();
+		int contentSize = responseWrapper.getContentSize();
+		if (contentSize < this.asyncWriteThreshold || rawResponse.isCommitted() ||
+				rawResponse instanceof ServletResponseWrapper ||
+				!request.isAsyncSupported() || request.isAsyncStarted()) {
+			responseWrapper.copyBodyToResponse();
+			return;
+		}
+		if (rawResponse.getHeader(HttpHeaders.TRANSFER_ENCODING) == null) {
+			rawResponse.setContentLength(contentSize);
+		}
+		byte[] content = responseWrapper.getContentAsByteArray();
+		responseWrapper.resetBuffer();
+		AsyncContext asyncContext = request.startAsync();
+		ServletOutputStream outputStream = rawResponse.getOutputStream();
+		outputStream.setWriteListener(new ResponseBodyWriteListener(asyncContext, outputStream, content));
+	}
+
+
+	/**
+	 * Reads the request body into memory, and then dispatches the request.
+	 */
+	private class RequestBodyReadListener implements ReadListener {
+
+		private final HttpServletRequest request;
+
+		private final HttpServletResponse response;
+
+		private final AsyncContext asyncContext;
+
+		private final ServletInputStream inputStream;
+
+		private final FastByteArrayOutputStream content;
+
+		private final byte[] buffer = new byte[8192];
+
+		private boolean done;
+
+		public RequestBodyReadListener(HttpServletRequest request, HttpServletResponse response,
+				AsyncContext asyncContext, ServletInputStream inputStream) {
+
+			this.request = request;
+			this.response = response;
+			this.asyncContext = asyncContext;
+			this.inputStream = inputStream;
+			long contentLength = request.getContentLengthLong();
+			this.content = new FastByteArrayOutputStream(
+					contentLength > 0 && contentLength <= Integer.MAX_VALUE ? (int) contentLength : 1024);
+		}
+
+		@Override
+		public void onDataAvailable() throws IOException {
+			while (!this.done && this.inputStream.isReady() && !this.inputStream.isFinished()) {
+				int read = this.inputStream.read(this.buffer);
+				if (read == -1) {
+					break;
+				}
+				if (maxRequestBodySize >= 0 && this.content.size() + read > maxRequestBodySize) {
+					complete(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+					return;
+				}
+				this.content.write(this.buffer, 0, read);
+			}
+		}
+
+		@Override
+		public void onAllDataRead() {
+			if (!this.done) {
+				this.done = true;
+				this.request.setAttribute(REQUEST_BODY_ATTRIBUTE, this.content.toByteArrayUnsafe());
+				this.asyncContext.dispatch();
+			}
+		}
+
+		@Override
+		public void onError(Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to read request body: " + ex);
+			}
+			complete(HttpServletResponse.SC_BAD_REQUEST);
+		}
+
+		private void complete(int status) {
+			if (this.done) {
+				return;
+			}
+			this.done = true;
+			try {
+				this.response.sendError(status);
+			}
+			catch (IOException | IllegalStateException ex) {
+				// Response already committed or connection closed: nothing more to send
+			}
+			this.asyncContext.complete();
+		}
+	}
+
+
+	/**
+	 * Writes the buffered response body, and then completes the request.
+	 */
+	private class ResponseBodyWriteListener implements WriteListener {
+
+		private final AsyncContext asyncContext;
+
+		private final ServletOutputStream outputStream;
+
+		private final byte[] content;
+
+		private boolean written;
+
+		private boolean completed;
+
+		public ResponseBodyWriteListener(AsyncContext asyncContext, ServletOutputStream outputStream, byte[] content) {
+			this.asyncContext = asyncContext;
+			this.outputStream = outputStream;
+			this.content = content;
+		}
+
+		@Override
+		public void onWritePossible() throws IOException {
+			if (!this.written) {
+				if (!this.outputStream.isReady()) {
+					return;
+				}
+				this.written = true;
+				this.outputStream.write(this.content);
+			}
+			if (this.outputStream.isReady()) {
+				complete();
+			}
+		}
+
+		@Override
+		public void onError(Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to write response body: " + ex);
+			}
+			complete();
+		}
+
+		private void complete() {
+			if (!this.completed) {
+				this.completed = true;
+				this.asyncContext.complete();
+			}
+		}
+	}
+
+
+	/**
+	 * Exposes a request body that has already been read.
+	 */
+	private static class BufferedBodyRequestWrapper extends HttpServletRequestWrapper {
+
+		private final byte[] body;
+
+		@Nullable
+		private ServletInputStream inputStream;
+
+		@Nullable
+		private BufferedReader reader;
+
+		public BufferedBodyRequestWrapper(HttpServletRequest request, byte[] body) {
+			super(request);
+			this.body = body;
+		}
+
+		@Override
+		public int getContentLength() {
+			return this.body.length;
+		}
+
+		@Override
+		public long getContentLengthLong() {
+			return this.body.length;
+		}
+
+		@Override
+		public ServletInputStream getInputStream() {
+			if (this.inputStream == null) {
+				this.inputStream = new BufferedBodyInputStream(this.body);
+			}
+			return this.inputStream;
+		}
+
+		@Override
+		public BufferedReader getReader() throws IOException {
+			if (this.reader == null) {
+				String characterEncoding = getCharacterEncoding();
+				this.reader = new BufferedReader(new InputStreamReader(getInputStream(),
+						characterEncoding != null ? characterEncoding : WebUtils.DEFAULT_CHARACTER_ENCODING));
+			}
+			return this.reader;
+		}
+	}
+
+
+	private static class BufferedBodyInputStream extends ServletInputStream {
+
+		private final ByteArrayInputStream delegate;
+
+		public BufferedBodyInputStream(byte[] body) {
+			this.delegate = new ByteArrayInputStream(body);
+		}
+
+		@Override
+		public int read() {
+			return this.delegate.read();
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			return this.delegate.read(b, off, len);
+		}
+
+		@Override
+		public int available() {
+			return this.delegate.available();
+		}
+
+		@Override
+		public boolean isFinished() {
+			return (this.delegate.available() == 0);
+		}
+
+		@Override
+		public boolean isReady() {
+			return true;
+		}
+
+		@Override
+		public void setReadListener(ReadListener readListener) {
+			// The body is fully available already
+			try {
+				if (!isFinished()) {
+					readListener.onDataAvailable();
+				}
+				readListener.onAllDataRead();
+			}
+			catch (IOException ex) {
+				readListener.onError(ex);
+			}
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,17 +18,21 @@ package org.springframework.web.filter;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.ServletOutputStream;
 import javax.servlet.ServletRequest;
+import javax.servlet.WriteListener;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.DigestUtils;
 import org.springframework.web.util.ContentCachingResponseWrapper;
@@ -44,6 +48,12 @@ import org.springframework.web.util.WebUtils;
  * (e.g. a {@link org.springframework.web.servlet.View}) is still rendered.
  * As such, this filter only saves bandwidth, not server performance.
  *
+ * <p>If the handler sets an {@code ETag} header itself, for example through
+ * {@link org.springframework.web.context.request.WebRequest#checkNotModified(String)},
+ * that "deep" ETag is kept, and the response body is written to the response
+ * directly rather than buffered. The same applies to response bodies exceeding
+ * the {@linkplain #setContentCacheLimit content cache limit}, if any.
+ *
  * <p><b>NOTE:</b> As of Spring Framework 5.0, this filter uses request/response
  * decorators built on the Servlet 3.1 API.
  *
@@ -62,6 +72,8 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 
 	private boolean writeWeakETag = false;
 
+	private int contentCacheLimit = -1;
+
 
 	/**
 	 * Set whether the ETag value written to the response should be weak, as per RFC 7232.
@@ -82,6 +94,26 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 		return this.writeWeakETag;
 	}
 
+	/**
+	 * Set the maximum number of bytes of a response body to buffer for the
+	 * calculation of an ETag. A response body that exceeds this limit is
+	 * written to the response as it is produced, without an ETag, so that
+	 * large responses are not held in memory completely.
+	 * <p>By default this is set to -1, meaning that the size is unlimited.
+	 * @since 5.3
+	 */
+	public void setContentCacheLimit(int contentCacheLimit) {
+		this.contentCacheLimit = contentCacheLimit;
+	}
+
+	/**
+	 * Return the configured content cache limit.
+	 * @since 5.3
+	 */
+	public int getContentCacheLimit() {
+		return this.contentCacheLimit;
+	}
+
 
 	/**
 	 * The default value is {@code false} so that the filter may delay the generation
@@ -98,7 +130,7 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 
 		HttpServletResponse responseToUse = response;
 		if (!isAsyncDispatch(request) && !(response instanceof ContentCachingResponseWrapper)) {
-			responseToUse = new HttpStreamingAwareContentCachingResponseWrapper(response, request);
+			responseToUse = new ConditionalContentCachingResponseWrapper(response, request, this.contentCacheLimit);
 		}
 
 		filterChain.doFilter(request, responseToUse);
@@ -115,7 +147,8 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 		HttpServletResponse rawResponse = (HttpServletResponse) responseWrapper.getResponse();
 		int statusCode = responseWrapper.getStatus();
 
-		if (rawResponse.isCommitted()) {
+		if (rawResponse.isCommitted() || (responseWrapper instanceof ConditionalContentCachingResponseWrapper &&
+				((ConditionalContentCachingResponseWrapper) responseWrapper).isBypassed())) {
 			responseWrapper.copyBodyToResponse();
 		}
 		else if (isEligibleForEtag(request, responseWrapper, statusCode, responseWrapper.getContentInputStream())) {
@@ -141,6 +174,7 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 	 * <li>response status codes in the {@code 2xx} series</li>
 	 * <li>request method is a GET</li>
 	 * <li>response Cache-Control header is not set or does not contain a "no-store" directive</li>
+	 * <li>response ETag header is not set</li>
 	 * </ul>
 	 * @param request the HTTP request
 	 * @param response the HTTP response
@@ -152,7 +186,8 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 			int responseStatusCode, InputStream inputStream) {
 
 		String method = request.getMethod();
-		if (responseStatusCode >= 200 && responseStatusCode < 300 && HttpMethod.GET.matches(method)) {
+		if (responseStatusCode >= 200 && responseStatusCode < 300 && HttpMethod.GET.matches(method) &&
+				response.getHeader(HttpHeaders.ETAG) == null) {
 			String cacheControl = response.getHeader(HttpHeaders.CACHE_CONTROL);
 			return (cacheControl == null || !cacheControl.contains(DIRECTIVE_NO_STORE));
 		}
@@ -202,12 +237,12 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 		request.setAttribute(STREAMING_ATTRIBUTE, true);
 	}
 
-	private static boolean isContentCachingDisabled(HttpServletRequest request) {
+	static boolean isContentCachingDisabled(HttpServletRequest request) {
 		return (request.getAttribute(STREAMING_ATTRIBUTE) != null);
 	}
 
 
-	private static class HttpStreamingAwareContentCachingResponseWrapper extends ContentCachingResponseWrapper {
+	static class HttpStreamingAwareContentCachingResponseWrapper extends ContentCachingResponseWrapper {
 
 		private final HttpServletRequest request;
 
@@ -231,4 +266,200 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 		}
 	}
 
+
+	/**
+	 * Content caching wrapper that switches to writing to the response directly
+	 * once an ETag header is set or the content cache limit is exceeded.
+	 */
+	private static class ConditionalContentCachingResponseWrapper extends HttpStreamingAwareContentCachingResponseWrapper {
+
+		private final HttpServletRequest request;
+
+		private final int contentCacheLimit;
+
+		private boolean bypassed;
+
+		@Nullable
+		private ServletOutputStream outputStream;
+
+		@Nullable
+		private PrintWriter writer;
+
+		public ConditionalContentCachingResponseWrapper(
+				HttpServletResponse response, HttpServletRequest request, int contentCacheLimit) {
+
+			super(response, request);
+			this.request = request;
+			this.contentCacheLimit = contentCacheLimit;
+		}
+
+		/**
+		 * Whether the response body is written to the response directly.
+		 */
+		public boolean isBypassed() {
+			return this.bypassed;
+		}
+
+		@Override
+		public void setHeader(String name, String value) {
+			super.setHeader(name, value);
+			bypassIfETag(name);
+		}
+
+		@Override
+		public void addHeader(String name, String value) {
+			super.addHeader(name, value);
+			bypassIfETag(name);
+		}
+
+		@Override
+		public void setContentLength(int len) {
+			if (this.bypassed) {
+				getResponse().setContentLength(len);
+			}
+			else {
+				super.setContentLength(len);
+			}
+		}
+
+		@Override
+		public void setContentLengthLong(long len) {
+			if (this.bypassed) {
+				getResponse().setContentLengthLong(len);
+			}
+			else {
+				super.setContentLengthLong(len);
+			}
+		}
+
+		@Override
+		public void flushBuffer() throws IOException {
+			if (this.bypassed) {
+				getResponse().flushBuffer();
+			}
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() throws IOException {
+			if (isContentCachingDisabled(this.request)) {
+				return getResponse().getOutputStream();
+			}
+			if (this.outputStream == null) {
+				this.outputStream = new ConditionalCachingOutputStream(super.getOutputStream());
+			}
+			return this.outputStream;
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			if (isContentCachingDisabled(this.request)) {
+				return getResponse().getWriter();
+			}
+			if (this.writer == null) {
+				String characterEncoding = getCharacterEncoding();
+				this.writer = new ConditionalCachingPrintWriter(getOutputStream(),
+						characterEncoding != null ? characterEncoding : WebUtils.DEFAULT_CHARACTER_ENCODING);
+			}
+			return this.writer;
+		}
+
+		private void bypassIfETag(String name) {
+			if (HttpHeaders.ETAG.equalsIgnoreCase(name)) {
+				bypass();
+			}
+		}
+
+		private void bypass() {
+			if (!this.bypassed) {
+				try {
+					copyBodyToResponse(false);
+				}
+				catch (IOException ex) {
+					throw new IllegalStateException("Failed to write cached content to the response", ex);
+				}
+				this.bypassed = true;
+			}
+		}
+
+		private boolean useRawOutputStream() {
+			return (this.bypassed || isContentCachingDisabled(this.request));
+		}
+
+
+		private class ConditionalCachingOutputStream extends ServletOutputStream {
+
+			private final ServletOutputStream cachingStream;
+
+			public ConditionalCachingOutputStream(ServletOutputStream cachingStream) {
+				this.cachingStream = cachingStream;
+			}
+
+			@Override
+			public void write(int b) throws IOException {
+				if (useRawOutputStream()) {
+					getResponse().getOutputStream().write(b);
+				}
+				else {
+					this.cachingStream.write(b);
+					checkContentCacheLimit();
+				}
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				if (useRawOutputStream()) {
+					getResponse().getOutputStream().write(b, off, len);
+				}
+				else {
+					this.cachingStream.write(b, off, len);
+					checkContentCacheLimit();
+				}
+			}
+
+			private void checkContentCacheLimit() {
+				if (contentCacheLimit >= 0 && getContentSize() > contentCacheLimit) {
+					bypass();
+				}
+			}
+
+			@Override
+			public boolean isReady() {
+				return this.cachingStream.isReady();
+			}
+
+			@Override
+			public void setWriteListener(WriteListener writeListener) {
+				this.cachingStream.setWriteListener(writeListener);
+			}
+		}
+
+
+		private static class ConditionalCachingPrintWriter extends PrintWriter {
+
+			public ConditionalCachingPrintWriter(ServletOutputStream outputStream, String characterEncoding)
+					throws UnsupportedEncodingException {
+
+				super(new OutputStreamWriter(outputStream, characterEncoding));
+			}
+
+			@Override
+			public void write(char[] buf, int off, int len) {
+				super.write(buf, off, len);
+				super.flush();
+			}
+
+			@Override
+			public void write(String s, int off, int len) {
+				super.write(s, off, len);
+				super.flush();
+			}
+
+			@Override
+			public void write(int c) {
+				super.write(c);
+				super.flush();
+			}
+		}
+	}
+
 }
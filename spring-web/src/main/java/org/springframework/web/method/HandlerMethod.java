@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -114,6 +115,11 @@ public class HandlerMethod {
 	@Nullable
 	private volatile List<Annotation[][]> interfaceParameterAnnotations;
 
+	/**
+	 * 绑定到方法参数的 HandlerMethodArgumentResolver 数组，与复制出来的 HandlerMethod 共享
+	 */
+	private final AtomicReference<ArgumentResolverBinding> argumentResolverBinding;
+
 	private final String description;
 
 
@@ -133,6 +139,7 @@ public class HandlerMethod {
 		this.bridgedMethod = BridgeMethodResolver.findBridgedMethod(method);
 		// <4> 初始化 parameters 属性
 		this.parameters = initMethodParameters();
+		this.argumentResolverBinding = new AtomicReference<>();
 		// <5> 初始化 responseStatus、responseStatusReason 属性
 		evaluateResponseStatus();
 		this.description = initDescription(this.beanType, this.method);
@@ -151,6 +158,7 @@ public class HandlerMethod {
 		this.method = bean.getClass().getMethod(methodName, parameterTypes);
 		this.bridgedMethod = BridgeMethodResolver.findBridgedMethod(this.method);
 		this.parameters = initMethodParameters();
+		this.argumentResolverBinding = new AtomicReference<>();
 		evaluateResponseStatus();
 		this.description = initDescription(this.beanType, this.method);
 	}
@@ -174,6 +182,7 @@ public class HandlerMethod {
 		this.method = method;
 		this.bridgedMethod = BridgeMethodResolver.findBridgedMethod(method);
 		this.parameters = initMethodParameters();
+		this.argumentResolverBinding = new AtomicReference<>();
 		evaluateResponseStatus();
 		this.description = initDescription(this.beanType, this.method);
 	}
@@ -189,6 +198,7 @@ public class HandlerMethod {
 		this.method = handlerMethod.method;
 		this.bridgedMethod = handlerMethod.bridgedMethod;
 		this.parameters = handlerMethod.parameters;
+		this.argumentResolverBinding = handlerMethod.argumentResolverBinding;
 		this.responseStatus = handlerMethod.responseStatus;
 		this.responseStatusReason = handlerMethod.responseStatusReason;
 		this.description = handlerMethod.description;
@@ -207,6 +217,7 @@ public class HandlerMethod {
 		this.method = handlerMethod.method;
 		this.bridgedMethod = handlerMethod.bridgedMethod;
 		this.parameters = handlerMethod.parameters;
+		this.argumentResolverBinding = handlerMethod.argumentResolverBinding;
 		this.responseStatus = handlerMethod.responseStatus;
 		this.responseStatusReason = handlerMethod.responseStatusReason;
 		this.resolvedFromHandlerMethod = handlerMethod;
@@ -282,6 +293,35 @@ public class HandlerMethod {
 		return this.parameters;
 	}
 
+	/**
+	 * Return the argument resolvers previously bound to the parameters of this
+	 * method for the given source of resolvers.
+	 * @param source the source of the resolvers, e.g. a composite resolver
+	 * @return the resolvers, one per parameter, or {@code null} if none were
+	 * bound for the given source
+	 * @since 5.3
+	 * @see #bindArgumentResolvers
+	 */
+	@Nullable
+	protected Object[] getBoundArgumentResolvers(Object source) {
+		ArgumentResolverBinding binding = this.argumentResolverBinding.get();
+		return (binding != null && binding.source == source ? binding.resolvers : null);
+	}
+
+	/**
+	 * Bind the given argument resolvers to the parameters of this method,
+	 * replacing any resolvers bound for a different source. The binding is
+	 * shared with all copies of this handler method, e.g. the ones created
+	 * for each invocation, so that resolvers are looked up only once.
+	 * @param source the source of the resolvers, e.g. a composite resolver
+	 * @param resolvers the resolvers, one per parameter, with {@code null}
+	 * for parameters that no resolver supports
+	 * @since 5.3
+	 */
+	protected void bindArgumentResolvers(Object source, Object[] resolvers) {
+		this.argumentResolverBinding.set(new ArgumentResolverBinding(source, resolvers));
+	}
+
 	/**
 	 * Return the specified response status, if any.
 	 * @since 4.3.8
@@ -593,4 +633,20 @@ public class HandlerMethod {
 		}
 	}
 
+
+	/**
+	 * Argument resolvers bound to the method parameters, along with their source.
+	 */
+	private static final class ArgumentResolverBinding {
+
+		private final Object source;
+
+		private final Object[] resolvers;
+
+		public ArgumentResolverBinding(Object source, Object[] resolvers) {
+			this.source = source;
+			this.resolvers = resolvers;
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -96,6 +96,9 @@ public class InvocableHandlerMethod extends HandlerMethod {
 
 	/**
 	 * Set {@link HandlerMethodArgumentResolver HandlerMethodArgumentResolvers} to use to use for resolving method argument values.
+	 * <p>As of 5.3, the resolvers that support the method parameters are bound
+	 * to the handler method, and shared with other instances for the same
+	 * handler method that are configured with the same composite.
 	 */
 	public void setHandlerMethodArgumentResolvers(HandlerMethodArgumentResolverComposite argumentResolvers) {
 		this.resolvers = argumentResolvers;
@@ -155,6 +158,8 @@ public class InvocableHandlerMethod extends HandlerMethod {
 		if (ObjectUtils.isEmpty(parameters)) {
 			return EMPTY_ARGS;
 		}
+		// 获得绑定到方法参数的 HandlerMethodArgumentResolver 数组，与其它请求共享
+		HandlerMethodArgumentResolver[] argumentResolvers = getArgumentResolvers(parameters);
 		// 方法参数的object[]
 		Object[] args = new Object[parameters.length];
 		for (int i = 0; i < parameters.length; i++) {
@@ -164,11 +169,15 @@ public class InvocableHandlerMethod extends HandlerMethod {
 			if (args[i] != null) {
 				continue;
 			}
-			if (!this.resolvers.supportsParameter(parameter)) {
-				throw new IllegalStateException(formatArgumentError(parameter, "No suitable resolver"));
+			HandlerMethodArgumentResolver resolver = argumentResolvers[i];
+			if (resolver == null) {
+				if (!this.resolvers.supportsParameter(parameter)) {
+					throw new IllegalStateException(formatArgumentError(parameter, "No suitable resolver"));
+				}
+				resolver = this.resolvers;
 			}
 			try {
-				args[i] = this.resolvers.resolveArgument(parameter, mavContainer, request, this.dataBinderFactory);
+				args[i] = resolver.resolveArgument(parameter, mavContainer, request, this.dataBinderFactory);
 			}
 			catch (Exception ex) {
 				// Leave stack trace for later, exception may actually be resolved and handled...
@@ -184,6 +193,26 @@ public class InvocableHandlerMethod extends HandlerMethod {
 		return args;
 	}
 
+	/**
+	 * Return the resolvers for the given parameters, as bound to the handler
+	 * method for the configured {@link HandlerMethodArgumentResolverComposite},
+	 * looking them up and binding them on first use.
+	 */
+	private HandlerMethodArgumentResolver[] getArgumentResolvers(MethodParameter[] parameters) {
+		Object[] boundResolvers = getBoundArgumentResolvers(this.resolvers);
+		if (boundResolvers != null) {
+			return (HandlerMethodArgumentResolver[]) boundResolvers;
+		}
+		HandlerMethodArgumentResolver[] result = new HandlerMethodArgumentResolver[parameters.length];
+		for (int i = 0; i < parameters.length; i++) {
+			MethodParameter parameter = parameters[i];
+			parameter.initParameterNameDiscovery(this.parameterNameDiscoverer);
+			result[i] = this.resolvers.getArgumentResolver(parameter);
+		}
+		bindArgumentResolvers(this.resolvers, result);
+		return result;
+	}
+
 	/**
 	 * Invoke the handler method with the given argument values.
 	 */
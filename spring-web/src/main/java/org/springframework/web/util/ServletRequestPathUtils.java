@@ -0,0 +1,165 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.http.server.RequestPath;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * Utility class to parse the path of an {@link HttpServletRequest} to a
+ * {@link RequestPath} and cache it in a request attribute for further access.
+ * This can then be used for URL path matching with
+ * {@link org.springframework.web.util.pattern.PathPattern PathPattern}s.
+ *
+ * <p>The {@link RequestPath#pathWithinApplication() path within application}
+ * of the parsed path is relative to the Servlet mapping, if the Servlet is
+ * mapped by prefix (e.g. "/app/*"), which mirrors the default lookup path of
+ * {@link UrlPathHelper}.
+ *
+ * @since 5.3
+ */
+public abstract class ServletRequestPathUtils {
+
+	/** Name of Servlet request attribute that holds the parsed {@link RequestPath}. */
+	public static final String PATH_ATTRIBUTE = ServletRequestPathUtils.class.getName() + ".path";
+
+
+	/**
+	 * Parse the {@link HttpServletRequest#getRequestURI() requestURI} to a
+	 * {@link RequestPath} and save it in the request attribute
+	 * {@link #PATH_ATTRIBUTE} for subsequent use with
+	 * {@link org.springframework.web.util.pattern.PathPattern parsed patterns}.
+	 * <p>The returned {@code RequestPath} will have both the contextPath and any
+	 * servletPath prefix omitted from the {@link RequestPath#pathWithinApplication()
+	 * pathWithinApplication} it exposes.
+	 * @param request the current request
+	 * @return the parsed path
+	 */
+	public static RequestPath parseAndCache(HttpServletRequest request) {
+		RequestPath requestPath = parse(request);
+		request.setAttribute(PATH_ATTRIBUTE, requestPath);
+		return requestPath;
+	}
+
+	/**
+	 * Return a {@link #parseAndCache previously} parsed and cached {@code RequestPath}.
+	 * @param request the current request
+	 * @throws IllegalArgumentException if the path has not been parsed
+	 */
+	public static RequestPath getParsedRequestPath(ServletRequest request) {
+		RequestPath path = (RequestPath) request.getAttribute(PATH_ATTRIBUTE);
+		Assert.notNull(path, "Expected parsed RequestPath in request attribute \"" + PATH_ATTRIBUTE + "\".");
+		return path;
+	}
+
+	/**
+	 * Return the cached {@code RequestPath}, parsing and caching it first,
+	 * if not done yet.
+	 * @param request the current request
+	 * @return the cached or newly parsed path
+	 */
+	public static RequestPath getOrParseRequestPath(HttpServletRequest request) {
+		RequestPath path = (RequestPath) request.getAttribute(PATH_ATTRIBUTE);
+		return (path != null ? path : parseAndCache(request));
+	}
+
+	/**
+	 * Set the cached, parsed {@code RequestPath} to the given value.
+	 * @param requestPath the value to set to, or if {@code null} the cache
+	 * value is cleared.
+	 * @param request the current request
+	 */
+	public static void setParsedRequestPath(@Nullable RequestPath requestPath, ServletRequest request) {
+		if (requestPath != null) {
+			request.setAttribute(PATH_ATTRIBUTE, requestPath);
+		}
+		else {
+			request.removeAttribute(PATH_ATTRIBUTE);
+		}
+	}
+
+	/**
+	 * Check for a {@link #parseAndCache previously} parsed and cached {@code RequestPath}.
+	 * @param request the current request
+	 */
+	public static boolean hasParsedRequestPath(ServletRequest request) {
+		return (request.getAttribute(PATH_ATTRIBUTE) != null);
+	}
+
+	/**
+	 * Remove the request attribute {@link #PATH_ATTRIBUTE} that holds a
+	 * {@link #parseAndCache previously} parsed and cached {@code RequestPath}.
+	 * @param request the current request
+	 */
+	public static void clearParsedRequestPath(ServletRequest request) {
+		request.removeAttribute(PATH_ATTRIBUTE);
+	}
+
+
+	private static RequestPath parse(HttpServletRequest request) {
+		String requestUri = (String) request.getAttribute(WebUtils.INCLUDE_REQUEST_URI_ATTRIBUTE);
+		String contextPath;
+		String servletPath;
+		String pathInfo;
+		if (requestUri != null) {
+			contextPath = (String) request.getAttribute(WebUtils.INCLUDE_CONTEXT_PATH_ATTRIBUTE);
+			servletPath = (String) request.getAttribute(WebUtils.INCLUDE_SERVLET_PATH_ATTRIBUTE);
+			pathInfo = (String) request.getAttribute(WebUtils.INCLUDE_PATH_INFO_ATTRIBUTE);
+		}
+		else {
+			requestUri = request.getRequestURI();
+			contextPath = request.getContextPath();
+			servletPath = request.getServletPath();
+			pathInfo = request.getPathInfo();
+		}
+		String prefix = getPathPrefix(requestUri, contextPath, servletPath, pathInfo);
+		return RequestPath.parse(requestUri, prefix);
+	}
+
+	/**
+	 * Determine the part of the request URI to treat as the context path.
+	 * That is the context path plus the Servlet path, if the Servlet is
+	 * mapped by prefix and the encoded URI starts with that prefix.
+	 */
+	@Nullable
+	private static String getPathPrefix(String requestUri, @Nullable String contextPath,
+			@Nullable String servletPath, @Nullable String pathInfo) {
+
+		String prefix = (StringUtils.hasText(contextPath) && !"/".equals(contextPath) ? contextPath : "");
+		if (pathInfo != null && StringUtils.hasLength(servletPath) && !"/".equals(servletPath)) {
+			String prefixWithServletPath = prefix + servletPath;
+			if (isSegmentPrefix(requestUri, prefixWithServletPath)) {
+				return prefixWithServletPath;
+			}
+		}
+		return (isSegmentPrefix(requestUri, prefix) ? prefix : null);
+	}
+
+	private static boolean isSegmentPrefix(String requestUri, String prefix) {
+		if (prefix.isEmpty()) {
+			return true;
+		}
+		return (prefix.charAt(prefix.length() - 1) != '/' && requestUri.startsWith(prefix) &&
+				(requestUri.length() == prefix.length() || requestUri.charAt(prefix.length()) == '/'));
+	}
+
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.core.testfixture.io.SerializationTestUtils;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * Unit tests for {@link CaseInsensitiveHeadersMap}.
+ */
+class CaseInsensitiveHeadersMapTests {
+
+	private final CaseInsensitiveHeadersMap map = new CaseInsensitiveHeadersMap(2);
+
+
+	@Test
+	void caseInsensitiveLookup() {
+		this.map.add("Content-Type", "text/plain");
+		this.map.add("X-Custom", "foo");
+
+		assertThat(this.map.get("content-type")).containsExactly("text/plain");
+		assertThat(this.map.getFirst("CONTENT-TYPE")).isEqualTo("text/plain");
+		assertThat(this.map.containsKey("x-CUSTOM")).isTrue();
+		assertThat(this.map.containsKey("X-Other")).isFalse();
+		assertThat(this.map.keySet().contains("x-custom")).isTrue();
+		assertThat(this.map.get(42)).isNull();
+	}
+
+	@Test
+	void addAndSet() {
+		this.map.add("Accept", "text/plain");
+		this.map.add("accept", "text/html");
+		this.map.add("accept", null);
+		assertThat(this.map.get("Accept")).containsExactly("text/plain", "text/html", null);
+		assertThat(this.map.size()).isEqualTo(1);
+
+		this.map.set("ACCEPT", "*/*");
+		assertThat(this.map.get("accept")).containsExactly("*/*");
+		assertThat(this.map.keySet()).containsExactly("ACCEPT");
+
+		this.map.addAll("Accept", Arrays.asList("a", "b"));
+		assertThat(this.map.get("Accept")).containsExactly("*/*", "a", "b");
+	}
+
+	@Test
+	void putRetainsMostRecentCase() {
+		this.map.put("X-Foo", new ArrayList<>(Arrays.asList("1")));
+		this.map.put("X-Bar", new ArrayList<>(Arrays.asList("2")));
+		List<String> previous = this.map.put("x-foo", new ArrayList<>(Arrays.asList("3")));
+
+		assertThat(previous).containsExactly("1");
+		assertThat(this.map.keySet()).containsExactly("X-Bar", "x-foo");
+		assertThat(this.map.get("X-FOO")).containsExactly("3");
+	}
+
+	@Test
+	void insertionOrderAndGrowth() {
+		for (int i = 0; i < 20; i++) {
+			this.map.add("Header-" + i, String.valueOf(i));
+		}
+		assertThat(this.map.size()).isEqualTo(20);
+		int i = 0;
+		for (Map.Entry<String, List<String>> entry : this.map.entrySet()) {
+			assertThat(entry.getKey()).isEqualTo("Header-" + i);
+			assertThat(entry.getValue()).containsExactly(String.valueOf(i));
+			i++;
+		}
+	}
+
+	@Test
+	void remove() {
+		this.map.add("A", "1");
+		this.map.add("B", "2");
+		this.map.add("C", "3");
+
+		assertThat(this.map.remove("b")).containsExactly("2");
+		assertThat(this.map.remove("b")).isNull();
+		assertThat(this.map.keySet()).containsExactly("A", "C");
+		assertThat(this.map.get("c")).containsExactly("3");
+
+		this.map.keySet().remove("a");
+		assertThat(this.map.keySet()).containsExactly("C");
+
+		this.map.clear();
+		assertThat(this.map).isEmpty();
+		assertThat(this.map.get("C")).isNull();
+	}
+
+	@Test
+	void iteratorRemoveAndSetValue() {
+		this.map.add("A", "1");
+		this.map.add("B", "2");
+		this.map.add("C", "3");
+
+		Iterator<Map.Entry<String, List<String>>> iterator = this.map.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<String, List<String>> entry = iterator.next();
+			if (entry.getKey().equals("B")) {
+				iterator.remove();
+			}
+			else {
+				entry.setValue(Arrays.asList(entry.getValue().get(0) + "!"));
+			}
+		}
+		assertThat(this.map.toSingleValueMap()).containsExactly(entry("A", "1!"), entry("C", "3!"));
+	}
+
+	@Test
+	void concurrentModification() {
+		this.map.add("A", "1");
+		this.map.add("B", "2");
+		Iterator<String> iterator = this.map.keySet().iterator();
+		iterator.next();
+		this.map.add("C", "3");
+		assertThatExceptionOfType(ConcurrentModificationException.class).isThrownBy(iterator::next);
+	}
+
+	@Test
+	void valuesAreMutable() {
+		this.map.add("A", "1");
+		List<String> values = this.map.get("a");
+		values.add("2");
+		values.add(0, "0");
+		assertThat(this.map.get("A")).containsExactly("0", "1", "2");
+		values.remove("1");
+		values.set(1, "3");
+		assertThat(this.map.get("A")).containsExactly("0", "3");
+		values.clear();
+		assertThat(this.map.get("A")).isEmpty();
+		assertThat(this.map.getFirst("A")).isNull();
+	}
+
+	@Test
+	void wellKnownNamesAreInterned() {
+		String name = new String("Content-Type".toCharArray());
+		this.map.add(name, "text/plain");
+		assertThat(this.map.keySet().iterator().next()).isSameAs(HttpHeaders.CONTENT_TYPE);
+
+		CaseInsensitiveHeadersMap other = new CaseInsensitiveHeadersMap();
+		this.map.add(new String("accept".toCharArray()), "*/*");
+		other.add(new String("accept".toCharArray()), "*/*");
+		assertThat(this.map.keySet()).containsExactly("Content-Type", "accept");
+		assertThat(other.keySet().iterator().next()).isSameAs(this.map.keySet().toArray()[1]);
+
+		this.map.add(new String("X-Custom".toCharArray()), "foo");
+		other.add(new String("X-Custom".toCharArray()), "foo");
+		assertThat(other.keySet().toArray()[1]).isNotSameAs(this.map.keySet().toArray()[2]);
+	}
+
+	@Test
+	void equalsAndAddAll() {
+		MultiValueMap<String, String> other = new LinkedMultiValueMap<>();
+		other.add("A", "1");
+		other.add("A", "2");
+		other.add("B", "3");
+		this.map.addAll(other);
+
+		assertThat(this.map).isEqualTo(other);
+		assertThat(other).isEqualTo(this.map);
+		assertThat(this.map.hashCode()).isEqualTo(other.hashCode());
+		assertThat(this.map.toString()).isEqualTo(other.toString());
+	}
+
+	@Test
+	void serialization() throws Exception {
+		this.map.add("A", "1");
+		this.map.add("A", "2");
+		this.map.add("B", null);
+
+		CaseInsensitiveHeadersMap copy = (CaseInsensitiveHeadersMap) SerializationTestUtils.serializeAndDeserialize(this.map);
+		assertThat(copy).isEqualTo(this.map);
+		copy.add("b", "3");
+		assertThat(copy.get("B")).containsExactly(null, "3");
+	}
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.io.OutputStream;
+import java.net.URI;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.RestTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Unit tests for {@link PooledSimpleClientHttpRequestFactory}.
+ */
+public class PooledSimpleClientHttpRequestFactoryTests extends AbstractHttpRequestFactoryTests {
+
+	@Override
+	protected ClientHttpRequestFactory createRequestFactory() {
+		PooledSimpleClientHttpRequestFactory factory = new PooledSimpleClientHttpRequestFactory();
+		factory.setMaxConnectionsPerRoute(1);
+		factory.setConnectionRequestTimeout(100);
+		return factory;
+	}
+
+
+	@Test
+	public void maxConnectionsPerRoute() throws Exception {
+		URI uri = new URI(baseUrl + "/status/ok");
+		ClientHttpResponse response = factory.createRequest(uri, HttpMethod.GET).execute();
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+		assertThatIOException().isThrownBy(() -> factory.createRequest(uri, HttpMethod.GET).execute())
+				.withMessageContaining("Timeout waiting for connection");
+
+		response.close();
+		response.close();
+		try (ClientHttpResponse next = factory.createRequest(uri, HttpMethod.GET).execute()) {
+			assertThat(next.getStatusCode()).isEqualTo(HttpStatus.OK);
+		}
+	}
+
+	@Test
+	public void permitAcquiredWithBody() throws Exception {
+		URI uri = new URI(baseUrl + "/echo");
+		PooledSimpleClientHttpRequestFactory pooledFactory = (PooledSimpleClientHttpRequestFactory) factory;
+		ClientHttpRequest request = factory.createRequest(uri, HttpMethod.POST);
+		request.getHeaders().setContentLength(1);
+		request.getBody().write(32);
+		assertThat(pooledFactory.getAvailableConnections(uri)).isEqualTo(0);
+
+		assertThatIOException().isThrownBy(() -> factory.createRequest(uri, HttpMethod.POST).getBody())
+				.withMessageContaining("Timeout waiting for connection");
+
+		try (ClientHttpResponse response = request.execute()) {
+			assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+			assertThat(pooledFactory.getAvailableConnections(uri)).isEqualTo(0);
+		}
+		assertThat(pooledFactory.getAvailableConnections(uri)).isEqualTo(1);
+	}
+
+	@Test
+	public void releaseOnFailure() throws Exception {
+		URI uri = new URI("http://localhost:1/status/ok");
+		PooledSimpleClientHttpRequestFactory pooledFactory = (PooledSimpleClientHttpRequestFactory) factory;
+		pooledFactory.setConnectTimeout(100);
+		for (int i = 0; i < 2; i++) {
+			assertThatIOException().isThrownBy(() -> factory.createRequest(uri, HttpMethod.GET).execute())
+					.withMessageNotContaining("Timeout waiting for connection");
+			assertThat(pooledFactory.getAvailableConnections(uri)).isEqualTo(1);
+		}
+	}
+
+	@Test
+	public void releaseOnFailedWrite() throws Exception {
+		URI uri = new URI(baseUrl + "/echo");
+		PooledSimpleClientHttpRequestFactory pooledFactory = (PooledSimpleClientHttpRequestFactory) factory;
+		ClientHttpRequest request = factory.createRequest(uri, HttpMethod.POST);
+		request.getHeaders().setContentLength(1);
+		OutputStream body = request.getBody();
+		assertThat(pooledFactory.getAvailableConnections(uri)).isEqualTo(0);
+		assertThatIOException().isThrownBy(() -> body.write(new byte[2]));
+		assertThat(pooledFactory.getAvailableConnections(uri)).isEqualTo(1);
+	}
+
+	@Test
+	public void releaseOnBodyClosedWithoutExecute() throws Exception {
+		URI uri = new URI(baseUrl + "/echo");
+		PooledSimpleClientHttpRequestFactory pooledFactory = (PooledSimpleClientHttpRequestFactory) factory;
+		ClientHttpRequest request = factory.createRequest(uri, HttpMethod.POST);
+		request.getHeaders().setContentLength(1);
+		OutputStream body = request.getBody();
+		body.write(32);
+		body.close();
+		assertThat(pooledFactory.getAvailableConnections(uri)).isEqualTo(1);
+
+		try (ClientHttpResponse response = request.execute()) {
+			assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		}
+		assertThat(pooledFactory.getAvailableConnections(uri)).isEqualTo(1);
+	}
+
+	@Test
+	public void releaseOnDroppedRequest() throws Exception {
+		URI uri = new URI(baseUrl + "/echo");
+		PooledSimpleClientHttpRequestFactory pooledFactory = (PooledSimpleClientHttpRequestFactory) factory;
+		RestTemplate restTemplate = new RestTemplate(factory);
+		for (int i = 0; i < 2; i++) {
+			assertThatIllegalStateException().isThrownBy(() -> restTemplate.execute(uri, HttpMethod.POST, request -> {
+				request.getBody().write(32);
+				throw new IllegalStateException("Conversion failed");
+			}, null));
+			assertThat(pooledFactory.getAvailableConnections(uri)).isEqualTo(1);
+		}
+
+		try (ClientHttpResponse response = factory.createRequest(new URI(baseUrl + "/status/ok"), HttpMethod.GET).execute()) {
+			assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		}
+	}
+
+}
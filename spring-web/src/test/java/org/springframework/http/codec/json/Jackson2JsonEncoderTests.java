@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -32,6 +32,7 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.CodecException;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.core.testfixture.codec.AbstractEncoderTests;
@@ -218,6 +219,65 @@ public class Jackson2JsonEncoderTests extends AbstractEncoderTests<Jackson2JsonE
 				.verify(Duration.ofSeconds(5));
 	}
 
+	@Test
+	public void encodeStreamWithBatching() {
+		Jackson2JsonEncoder encoder = new Jackson2JsonEncoder();
+		encoder.setStreamingBatch(2, 1024, Duration.ofSeconds(5));
+		Flux<DataBuffer> result = encoder.encode(Flux.just(new Pojo("foo", "bar"),
+						new Pojo("foofoo", "barbar"), new Pojo("foofoofoo", "barbarbar")),
+				this.bufferFactory, ResolvableType.forClass(Pojo.class), APPLICATION_STREAM_JSON, null);
+
+		StepVerifier.create(result)
+				.consumeNextWith(expectString("{\"foo\":\"foo\",\"bar\":\"bar\"}\n" +
+						"{\"foo\":\"foofoo\",\"bar\":\"barbar\"}\n"))
+				.consumeNextWith(expectString("{\"foo\":\"foofoofoo\",\"bar\":\"barbarbar\"}\n"))
+				.verifyComplete();
+	}
+
+	@Test
+	public void encodeStreamWithBatchingSplitsOnMaxBytes() {
+		Jackson2JsonEncoder encoder = new Jackson2JsonEncoder();
+		encoder.setStreamingBatch(3, 10, Duration.ofSeconds(5));
+		Flux<DataBuffer> result = encoder.encode(Flux.just(new Pojo("foo", "bar"),
+						new Pojo("foofoo", "barbar")),
+				this.bufferFactory, ResolvableType.forClass(Pojo.class), APPLICATION_STREAM_JSON, null);
+
+		StepVerifier.create(result)
+				.consumeNextWith(expectString("{\"foo\":\"foo\",\"bar\":\"bar\"}\n"))
+				.consumeNextWith(expectString("{\"foo\":\"foofoo\",\"bar\":\"barbar\"}\n"))
+				.verifyComplete();
+	}
+
+	@Test
+	public void encodeValueLargerThanDefaultBufferSize() {
+		char[] chars = new char[10 * 1024];
+		Arrays.fill(chars, 'a');
+		String value = new String(chars);
+
+		DataBuffer buffer = this.encoder.encodeValue(new Pojo(value, "bar"), this.bufferFactory,
+				ResolvableType.forClass(Pojo.class), APPLICATION_JSON, Collections.emptyMap());
+
+		expectString("{\"foo\":\"" + value + "\",\"bar\":\"bar\"}").accept(buffer);
+	}
+
+	@Test
+	public void encodeValueWithSerializationError() {
+		assertThatExceptionOfType(CodecException.class).isThrownBy(() ->
+				this.encoder.encodeValue(new BrokenBean(), this.bufferFactory,
+						ResolvableType.forClass(BrokenBean.class), APPLICATION_JSON, Collections.emptyMap()));
+	}
+
+	@Test
+	public void encodeStreamWithSerializationError() {
+		Flux<Object> input = Flux.just(new Pojo("foo", "bar"), new BrokenBean());
+
+		testEncode(input, ResolvableType.forClass(Object.class), step -> step
+				.consumeNextWith(expectString("{\"foo\":\"foo\",\"bar\":\"bar\"}\n"))
+				.expectError(CodecException.class)
+				.verify(),
+				APPLICATION_STREAM_JSON, null);
+	}
+
 
 	@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
 	private static class ParentClass {
@@ -231,4 +291,12 @@ public class Jackson2JsonEncoderTests extends AbstractEncoderTests<Jackson2JsonE
 	private static class Bar extends ParentClass {
 	}
 
+
+	private static class BrokenBean {
+
+		public String getValue() {
+			throw new IllegalStateException("Broken");
+		}
+	}
+
 }
@@ -19,6 +19,7 @@ package org.springframework.http.codec.json;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 
 import com.fasterxml.jackson.core.JsonFactory;
@@ -244,6 +245,44 @@ public class Jackson2TokenizerTests extends AbstractLeakCheckingTests {
 				.verifyError(DataBufferLimitException.class);
 	}
 
+	@Test
+	public void testLimitTokenizedValueStartingInPreviousBuffer() {
+
+		List<String> source = asList("[{\"id\":1}, {\"name\":\"aaaaaaaa", "aaaaaaaaaaa", "\"}]");
+
+		StepVerifier.create(decode(source, true, 30))
+				.expectNext("{\"id\":1}")
+				.expectNext("{\"name\":\"aaaaaaaaaaaaaaaaaaa\"}")
+				.verifyComplete();
+
+		// 17 bytes of the second value are in the first buffer, 11 in the second one
+		StepVerifier.create(decode(source, true, 20))
+				.expectNext("{\"id\":1}")
+				.verifyError(DataBufferLimitException.class);
+	}
+
+	@Test
+	public void testLimitStringSpanningBuffers() {
+		// a single string of 100 bytes, in 10 buffers after the opening quote
+		List<String> source = new ArrayList<>();
+		source.add("\"");
+		for (int i = 0; i < 10; i++) {
+			source.add("aaaaaaaaaa");
+		}
+
+		StepVerifier.create(decode(source, false, 50))
+				.verifyError(DataBufferLimitException.class);
+
+		source.set(0, "[\"");
+		StepVerifier.create(decode(source, true, 50))
+				.verifyError(DataBufferLimitException.class);
+
+		source.set(0, "[{\"id\":1}, \"");
+		StepVerifier.create(decode(source, true, 50))
+				.expectNext("{\"id\":1}")
+				.verifyError(DataBufferLimitException.class);
+	}
+
 	@Test
 	public void errorInStream() {
 		DataBuffer buffer = stringBuffer("{\"id\":1,\"name\":");
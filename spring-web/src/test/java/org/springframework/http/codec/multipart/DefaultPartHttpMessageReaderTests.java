@@ -0,0 +1,337 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.io.IOException;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.testfixture.io.buffer.AbstractLeakCheckingTests;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.web.testfixture.http.client.reactive.MockClientHttpRequest;
+import org.springframework.web.testfixture.http.server.reactive.MockServerHttpRequest;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonMap;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+import static org.springframework.core.ResolvableType.forClass;
+
+/**
+ * Unit tests for {@link DefaultPartHttpMessageReader}.
+ */
+public class DefaultPartHttpMessageReaderTests extends AbstractLeakCheckingTests {
+
+	private static final String LOREM_IPSUM = "Lorem ipsum dolor sit amet, consectetur adipiscing elit. Integer iaculis metus id vestibulum nullam.";
+
+	private static final String MUSPI_MEROL = new StringBuilder(LOREM_IPSUM).reverse().toString();
+
+	private static final int BUFFER_SIZE = 16;
+
+
+	@ParameterizedDefaultPartHttpMessageReaderTest
+	void canRead(String displayName, DefaultPartHttpMessageReader reader) {
+		assertThat(reader.canRead(forClass(Part.class), MediaType.MULTIPART_FORM_DATA)).isTrue();
+		assertThat(reader.canRead(forClass(Part.class), MediaType.MULTIPART_MIXED)).isTrue();
+		assertThat(reader.canRead(forClass(Part.class), null)).isTrue();
+		assertThat(reader.canRead(forClass(Part.class), MediaType.APPLICATION_FORM_URLENCODED)).isFalse();
+		assertThat(reader.canRead(forClass(String.class), MediaType.MULTIPART_FORM_DATA)).isFalse();
+	}
+
+	@ParameterizedDefaultPartHttpMessageReaderTest
+	void firefox(String displayName, DefaultPartHttpMessageReader reader) {
+		testBrowser(reader, new ClassPathResource("firefox.multipart", getClass()),
+				"---------------------------18399284482060392383840973206");
+	}
+
+	@ParameterizedDefaultPartHttpMessageReaderTest
+	void chrome(String displayName, DefaultPartHttpMessageReader reader) {
+		testBrowser(reader, new ClassPathResource("chrome.multipart", getClass()),
+				"----WebKitFormBoundaryEveBLvRT65n21fwU");
+	}
+
+	@ParameterizedDefaultPartHttpMessageReaderTest
+	void safari(String displayName, DefaultPartHttpMessageReader reader) {
+		testBrowser(reader, new ClassPathResource("safari.multipart", getClass()),
+				"----WebKitFormBoundaryG8fJ50opQOML0oGD");
+	}
+
+	@ParameterizedDefaultPartHttpMessageReaderTest
+	void quotedBoundary(String displayName, DefaultPartHttpMessageReader reader) {
+		testBrowser(reader, new ClassPathResource("chrome.multipart", getClass()),
+				"\"----WebKitFormBoundaryEveBLvRT65n21fwU\"");
+	}
+
+	@ParameterizedDefaultPartHttpMessageReaderTest
+	void generatedRequest(String displayName, DefaultPartHttpMessageReader reader) {
+		MultipartBodyBuilder partsBuilder = new MultipartBodyBuilder();
+		partsBuilder.part("filePart", new ClassPathResource("foo.txt", getClass()));
+		partsBuilder.part("textPart", "sample-text");
+
+		Flux<String> result = reader.read(forClass(Part.class), generateRequest(partsBuilder), emptyMap())
+				.concatMap(DefaultPartHttpMessageReaderTests::describe);
+
+		StepVerifier.create(result)
+				.expectNext("file filePart (foo.txt): Lorem Ipsum.")
+				.expectNext("field textPart: sample-text")
+				.verifyComplete();
+	}
+
+	@ParameterizedDefaultPartHttpMessageReaderTest
+	void noBoundary(String displayName, DefaultPartHttpMessageReader reader) {
+		MockServerHttpRequest request = MockServerHttpRequest.post("/")
+				.contentType(MediaType.MULTIPART_FORM_DATA)
+				.body(Flux.empty());
+
+		StepVerifier.create(reader.read(forClass(Part.class), request, emptyMap()))
+				.expectError(DecodingException.class)
+				.verify();
+	}
+
+	@ParameterizedDefaultPartHttpMessageReaderTest
+	void noEndBoundary(String displayName, DefaultPartHttpMessageReader reader) {
+		MockServerHttpRequest request = createRequest(new ClassPathResource("invalid.multipart", getClass()),
+				"NbjrKgjbsaMLdnMxMfDpD6myWomYc0qNX0w");
+
+		StepVerifier.create(reader.read(forClass(Part.class), request, emptyMap()))
+				.expectError(DecodingException.class)
+				.verify();
+	}
+
+	@ParameterizedDefaultPartHttpMessageReaderTest
+	void noFirstBoundary(String displayName, DefaultPartHttpMessageReader reader) {
+		MockServerHttpRequest request = MockServerHttpRequest.post("/")
+				.contentType(new MediaType("multipart", "form-data", singletonMap("boundary", "foo")))
+				.body(Flux.just(this.bufferFactory.wrap("invalid content".getBytes(StandardCharsets.UTF_8))));
+
+		StepVerifier.create(reader.read(forClass(Part.class), request, emptyMap()))
+				.expectErrorMessage("Could not find first boundary")
+				.verify();
+	}
+
+	@ParameterizedDefaultPartHttpMessageReaderTest
+	void tooManyParts(String displayName, DefaultPartHttpMessageReader reader) {
+		reader.setMaxParts(1);
+		MockServerHttpRequest request = createRequest(new ClassPathResource("chrome.multipart", getClass()),
+				"----WebKitFormBoundaryEveBLvRT65n21fwU");
+
+		StepVerifier.create(reader.read(forClass(Part.class), request, emptyMap()))
+				.consumeNextWith(part -> assertThat(part.name()).isEqualTo("text1"))
+				.expectErrorMessage("Too many parts (2/1 allowed)")
+				.verify();
+	}
+
+	@ParameterizedDefaultPartHttpMessageReaderTest
+	void headersTooLarge(String displayName, DefaultPartHttpMessageReader reader) {
+		reader.setMaxHeadersSize(16);
+		MockServerHttpRequest request = createRequest(new ClassPathResource("chrome.multipart", getClass()),
+				"----WebKitFormBoundaryEveBLvRT65n21fwU");
+
+		StepVerifier.create(reader.read(forClass(Part.class), request, emptyMap()))
+				.expectError(DataBufferLimitException.class)
+				.verify();
+	}
+
+	@ParameterizedDefaultPartHttpMessageReaderTest
+	void readPartsWithoutDemand(String displayName, DefaultPartHttpMessageReader reader) {
+		MockServerHttpRequest request = createRequest(new ClassPathResource("chrome.multipart", getClass()),
+				"----WebKitFormBoundaryEveBLvRT65n21fwU");
+		Flux<Part> parts = reader.read(forClass(Part.class), request, emptyMap());
+		ZeroDemandSubscriber subscriber = new ZeroDemandSubscriber();
+		parts.subscribe(subscriber);
+		subscriber.cancel();
+	}
+
+	@ParameterizedTest
+	@MethodSource("storingReaders")
+	void transferTo(String displayName, DefaultPartHttpMessageReader reader) throws IOException {
+		MockServerHttpRequest request = createRequest(new ClassPathResource("chrome.multipart", getClass()),
+				"----WebKitFormBoundaryEveBLvRT65n21fwU");
+
+		Path dest = Files.createTempFile("DefaultPartHttpMessageReaderTests", null);
+		try {
+			Mono<Void> result = reader.read(forClass(Part.class), request, emptyMap())
+					.concatMap(part -> {
+						if (part.name().equals("file1")) {
+							return ((FilePart) part).transferTo(dest).then(part.delete());
+						}
+						else {
+							return describe(part).then();
+						}
+					})
+					.then();
+
+			StepVerifier.create(result)
+					.verifyComplete();
+
+			assertThat(new String(Files.readAllBytes(dest), StandardCharsets.UTF_8)).isEqualTo(LOREM_IPSUM + "\r\n");
+		}
+		finally {
+			Files.deleteIfExists(dest);
+		}
+	}
+
+	@ParameterizedTest
+	@MethodSource("storingReaders")
+	void diskUsageExceeded(String displayName, DefaultPartHttpMessageReader reader) {
+		reader.setMaxInMemorySize(4);
+		reader.setMaxDiskUsagePerPart(8);
+		MockServerHttpRequest request = createRequest(new ClassPathResource("chrome.multipart", getClass()),
+				"----WebKitFormBoundaryEveBLvRT65n21fwU");
+
+		StepVerifier.create(reader.read(forClass(Part.class), request, emptyMap()))
+				.consumeNextWith(part -> assertThat(part.name()).isEqualTo("text1"))
+				.consumeNextWith(part -> assertThat(part.name()).isEqualTo("text2"))
+				.expectErrorMessage("Part exceeded the disk usage limit of 8 bytes")
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@ParameterizedTest
+	@MethodSource("storingReaders")
+	void formFieldTooLarge(String displayName, DefaultPartHttpMessageReader reader) {
+		reader.setMaxInMemorySize(0);
+		MockServerHttpRequest request = createRequest(new ClassPathResource("chrome.multipart", getClass()),
+				"----WebKitFormBoundaryEveBLvRT65n21fwU");
+
+		StepVerifier.create(reader.read(forClass(Part.class), request, emptyMap()))
+				.expectErrorMessage("Form field value exceeded the memory usage limit of 0 bytes")
+				.verify();
+	}
+
+
+	private void testBrowser(DefaultPartHttpMessageReader reader, Resource resource, String boundary) {
+		MockServerHttpRequest request = createRequest(resource, boundary);
+		Flux<String> result = reader.read(forClass(Part.class), request, emptyMap())
+				.concatMap(DefaultPartHttpMessageReaderTests::describe);
+
+		StepVerifier.create(result)
+				.expectNext("field text1: a")
+				.expectNext("field text2: b")
+				.expectNext("file file1 (a.txt): " + LOREM_IPSUM + "\r\n")
+				.expectNext("file file2 (a.txt): " + LOREM_IPSUM + "\r\n")
+				.expectNext("file file2 (b.txt): " + MUSPI_MEROL + "\r\n")
+				.verifyComplete();
+	}
+
+	private MockServerHttpRequest createRequest(Resource resource, String boundary) {
+		Flux<DataBuffer> body = DataBufferUtils.readByteChannel(resource::readableChannel,
+				this.bufferFactory, BUFFER_SIZE);
+
+		MediaType contentType = new MediaType("multipart", "form-data", singletonMap("boundary", boundary));
+		return MockServerHttpRequest.post("/")
+				.contentType(contentType)
+				.body(body);
+	}
+
+	private MockServerHttpRequest generateRequest(MultipartBodyBuilder partsBuilder) {
+		MockClientHttpRequest outputMessage = new MockClientHttpRequest(HttpMethod.POST, "/");
+		new MultipartHttpMessageWriter()
+				.write(Mono.just(partsBuilder.build()), null, MediaType.MULTIPART_FORM_DATA, outputMessage, null)
+				.block(Duration.ofSeconds(5));
+		Flux<DataBuffer> requestBody = outputMessage.getBody()
+				.map(buffer -> this.bufferFactory.wrap(buffer.asByteBuffer()));
+		return MockServerHttpRequest.post("/")
+				.contentType(outputMessage.getHeaders().getContentType())
+				.body(requestBody);
+	}
+
+	/**
+	 * Describe the given part, consuming its content, and deleting its
+	 * storage, if any.
+	 */
+	private static Mono<String> describe(Part part) {
+		if (part instanceof FormFieldPart) {
+			return part.content()
+					.doOnNext(DataBufferUtils::release)
+					.then(Mono.just("field " + part.name() + ": " + ((FormFieldPart) part).value()));
+		}
+		String prefix = (part instanceof FilePart ?
+				"file " + part.name() + " (" + ((FilePart) part).filename() + "): " : "part " + part.name() + ": ");
+		return part.content()
+				.map(buffer -> {
+					byte[] bytes = new byte[buffer.readableByteCount()];
+					buffer.read(bytes);
+					DataBufferUtils.release(buffer);
+					return bytes;
+				})
+				.reduce(new byte[0], MultipartUtils::concat)
+				.map(bytes -> prefix + new String(bytes, StandardCharsets.UTF_8))
+				.flatMap(description -> part.delete().thenReturn(description));
+	}
+
+	static Stream<Arguments> storingReaders() {
+		DefaultPartHttpMessageReader inMemory = new DefaultPartHttpMessageReader();
+		inMemory.setMaxInMemorySize(1000);
+
+		DefaultPartHttpMessageReader onDisk = new DefaultPartHttpMessageReader();
+		onDisk.setMaxInMemorySize(100);
+
+		return Stream.of(
+				arguments("in-memory", inMemory),
+				arguments("on-disk", onDisk)
+		);
+	}
+
+	static Stream<Arguments> messageReaders() {
+		DefaultPartHttpMessageReader streaming = new DefaultPartHttpMessageReader();
+		streaming.setStreaming(true);
+
+		return Stream.concat(storingReaders(), Stream.of(arguments("streaming", streaming)));
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target(ElementType.METHOD)
+	@ParameterizedTest(name = "[{index}] {0}")
+	@MethodSource("org.springframework.http.codec.multipart.DefaultPartHttpMessageReaderTests#messageReaders")
+	public @interface ParameterizedDefaultPartHttpMessageReaderTest {
+	}
+
+
+	private static class ZeroDemandSubscriber extends BaseSubscriber<Part> {
+
+		@Override
+		protected void hookOnSubscribe(Subscription subscription) {
+			// Just subscribe without requesting
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,9 +20,13 @@ import java.io.IOException;
 import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import com.fasterxml.jackson.annotation.JsonFilter;
 import com.fasterxml.jackson.annotation.JsonView;
@@ -432,6 +436,61 @@ public class MappingJackson2HttpMessageConverterTests {
 		assertThat(result.contains("\"number\":123")).isTrue();
 	}
 
+	@Test
+	public void canWriteStream() {
+		assertThat(converter.canWrite(Stream.class, MediaType.APPLICATION_JSON)).isTrue();
+		assertThat(converter.canWrite(Iterator.class, MediaType.APPLICATION_NDJSON)).isTrue();
+		assertThat(converter.getSupportedMediaTypes(Stream.class)).contains(MediaType.APPLICATION_NDJSON);
+	}
+
+	@Test
+	public void cannotWriteNonStreamAsNdjson() {
+		assertThat(converter.canWrite(MyBean.class, MediaType.APPLICATION_NDJSON)).isFalse();
+		assertThat(converter.canWrite(MyBean[].class, MediaType.APPLICATION_NDJSON)).isFalse();
+		assertThat(converter.getSupportedMediaTypes(MyBean.class)).doesNotContain(MediaType.APPLICATION_NDJSON);
+	}
+
+	@Test
+	public void writeStream() throws Exception {
+		MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+		AtomicBoolean closed = new AtomicBoolean();
+		Stream<MyBean> beans = Stream.of(createBean("Foo", 42), createBean("Bar", 123)).onClose(() -> closed.set(true));
+		ParameterizedTypeReference<Stream<MyBean>> typeReference = new ParameterizedTypeReference<Stream<MyBean>>() {};
+
+		this.converter.write(beans, typeReference.getType(), MediaType.APPLICATION_JSON, outputMessage);
+
+		String result = outputMessage.getBodyAsString(StandardCharsets.UTF_8);
+		JSONAssert.assertEquals("[{\"string\":\"Foo\",\"number\":42},{\"string\":\"Bar\",\"number\":123}]",
+				result, false);
+		assertThat(closed.get()).isTrue();
+	}
+
+	@Test
+	public void writeIterator() throws Exception {
+		MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+		Iterator<String> values = Arrays.asList("foo", "bar").iterator();
+
+		this.converter.write(values, null, MediaType.APPLICATION_JSON, outputMessage);
+
+		assertThat(outputMessage.getBodyAsString(StandardCharsets.UTF_8)).isEqualTo("[\"foo\",\"bar\"]");
+	}
+
+	@Test
+	public void writeStreamAsNdjson() throws Exception {
+		MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+		this.converter.setPrettyPrint(true);
+		Stream<MyBean> beans = Stream.of(createBean("Foo", 42), createBean("Bar", 123));
+
+		this.converter.write(beans, null, MediaType.APPLICATION_NDJSON, outputMessage);
+
+		String result = outputMessage.getBodyAsString(StandardCharsets.UTF_8);
+		String[] lines = result.split("\n");
+		assertThat(result).endsWith("\n");
+		assertThat(lines).hasSize(2);
+		JSONAssert.assertEquals("{\"string\":\"Foo\",\"number\":42}", lines[0], false);
+		JSONAssert.assertEquals("{\"string\":\"Bar\",\"number\":123}", lines[1], false);
+	}
+
 	@Test
 	public void readWithNoDefaultConstructor() throws Exception {
 		String body = "{\"property1\":\"foo\",\"property2\":\"bar\"}";
@@ -443,6 +502,14 @@ public class MappingJackson2HttpMessageConverterTests {
 	}
 
 
+	private static MyBean createBean(String string, int number) {
+		MyBean bean = new MyBean();
+		bean.setString(string);
+		bean.setNumber(number);
+		return bean;
+	}
+
+
 	interface MyInterface {
 
 		String getString();
@@ -0,0 +1,342 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.filter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.testfixture.servlet.MockAsyncContext;
+import org.springframework.web.testfixture.servlet.MockHttpServletRequest;
+import org.springframework.web.testfixture.servlet.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link NonBlockingBodyFilter}.
+ */
+public class NonBlockingBodyFilterTests {
+
+	private final NonBlockingBodyFilter filter = new NonBlockingBodyFilter();
+
+	private final NonBlockingRequest request = new NonBlockingRequest("POST", "/hotels");
+
+	private final NonBlockingResponse response = new NonBlockingResponse();
+
+
+	@Test
+	public void readRequestBody() throws Exception {
+		byte[] body = "{\"name\":\"Hotel\"}".getBytes(StandardCharsets.UTF_8);
+		this.request.setContentType("application/json");
+		this.request.setContent(body);
+
+		AtomicReference<String> content = new AtomicReference<>();
+		AtomicInteger invocations = new AtomicInteger();
+		FilterChain filterChain = (filterRequest, filterResponse) -> {
+			invocations.incrementAndGet();
+			assertThat(filterRequest.getContentLength()).isEqualTo(body.length);
+			content.set(StreamUtils.copyToString(filterRequest.getInputStream(), StandardCharsets.UTF_8));
+		};
+		this.filter.doFilter(this.request, this.response, filterChain);
+
+		assertThat(invocations.get()).isEqualTo(0);
+		assertThat(this.request.isAsyncStarted()).isTrue();
+		ReadListener readListener = this.request.inputStream.readListener;
+		assertThat(readListener).isNotNull();
+
+		readListener.onDataAvailable();
+		readListener.onAllDataRead();
+		assertThat(((MockAsyncContext) this.request.getAsyncContext()).getDispatchedPath()).isEqualTo("/hotels");
+
+		redispatch(filterChain);
+		assertThat(invocations.get()).isEqualTo(1);
+		assertThat(content.get()).isEqualTo("{\"name\":\"Hotel\"}");
+	}
+
+	@Test
+	public void readRequestBodyInSeveralChunks() throws Exception {
+		this.request.addHeader("Transfer-Encoding", "chunked");
+		this.request.inputStream.content = new ByteArrayInputStream("foobar".getBytes(StandardCharsets.UTF_8));
+		this.request.inputStream.ready = false;
+
+		this.filter.doFilter(this.request, this.response, (filterRequest, filterResponse) -> {});
+		ReadListener readListener = this.request.inputStream.readListener;
+		readListener.onDataAvailable();
+		this.request.inputStream.ready = true;
+		readListener.onDataAvailable();
+		readListener.onAllDataRead();
+
+		AtomicReference<String> content = new AtomicReference<>();
+		redispatch((filterRequest, filterResponse) ->
+				content.set(FileCopyUtils.copyToString(filterRequest.getReader())));
+		assertThat(content.get()).isEqualTo("foobar");
+	}
+
+	@Test
+	public void requestBodyTooLarge() throws Exception {
+		this.filter.setMaxRequestBodySize(4);
+		this.request.setContent("foobar".getBytes(StandardCharsets.UTF_8));
+
+		AtomicInteger invocations = new AtomicInteger();
+		this.filter.doFilter(this.request, this.response, (filterRequest, filterResponse) -> invocations.incrementAndGet());
+
+		assertThat(invocations.get()).isEqualTo(0);
+		assertThat(this.request.isAsyncStarted()).isFalse();
+		assertThat(this.response.getStatus()).isEqualTo(413);
+	}
+
+	@Test
+	public void requestBodyTooLargeWhileReading() throws Exception {
+		this.filter.setMaxRequestBodySize(4);
+		this.request.addHeader("Transfer-Encoding", "chunked");
+		this.request.inputStream.content = new ByteArrayInputStream("foobar".getBytes(StandardCharsets.UTF_8));
+
+		this.filter.doFilter(this.request, this.response, (filterRequest, filterResponse) -> {});
+		ReadListener readListener = this.request.inputStream.readListener;
+		readListener.onDataAvailable();
+		readListener.onAllDataRead();
+
+		assertThat(this.response.getStatus()).isEqualTo(413);
+		assertThat(this.request.isAsyncStarted()).isFalse();
+		assertThat(((MockAsyncContext) this.request.getAsyncContext()).getDispatchedPath()).isNull();
+	}
+
+	@Test
+	public void requestBodyReadError() throws Exception {
+		this.request.setContent("foobar".getBytes(StandardCharsets.UTF_8));
+
+		this.filter.doFilter(this.request, this.response, (filterRequest, filterResponse) -> {});
+		this.request.inputStream.readListener.onError(new IllegalStateException("Connection reset"));
+
+		assertThat(this.response.getStatus()).isEqualTo(400);
+		assertThat(this.request.isAsyncStarted()).isFalse();
+	}
+
+	@Test
+	public void formRequestBodyNotRead() throws Exception {
+		this.request.setContentType("application/x-www-form-urlencoded");
+		this.request.setContent("name=Hotel".getBytes(StandardCharsets.UTF_8));
+
+		AtomicInteger invocations = new AtomicInteger();
+		this.filter.doFilter(this.request, this.response, (filterRequest, filterResponse) -> invocations.incrementAndGet());
+
+		assertThat(invocations.get()).isEqualTo(1);
+		assertThat(this.request.inputStream.readListener).isNull();
+	}
+
+	@Test
+	public void requestBodyNotReadWithoutAsyncSupport() throws Exception {
+		this.request.setAsyncSupported(false);
+		this.request.setContent("foobar".getBytes(StandardCharsets.UTF_8));
+
+		AtomicInteger invocations = new AtomicInteger();
+		this.filter.doFilter(this.request, this.response, (filterRequest, filterResponse) -> invocations.incrementAndGet());
+
+		assertThat(invocations.get()).isEqualTo(1);
+		assertThat(this.request.inputStream.readListener).isNull();
+	}
+
+	@Test
+	public void writeLargeResponseBody() throws Exception {
+		this.filter.setAsyncWriteThreshold(16);
+		this.request.setMethod("GET");
+		this.response.outputStream.ready = false;
+		byte[] body = new byte[32];
+		Arrays.fill(body, (byte) 'a');
+
+		this.filter.doFilter(this.request, this.response, (filterRequest, filterResponse) ->
+				FileCopyUtils.copy(body, filterResponse.getOutputStream()));
+
+		assertThat(this.request.isAsyncStarted()).isTrue();
+		assertThat(this.response.getContentLength()).isEqualTo(32);
+		assertThat(this.response.outputStream.content.size()).isEqualTo(0);
+		WriteListener writeListener = this.response.outputStream.writeListener;
+		assertThat(writeListener).isNotNull();
+
+		writeListener.onWritePossible();
+		assertThat(this.response.outputStream.content.size()).isEqualTo(0);
+
+		this.response.outputStream.ready = true;
+		writeListener.onWritePossible();
+		assertThat(this.response.outputStream.content.toByteArray()).isEqualTo(body);
+		assertThat(this.request.isAsyncStarted()).isFalse();
+	}
+
+	@Test
+	public void writeLargeResponseBodyAfterReadingRequestBody() throws Exception {
+		this.filter.setAsyncWriteThreshold(3);
+		this.request.setContent("foo".getBytes(StandardCharsets.UTF_8));
+
+		FilterChain filterChain = (filterRequest, filterResponse) ->
+				FileCopyUtils.copy(filterRequest.getInputStream(), filterResponse.getOutputStream());
+		this.filter.doFilter(this.request, this.response, filterChain);
+		this.request.inputStream.readListener.onDataAvailable();
+		this.request.inputStream.readListener.onAllDataRead();
+		redispatch(filterChain);
+
+		assertThat(this.response.outputStream.content.size()).isEqualTo(0);
+		this.response.outputStream.writeListener.onWritePossible();
+		assertThat(this.response.outputStream.content.toString("UTF-8")).isEqualTo("foo");
+		assertThat(this.request.isAsyncStarted()).isFalse();
+	}
+
+	@Test
+	public void writeSmallResponseBody() throws Exception {
+		this.request.setMethod("GET");
+
+		this.filter.doFilter(this.request, this.response, (filterRequest, filterResponse) ->
+				FileCopyUtils.copy("Hello World".getBytes(StandardCharsets.UTF_8), filterResponse.getOutputStream()));
+
+		assertThat(this.request.isAsyncStarted()).isFalse();
+		assertThat(this.response.outputStream.writeListener).isNull();
+		assertThat(this.response.outputStream.content.toString("UTF-8")).isEqualTo("Hello World");
+		assertThat(this.response.getContentLength()).isEqualTo(11);
+	}
+
+	@Test
+	public void writeStreamingResponseBody() throws Exception {
+		this.filter.setAsyncWriteThreshold(4);
+		this.request.setMethod("GET");
+
+		this.filter.doFilter(this.request, this.response, (filterRequest, filterResponse) -> {
+			ShallowEtagHeaderFilter.disableContentCaching(filterRequest);
+			FileCopyUtils.copy("Hello World".getBytes(StandardCharsets.UTF_8), filterResponse.getOutputStream());
+		});
+
+		assertThat(this.request.isAsyncStarted()).isFalse();
+		assertThat(this.response.outputStream.writeListener).isNull();
+		assertThat(this.response.outputStream.content.toString("UTF-8")).isEqualTo("Hello World");
+	}
+
+	private void redispatch(FilterChain filterChain) throws Exception {
+		this.request.setAsyncStarted(false);
+		this.request.setDispatcherType(DispatcherType.ASYNC);
+		this.filter.doFilter(this.request, this.response, filterChain);
+	}
+
+
+	private static class NonBlockingRequest extends MockHttpServletRequest {
+
+		private final NonBlockingInputStream inputStream = new NonBlockingInputStream();
+
+		NonBlockingRequest(String method, String requestUri) {
+			super(method, requestUri);
+			setAsyncSupported(true);
+		}
+
+		@Override
+		public void setContent(@Nullable byte[] content) {
+			super.setContent(content);
+			this.inputStream.content = new ByteArrayInputStream(content != null ? content : new byte[0]);
+		}
+
+		@Override
+		public ServletInputStream getInputStream() {
+			return this.inputStream;
+		}
+	}
+
+
+	private static class NonBlockingInputStream extends ServletInputStream {
+
+		ByteArrayInputStream content = new ByteArrayInputStream(new byte[0]);
+
+		boolean ready = true;
+
+		@Nullable
+		ReadListener readListener;
+
+		@Override
+		public int read() {
+			return this.content.read();
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			// Hand out a few bytes at a time, as a network connection would
+			return this.content.read(b, off, Math.min(len, 3));
+		}
+
+		@Override
+		public boolean isFinished() {
+			return (this.content.available() == 0);
+		}
+
+		@Override
+		public boolean isReady() {
+			return this.ready;
+		}
+
+		@Override
+		public void setReadListener(ReadListener readListener) {
+			this.readListener = readListener;
+		}
+	}
+
+
+	private static class NonBlockingResponse extends MockHttpServletResponse {
+
+		private final NonBlockingOutputStream outputStream = new NonBlockingOutputStream();
+
+		@Override
+		public ServletOutputStream getOutputStream() {
+			return this.outputStream;
+		}
+	}
+
+
+	private static class NonBlockingOutputStream extends ServletOutputStream {
+
+		final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+		boolean ready = true;
+
+		@Nullable
+		WriteListener writeListener;
+
+		@Override
+		public void write(int b) {
+			this.content.write(b);
+		}
+
+		@Override
+		public boolean isReady() {
+			return this.ready;
+		}
+
+		@Override
+		public void setWriteListener(WriteListener writeListener) {
+			this.writeListener = writeListener;
+		}
+	}
+
+}
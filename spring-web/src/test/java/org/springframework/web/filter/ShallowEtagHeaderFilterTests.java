@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,13 +16,17 @@
 
 package org.springframework.web.filter;
 
+import java.io.PrintWriter;
+
 import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.junit.jupiter.api.Test;
 
 import org.springframework.util.FileCopyUtils;
 import org.springframework.util.StreamUtils;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.testfixture.servlet.MockHttpServletRequest;
 import org.springframework.web.testfixture.servlet.MockHttpServletResponse;
 
@@ -55,6 +59,10 @@ public class ShallowEtagHeaderFilterTests {
 		request = new MockHttpServletRequest("POST", "/hotels");
 		request.addHeader("Cache-Control","must-revalidate, no-store");
 		assertThat(filter.isEligibleForEtag(request, response, 200, StreamUtils.emptyInput())).isFalse();
+
+		request = new MockHttpServletRequest("GET", "/hotels");
+		response.setHeader("ETag", "\"1\"");
+		assertThat(filter.isEligibleForEtag(request, response, 200, StreamUtils.emptyInput())).isFalse();
 	}
 
 	@Test
@@ -265,4 +273,81 @@ public class ShallowEtagHeaderFilterTests {
 		assertThat(response.getContentAsByteArray()).as("Invalid content").isEqualTo(responseBody);
 	}
 
+	@Test
+	public void filterWithDeepEtag() throws Exception {
+		final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		final byte[] responseBody = "Hello World".getBytes("UTF-8");
+		FilterChain filterChain = (filterRequest, filterResponse) -> {
+			ServletWebRequest webRequest = new ServletWebRequest(
+					(HttpServletRequest) filterRequest, (HttpServletResponse) filterResponse);
+			if (!webRequest.checkNotModified("42")) {
+				FileCopyUtils.copy(responseBody, filterResponse.getOutputStream());
+				assertThat(response.getContentAsByteArray()).as("Content not written directly").isEqualTo(responseBody);
+			}
+		};
+		filter.doFilter(request, response, filterChain);
+
+		assertThat(response.getStatus()).isEqualTo(200);
+		assertThat(response.getHeader("ETag")).isEqualTo("\"42\"");
+		assertThat(response.getContentAsByteArray()).isEqualTo(responseBody);
+	}
+
+	@Test
+	public void filterMatchWithDeepEtag() throws Exception {
+		final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		request.addHeader("If-None-Match", "\"42\"");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		FilterChain filterChain = (filterRequest, filterResponse) -> {
+			ServletWebRequest webRequest = new ServletWebRequest(
+					(HttpServletRequest) filterRequest, (HttpServletResponse) filterResponse);
+			assertThat(webRequest.checkNotModified("42")).isTrue();
+		};
+		filter.doFilter(request, response, filterChain);
+
+		assertThat(response.getStatus()).isEqualTo(304);
+		assertThat(response.getHeader("ETag")).isEqualTo("\"42\"");
+		assertThat(response.getContentAsByteArray()).isEmpty();
+	}
+
+	@Test
+	public void filterExceedingContentCacheLimit() throws Exception {
+		final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		FilterChain filterChain = (filterRequest, filterResponse) -> {
+			PrintWriter writer = filterResponse.getWriter();
+			writer.write("Hello");
+			assertThat(response.getContentAsString()).isEmpty();
+			writer.write(" World");
+			assertThat(response.getContentAsString()).isEqualTo("Hello World");
+			writer.write("!");
+			assertThat(response.getContentAsString()).isEqualTo("Hello World!");
+		};
+		filter.setContentCacheLimit(8);
+		filter.doFilter(request, response, filterChain);
+
+		assertThat(response.getStatus()).isEqualTo(200);
+		assertThat(response.getHeader("ETag")).isNull();
+		assertThat(response.getContentAsString()).isEqualTo("Hello World!");
+	}
+
+	@Test
+	public void filterWithinContentCacheLimit() throws Exception {
+		final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		final byte[] responseBody = "Hello World".getBytes("UTF-8");
+		FilterChain filterChain = (filterRequest, filterResponse) ->
+				FileCopyUtils.copy(responseBody, filterResponse.getOutputStream());
+		filter.setContentCacheLimit(11);
+		filter.doFilter(request, response, filterChain);
+
+		assertThat(response.getHeader("ETag")).isEqualTo("\"0b10a8db164e0754105b7a99be72e3fe5\"");
+		assertThat(response.getContentLength()).isEqualTo(11);
+		assertThat(response.getContentAsByteArray()).isEqualTo(responseBody);
+	}
+
 }
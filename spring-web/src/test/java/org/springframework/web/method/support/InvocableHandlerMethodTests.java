@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@
 package org.springframework.web.method.support;
 
 import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -25,6 +26,7 @@ import org.springframework.core.MethodParameter;
 import org.springframework.web.bind.support.WebDataBinderFactory;
 import org.springframework.web.context.request.NativeWebRequest;
 import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.testfixture.method.ResolvableMethod;
 import org.springframework.web.testfixture.servlet.MockHttpServletRequest;
 import org.springframework.web.testfixture.servlet.MockHttpServletResponse;
@@ -78,6 +80,31 @@ public class InvocableHandlerMethodTests {
 		assertThat(returnValue).isEqualTo("null-null");
 	}
 
+	@Test
+	public void resolveArgWithBoundResolvers() throws Exception {
+		AtomicInteger supportsCount = new AtomicInteger();
+		this.composite.addResolver(new StubArgumentResolver(99) {
+			@Override
+			public boolean supportsParameter(MethodParameter parameter) {
+				supportsCount.incrementAndGet();
+				return super.supportsParameter(parameter);
+			}
+		});
+		this.composite.addResolver(new StubArgumentResolver("value"));
+
+		Method method = ResolvableMethod.on(Handler.class).argTypes(Integer.class, String.class).resolveMethod();
+		HandlerMethod handlerMethod = new HandlerMethod(new Handler(), method);
+		for (int i = 0; i < 3; i++) {
+			InvocableHandlerMethod invocable = new InvocableHandlerMethod(handlerMethod);
+			invocable.setHandlerMethodArgumentResolvers(this.composite);
+			assertThat(invocable.invokeForRequest(request, null)).isEqualTo("99-value");
+		}
+
+		assertThat(supportsCount.get()).isEqualTo(2);
+		assertThat(getStubResolver(0).getResolvedParameters().size()).isEqualTo(3);
+		assertThat(getStubResolver(1).getResolvedParameters().size()).isEqualTo(3);
+	}
+
 	@Test
 	public void cannotResolveArg() throws Exception {
 		assertThatIllegalStateException().isThrownBy(() ->
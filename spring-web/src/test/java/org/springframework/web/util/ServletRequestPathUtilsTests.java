@@ -0,0 +1,99 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.server.RequestPath;
+import org.springframework.web.testfixture.servlet.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Unit tests for {@link ServletRequestPathUtils}.
+ */
+public class ServletRequestPathUtilsTests {
+
+	@Test
+	public void parseAndCache() {
+		// basic
+		testParseAndCache("/app/servlet/a/b/c", "/app", "/servlet", "/a/b/c", "/a/b/c");
+
+		// contextPath only, servletPath mapped to "/"
+		testParseAndCache("/app/a/b/c", "/app", "/a/b/c", null, "/a/b/c");
+
+		// default Servlet mapping
+		testParseAndCache("/a/b/c", "", "/a/b/c", null, "/a/b/c");
+
+		// root path with prefix mapping
+		testParseAndCache("/app/servlet/", "/app", "/servlet", "/", "/");
+
+		// encoded characters
+		testParseAndCache("/app/servlet/a%20b", "/app", "/servlet", "/a b", "/a%20b");
+	}
+
+	@Test
+	public void parseAndCacheWithIncludeAttributes() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/app/servlet/a");
+		request.setContextPath("/app");
+		request.setServletPath("/servlet");
+		request.setPathInfo("/a");
+		request.setAttribute(WebUtils.INCLUDE_REQUEST_URI_ATTRIBUTE, "/app/servlet/include");
+		request.setAttribute(WebUtils.INCLUDE_CONTEXT_PATH_ATTRIBUTE, "/app");
+		request.setAttribute(WebUtils.INCLUDE_SERVLET_PATH_ATTRIBUTE, "/servlet");
+		request.setAttribute(WebUtils.INCLUDE_PATH_INFO_ATTRIBUTE, "/include");
+
+		RequestPath requestPath = ServletRequestPathUtils.parseAndCache(request);
+		assertThat(requestPath.pathWithinApplication().value()).isEqualTo("/include");
+	}
+
+	@Test
+	public void getParsedRequestPath() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/a/b");
+		assertThat(ServletRequestPathUtils.hasParsedRequestPath(request)).isFalse();
+		assertThatIllegalArgumentException().isThrownBy(() ->
+				ServletRequestPathUtils.getParsedRequestPath(request));
+
+		RequestPath requestPath = ServletRequestPathUtils.getOrParseRequestPath(request);
+		assertThat(ServletRequestPathUtils.hasParsedRequestPath(request)).isTrue();
+		assertThat(ServletRequestPathUtils.getParsedRequestPath(request)).isSameAs(requestPath);
+
+		ServletRequestPathUtils.clearParsedRequestPath(request);
+		assertThat(ServletRequestPathUtils.hasParsedRequestPath(request)).isFalse();
+
+		ServletRequestPathUtils.setParsedRequestPath(requestPath, request);
+		assertThat(ServletRequestPathUtils.getParsedRequestPath(request)).isSameAs(requestPath);
+
+		ServletRequestPathUtils.setParsedRequestPath(null, request);
+		assertThat(ServletRequestPathUtils.hasParsedRequestPath(request)).isFalse();
+	}
+
+	private void testParseAndCache(String requestUri, String contextPath, String servletPath,
+			String pathInfo, String pathWithinApplication) {
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", requestUri);
+		request.setContextPath(contextPath);
+		request.setServletPath(servletPath);
+		request.setPathInfo(pathInfo);
+
+		RequestPath requestPath = ServletRequestPathUtils.parseAndCache(request);
+		assertThat(requestPath.pathWithinApplication().value()).isEqualTo(pathWithinApplication);
+		assertThat(ServletRequestPathUtils.getParsedRequestPath(request)).isSameAs(requestPath);
+	}
+
+}
@@ -90,6 +90,8 @@ final class DefaultWebClientBuilder implements WebClient.Builder {
 	@Nullable
 	private ExchangeFunction exchangeFunction;
 
+	private ExchangeMetricsRecorder metricsRecorder = ExchangeMetricsRecorder.NO_OP;
+
 
 	public DefaultWebClientBuilder() {
 	}
@@ -116,6 +118,7 @@ final class DefaultWebClientBuilder implements WebClient.Builder {
 		this.strategies = other.strategies;
 		this.strategiesConfigurers = other.strategiesConfigurers != null ? new ArrayList<>(other.strategiesConfigurers) : null;
 		this.exchangeFunction = other.exchangeFunction;
+		this.metricsRecorder = other.metricsRecorder;
 	}
 
 
@@ -239,6 +242,13 @@ final class DefaultWebClientBuilder implements WebClient.Builder {
 		return this;
 	}
 
+	@Override
+	public WebClient.Builder exchangeMetricsRecorder(ExchangeMetricsRecorder metricsRecorder) {
+		Assert.notNull(metricsRecorder, "ExchangeMetricsRecorder must not be null");
+		this.metricsRecorder = metricsRecorder;
+		return this;
+	}
+
 	@Override
 	public WebClient.Builder apply(Consumer<WebClient.Builder> builderConsumer) {
 		builderConsumer.accept(this);
@@ -253,7 +263,7 @@ final class DefaultWebClientBuilder implements WebClient.Builder {
 	@Override
 	public WebClient build() {
 		ExchangeFunction exchange = (this.exchangeFunction == null ?
-				ExchangeFunctions.create(getOrInitConnector(), initExchangeStrategies()) :
+				ExchangeFunctions.create(getOrInitConnector(), initExchangeStrategies(), this.metricsRecorder) :
 				this.exchangeFunction);
 		ExchangeFunction filteredExchange = (this.filters != null ? this.filters.stream()
 				.reduce(ExchangeFilterFunction::andThen)
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,19 +17,28 @@
 package org.springframework.web.reactive.function.client;
 
 import java.net.URI;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.log.LogFormatUtils;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ClientHttpMetrics;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpRequestDecorator;
 import org.springframework.http.client.reactive.ClientHttpResponse;
+import org.springframework.http.client.reactive.ClientHttpResponseDecorator;
 import org.springframework.http.codec.LoggingCodecSupport;
+import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 
 /**
@@ -64,7 +73,25 @@ public abstract class ExchangeFunctions {
 	 * @return the created {@code ExchangeFunction}
 	 */
 	public static ExchangeFunction create(ClientHttpConnector connector, ExchangeStrategies strategies) {
-		return new DefaultExchangeFunction(connector, strategies);
+		return create(connector, strategies, ExchangeMetricsRecorder.NO_OP);
+	}
+
+	/**
+	 * Create an {@code ExchangeFunction} with the given
+	 * {@code ClientHttpConnector} and {@code ExchangeStrategies} that collects
+	 * {@link ClientHttpMetrics} for each exchange and passes them to the given
+	 * {@code ExchangeMetricsRecorder}.
+	 * @param connector the connector to use for connecting to servers
+	 * @param strategies the {@code ExchangeStrategies} to use
+	 * @param metricsRecorder the recorder for the metrics of each exchange,
+	 * or {@link ExchangeMetricsRecorder#NO_OP} to not collect metrics
+	 * @return the created {@code ExchangeFunction}
+	 * @since 5.3
+	 */
+	public static ExchangeFunction create(ClientHttpConnector connector, ExchangeStrategies strategies,
+			ExchangeMetricsRecorder metricsRecorder) {
+
+		return new DefaultExchangeFunction(connector, strategies, metricsRecorder);
 	}
 
 
@@ -74,14 +101,20 @@ public abstract class ExchangeFunctions {
 
 		private final ExchangeStrategies strategies;
 
+		private final ExchangeMetricsRecorder metricsRecorder;
+
 		private boolean enableLoggingRequestDetails;
 
 
-		public DefaultExchangeFunction(ClientHttpConnector connector, ExchangeStrategies strategies) {
+		public DefaultExchangeFunction(ClientHttpConnector connector, ExchangeStrategies strategies,
+				ExchangeMetricsRecorder metricsRecorder) {
+
 			Assert.notNull(connector, "ClientHttpConnector must not be null");
 			Assert.notNull(strategies, "ExchangeStrategies must not be null");
+			Assert.notNull(metricsRecorder, "ExchangeMetricsRecorder must not be null");
 			this.connector = connector;
 			this.strategies = strategies;
+			this.metricsRecorder = metricsRecorder;
 
 			strategies.messageWriters().stream()
 					.filter(LoggingCodecSupport.class::isInstance)
@@ -96,22 +129,61 @@ public abstract class ExchangeFunctions {
 		@Override
 		public Mono<ClientResponse> exchange(ClientRequest clientRequest) {
 			Assert.notNull(clientRequest, "ClientRequest must not be null");
+			if (this.metricsRecorder == ExchangeMetricsRecorder.NO_OP) {
+				return exchange(clientRequest, null);
+			}
+			return Mono.defer(() -> {
+				ClientHttpMetrics metrics = new ClientHttpMetrics(clientRequest.method(), clientRequest.url());
+				return exchange(clientRequest, metrics)
+						.doOnError(ex -> {
+							metrics.setError(ex);
+							recordMetrics(clientRequest, metrics);
+						})
+						.doOnCancel(() -> {
+							metrics.setCancelled();
+							recordMetrics(clientRequest, metrics);
+						})
+						.subscriberContext(context -> context.put(ClientHttpMetrics.CONTEXT_KEY, metrics));
+			});
+		}
+
+		private Mono<ClientResponse> exchange(ClientRequest clientRequest, @Nullable ClientHttpMetrics metrics) {
 			HttpMethod httpMethod = clientRequest.method();
 			URI url = clientRequest.url();
 			String logPrefix = clientRequest.logPrefix();
 
 			return this.connector
-					.connect(httpMethod, url, httpRequest -> clientRequest.writeTo(httpRequest, this.strategies))
+					.connect(httpMethod, url, httpRequest -> clientRequest.writeTo(
+							(metrics != null ? new MetricsClientHttpRequest(httpRequest, metrics) : httpRequest),
+							this.strategies))
 					.doOnRequest(n -> logRequest(clientRequest))
 					.doOnCancel(() -> logger.debug(logPrefix + "Cancel signal (to close connection)"))
 					.map(httpResponse -> {
 						logResponse(httpResponse, logPrefix);
+						ClientHttpResponse responseToUse = httpResponse;
+						if (metrics != null) {
+							metrics.recordPhase(ClientHttpMetrics.Phase.RESPONSE, System.nanoTime() - metrics.getStartTime());
+							metrics.setStatusCode(httpResponse.getRawStatusCode());
+							responseToUse = new MetricsClientHttpResponse(httpResponse, metrics,
+									() -> recordMetrics(clientRequest, metrics));
+						}
 						return new DefaultClientResponse(
-								httpResponse, this.strategies, logPrefix, httpMethod.name() + " " + url,
+								responseToUse, this.strategies, logPrefix, httpMethod.name() + " " + url,
 								() -> createRequest(clientRequest));
 					});
 		}
 
+		private void recordMetrics(ClientRequest request, ClientHttpMetrics metrics) {
+			if (metrics.complete()) {
+				try {
+					this.metricsRecorder.record(request, metrics);
+				}
+				catch (Throwable ex) {
+					logger.warn(request.logPrefix() + "Failed to record metrics: " + metrics, ex);
+				}
+			}
+		}
+
 		private void logRequest(ClientRequest request) {
 			LogFormatUtils.traceDebug(logger, traceOn ->
 					request.logPrefix() + "HTTP " + request.method() + " " + request.url() +
@@ -158,4 +230,90 @@ public abstract class ExchangeFunctions {
 		}
 	}
 
+
+	/**
+	 * Request decorator that counts the bytes of the request body.
+	 */
+	private static class MetricsClientHttpRequest extends ClientHttpRequestDecorator {
+
+		private final ClientHttpMetrics metrics;
+
+		MetricsClientHttpRequest(ClientHttpRequest delegate, ClientHttpMetrics metrics) {
+			super(delegate);
+			this.metrics = metrics;
+		}
+
+		@Override
+		public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+			return super.writeWith(body instanceof Mono ?
+					Mono.from(body).doOnNext(this::countBytes) : Flux.from(body).doOnNext(this::countBytes));
+		}
+
+		@Override
+		public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+			return super.writeAndFlushWith(Flux.from(body).map(part -> Flux.from(part).doOnNext(this::countBytes)));
+		}
+
+		private void countBytes(DataBuffer buffer) {
+			this.metrics.addBytesSent(buffer.readableByteCount());
+		}
+	}
+
+
+	/**
+	 * Response decorator that counts the bytes of the response body and
+	 * records the metrics once the body has been consumed. Only the first
+	 * subscription to the body is taken into account, e.g. not the one to
+	 * drain the body after an error status has been handled.
+	 */
+	private static class MetricsClientHttpResponse extends ClientHttpResponseDecorator {
+
+		private final ClientHttpMetrics metrics;
+
+		private final Runnable completionCallback;
+
+		private final AtomicBoolean bodySubscribed = new AtomicBoolean();
+
+		MetricsClientHttpResponse(ClientHttpResponse delegate, ClientHttpMetrics metrics, Runnable completionCallback) {
+			super(delegate);
+			this.metrics = metrics;
+			this.completionCallback = completionCallback;
+		}
+
+		@Override
+		public Flux<DataBuffer> getBody() {
+			return Flux.defer(() -> {
+				if (!this.bodySubscribed.compareAndSet(false, true)) {
+					return super.getBody();
+				}
+				long startTime = System.nanoTime();
+				AtomicBoolean terminated = new AtomicBoolean();
+				return super.getBody()
+						.doOnNext(buffer -> this.metrics.addBytesReceived(buffer.readableByteCount()))
+						.doOnComplete(() -> {
+							if (terminated.compareAndSet(false, true)) {
+								complete(startTime);
+							}
+						})
+						.doOnError(ex -> {
+							if (terminated.compareAndSet(false, true)) {
+								this.metrics.setError(ex);
+								complete(startTime);
+							}
+						})
+						.doOnCancel(() -> {
+							if (terminated.compareAndSet(false, true)) {
+								this.metrics.setCancelled();
+								complete(startTime);
+							}
+						});
+			});
+		}
+
+		private void complete(long startTime) {
+			this.metrics.recordPhase(ClientHttpMetrics.Phase.RESPONSE_BODY, System.nanoTime() - startTime);
+			this.completionCallback.run();
+		}
+	}
+
 }
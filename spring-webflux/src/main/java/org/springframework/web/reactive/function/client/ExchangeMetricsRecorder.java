@@ -0,0 +1,61 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.reactive.function.client;
+
+import org.springframework.http.client.reactive.ClientHttpMetrics;
+
+/**
+ * Contract to record the {@link ClientHttpMetrics} of completed exchanges,
+ * e.g. by bridging to a metrics registry.
+ *
+ * <p>Metrics are recorded once per exchange, when the response body has been
+ * consumed or released, or when the exchange fails or is cancelled before
+ * that. Implementations are invoked on the thread that completed the exchange,
+ * typically an event loop thread, and must not block.
+ *
+ * <p>For example:
+ * <pre class="code">
+ * WebClient client = WebClient.builder()
+ *     .exchangeMetricsRecorder((request, metrics) -&gt;
+ *         registry.timer("http.client.requests",
+ *                 "method", request.method().name(),
+ *                 "outcome", metrics.getOutcome().name())
+ *             .record(metrics.getDuration()))
+ *     .build();
+ * </pre>
+ *
+ * @since 5.3
+ * @see ExchangeFunctions#create(org.springframework.http.client.reactive.ClientHttpConnector, ExchangeStrategies, ExchangeMetricsRecorder)
+ */
+@FunctionalInterface
+public interface ExchangeMetricsRecorder {
+
+	/**
+	 * Recorder that does nothing, and which also turns off the collection of
+	 * metrics altogether.
+	 */
+	ExchangeMetricsRecorder NO_OP = (request, metrics) -> {};
+
+
+	/**
+	 * Record the metrics of a completed exchange.
+	 * @param request the request that was exchanged
+	 * @param metrics the metrics collected for the exchange
+	 */
+	void record(ClientRequest request, ClientHttpMetrics metrics);
+
+}
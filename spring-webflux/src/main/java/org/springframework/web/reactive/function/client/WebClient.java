@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -331,6 +331,19 @@ public interface WebClient {
 		 */
 		Builder exchangeFunction(ExchangeFunction exchangeFunction);
 
+		/**
+		 * Configure an {@link ExchangeMetricsRecorder} to collect timings and
+		 * other metrics for each exchange, and to record them, e.g. in a
+		 * metrics registry.
+		 * <p>By default this is set to {@link ExchangeMetricsRecorder#NO_OP}
+		 * and no metrics are collected. This property is ignored if an
+		 * {@link #exchangeFunction(ExchangeFunction) ExchangeFunction} is
+		 * configured.
+		 * @param metricsRecorder the recorder to use
+		 * @since 5.3
+		 */
+		Builder exchangeMetricsRecorder(ExchangeMetricsRecorder metricsRecorder);
+
 		/**
 		 * Apply the given {@code Consumer} to this builder instance.
 		 * <p>This can be useful for applying pre-packaged customizations.
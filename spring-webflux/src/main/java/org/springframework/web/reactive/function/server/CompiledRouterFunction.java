@@ -0,0 +1,479 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.reactive.function.server;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import reactor.core.publisher.Mono;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.Nullable;
+
+/**
+ * {@link RouterFunction} that holds the routes of a flattened router function
+ * tree in a table indexed by HTTP method and first path segment, so that only
+ * the routes that can possibly match a request are evaluated, in their
+ * original order.
+ *
+ * <p>The index is derived from the {@linkplain RequestPredicates#method HTTP method}
+ * and {@linkplain RequestPredicates#path path} predicates of each route, and of
+ * the nested router functions it is part of, as reported through a
+ * {@link RequestPredicates.Visitor}. Routes with other predicates are still
+ * indexed by any method and path predicates they are combined with, while
+ * routes with opaque predicates only, resources, and router functions of
+ * unknown type are evaluated for every request.
+ *
+ * @since 5.3
+ * @param <T> the type of response returned by the handler functions
+ * @see RouterFunctions#compile(RouterFunction)
+ */
+final class CompiledRouterFunction<T extends ServerResponse> implements RouterFunction<T> {
+
+	private static final Log logger = LogFactory.getLog(RouterFunctions.class);
+
+	private static final HttpMethod[] METHODS = HttpMethod.values();
+
+	private static final int NO_METHOD_INDEX = METHODS.length;
+
+
+	private final RouterFunction<T> routerFunction;
+
+	private final Route[] routes;
+
+	private final int[][] routesByMethod;
+
+	private final List<Map<String, int[]>> routesByMethodAndSegment;
+
+
+	CompiledRouterFunction(RouterFunction<T> routerFunction, List<Route> routes) {
+		this.routerFunction = routerFunction;
+		this.routes = routes.toArray(new Route[0]);
+		this.routesByMethod = new int[NO_METHOD_INDEX + 1][];
+		this.routesByMethodAndSegment = new ArrayList<>(NO_METHOD_INDEX + 1);
+
+		Set<String> segments = new LinkedHashSet<>();
+		for (Route route : this.routes) {
+			if (route.segment != null) {
+				segments.add(route.segment);
+			}
+		}
+		for (int i = 0; i <= NO_METHOD_INDEX; i++) {
+			HttpMethod method = (i < NO_METHOD_INDEX ? METHODS[i] : null);
+			this.routesByMethod[i] = indexRoutes(method, null, false);
+			Map<String, int[]> routesBySegment = new HashMap<>(segments.size() * 2);
+			for (String segment : segments) {
+				routesBySegment.put(segment, indexRoutes(method, segment, true));
+			}
+			this.routesByMethodAndSegment.add(routesBySegment);
+		}
+	}
+
+	private int[] indexRoutes(@Nullable HttpMethod method, @Nullable String segment, boolean checkSegment) {
+		List<Integer> indexes = new ArrayList<>();
+		for (int i = 0; i < this.routes.length; i++) {
+			Route route = this.routes[i];
+			if (route.methods != null && (method == null || !route.methods.contains(method))) {
+				continue;
+			}
+			if (checkSegment && route.segment != null && !route.segment.equals(segment)) {
+				continue;
+			}
+			indexes.add(i);
+		}
+		return indexes.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+
+	@Override
+	public Mono<HandlerFunction<T>> route(ServerRequest request) {
+		HttpMethod method = request.method();
+		int methodIndex = (method != null ? method.ordinal() : NO_METHOD_INDEX);
+		String path = request.pathContainer().value();
+		if (path.indexOf('%') != -1 || path.indexOf(';') != -1) {
+			// Encoded characters and matrix variables are not reflected in path prefixes
+			return route(request, this.routesByMethod[methodIndex], 0, null);
+		}
+		String segment = getFirstSegment(path);
+		int[] candidates = this.routesByMethodAndSegment.get(methodIndex).get(segment);
+		if (candidates == null) {
+			candidates = this.routesByMethod[methodIndex];
+		}
+		return route(request, candidates, 0, path);
+	}
+
+	private Mono<HandlerFunction<T>> route(ServerRequest request, int[] candidates, int from, @Nullable String path) {
+		for (int i = from; i < candidates.length; i++) {
+			Route route = this.routes[candidates[i]];
+			if (path != null && !route.matchesPrefix(path)) {
+				continue;
+			}
+			if (route.handlerFunction != null && route.predicate != null) {
+				if (route.predicate.test(request)) {
+					if (logger.isTraceEnabled()) {
+						String logPrefix = request.exchange().getLogPrefix();
+						logger.trace(logPrefix + String.format("Matched %s", route.predicate));
+					}
+					return Mono.just(cast(route.handlerFunction));
+				}
+			}
+			else {
+				int next = i + 1;
+				return route.routerFunction.route(request)
+						.map(this::cast)
+						.switchIfEmpty(Mono.defer(() -> route(request, candidates, next, path)));
+			}
+		}
+		return Mono.empty();
+	}
+
+	@SuppressWarnings("unchecked")
+	private HandlerFunction<T> cast(HandlerFunction<?> handlerFunction) {
+		return (HandlerFunction<T>) handlerFunction;
+	}
+
+	private static String getFirstSegment(String path) {
+		if (path.isEmpty() || path.charAt(0) != '/') {
+			return "";
+		}
+		int end = path.indexOf('/', 1);
+		return path.substring(1, end != -1 ? end : path.length()).toLowerCase(Locale.ENGLISH);
+	}
+
+	@Override
+	public void accept(RouterFunctions.Visitor visitor) {
+		this.routerFunction.accept(visitor);
+	}
+
+	@Override
+	public String toString() {
+		return this.routerFunction.toString();
+	}
+
+
+	/**
+	 * A single route of a flattened router function tree, along with the
+	 * HTTP methods and path prefix that requests must have to match it.
+	 */
+	static final class Route {
+
+		private final RouterFunction<?> routerFunction;
+
+		@Nullable
+		private final RequestPredicate predicate;
+
+		@Nullable
+		private final HandlerFunction<?> handlerFunction;
+
+		@Nullable
+		private final Set<HttpMethod> methods;
+
+		private final String prefix;
+
+		@Nullable
+		private final String segment;
+
+		/**
+		 * Create a new route.
+		 * @param routerFunction the router function for this route only
+		 * @param nestPredicates the predicates of the nested router functions
+		 * this route is part of, from the outermost inwards
+		 * @param predicate the predicate of the route, or {@code null} for
+		 * resources and router functions of unknown type
+		 * @param handlerFunction the handler function, if the route can be
+		 * matched by testing the predicate, i.e. it is not nested or filtered
+		 */
+		Route(RouterFunction<?> routerFunction, List<RequestPredicate> nestPredicates,
+				@Nullable RequestPredicate predicate, @Nullable HandlerFunction<?> handlerFunction) {
+
+			this.routerFunction = routerFunction;
+			this.predicate = predicate;
+			this.handlerFunction = handlerFunction;
+
+			Guard guard = Guard.NONE_CONSUMED;
+			for (RequestPredicate nestPredicate : nestPredicates) {
+				guard = guard.then(GuardVisitor.analyze(nestPredicate, true));
+			}
+			guard = guard.then(predicate != null ? GuardVisitor.analyze(predicate, false) : Guard.UNKNOWN);
+			this.methods = guard.methods;
+			this.prefix = guard.prefix.toLowerCase(Locale.ENGLISH);
+			this.segment = getSegment(this.prefix, guard.boundary);
+		}
+
+		@Nullable
+		private static String getSegment(String prefix, boolean boundary) {
+			if (prefix.isEmpty() || prefix.charAt(0) != '/') {
+				return null;
+			}
+			int end = prefix.indexOf('/', 1);
+			if (end != -1) {
+				return prefix.substring(1, end);
+			}
+			return (boundary ? prefix.substring(1) : null);
+		}
+
+		boolean matchesPrefix(String path) {
+			return path.regionMatches(true, 0, this.prefix, 0, this.prefix.length());
+		}
+	}
+
+
+	/**
+	 * The HTTP methods and path prefix that requests must have to match a
+	 * predicate. Path prefixes are compared without regard to case, in order
+	 * to be independent of the configuration of the {@code PathPatternParser}.
+	 */
+	private static final class Guard {
+
+		/** For predicates that do not consume any part of the path when nested. */
+		static final Guard NONE_CONSUMED = new Guard(null, "", true, false);
+
+		/** For predicates that match any path. */
+		static final Guard ANY_PATH = new Guard(null, "", false, false);
+
+		/** For predicates that may match, or consume, any path. */
+		static final Guard UNKNOWN = ANY_PATH;
+
+		@Nullable
+		final Set<HttpMethod> methods;
+
+		final String prefix;
+
+		/**
+		 * Whether the path must be equal to the prefix, or for nested
+		 * predicates, whether exactly the prefix is consumed.
+		 */
+		final boolean exact;
+
+		/**
+		 * Whether the prefix is known to end at a path segment boundary.
+		 */
+		final boolean boundary;
+
+		Guard(@Nullable Set<HttpMethod> methods, String prefix, boolean exact, boolean boundary) {
+			this.methods = methods;
+			this.prefix = prefix;
+			this.exact = exact;
+			this.boundary = boundary;
+		}
+
+		static Guard path(String pattern) {
+			int length = 0;
+			while (length < pattern.length()) {
+				char c = pattern.charAt(length);
+				if (c == '{' || c == '*' || c == '?' || c == '%' || c == ';' || c > 0x7F) {
+					break;
+				}
+				length++;
+			}
+			boolean exact = (length == pattern.length());
+			String prefix = pattern.substring(0, length);
+			boolean boundary = exact;
+			if (prefix.endsWith("/")) {
+				// Optional trailing separator, or matched by "/**" and "/{*var}" alike
+				prefix = prefix.substring(0, prefix.length() - 1);
+				boundary = true;
+			}
+			return new Guard(null, prefix, exact, boundary);
+		}
+
+		/**
+		 * Combine with a predicate that applies to the path remaining after
+		 * this one, as for nested predicates.
+		 */
+		Guard then(Guard other) {
+			Set<HttpMethod> methods = intersect(this.methods, other.methods);
+			if (!this.exact) {
+				return new Guard(methods, this.prefix, false, this.boundary);
+			}
+			boolean boundary = (other.prefix.isEmpty() ? this.boundary : other.boundary);
+			return new Guard(methods, this.prefix + other.prefix, other.exact, boundary);
+		}
+
+		/**
+		 * Combine with a predicate that applies to the same path.
+		 */
+		Guard and(Guard other) {
+			Set<HttpMethod> methods = intersect(this.methods, other.methods);
+			Guard longer = (this.prefix.length() >= other.prefix.length() ? this : other);
+			return new Guard(methods, longer.prefix, longer.exact, longer.boundary);
+		}
+
+		/**
+		 * Combine with a predicate that is an alternative to this one.
+		 */
+		Guard or(Guard other) {
+			Set<HttpMethod> methods = null;
+			if (this.methods != null && other.methods != null) {
+				methods = EnumSet.noneOf(HttpMethod.class);
+				methods.addAll(this.methods);
+				methods.addAll(other.methods);
+			}
+			if (this.prefix.equals(other.prefix)) {
+				return new Guard(methods, this.prefix, this.exact && other.exact, this.boundary && other.boundary);
+			}
+			int length = 0;
+			int max = Math.min(this.prefix.length(), other.prefix.length());
+			while (length < max && this.prefix.charAt(length) == other.prefix.charAt(length)) {
+				length++;
+			}
+			return new Guard(methods, this.prefix.substring(0, length), false, false);
+		}
+
+		@Nullable
+		private static Set<HttpMethod> intersect(@Nullable Set<HttpMethod> first, @Nullable Set<HttpMethod> second) {
+			if (first == null) {
+				return second;
+			}
+			if (second == null) {
+				return first;
+			}
+			Set<HttpMethod> result = EnumSet.noneOf(HttpMethod.class);
+			result.addAll(first);
+			result.retainAll(second);
+			return result;
+		}
+	}
+
+
+	/**
+	 * {@link RequestPredicates.Visitor} that determines the {@link Guard} of
+	 * a request predicate.
+	 */
+	private static final class GuardVisitor implements RequestPredicates.Visitor {
+
+		private final boolean nested;
+
+		private final Guard anyPath;
+
+		private final Deque<Guard> guards = new ArrayDeque<>();
+
+		private int negateDepth;
+
+		private GuardVisitor(boolean nested) {
+			this.nested = nested;
+			this.anyPath = (nested ? Guard.NONE_CONSUMED : Guard.ANY_PATH);
+		}
+
+		/**
+		 * Determine the guard of the given predicate.
+		 * @param predicate the predicate
+		 * @param nested whether the predicate is used for a nested router
+		 * function, i.e. {@linkplain RequestPredicate#nest applied} to the
+		 * path remaining after the predicates of outer router functions
+		 */
+		static Guard analyze(RequestPredicate predicate, boolean nested) {
+			GuardVisitor visitor = new GuardVisitor(nested);
+			predicate.accept(visitor);
+			return (visitor.guards.size() == 1 ? visitor.guards.pop() : Guard.UNKNOWN);
+		}
+
+		private void push(Guard guard) {
+			if (this.negateDepth == 0) {
+				this.guards.push(guard);
+			}
+		}
+
+		@Override
+		public void method(Set<HttpMethod> methods) {
+			push(new Guard(EnumSet.copyOf(methods), "", this.nested, false));
+		}
+
+		@Override
+		public void path(String pattern) {
+			push(Guard.path(pattern));
+		}
+
+		@Override
+		public void pathExtension(String extension) {
+			push(this.anyPath);
+		}
+
+		@Override
+		public void header(String name, String value) {
+			push(this.anyPath);
+		}
+
+		@Override
+		public void queryParam(String name, String value) {
+			push(this.anyPath);
+		}
+
+		@Override
+		public void startAnd() {
+		}
+
+		@Override
+		public void and() {
+		}
+
+		@Override
+		public void endAnd() {
+			if (this.negateDepth == 0 && this.guards.size() >= 2) {
+				Guard right = this.guards.pop();
+				Guard left = this.guards.pop();
+				// Nested predicates apply to the path remaining after the left-hand side
+				this.guards.push(this.nested ? left.then(right) : left.and(right));
+			}
+		}
+
+		@Override
+		public void startOr() {
+		}
+
+		@Override
+		public void or() {
+		}
+
+		@Override
+		public void endOr() {
+			if (this.negateDepth == 0 && this.guards.size() >= 2) {
+				Guard right = this.guards.pop();
+				Guard left = this.guards.pop();
+				this.guards.push(left.or(right));
+			}
+		}
+
+		@Override
+		public void startNegate() {
+			this.negateDepth++;
+		}
+
+		@Override
+		public void endNegate() {
+			this.negateDepth--;
+			push(this.anyPath);
+		}
+
+		@Override
+		public void unknown(RequestPredicate predicate) {
+			// Custom predicates may consume any part of the path when nested
+			push(Guard.UNKNOWN);
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 
 package org.springframework.web.reactive.function.server;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.function.BiFunction;
@@ -183,6 +185,38 @@ public abstract class RouterFunctions {
 		return new ResourcesRouterFunction(lookupFunction);
 	}
 
+	/**
+	 * Compile the given router function into one that routes requests by
+	 * looking up the routes that can match them in a table, indexed by the
+	 * HTTP method and first path segment, rather than by evaluating all
+	 * routes one after another.
+	 * <p>The routes in the table are derived from the
+	 * {@linkplain #nest(RequestPredicate, RouterFunction) nested} and
+	 * {@linkplain RouterFunction#and(RouterFunction) composed} router functions,
+	 * keeping any {@linkplain RouterFunction#filter(HandlerFilterFunction) filters},
+	 * and are still evaluated in their original order, so that the first
+	 * matching route wins as before. The
+	 * {@linkplain RequestPredicates#method method} and
+	 * {@linkplain RequestPredicates#path(String) path} predicates are used to
+	 * index the routes, while other predicates, resources, and router functions
+	 * not created through this class are evaluated for every request.
+	 * <p>Compiling is recommended for router functions with a large number of
+	 * routes. Note that the given router function must not be changed afterwards.
+	 * @param routerFunction the router function to compile
+	 * @param <T> the type of response returned by the handler functions
+	 * @return the compiled router function
+	 * @since 5.3
+	 */
+	public static <T extends ServerResponse> RouterFunction<T> compile(RouterFunction<T> routerFunction) {
+		Assert.notNull(routerFunction, "RouterFunction must not be null");
+		if (routerFunction instanceof CompiledRouterFunction) {
+			return routerFunction;
+		}
+		List<CompiledRouterFunction.Route> routes = new ArrayList<>();
+		flatten(routerFunction, Function.identity(), Collections.emptyList(), true, routes);
+		return new CompiledRouterFunction<>(routerFunction, routes);
+	}
+
 	/**
 	 * Convert the given {@linkplain RouterFunction router function} into a {@link HttpHandler}.
 	 * This conversion uses {@linkplain HandlerStrategies#builder() default strategies}.
@@ -254,6 +288,46 @@ public abstract class RouterFunctions {
 		return new RouterFunctionWebHandler(strategies, routerFunction);
 	}
 
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static void flatten(RouterFunction<?> routerFunction,
+			Function<RouterFunction<?>, RouterFunction<?>> wrapper, List<RequestPredicate> nestPredicates,
+			boolean topLevel, List<CompiledRouterFunction.Route> routes) {
+
+		if (routerFunction instanceof SameComposedRouterFunction) {
+			SameComposedRouterFunction<?> composed = (SameComposedRouterFunction<?>) routerFunction;
+			flatten(composed.first, wrapper, nestPredicates, topLevel, routes);
+			flatten(composed.second, wrapper, nestPredicates, topLevel, routes);
+		}
+		else if (routerFunction instanceof DifferentComposedRouterFunction) {
+			DifferentComposedRouterFunction composed = (DifferentComposedRouterFunction) routerFunction;
+			flatten(composed.first, wrapper, nestPredicates, topLevel, routes);
+			flatten(composed.second, wrapper, nestPredicates, topLevel, routes);
+		}
+		else if (routerFunction instanceof FilteredRouterFunction) {
+			FilteredRouterFunction<?, ?> filtered = (FilteredRouterFunction<?, ?>) routerFunction;
+			HandlerFilterFunction filterFunction = filtered.filterFunction;
+			flatten(filtered.routerFunction,
+					function -> wrapper.apply(new FilteredRouterFunction(function, filterFunction)),
+					nestPredicates, false, routes);
+		}
+		else if (routerFunction instanceof DefaultNestedRouterFunction) {
+			DefaultNestedRouterFunction<?> nested = (DefaultNestedRouterFunction<?>) routerFunction;
+			List<RequestPredicate> predicates = new ArrayList<>(nestPredicates);
+			predicates.add(nested.predicate);
+			flatten(nested.routerFunction,
+					function -> wrapper.apply(new DefaultNestedRouterFunction(nested.predicate, function)),
+					predicates, false, routes);
+		}
+		else if (routerFunction instanceof DefaultRouterFunction) {
+			DefaultRouterFunction<?> route = (DefaultRouterFunction<?>) routerFunction;
+			routes.add(new CompiledRouterFunction.Route(wrapper.apply(route), nestPredicates,
+					route.predicate, (topLevel ? route.handlerFunction : null)));
+		}
+		else {
+			routes.add(new CompiledRouterFunction.Route(wrapper.apply(routerFunction), nestPredicates, null, null));
+		}
+	}
+
 	/**
 	 * Represents a discoverable builder for router functions.
 	 * Obtained via {@link RouterFunctions#route()}.
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -62,6 +62,8 @@ public class InvocableHandlerMethod extends HandlerMethod {
 
 	private HandlerMethodArgumentResolverComposite resolvers = new HandlerMethodArgumentResolverComposite();
 
+	private Object resolversSource = this.resolvers;
+
 	private ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
 
 	private ReactiveAdapterRegistry reactiveAdapterRegistry = ReactiveAdapterRegistry.getSharedInstance();
@@ -85,8 +87,13 @@ public class InvocableHandlerMethod extends HandlerMethod {
 	/**
 	 * Configure the argument resolvers to use to use for resolving method
 	 * argument values against a {@code ServerWebExchange}.
+	 * <p>As of 5.3, the resolvers that support the method parameters are bound
+	 * to the handler method, and shared with other instances for the same
+	 * handler method that are configured with the same list. The list is
+	 * therefore expected not to change.
 	 */
 	public void setArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+		this.resolversSource = (this.resolvers.getResolvers().isEmpty() ? resolvers : this.resolvers);
 		this.resolvers.addResolvers(resolvers);
 	}
 
@@ -185,20 +192,26 @@ public class InvocableHandlerMethod extends HandlerMethod {
 			return EMPTY_ARGS;
 		}
 
+		HandlerMethodArgumentResolver[] argumentResolvers = getArgumentResolvers(parameters);
 		List<Mono<Object>> argMonos = new ArrayList<>(parameters.length);
-		for (MethodParameter parameter : parameters) {
+		for (int i = 0; i < parameters.length; i++) {
+			MethodParameter parameter = parameters[i];
 			parameter.initParameterNameDiscovery(this.parameterNameDiscoverer);
 			Object providedArg = findProvidedArgument(parameter, providedArgs);
 			if (providedArg != null) {
 				argMonos.add(Mono.just(providedArg));
 				continue;
 			}
-			if (!this.resolvers.supportsParameter(parameter)) {
-				return Mono.error(new IllegalStateException(
-						formatArgumentError(parameter, "No suitable resolver")));
+			HandlerMethodArgumentResolver resolver = argumentResolvers[i];
+			if (resolver == null) {
+				if (!this.resolvers.supportsParameter(parameter)) {
+					return Mono.error(new IllegalStateException(
+							formatArgumentError(parameter, "No suitable resolver")));
+				}
+				resolver = this.resolvers;
 			}
 			try {
-				argMonos.add(this.resolvers.resolveArgument(parameter, bindingContext, exchange)
+				argMonos.add(resolver.resolveArgument(parameter, bindingContext, exchange)
 						.defaultIfEmpty(NO_ARG_VALUE)
 						.doOnError(ex -> logArgumentErrorIfNecessary(exchange, parameter, ex)));
 			}
@@ -211,6 +224,26 @@ public class InvocableHandlerMethod extends HandlerMethod {
 				Stream.of(values).map(value -> value != NO_ARG_VALUE ? value : null).toArray());
 	}
 
+	/**
+	 * Return the resolvers for the given parameters, as bound to the handler
+	 * method for the configured resolvers, looking them up and binding them
+	 * on first use.
+	 */
+	private HandlerMethodArgumentResolver[] getArgumentResolvers(MethodParameter[] parameters) {
+		Object[] boundResolvers = getBoundArgumentResolvers(this.resolversSource);
+		if (boundResolvers != null) {
+			return (HandlerMethodArgumentResolver[]) boundResolvers;
+		}
+		HandlerMethodArgumentResolver[] result = new HandlerMethodArgumentResolver[parameters.length];
+		for (int i = 0; i < parameters.length; i++) {
+			MethodParameter parameter = parameters[i];
+			parameter.initParameterNameDiscovery(this.parameterNameDiscoverer);
+			result[i] = this.resolvers.getArgumentResolver(parameter);
+		}
+		bindArgumentResolvers(this.resolversSource, result);
+		return result;
+	}
+
 	private void logArgumentErrorIfNecessary(ServerWebExchange exchange, MethodParameter parameter, Throwable ex) {
 		// Leave stack trace for later, if error is not handled...
 		String exMsg = ex.getMessage();
@@ -17,7 +17,6 @@
 package org.springframework.web.reactive.result.method;
 
 import java.lang.reflect.Method;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -61,9 +60,12 @@ public class SyncInvocableHandlerMethod extends HandlerMethod {
 	/**
 	 * Configure the argument resolvers to use to use for resolving method
 	 * argument values against a {@code ServerWebExchange}.
+	 * <p>The given list is passed on as is, so that the resolvers bound for
+	 * it are shared with other instances configured with the same list.
 	 */
+	@SuppressWarnings("unchecked")
 	public void setArgumentResolvers(List<SyncHandlerMethodArgumentResolver> resolvers) {
-		this.delegate.setArgumentResolvers(new ArrayList<>(resolvers));
+		this.delegate.setArgumentResolvers((List<HandlerMethodArgumentResolver>) (List<?>) resolvers);
 	}
 
 	/**
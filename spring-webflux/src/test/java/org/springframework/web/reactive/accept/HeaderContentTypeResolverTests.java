@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -51,6 +51,29 @@ public class HeaderContentTypeResolverTests {
 		assertThat(mediaTypes.get(3).toString()).isEqualTo("text/plain;q=0.5");
 	}
 
+	@Test
+	public void resolveMediaTypesFromCache() throws Exception {
+		String header = "text/plain; q=0.5, text/html";
+		List<MediaType> mediaTypes = this.resolver.resolveMediaTypes(
+				MockServerWebExchange.from(MockServerHttpRequest.get("/").header("accept", header)));
+
+		assertThat(this.resolver.resolveMediaTypes(
+				MockServerWebExchange.from(MockServerHttpRequest.get("/").header("accept", header))))
+				.isSameAs(mediaTypes);
+		assertThatExceptionOfType(UnsupportedOperationException.class).isThrownBy(() ->
+				mediaTypes.add(MediaType.ALL));
+	}
+
+	@Test
+	public void resolveMediaTypesFromMultipleHeaderValues() throws Exception {
+		List<MediaType> mediaTypes = this.resolver.resolveMediaTypes(MockServerWebExchange.from(
+				MockServerHttpRequest.get("/").header("accept", "text/plain; q=0.5", "text/html")));
+
+		assertThat(mediaTypes.size()).isEqualTo(2);
+		assertThat(mediaTypes.get(0).toString()).isEqualTo("text/html");
+		assertThat(mediaTypes.get(1).toString()).isEqualTo("text/plain;q=0.5");
+	}
+
 	@Test
 	public void resolveMediaTypesParseError() throws Exception {
 		String header = "textplain; q=0.5";
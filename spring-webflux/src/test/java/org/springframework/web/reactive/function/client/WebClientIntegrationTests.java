@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -30,6 +30,9 @@ import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 
@@ -56,6 +59,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ClientHttpMetrics;
 import org.springframework.http.client.reactive.JettyClientHttpConnector;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.testfixture.xml.Pojo;
@@ -89,6 +93,8 @@ class WebClientIntegrationTests {
 
 	private WebClient webClient;
 
+	private final BlockingQueue<ClientHttpMetrics> metrics = new LinkedBlockingQueue<>();
+
 
 	private void startServer(ClientHttpConnector connector) {
 		this.server = new MockWebServer();
@@ -99,6 +105,14 @@ class WebClientIntegrationTests {
 				.build();
 	}
 
+	private WebClient createMetricsWebClient(ClientHttpConnector connector) {
+		return WebClient.builder()
+				.clientConnector(connector)
+				.baseUrl(this.server.url("/").toString())
+				.exchangeMetricsRecorder((request, metrics) -> this.metrics.add(metrics))
+				.build();
+	}
+
 	@AfterEach
 	void shutdown() throws IOException {
 		this.server.shutdown();
@@ -1128,6 +1142,86 @@ class WebClientIntegrationTests {
 	}
 
 
+	@ParameterizedWebClientTest
+	void shouldRecordExchangeMetrics(ClientHttpConnector connector) throws Exception {
+		startServer(connector);
+		WebClient metricsWebClient = createMetricsWebClient(connector);
+
+		for (int i = 0; i < 2; i++) {
+			prepareResponse(response -> response.setBody("Hello Spring!"));
+
+			Mono<String> result = metricsWebClient.post()
+					.uri("/greeting")
+					.bodyValue("Hello")
+					.retrieve()
+					.bodyToMono(String.class);
+
+			StepVerifier.create(result)
+					.expectNext("Hello Spring!")
+					.expectComplete()
+					.verify(Duration.ofSeconds(3));
+		}
+
+		for (int i = 0; i < 2; i++) {
+			ClientHttpMetrics metrics = this.metrics.poll(3, TimeUnit.SECONDS);
+			assertThat(metrics).isNotNull();
+			assertThat(metrics.getMethod()).isEqualTo(HttpMethod.POST);
+			assertThat(metrics.getUri().getPath()).isEqualTo("/greeting");
+			assertThat(metrics.getOutcome()).isEqualTo(ClientHttpMetrics.Outcome.SUCCESS);
+			assertThat(metrics.getStatusCode()).isEqualTo(200);
+			assertThat(metrics.getBytesSent()).isEqualTo(5);
+			assertThat(metrics.getBytesReceived()).isEqualTo(13);
+			assertThat(metrics.getPhase(ClientHttpMetrics.Phase.RESPONSE)).isNotNull();
+			assertThat(metrics.getPhase(ClientHttpMetrics.Phase.RESPONSE_BODY)).isNotNull();
+			assertThat(metrics.getDuration()).isGreaterThanOrEqualTo(metrics.getPhase(ClientHttpMetrics.Phase.RESPONSE));
+			if (connector instanceof ReactorClientHttpConnector) {
+				assertThat(metrics.getPhase(ClientHttpMetrics.Phase.CONNECTION)).isNotNull();
+				assertThat(metrics.getPhase(ClientHttpMetrics.Phase.REQUEST)).isNotNull();
+				assertThat(metrics.getPhase(ClientHttpMetrics.Phase.TIME_TO_FIRST_BYTE)).isNotNull();
+				assertThat(metrics.isConnectionReused()).isEqualTo(i == 1);
+			}
+		}
+		assertThat(this.metrics).isEmpty();
+	}
+
+	@ParameterizedWebClientTest
+	void shouldRecordExchangeMetricsForErrors(ClientHttpConnector connector) throws Exception {
+		startServer(connector);
+		WebClient metricsWebClient = createMetricsWebClient(connector);
+
+		prepareResponse(response -> response.setResponseCode(500).setBody("Internal Server error"));
+
+		Mono<String> result = metricsWebClient.get()
+				.uri("/greeting")
+				.retrieve()
+				.bodyToMono(String.class);
+
+		StepVerifier.create(result)
+				.expectError(WebClientResponseException.class)
+				.verify(Duration.ofSeconds(3));
+
+		ClientHttpMetrics metrics = this.metrics.poll(3, TimeUnit.SECONDS);
+		assertThat(metrics).isNotNull();
+		assertThat(metrics.getOutcome()).isEqualTo(ClientHttpMetrics.Outcome.SERVER_ERROR);
+		assertThat(metrics.getBytesReceived()).isEqualTo(21);
+
+		WebClient relativeUrlClient = WebClient.builder()
+				.clientConnector(connector)
+				.exchangeMetricsRecorder((request, m) -> this.metrics.add(m))
+				.build();
+
+		StepVerifier.create(relativeUrlClient.get().uri("/greeting").retrieve().bodyToMono(String.class))
+				.expectError(IllegalArgumentException.class)
+				.verify(Duration.ofSeconds(5));
+
+		metrics = this.metrics.poll(3, TimeUnit.SECONDS);
+		assertThat(metrics).isNotNull();
+		assertThat(metrics.getOutcome()).isEqualTo(ClientHttpMetrics.Outcome.ERROR);
+		assertThat(metrics.getError()).isInstanceOf(IllegalArgumentException.class);
+		assertThat(metrics.getStatusCode()).isEqualTo(-1);
+	}
+
+
 	private void prepareResponse(Consumer<MockResponse> consumer) {
 		MockResponse response = new MockResponse();
 		consumer.accept(response);
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.reactive.function.server;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
+import static org.springframework.web.reactive.function.server.RequestPredicates.accept;
+import static org.springframework.web.reactive.function.server.RequestPredicates.method;
+import static org.springframework.web.reactive.function.server.RequestPredicates.path;
+
+/**
+ * Unit tests for {@link RouterFunctions#compile(RouterFunction)}.
+ */
+public class CompiledRouterFunctionTests {
+
+	private final RouterFunction<ServerResponse> routerFunction = RouterFunctions.route()
+			.GET("/", handler("root"))
+			.GET("/users", handler("users"))
+			.GET("/users/{id}", accept(MediaType.APPLICATION_JSON), handler("user-json"))
+			.GET("/users/{id}", handler("user"))
+			.POST("/users", handler("create-user"))
+			.route(request -> !request.headers().header("X-Custom").isEmpty(), handler("custom"))
+			.nest(path("/api"), builder -> builder
+					.GET("/orders/{id}", handler("order"))
+					.nest(path("/v{version}"), versioned -> versioned
+							.GET("/items", handler("items")))
+					.route(method(HttpMethod.DELETE), handler("api-delete"))
+					.filter((request, next) -> next.handle(request)
+							.flatMap(response -> ServerResponse.ok()
+									.header("route", "api:" + response.headers().getFirst("route")).build())))
+			.GET("/files/**", handler("files"))
+			.route(GET("/a").or(GET("/b")), handler("a-or-b"))
+			.route(path("/neg").and(RequestPredicates.method(HttpMethod.PUT).negate()), handler("negate"))
+			.add(RouterFunctions.nest(request -> true, RouterFunctions.route(POST("/opaque"), handler("opaque"))))
+			.add(RouterFunctions.route(RequestPredicates.pathPredicates(caseInsensitiveParser()).apply("/Mixed"),
+					handler("mixed")))
+			.build();
+
+	private final RouterFunction<ServerResponse> compiled = RouterFunctions.compile(this.routerFunction);
+
+
+	@Test
+	public void sameRoutesAsOriginal() {
+		List<String> uris = Arrays.asList("/", "/users", "/users/", "/users/42", "/USERS/42", "/users/42/x",
+				"/api/orders/1", "/api/orders", "/api/v2/items", "/api/v/items", "/api/v2/items/", "/api",
+				"/api/anything", "/apix/orders/1", "/files", "/files/a/b", "/a", "/b", "/c", "/neg", "/opaque",
+				"/mixed", "/MIXED", "/users%2F42", "/users;a=b/42", "/api;v=1/orders/1");
+
+		for (HttpMethod method : HttpMethod.values()) {
+			for (String uri : uris) {
+				assertSameRoute(request(method, uri, null));
+				assertSameRoute(request(method, uri, "text/plain"));
+			}
+		}
+		assertSameRoute(MockServerRequest.builder().method(HttpMethod.GET)
+				.uri(URI.create("http://localhost/nothing")).header("X-Custom", "value").build());
+	}
+
+	@Test
+	public void matchingRouteFromTable() {
+		assertThat(route(this.compiled, request(HttpMethod.GET, "/users/42", "application/json"))).isEqualTo("user-json");
+		assertThat(route(this.compiled, request(HttpMethod.GET, "/users/42", "text/plain"))).isEqualTo("user");
+		assertThat(route(this.compiled, request(HttpMethod.GET, "/api/orders/1", null))).isEqualTo("api:order");
+		assertThat(route(this.compiled, request(HttpMethod.DELETE, "/api/orders/1", null))).isEqualTo("api:api-delete");
+		assertThat(route(this.compiled, request(HttpMethod.GET, "/api/v2/items", null))).isEqualTo("api:items");
+		assertThat(route(this.compiled, request(HttpMethod.POST, "/opaque", null))).isEqualTo("opaque");
+		assertThat(route(this.compiled, request(HttpMethod.GET, "/MIXED", null))).isEqualTo("mixed");
+		assertThat(route(this.compiled, request(HttpMethod.PUT, "/orders", null))).isNull();
+	}
+
+	@Test
+	public void pathVariablesAndMatchingPattern() {
+		MockServerRequest request = request(HttpMethod.GET, "/api/v2/items", null);
+		assertThat(route(this.compiled, request)).isEqualTo("api:items");
+
+		assertThat(request.attributes().get(RouterFunctions.URI_TEMPLATE_VARIABLES_ATTRIBUTE))
+				.isEqualTo(Collections.singletonMap("version", "2"));
+		PathPattern pattern = (PathPattern) request.attributes().get(RouterFunctions.MATCHING_PATTERN_ATTRIBUTE);
+		assertThat(pattern.getPatternString()).isEqualTo("/api/v{version}/items");
+	}
+
+	@Test
+	public void visitorAndToString() {
+		assertThat(this.compiled.toString()).isEqualTo(this.routerFunction.toString());
+		assertThat(RouterFunctions.compile(this.compiled)).isSameAs(this.compiled);
+	}
+
+
+	private void assertSameRoute(MockServerRequest request) {
+		MockServerRequest copy = MockServerRequest.builder().method(request.method()).uri(request.uri())
+				.headers(request.headers().asHttpHeaders()).build();
+		String expected = route(this.routerFunction, request);
+		String actual = route(this.compiled, copy);
+		assertThat(actual).as(request.methodName() + " " + request.uri() + " " + request.headers().accept())
+				.isEqualTo(expected);
+		Map<String, Object> expectedAttributes = request.attributes();
+		assertThat(copy.attributes()).isEqualTo(expectedAttributes);
+	}
+
+	@Nullable
+	private static String route(RouterFunction<ServerResponse> routerFunction, ServerRequest request) {
+		return routerFunction.route(request)
+				.flatMap(handlerFunction -> handlerFunction.handle(request))
+				.map(response -> response.headers().getFirst("route"))
+				.block();
+	}
+
+	private static MockServerRequest request(HttpMethod method, String uri, @Nullable String accept) {
+		MockServerRequest.Builder builder = MockServerRequest.builder()
+				.method(method)
+				.uri(URI.create("http://localhost" + uri));
+		if (accept != null) {
+			builder.header("Accept", accept);
+		}
+		return builder.build();
+	}
+
+	private static HandlerFunction<ServerResponse> handler(String name) {
+		return request -> ServerResponse.ok().header("route", name).build();
+	}
+
+	private static PathPatternParser caseInsensitiveParser() {
+		PathPatternParser parser = new PathPatternParser();
+		parser.setCaseSensitive(false);
+		return parser;
+	}
+
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.reactive.resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.testfixture.http.server.reactive.MockServerHttpRequest;
+import org.springframework.web.testfixture.server.MockServerWebExchange;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link ContentCachingResourceResolver}.
+ */
+public class ContentCachingResourceResolverTests {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+	private static final String CONTENT = String.join("", Collections.nCopies(20, "function foo() { return 42; }\n"));
+
+
+	private final ContentCachingResourceResolver resolver = new ContentCachingResourceResolver();
+
+	private final StubResourceResolver stubResolver = new StubResourceResolver();
+
+	private final ResourceResolverChain chain =
+			new DefaultResourceResolverChain(Arrays.asList(this.resolver, this.stubResolver));
+
+	private final List<Resource> locations = Collections.emptyList();
+
+
+	@Test
+	public void resolveFromCache() throws Exception {
+		this.stubResolver.resource = new NamedResource(CONTENT, "app.js");
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/app.js"));
+
+		Resource resolved = this.chain.resolveResource(exchange, "app.js", this.locations).block(TIMEOUT);
+		assertThat(resolved).isInstanceOf(ContentCachingResourceResolver.CachedResource.class);
+		assertThat(resolved.getFilename()).isEqualTo("app.js");
+		assertThat(resolved.contentLength()).isEqualTo(CONTENT.length());
+		assertThat(StreamUtils.copyToString(resolved.getInputStream(), StandardCharsets.UTF_8)).isEqualTo(CONTENT);
+
+		HttpHeaders headers = ((HttpResource) resolved).getResponseHeaders();
+		assertThat(headers.getETag()).startsWith("\"").hasSize(34);
+		assertThat(headers.getVary()).containsExactly("Accept-Encoding");
+		assertThat(headers.containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+
+		assertThat(this.chain.resolveResource(exchange, "app.js", this.locations).block(TIMEOUT)).isSameAs(resolved);
+		assertThat(this.stubResolver.count).isEqualTo(1);
+		assertThat(this.resolver.getCacheSize()).isEqualTo(CONTENT.length());
+	}
+
+	@Test
+	public void resolveGzipped() throws Exception {
+		this.stubResolver.resource = new NamedResource(CONTENT, "app.js");
+		MockServerWebExchange exchange = MockServerWebExchange.from(
+				MockServerHttpRequest.get("/app.js").header("Accept-Encoding", "gzip, deflate"));
+
+		Resource resolved = this.chain.resolveResource(exchange, "app.js", this.locations).block(TIMEOUT);
+		HttpHeaders headers = ((HttpResource) resolved).getResponseHeaders();
+		assertThat(headers.getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+		assertThat(headers.getVary()).containsExactly("Accept-Encoding");
+		assertThat(((ContentCachingResourceResolver.CachedResource) resolved).isEncoded()).isTrue();
+		assertThat(resolved.contentLength()).isLessThan(CONTENT.length());
+		assertThat(StreamUtils.copyToString(new GZIPInputStream(resolved.getInputStream()), StandardCharsets.UTF_8))
+				.isEqualTo(CONTENT);
+
+		Resource identity = this.chain.resolveResource(
+				MockServerWebExchange.from(MockServerHttpRequest.get("/app.js")), "app.js", this.locations).block(TIMEOUT);
+		assertThat(((HttpResource) identity).getResponseHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+		assertThat(((HttpResource) identity).getResponseHeaders().getETag()).isNotEqualTo(headers.getETag());
+		assertThat(this.stubResolver.count).isEqualTo(2);
+	}
+
+	@Test
+	public void resolveNotCompressible() throws Exception {
+		this.stubResolver.resource = new NamedResource(CONTENT, "image.png");
+		MockServerWebExchange exchange = MockServerWebExchange.from(
+				MockServerHttpRequest.get("/image.png").header("Accept-Encoding", "gzip"));
+
+		Resource resolved = this.chain.resolveResource(exchange, "image.png", this.locations).block(TIMEOUT);
+		HttpHeaders headers = ((HttpResource) resolved).getResponseHeaders();
+		assertThat(headers.containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+		assertThat(headers.containsKey(HttpHeaders.VARY)).isFalse();
+		assertThat(resolved.contentLength()).isEqualTo(CONTENT.length());
+
+		exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/image.png").header("Accept-Encoding", "br"));
+		assertThat(this.chain.resolveResource(exchange, "image.png", this.locations).block(TIMEOUT)).isSameAs(resolved);
+		exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/image.png"));
+		assertThat(this.chain.resolveResource(exchange, "image.png", this.locations).block(TIMEOUT)).isSameAs(resolved);
+		assertThat(this.stubResolver.count).isEqualTo(1);
+		assertThat(this.resolver.getCacheSize()).isEqualTo(CONTENT.length());
+	}
+
+	@Test
+	public void resolveIdentityThenGzipped() throws Exception {
+		this.stubResolver.resource = new NamedResource(CONTENT, "app.js");
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/app.js"));
+		Resource identity = this.chain.resolveResource(exchange, "app.js", this.locations).block(TIMEOUT);
+		assertThat(((ContentCachingResourceResolver.CachedResource) identity).isEncoded()).isFalse();
+
+		exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/app.js").header("Accept-Encoding", "gzip"));
+		Resource gzipped = this.chain.resolveResource(exchange, "app.js", this.locations).block(TIMEOUT);
+		assertThat(((ContentCachingResourceResolver.CachedResource) gzipped).isEncoded()).isTrue();
+		assertThat(this.chain.resolveResource(exchange, "app.js", this.locations).block(TIMEOUT)).isSameAs(gzipped);
+		assertThat(this.stubResolver.count).isEqualTo(2);
+	}
+
+	@Test
+	public void resolveCssNotCompressed() throws Exception {
+		this.stubResolver.resource = new NamedResource(CONTENT, "main.css");
+		MockServerWebExchange exchange = MockServerWebExchange.from(
+				MockServerHttpRequest.get("/main.css").header("Accept-Encoding", "gzip"));
+
+		Resource resolved = this.chain.resolveResource(exchange, "main.css", this.locations).block(TIMEOUT);
+		assertThat(((ContentCachingResourceResolver.CachedResource) resolved).isEncoded()).isFalse();
+		assertThat(((HttpResource) resolved).getResponseHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+		assertThat(StreamUtils.copyToString(resolved.getInputStream(), StandardCharsets.UTF_8)).isEqualTo(CONTENT);
+	}
+
+	@Test
+	public void resolvePreEncoded() throws Exception {
+		NamedResource resource = new NamedResource("brotli", "app.js");
+		resource.headers.add(HttpHeaders.CONTENT_ENCODING, "br");
+		resource.headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		this.stubResolver.resource = resource;
+		MockServerWebExchange exchange = MockServerWebExchange.from(
+				MockServerHttpRequest.get("/app.js").header("Accept-Encoding", "br, gzip"));
+
+		Resource resolved = this.chain.resolveResource(exchange, "app.js", this.locations).block(TIMEOUT);
+		HttpHeaders headers = ((HttpResource) resolved).getResponseHeaders();
+		assertThat(headers.getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("br");
+		assertThat(headers.getVary()).containsExactly("Accept-Encoding");
+		assertThat(StreamUtils.copyToString(resolved.getInputStream(), StandardCharsets.UTF_8)).isEqualTo("brotli");
+	}
+
+	@Test
+	public void resourceTooLarge() {
+		this.resolver.setMaxResourceSize(10);
+		this.stubResolver.resource = new NamedResource(CONTENT, "app.js");
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/app.js"));
+
+		Resource resolved = this.chain.resolveResource(exchange, "app.js", this.locations).block(TIMEOUT);
+		assertThat(resolved).isSameAs(this.stubResolver.resource);
+		assertThat(this.resolver.getCacheSize()).isEqualTo(0);
+	}
+
+	@Test
+	public void evictLeastRecentlyUsed() {
+		this.resolver.setMaxCacheSize(CONTENT.length() * 2);
+		this.stubResolver.resource = new NamedResource(CONTENT, "app.js");
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/app.js"));
+
+		this.chain.resolveResource(exchange, "a.js", this.locations).block(TIMEOUT);
+		this.chain.resolveResource(exchange, "b.js", this.locations).block(TIMEOUT);
+		this.chain.resolveResource(exchange, "a.js", this.locations).block(TIMEOUT);
+		this.chain.resolveResource(exchange, "c.js", this.locations).block(TIMEOUT);
+		assertThat(this.stubResolver.count).isEqualTo(3);
+		assertThat(this.resolver.getCacheSize()).isEqualTo(CONTENT.length() * 2);
+
+		this.chain.resolveResource(exchange, "a.js", this.locations).block(TIMEOUT);
+		assertThat(this.stubResolver.count).isEqualTo(3);
+		this.chain.resolveResource(exchange, "b.js", this.locations).block(TIMEOUT);
+		assertThat(this.stubResolver.count).isEqualTo(4);
+	}
+
+	@Test
+	public void resolveOffEventLoop() {
+		NamedResource resource = new NamedResource(CONTENT, "app.js");
+		this.stubResolver.resource = resource;
+		MockServerWebExchange exchange = MockServerWebExchange.from(
+				MockServerHttpRequest.get("/app.js").header("Accept-Encoding", "gzip"));
+
+		this.chain.resolveResource(exchange, "app.js", this.locations).block(TIMEOUT);
+		assertThat(resource.readThread).startsWith("boundedElastic");
+	}
+
+	@Test
+	public void resolveWithNullRequest() {
+		this.stubResolver.resource = new NamedResource(CONTENT, "app.js");
+
+		Resource resolved = this.chain.resolveResource(null, "app.js", this.locations).block(TIMEOUT);
+		assertThat(resolved).isSameAs(this.stubResolver.resource);
+	}
+
+
+	private static class NamedResource extends ByteArrayResource implements HttpResource {
+
+		private final String filename;
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		@Nullable
+		private volatile String readThread;
+
+		NamedResource(String content, String filename) {
+			super(content.getBytes(StandardCharsets.UTF_8));
+			this.filename = filename;
+		}
+
+		@Override
+		public String getFilename() {
+			return this.filename;
+		}
+
+		@Override
+		public long lastModified() {
+			return 0;
+		}
+
+		@Override
+		public InputStream getInputStream() throws IOException {
+			this.readThread = Thread.currentThread().getName();
+			return super.getInputStream();
+		}
+
+		@Override
+		public HttpHeaders getResponseHeaders() {
+			return this.headers;
+		}
+	}
+
+
+	private static class StubResourceResolver implements ResourceResolver {
+
+		@Nullable
+		Resource resource;
+
+		int count;
+
+		@Override
+		public Mono<Resource> resolveResource(@Nullable ServerWebExchange exchange, String requestPath,
+				List<? extends Resource> locations, ResourceResolverChain chain) {
+
+			this.count++;
+			return Mono.justOrEmpty(this.resource);
+		}
+
+		@Override
+		public Mono<String> resolveUrlPath(String resourcePath, List<? extends Resource> locations,
+				ResourceResolverChain chain) {
+
+			return Mono.just(resourcePath);
+		}
+	}
+
+}
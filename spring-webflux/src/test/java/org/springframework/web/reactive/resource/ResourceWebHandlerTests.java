@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -46,6 +46,7 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.server.PathContainer;
+import org.springframework.util.DigestUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.reactive.HandlerMapping;
 import org.springframework.web.server.MethodNotAllowedException;
@@ -171,6 +172,44 @@ public class ResourceWebHandlerTests {
 		assertThat(exchange.getResponse().getHeaders().get("Accept-Ranges").size()).isEqualTo(1);
 	}
 
+	@Test
+	public void getVersionedResourceWithMatchingETag() throws Exception {
+		VersionResourceResolver versionResolver = new VersionResourceResolver();
+		versionResolver.addFixedVersionStrategy("versionString", "/**");
+		this.handler.setResourceResolvers(Arrays.asList(versionResolver, new PathResourceResolver()));
+		this.handler.afterPropertiesSet();
+
+		MockServerWebExchange exchange = MockServerWebExchange.from(
+				MockServerHttpRequest.get("").ifNoneMatch("\"versionString\""));
+		setPathWithinHandlerMapping(exchange, "versionString/foo.css");
+		this.handler.handle(exchange).block(TIMEOUT);
+
+		assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+	}
+
+	@Test
+	public void getContentCachedResource() throws Exception {
+		this.handler.setResourceResolvers(Arrays.asList(new ContentCachingResourceResolver(), new PathResourceResolver()));
+		this.handler.afterPropertiesSet();
+
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(""));
+		setPathWithinHandlerMapping(exchange, "foo.css");
+		this.handler.handle(exchange).block(TIMEOUT);
+
+		HttpHeaders headers = exchange.getResponse().getHeaders();
+		String eTag = headers.getETag();
+		assertThat(eTag).isEqualTo("\"" + DigestUtils.md5DigestAsHex("h1 { color:red; }".getBytes()) + "\"");
+		assertThat(headers.getVary()).containsExactly("Accept-Encoding");
+		assertThat(headers.getContentLength()).isEqualTo(17);
+		assertResponseBody(exchange, "h1 { color:red; }");
+
+		exchange = MockServerWebExchange.from(MockServerHttpRequest.get("").ifNoneMatch(eTag));
+		setPathWithinHandlerMapping(exchange, "foo.css");
+		this.handler.handle(exchange).block(TIMEOUT);
+
+		assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+	}
+
 	@Test
 	public void getResourceWithHtmlMediaType() throws Exception {
 		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(""));
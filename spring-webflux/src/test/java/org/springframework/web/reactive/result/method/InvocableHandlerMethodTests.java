@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -34,6 +34,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.reactive.BindingContext;
 import org.springframework.web.reactive.HandlerResult;
 import org.springframework.web.server.ServerWebExchange;
@@ -48,6 +49,8 @@ import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.springframework.web.testfixture.http.server.reactive.MockServerHttpRequest.get;
 
 /**
@@ -91,6 +94,22 @@ public class InvocableHandlerMethodTests {
 		assertHandlerResultValue(mono, "success");
 	}
 
+	@Test
+	public void resolveArgWithBoundResolvers() {
+		HandlerMethodArgumentResolver resolver = stubResolver("value1");
+		this.resolvers.add(resolver);
+		Method method = ResolvableMethod.on(TestController.class).mockCall(o -> o.singleArg(null)).method();
+		HandlerMethod handlerMethod = new HandlerMethod(new TestController(), method);
+		for (int i = 0; i < 3; i++) {
+			InvocableHandlerMethod invocable = new InvocableHandlerMethod(handlerMethod);
+			invocable.setArgumentResolvers(this.resolvers);
+			assertHandlerResultValue(invocable.invoke(this.exchange, new BindingContext()), "success:value1");
+		}
+
+		verify(resolver, times(1)).supportsParameter(any());
+		verify(resolver, times(3)).resolveArgument(any(), any(), any());
+	}
+
 	@Test
 	public void cannotResolveArg() {
 		Method method = ResolvableMethod.on(TestController.class).mockCall(o -> o.singleArg(null)).method();
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.PathMatchConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.testfixture.servlet.MockHttpServletRequest;
+import org.springframework.web.testfixture.servlet.MockHttpServletResponse;
+import org.springframework.web.testfixture.servlet.MockServletConfig;
+import org.springframework.web.testfixture.servlet.MockServletContext;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+/**
+ * Benchmarks for the dispatch of requests through a {@link DispatcherServlet}
+ * configured with the MVC Java config, to annotated controller methods that
+ * return JSON and plain text, with {@code AntPathMatcher} or parsed
+ * {@code PathPattern} request mapping.
+ */
+@BenchmarkMode(Mode.Throughput)
+public class DispatcherServletBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		@Param({"false", "true"})
+		public boolean usePathPatterns;
+
+		public DispatcherServlet servlet;
+
+		public AnnotationConfigWebApplicationContext context;
+
+		@Setup
+		public void setup() throws Exception {
+			MockServletContext servletContext = new MockServletContext();
+			this.context = new AnnotationConfigWebApplicationContext();
+			this.context.setServletContext(servletContext);
+			this.context.register(this.usePathPatterns ? PathPatternsWebConfig.class : WebConfig.class);
+			this.context.register(TestController.class);
+			this.context.refresh();
+			this.servlet = new DispatcherServlet(this.context);
+			this.servlet.init(new MockServletConfig(servletContext));
+		}
+
+		@TearDown
+		public void tearDown() {
+			this.servlet.destroy();
+			this.context.close();
+		}
+	}
+
+	@Benchmark
+	public void plainTextResponse(BenchmarkData data, Blackhole bh) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hello");
+		request.addHeader("Accept", MediaType.TEXT_PLAIN_VALUE);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		data.servlet.service(request, response);
+		bh.consume(response.getContentAsByteArray());
+	}
+
+	@Benchmark
+	public void jsonResponseWithPathVariable(BenchmarkData data, Blackhole bh) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/projects/spring-framework/releases");
+		request.addHeader("Accept", MediaType.APPLICATION_JSON_VALUE);
+		request.addParameter("limit", "2");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		data.servlet.service(request, response);
+		bh.consume(response.getContentAsByteArray());
+	}
+
+	@Benchmark
+	public void notFound(BenchmarkData data, Blackhole bh) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/unknown/path");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		data.servlet.service(request, response);
+		bh.consume(response.getStatus());
+	}
+
+
+	@Configuration
+	@EnableWebMvc
+	static class WebConfig implements WebMvcConfigurer {
+	}
+
+	@Configuration
+	@EnableWebMvc
+	static class PathPatternsWebConfig implements WebMvcConfigurer {
+
+		@Override
+		public void configurePathMatch(PathMatchConfigurer configurer) {
+			configurer.setPatternParser(new PathPatternParser());
+		}
+	}
+
+	@RestController
+	static class TestController {
+
+		@GetMapping("/hello")
+		public String hello() {
+			return "Hello World";
+		}
+
+		@GetMapping("/projects/{project}/releases")
+		public List<Map<String, String>> releases(
+				@PathVariable("project") String project, @RequestParam("limit") int limit) {
+
+			return Collections.nCopies(limit, Collections.singletonMap("project", project));
+		}
+	}
+
+}
@@ -48,7 +48,10 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.servlet.HandlerExecutionChain;
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
 import org.springframework.web.util.UrlPathHelper;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 /**
  * Abstract base class for {@link org.springframework.web.servlet.HandlerMapping}
@@ -85,6 +88,9 @@ public abstract class AbstractHandlerMapping extends WebApplicationObjectSupport
 	 * 路径匹配器
 	 */
 	private PathMatcher pathMatcher = new AntPathMatcher();
+
+	@Nullable
+	private PathPatternParser patternParser;
 	/**
 	 * 配置的拦截器数组.
 	 * <p>
@@ -213,6 +219,43 @@ public abstract class AbstractHandlerMapping extends WebApplicationObjectSupport
 		return this.pathMatcher;
 	}
 
+	/**
+	 * Enable use of pre-parsed {@link PathPattern}s as an alternative to
+	 * String pattern matching with {@link AntPathMatcher}. The syntax is
+	 * largely the same but the {@code PathPattern} syntax is more tailored for
+	 * web applications, and its implementation is more efficient.
+	 * <p>When enabled, the request path is parsed once per request through
+	 * {@link ServletRequestPathUtils#parseAndCache(HttpServletRequest)} and
+	 * matched against parsed patterns, rather than re-tokenizing the
+	 * String lookup path against every registered pattern.
+	 * <p>By default this is not set.
+	 * @param patternParser the parser to use
+	 * @since 5.3
+	 */
+	public void setPatternParser(@Nullable PathPatternParser patternParser) {
+		this.patternParser = patternParser;
+	}
+
+	/**
+	 * Return the {@link #setPatternParser(PathPatternParser) configured}
+	 * {@code PathPatternParser}, or {@code null}.
+	 * @since 5.3
+	 */
+	@Nullable
+	public PathPatternParser getPatternParser() {
+		return this.patternParser;
+	}
+
+	/**
+	 * Return "true" if this {@code HandlerMapping} has been
+	 * {@link #setPatternParser enabled} to use parsed {@code PathPattern}s.
+	 * @since 5.3
+	 */
+	@Override
+	public boolean usesPathPatterns() {
+		return (getPatternParser() != null);
+	}
+
 	/**
 	 * Set the interceptors to apply for all handlers mapped by this handler mapping.
 	 * <p>Supported interceptor types are HandlerInterceptor, WebRequestInterceptor, and MappedInterceptor.
@@ -445,6 +488,10 @@ public abstract class AbstractHandlerMapping extends WebApplicationObjectSupport
 	@Override
 	@Nullable
 	public final HandlerExecutionChain getHandler(HttpServletRequest request) throws Exception {
+		// Parse the request path once, unless done by the DispatcherServlet already
+		if (usesPathPatterns() && !ServletRequestPathUtils.hasParsedRequestPath(request)) {
+			ServletRequestPathUtils.parseAndCache(request);
+		}
 		// <1> 获得处理器。该方法是抽象方法，由子类实现(拿到的是 HandlerMethod)
 		Object handler = getHandlerInternal(request);
 		// <2> 获得不到，则使用默认处理器
@@ -28,10 +28,15 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.RequestPath;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.util.ServletRequestPathUtils;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 /**
  * Abstract base class for URL-mapped {@link org.springframework.web.servlet.HandlerMapping}
@@ -48,6 +53,12 @@ import org.springframework.web.servlet.HandlerExecutionChain;
  * current request path. The most exact match is defined as the longest
  * path pattern that matches the current request path.
  *
+ * <p>If a {@link #setPatternParser PathPatternParser} is configured, patterns
+ * are parsed once at registration and matched as
+ * {@link org.springframework.web.util.pattern.PathPattern PathPattern}s
+ * against the parsed request path instead. In that mode, matching of an
+ * optional trailing slash is controlled through the parser.
+ *
  * @author Juergen Hoeller
  * @author Arjen Poutsma
  * @since 16.04.2003
@@ -75,6 +86,8 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping i
 	 */
 	private final Map<String, Object> handlerMap = new LinkedHashMap<>();
 
+	private final Map<PathPattern, Object> pathPatternHandlerMap = new LinkedHashMap<>();
+
 
 	/**
 	 * Set the root handler for this handler mapping, that is,
@@ -137,7 +150,14 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping i
 		String lookupPath = getUrlPathHelper().getLookupPathForRequest(request);
 		request.setAttribute(LOOKUP_PATH, lookupPath);
 		// <2> 获得处理器
-		Object handler = lookupHandler(lookupPath, request);
+		Object handler;
+		if (usesPathPatterns()) {
+			RequestPath path = ServletRequestPathUtils.getOrParseRequestPath(request);
+			handler = lookupHandler(path, lookupPath, request);
+		}
+		else {
+			handler = lookupHandler(lookupPath, request);
+		}
 		// <3> 如果找不到处理器，则使用 rootHandler 或 defaultHandler 处理器
 		if (handler == null) {
 			// We need to care for the default handler directly, since we need to
@@ -269,6 +289,66 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping i
 		return null;
 	}
 
+	/**
+	 * Look up a handler instance for the given URL path. This method is used
+	 * when parsed {@code PathPattern}s are {@link #usesPathPatterns() enabled}.
+	 * @param path the parsed RequestPath
+	 * @param lookupPath the String lookupPath for checking direct hits
+	 * @param request current HTTP request
+	 * @return a matching handler, or {@code null} if not found
+	 * @since 5.3
+	 */
+	@Nullable
+	protected Object lookupHandler(
+			RequestPath path, String lookupPath, HttpServletRequest request) throws Exception {
+
+		// Direct match?
+		Object handler = this.handlerMap.get(lookupPath);
+		if (handler != null) {
+			if (handler instanceof String) {
+				String handlerName = (String) handler;
+				handler = obtainApplicationContext().getBean(handlerName);
+			}
+			validateHandler(handler, request);
+			return buildPathExposingHandler(handler, lookupPath, lookupPath, null);
+		}
+
+		// Pattern match?
+		PathContainer pathWithinApplication = path.pathWithinApplication();
+		List<PathPattern> matches = null;
+		for (PathPattern pattern : this.pathPatternHandlerMap.keySet()) {
+			if (pattern.matches(pathWithinApplication)) {
+				matches = (matches != null ? matches : new ArrayList<>());
+				matches.add(pattern);
+			}
+		}
+		if (matches == null) {
+			return null;
+		}
+		if (matches.size() > 1) {
+			matches.sort(PathPattern.SPECIFICITY_COMPARATOR);
+			if (logger.isTraceEnabled()) {
+				logger.trace("Matching patterns " + matches);
+			}
+		}
+
+		PathPattern pattern = matches.get(0);
+		handler = this.pathPatternHandlerMap.get(pattern);
+		if (handler instanceof String) {
+			String handlerName = (String) handler;
+			handler = obtainApplicationContext().getBean(handlerName);
+		}
+		validateHandler(handler, request);
+
+		PathPattern.PathMatchInfo matchInfo = pattern.matchAndExtract(pathWithinApplication);
+		Map<String, String> uriTemplateVariables = (matchInfo != null ? matchInfo.getUriVariables() : null);
+		String pathWithinMapping = pattern.extractPathWithinPattern(pathWithinApplication).value();
+		if (getUrlPathHelper().isUrlDecode()) {
+			pathWithinMapping = getUrlPathHelper().decodeRequestString(request, pathWithinMapping);
+		}
+		return buildPathExposingHandler(handler, pattern.getPatternString(), pathWithinMapping, uriTemplateVariables);
+	}
+
 	/**
 	 * Validate the given handler against the current request.
 	 * <p>The default implementation is empty. Can be overridden in subclasses,
@@ -334,6 +414,12 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping i
 	@Override
 	@Nullable
 	public RequestMatchResult match(HttpServletRequest request, String pattern) {
+		PathPatternParser parser = getPatternParser();
+		if (parser != null) {
+			PathContainer path = ServletRequestPathUtils.getOrParseRequestPath(request).pathWithinApplication();
+			PathPattern pathPattern = parser.parse(pattern);
+			return (pathPattern.matches(path) ? new RequestMatchResult(pathPattern, path) : null);
+		}
 		// 获得请求路径
 		String lookupPath = getUrlPathHelper().getLookupPathForRequest(request, LOOKUP_PATH);
 		// 模式匹配，若匹配，则返回 RequestMatchResult 对象
@@ -415,6 +501,9 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping i
 			// <4.3> 添加到 handlerMap 中
 			else {
 				this.handlerMap.put(urlPath, resolvedHandler);
+				if (getPatternParser() != null) {
+					this.pathPatternHandlerMap.put(getPatternParser().parse(urlPath), resolvedHandler);
+				}
 				if (logger.isTraceEnabled()) {
 					logger.trace("Mapped [" + urlPath + "] onto " + getHandlerDescription(handler));
 				}
@@ -438,6 +527,16 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping i
 		return Collections.unmodifiableMap(this.handlerMap);
 	}
 
+	/**
+	 * Identical to {@link #getHandlerMap()} but populated when parsed patterns
+	 * are {@link #usesPathPatterns() enabled}; otherwise empty.
+	 * @since 5.3
+	 */
+	public final Map<PathPattern, Object> getPathPatternHandlerMap() {
+		return (this.pathPatternHandlerMap.isEmpty() ?
+				Collections.emptyMap() : Collections.unmodifiableMap(this.pathPatternHandlerMap));
+	}
+
 	/**
 	 * Indicates whether this handler mapping support type-level mappings. Default to {@code false}.
 	 */
@@ -18,8 +18,11 @@ package org.springframework.web.servlet.handler;
 
 import java.util.Map;
 
+import org.springframework.http.server.PathContainer;
+import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.PathMatcher;
+import org.springframework.web.util.pattern.PathPattern;
 
 /**
  * Container for the result from request pattern matching via
@@ -30,20 +33,47 @@ import org.springframework.util.PathMatcher;
  * @since 4.3.1
  */
 public class RequestMatchResult {
+
+	@Nullable
+	private final PathPattern pathPattern;
+
+	@Nullable
+	private final PathContainer lookupPathContainer;
+
 	/**
 	 * 匹配上的路径
 	 */
+	@Nullable
 	private final String matchingPattern;
 	/**
 	 * 被匹配的路径
 	 */
+	@Nullable
 	private final String lookupPath;
 	/**
 	 * 路径匹配器
 	 */
+	@Nullable
 	private final PathMatcher pathMatcher;
 
 
+	/**
+	 * Create an instance with the parsed {@link PathPattern} that matched
+	 * and the parsed request path it was matched against.
+	 * @param pathPattern the pattern that matched
+	 * @param lookupPath the request path within the application
+	 * @since 5.3
+	 */
+	public RequestMatchResult(PathPattern pathPattern, PathContainer lookupPath) {
+		Assert.notNull(pathPattern, "'pathPattern' is required");
+		Assert.notNull(lookupPath, "'lookupPath' is required");
+		this.pathPattern = pathPattern;
+		this.lookupPathContainer = lookupPath;
+		this.matchingPattern = null;
+		this.lookupPath = null;
+		this.pathMatcher = null;
+	}
+
 	/**
 	 * Create an instance with a matching pattern.
 	 * @param matchingPattern the matching pattern, possibly not the same as the
@@ -55,6 +85,8 @@ public class RequestMatchResult {
 		Assert.hasText(matchingPattern, "'matchingPattern' is required");
 		Assert.hasText(lookupPath, "'lookupPath' is required");
 		Assert.notNull(pathMatcher, "'pathMatcher' is required");
+		this.pathPattern = null;
+		this.lookupPathContainer = null;
 		this.matchingPattern = matchingPattern;
 		this.lookupPath = lookupPath;
 		this.pathMatcher = pathMatcher;
@@ -63,10 +95,18 @@ public class RequestMatchResult {
 
 	/**
 	 * Extract URI template variables from the matching pattern as defined in
-	 * {@link PathMatcher#extractUriTemplateVariables}.
+	 * {@link PathMatcher#extractUriTemplateVariables}, or through
+	 * {@link PathPattern#matchAndExtract} if the instance was created with
+	 * a parsed {@code PathPattern}.
 	 * @return a map with URI template variables
 	 */
 	public Map<String, String> extractUriTemplateVariables() {
+		if (this.pathPattern != null) {
+			PathPattern.PathMatchInfo info = this.pathPattern.matchAndExtract(this.lookupPathContainer);
+			Assert.notNull(info, () -> "Expected pattern \"" + this.pathPattern +
+					"\" to match path \"" + this.lookupPathContainer.value() + "\"");
+			return info.getUriVariables();
+		}
 		return this.pathMatcher.extractUriTemplateVariables(this.matchingPattern, this.lookupPath);
 	}
 
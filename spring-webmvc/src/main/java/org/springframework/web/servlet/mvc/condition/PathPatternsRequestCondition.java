@@ -0,0 +1,212 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.mvc.condition;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.ServletRequestPathUtils;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+/**
+ * A logical disjunction (' || ') request condition that matches a request
+ * against a set of URL path patterns.
+ *
+ * <p>In contrast to {@link PatternsRequestCondition}, this condition uses
+ * parsed {@link PathPattern}s instead of String pattern matching with
+ * {@link org.springframework.util.AntPathMatcher AntPathMatcher}, and matches
+ * them to the {@link org.springframework.http.server.RequestPath RequestPath}
+ * parsed once per request through {@link ServletRequestPathUtils}.
+ *
+ * @since 5.3
+ * @see PatternsRequestCondition
+ */
+public final class PathPatternsRequestCondition extends AbstractRequestCondition<PathPatternsRequestCondition> {
+
+	private static final SortedSet<PathPattern> EMPTY_PATH_PATTERN =
+			new TreeSet<>(Collections.singleton(new PathPatternParser().parse("")));
+
+
+	private final SortedSet<PathPattern> patterns;
+
+
+	/**
+	 * Constructor with patterns to use.
+	 * @param parser the parser to use for the patterns
+	 * @param patterns 0 or more URL patterns; if 0 the condition will match
+	 * to every request.
+	 */
+	public PathPatternsRequestCondition(PathPatternParser parser, String... patterns) {
+		this(parse(parser, patterns));
+	}
+
+	private PathPatternsRequestCondition(SortedSet<PathPattern> patterns) {
+		this.patterns = patterns;
+	}
+
+
+	private static SortedSet<PathPattern> parse(PathPatternParser parser, String... patterns) {
+		if (patterns.length == 0) {
+			return EMPTY_PATH_PATTERN;
+		}
+		SortedSet<PathPattern> result = new TreeSet<>();
+		for (String path : patterns) {
+			if (StringUtils.hasText(path) && !path.startsWith("/")) {
+				path = "/" + path;
+			}
+			result.add(parser.parse(path));
+		}
+		return result;
+	}
+
+
+	/**
+	 * Return the patterns in this condition, sorted by specificity.
+	 */
+	public Set<PathPattern> getPatterns() {
+		return this.patterns;
+	}
+
+	/**
+	 * Return the String values of the patterns in this condition.
+	 */
+	public Set<String> getPatternValues() {
+		Set<String> result = new LinkedHashSet<>(this.patterns.size());
+		for (PathPattern pattern : this.patterns) {
+			result.add(pattern.getPatternString());
+		}
+		return result;
+	}
+
+	/**
+	 * Return the most specific pattern in this condition; after a successful
+	 * match that is the best matching pattern for the request.
+	 */
+	public PathPattern getFirstPattern() {
+		return this.patterns.first();
+	}
+
+	@Override
+	protected Collection<PathPattern> getContent() {
+		return this.patterns;
+	}
+
+	@Override
+	protected String getToStringInfix() {
+		return " || ";
+	}
+
+	/**
+	 * Returns a new instance with URL patterns from the current instance ("this") and
+	 * the "other" instance as follows:
+	 * <ul>
+	 * <li>If there are patterns in both instances, combine the patterns in "this" with
+	 * the patterns in "other" using {@link PathPattern#combine(PathPattern)}.
+	 * <li>If only one instance has patterns, use them.
+	 * <li>If neither instance has patterns, use an empty String (i.e. "").
+	 * </ul>
+	 */
+	@Override
+	public PathPatternsRequestCondition combine(PathPatternsRequestCondition other) {
+		if (other.patterns == EMPTY_PATH_PATTERN) {
+			return this;
+		}
+		else if (this.patterns == EMPTY_PATH_PATTERN) {
+			return other;
+		}
+		SortedSet<PathPattern> combined = new TreeSet<>();
+		for (PathPattern pattern1 : this.patterns) {
+			for (PathPattern pattern2 : other.patterns) {
+				combined.add(pattern1.combine(pattern2));
+			}
+		}
+		return new PathPatternsRequestCondition(combined);
+	}
+
+	/**
+	 * Checks if any of the patterns match the given request and returns an instance
+	 * that is guaranteed to contain matching patterns, sorted.
+	 * <p>The request path is expected to have been parsed and cached through
+	 * {@link ServletRequestPathUtils#parseAndCache}, or it is parsed and
+	 * cached on first access.
+	 * @param request the current request
+	 * @return a new condition with sorted matching patterns;
+	 * or {@code null} if no patterns match.
+	 */
+	@Override
+	@Nullable
+	public PathPatternsRequestCondition getMatchingCondition(HttpServletRequest request) {
+		PathContainer path = ServletRequestPathUtils.getOrParseRequestPath(request).pathWithinApplication();
+		SortedSet<PathPattern> matches = getMatchingPatterns(path);
+		return (matches != null ? new PathPatternsRequestCondition(matches) : null);
+	}
+
+	@Nullable
+	private SortedSet<PathPattern> getMatchingPatterns(PathContainer path) {
+		TreeSet<PathPattern> result = null;
+		for (PathPattern pattern : this.patterns) {
+			if (pattern.matches(path)) {
+				result = (result != null ? result : new TreeSet<>());
+				result.add(pattern);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Compare the two conditions based on the URL patterns they contain.
+	 * Patterns are compared one at a time, from top to bottom. If all compared
+	 * patterns match equally, but one instance has more patterns, it is
+	 * considered a closer match.
+	 * <p>It is assumed that both instances have been obtained via
+	 * {@link #getMatchingCondition(HttpServletRequest)} to ensure they
+	 * contain only patterns that match the request and are sorted with
+	 * the best matches on top.
+	 */
+	@Override
+	public int compareTo(PathPatternsRequestCondition other, HttpServletRequest request) {
+		Iterator<PathPattern> iterator = this.patterns.iterator();
+		Iterator<PathPattern> iteratorOther = other.getPatterns().iterator();
+		while (iterator.hasNext() && iteratorOther.hasNext()) {
+			int result = PathPattern.SPECIFICITY_COMPARATOR.compare(iterator.next(), iteratorOther.next());
+			if (result != 0) {
+				return result;
+			}
+		}
+		if (iterator.hasNext()) {
+			return -1;
+		}
+		else if (iteratorOther.hasNext()) {
+			return 1;
+		}
+		else {
+			return 0;
+		}
+	}
+
+}
@@ -30,6 +30,7 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.servlet.mvc.condition.ConsumesRequestCondition;
 import org.springframework.web.servlet.mvc.condition.HeadersRequestCondition;
 import org.springframework.web.servlet.mvc.condition.ParamsRequestCondition;
+import org.springframework.web.servlet.mvc.condition.PathPatternsRequestCondition;
 import org.springframework.web.servlet.mvc.condition.PatternsRequestCondition;
 import org.springframework.web.servlet.mvc.condition.ProducesRequestCondition;
 import org.springframework.web.servlet.mvc.condition.RequestCondition;
@@ -37,11 +38,13 @@ import org.springframework.web.servlet.mvc.condition.RequestConditionHolder;
 import org.springframework.web.servlet.mvc.condition.RequestMethodsRequestCondition;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 import org.springframework.web.util.UrlPathHelper;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 /**
  * Request mapping information. Encapsulates the following request mapping conditions:
  * <ol>
- * <li>{@link PatternsRequestCondition}
+ * <li>{@link PatternsRequestCondition}, or {@link PathPatternsRequestCondition}
+ * if {@link BuilderConfiguration#setPatternParser parsed patterns} are enabled
  * <li>{@link RequestMethodsRequestCondition}
  * <li>{@link ParamsRequestCondition}
  * <li>{@link HeadersRequestCondition}
@@ -64,6 +67,9 @@ public final class RequestMappingInfo implements RequestCondition<RequestMapping
 
 	private final PatternsRequestCondition patternsCondition;
 
+	@Nullable
+	private final PathPatternsRequestCondition pathPatternsCondition;
+
 	private final RequestMethodsRequestCondition methodsCondition;
 
 	private final ParamsRequestCondition paramsCondition;
@@ -82,8 +88,18 @@ public final class RequestMappingInfo implements RequestCondition<RequestMapping
 			@Nullable HeadersRequestCondition headers, @Nullable ConsumesRequestCondition consumes,
 			@Nullable ProducesRequestCondition produces, @Nullable RequestCondition<?> custom) {
 
+		this(name, patterns, null, methods, params, headers, consumes, produces, custom);
+	}
+
+	private RequestMappingInfo(@Nullable String name, @Nullable PatternsRequestCondition patterns,
+			@Nullable PathPatternsRequestCondition pathPatterns,
+			@Nullable RequestMethodsRequestCondition methods, @Nullable ParamsRequestCondition params,
+			@Nullable HeadersRequestCondition headers, @Nullable ConsumesRequestCondition consumes,
+			@Nullable ProducesRequestCondition produces, @Nullable RequestCondition<?> custom) {
+
 		this.name = (StringUtils.hasText(name) ? name : null);
 		this.patternsCondition = (patterns != null ? patterns : new PatternsRequestCondition());
+		this.pathPatternsCondition = pathPatterns;
 		this.methodsCondition = (methods != null ? methods : new RequestMethodsRequestCondition());
 		this.paramsCondition = (params != null ? params : new ParamsRequestCondition());
 		this.headersCondition = (headers != null ? headers : new HeadersRequestCondition());
@@ -107,8 +123,9 @@ public final class RequestMappingInfo implements RequestCondition<RequestMapping
 	 * Re-create a RequestMappingInfo with the given custom request condition.
 	 */
 	public RequestMappingInfo(RequestMappingInfo info, @Nullable RequestCondition<?> customRequestCondition) {
-		this(info.name, info.patternsCondition, info.methodsCondition, info.paramsCondition, info.headersCondition,
-				info.consumesCondition, info.producesCondition, customRequestCondition);
+		this(info.name, info.patternsCondition, info.pathPatternsCondition, info.methodsCondition,
+				info.paramsCondition, info.headersCondition, info.consumesCondition, info.producesCondition,
+				customRequestCondition);
 	}
 
 
@@ -123,11 +140,34 @@ public final class RequestMappingInfo implements RequestCondition<RequestMapping
 	/**
 	 * Return the URL patterns of this {@link RequestMappingInfo};
 	 * or instance with 0 patterns (never {@code null}).
+	 * <p>If {@link #getPathPatternsCondition() parsed patterns} are in use,
+	 * the returned condition holds the same patterns as Strings for
+	 * introspection purposes, but it is not used for request matching.
 	 */
 	public PatternsRequestCondition getPatternsCondition() {
 		return this.patternsCondition;
 	}
 
+	/**
+	 * Return the parsed URL patterns of this {@link RequestMappingInfo},
+	 * or {@code null} if {@link BuilderConfiguration#setPatternParser parsed
+	 * patterns} are not enabled and String pattern matching is used instead.
+	 * @since 5.3
+	 */
+	@Nullable
+	public PathPatternsRequestCondition getPathPatternsCondition() {
+		return this.pathPatternsCondition;
+	}
+
+	/**
+	 * Return the patterns condition used for request matching, i.e. either
+	 * {@link #getPathPatternsCondition()} or {@link #getPatternsCondition()}.
+	 * @since 5.3
+	 */
+	public RequestCondition<?> getActivePatternsCondition() {
+		return (this.pathPatternsCondition != null ? this.pathPatternsCondition : this.patternsCondition);
+	}
+
 	/**
 	 * Return the HTTP request methods of this {@link RequestMappingInfo};
 	 * or instance with 0 request methods (never {@code null}).
@@ -186,6 +226,9 @@ public final class RequestMappingInfo implements RequestCondition<RequestMapping
 	public RequestMappingInfo combine(RequestMappingInfo other) {
 		String name = combineNames(other);
 		PatternsRequestCondition patterns = this.patternsCondition.combine(other.patternsCondition);
+		PathPatternsRequestCondition pathPatterns =
+				(this.pathPatternsCondition != null && other.pathPatternsCondition != null ?
+						this.pathPatternsCondition.combine(other.pathPatternsCondition) : null);
 		RequestMethodsRequestCondition methods = this.methodsCondition.combine(other.methodsCondition);
 		ParamsRequestCondition params = this.paramsCondition.combine(other.paramsCondition);
 		HeadersRequestCondition headers = this.headersCondition.combine(other.headersCondition);
@@ -193,7 +236,7 @@ public final class RequestMappingInfo implements RequestCondition<RequestMapping
 		ProducesRequestCondition produces = this.producesCondition.combine(other.producesCondition);
 		RequestConditionHolder custom = this.customConditionHolder.combine(other.customConditionHolder);
 
-		return new RequestMappingInfo(name, patterns,
+		return new RequestMappingInfo(name, patterns, pathPatterns,
 				methods, params, headers, consumes, produces, custom.getCondition());
 	}
 
@@ -243,16 +286,27 @@ public final class RequestMappingInfo implements RequestCondition<RequestMapping
 		if (produces == null) {
 			return null;
 		}
-		PatternsRequestCondition patterns = this.patternsCondition.getMatchingCondition(request);
-		if (patterns == null) {
-			return null;
+		PatternsRequestCondition patterns;
+		PathPatternsRequestCondition pathPatterns = null;
+		if (this.pathPatternsCondition != null) {
+			pathPatterns = this.pathPatternsCondition.getMatchingCondition(request);
+			if (pathPatterns == null) {
+				return null;
+			}
+			patterns = this.patternsCondition;
+		}
+		else {
+			patterns = this.patternsCondition.getMatchingCondition(request);
+			if (patterns == null) {
+				return null;
+			}
 		}
 		RequestConditionHolder custom = this.customConditionHolder.getMatchingCondition(request);
 		if (custom == null) {
 			return null;
 		}
 		// 创建一个 RequestMappingInfo，以为谁 Builder 模式，所以需要创建一个
-		return new RequestMappingInfo(this.name, patterns,
+		return new RequestMappingInfo(this.name, patterns, pathPatterns,
 				methods, params, headers, consumes, produces, custom.getCondition());
 	}
 
@@ -274,7 +328,12 @@ public final class RequestMappingInfo implements RequestCondition<RequestMapping
 				return result;
 			}
 		}
-		result = this.patternsCondition.compareTo(other.getPatternsCondition(), request);
+		if (this.pathPatternsCondition != null && other.pathPatternsCondition != null) {
+			result = this.pathPatternsCondition.compareTo(other.pathPatternsCondition, request);
+		}
+		else {
+			result = this.patternsCondition.compareTo(other.getPatternsCondition(), request);
+		}
 		if (result != 0) {
 			return result;
 		}
@@ -315,7 +374,7 @@ public final class RequestMappingInfo implements RequestCondition<RequestMapping
 			return false;
 		}
 		RequestMappingInfo otherInfo = (RequestMappingInfo) other;
-		return (this.patternsCondition.equals(otherInfo.patternsCondition) &&
+		return (getActivePatternsCondition().equals(otherInfo.getActivePatternsCondition()) &&
 				this.methodsCondition.equals(otherInfo.methodsCondition) &&
 				this.paramsCondition.equals(otherInfo.paramsCondition) &&
 				this.headersCondition.equals(otherInfo.headersCondition) &&
@@ -326,7 +385,7 @@ public final class RequestMappingInfo implements RequestCondition<RequestMapping
 
 	@Override
 	public int hashCode() {
-		return (this.patternsCondition.hashCode() * 31 +  // primary differentiation
+		return (getActivePatternsCondition().hashCode() * 31 +  // primary differentiation
 				this.methodsCondition.hashCode() + this.paramsCondition.hashCode() +
 				this.headersCondition.hashCode() + this.consumesCondition.hashCode() +
 				this.producesCondition.hashCode() + this.customConditionHolder.hashCode());
@@ -517,12 +576,22 @@ public final class RequestMappingInfo implements RequestCondition<RequestMapping
 		public RequestMappingInfo build() {
 			ContentNegotiationManager manager = this.options.getContentNegotiationManager();
 
-			PatternsRequestCondition patternsCondition = new PatternsRequestCondition(
-					this.paths, this.options.getUrlPathHelper(), this.options.getPathMatcher(),
-					this.options.useSuffixPatternMatch(), this.options.useTrailingSlashMatch(),
-					this.options.getFileExtensions());
+			PathPatternParser parser = this.options.getPatternParser();
+			PatternsRequestCondition patternsCondition;
+			PathPatternsRequestCondition pathPatternsCondition = null;
+			if (parser != null) {
+				pathPatternsCondition = new PathPatternsRequestCondition(parser, this.paths);
+				patternsCondition = new PatternsRequestCondition(
+						this.paths, this.options.getUrlPathHelper(), this.options.getPathMatcher(), false);
+			}
+			else {
+				patternsCondition = new PatternsRequestCondition(
+						this.paths, this.options.getUrlPathHelper(), this.options.getPathMatcher(),
+						this.options.useSuffixPatternMatch(), this.options.useTrailingSlashMatch(),
+						this.options.getFileExtensions());
+			}
 
-			return new RequestMappingInfo(this.mappingName, patternsCondition,
+			return new RequestMappingInfo(this.mappingName, patternsCondition, pathPatternsCondition,
 					new RequestMethodsRequestCondition(this.methods),
 					new ParamsRequestCondition(this.params),
 					new HeadersRequestCondition(this.headers),
@@ -542,6 +611,9 @@ public final class RequestMappingInfo implements RequestCondition<RequestMapping
 	 */
 	public static class BuilderConfiguration {
 
+		@Nullable
+		private PathPatternParser patternParser;
+
 		@Nullable
 		private UrlPathHelper urlPathHelper;
 
@@ -557,6 +629,31 @@ public final class RequestMappingInfo implements RequestCondition<RequestMapping
 		@Nullable
 		private ContentNegotiationManager contentNegotiationManager;
 
+		/**
+		 * Enable use of parsed {@link org.springframework.web.util.pattern.PathPattern
+		 * PathPattern}s, matched through a {@link PathPatternsRequestCondition},
+		 * instead of String pattern matching with a {@link PathMatcher}.
+		 * <p>When set, the {@link #setPathMatcher pathMatcher} and the (deprecated)
+		 * suffix pattern options do not apply to request matching. Trailing slash
+		 * matching is configured on the parser instead.
+		 * <p>By default this is not set.
+		 * @param patternParser the parser to use
+		 * @since 5.3
+		 */
+		public void setPatternParser(@Nullable PathPatternParser patternParser) {
+			this.patternParser = patternParser;
+		}
+
+		/**
+		 * Return the {@link #setPatternParser configured} {@code PathPatternParser},
+		 * or {@code null} if String pattern matching is used.
+		 * @since 5.3
+		 */
+		@Nullable
+		public PathPatternParser getPatternParser() {
+			return this.patternParser;
+		}
+
 		/**
 		 * Set a custom UrlPathHelper to use for the PatternsRequestCondition.
 		 * <p>By default this is not set.
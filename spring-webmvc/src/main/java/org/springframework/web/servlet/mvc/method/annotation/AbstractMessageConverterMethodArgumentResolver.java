@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -29,6 +29,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.BiPredicate;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -51,6 +52,8 @@ import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.http.server.ServletServerHttpRequest;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentLruCache;
+import org.springframework.util.ObjectUtils;
 import org.springframework.util.StreamUtils;
 import org.springframework.validation.Errors;
 import org.springframework.validation.annotation.Validated;
@@ -63,6 +66,13 @@ import org.springframework.web.method.support.HandlerMethodArgumentResolver;
  * A base class for resolving method argument values by reading from the body of
  * a request with {@link HttpMessageConverter HttpMessageConverters}.
  *
+ * <p>As of 5.3, the converter to read with is cached per target type and per
+ * type and subtype of the request content type. If the content type has
+ * parameters, such as a charset, the cached converter is checked again with
+ * the actual content type, and the converters after it are considered if it
+ * cannot read it. Converters are expected not to accept a content type with
+ * parameters that they do not accept without parameters.
+ *
  * @author Arjen Poutsma
  * @author Rossen Stoyanchev
  * @author Juergen Hoeller
@@ -75,6 +85,8 @@ public abstract class AbstractMessageConverterMethodArgumentResolver implements
 
 	private static final Object NO_VALUE = new Object();
 
+	private static final int CONVERTER_CACHE_LIMIT = 256;
+
 
 	protected final Log logger = LogFactory.getLog(getClass());
 
@@ -84,6 +96,9 @@ public abstract class AbstractMessageConverterMethodArgumentResolver implements
 
 	private final RequestResponseBodyAdviceChain advice;
 
+	private final ConcurrentLruCache<ConverterCacheKey, Integer> readConverterCache =
+			new ConcurrentLruCache<>(CONVERTER_CACHE_LIMIT, this::getReadConverterIndex);
+
 
 	/**
 	 * Basic constructor with converters only.
@@ -193,23 +208,23 @@ public abstract class AbstractMessageConverterMethodArgumentResolver implements
 		try {
 			message = new EmptyBodyCheckingHttpInputMessage(inputMessage);
 
-			for (HttpMessageConverter<?> converter : this.messageConverters) {
+			ConverterCacheKey key = new ConverterCacheKey(targetType, targetClass, contextClass, contentType);
+			int converterIndex = getConverterIndex(this.readConverterCache.get(key.withoutParameters()),
+					key, this::canRead, this.messageConverters.size());
+			if (converterIndex != -1) {
+				HttpMessageConverter<?> converter = this.messageConverters.get(converterIndex);
 				Class<HttpMessageConverter<?>> converterType = (Class<HttpMessageConverter<?>>) converter.getClass();
 				GenericHttpMessageConverter<?> genericConverter =
 						(converter instanceof GenericHttpMessageConverter ? (GenericHttpMessageConverter<?>) converter : null);
-				if (genericConverter != null ? genericConverter.canRead(targetType, contextClass, contentType) :
-						(targetClass != null && converter.canRead(targetClass, contentType))) {
-					if (message.hasBody()) {
-						HttpInputMessage msgToUse =
-								getAdvice().beforeBodyRead(message, parameter, targetType, converterType);
-						body = (genericConverter != null ? genericConverter.read(targetType, contextClass, msgToUse) :
-								((HttpMessageConverter<T>) converter).read(targetClass, msgToUse));
-						body = getAdvice().afterBodyRead(body, msgToUse, parameter, targetType, converterType);
-					}
-					else {
-						body = getAdvice().handleEmptyBody(null, message, parameter, targetType, converterType);
-					}
-					break;
+				if (message.hasBody()) {
+					HttpInputMessage msgToUse =
+							getAdvice().beforeBodyRead(message, parameter, targetType, converterType);
+					body = (genericConverter != null ? genericConverter.read(targetType, contextClass, msgToUse) :
+							((HttpMessageConverter<T>) converter).read(targetClass, msgToUse));
+					body = getAdvice().afterBodyRead(body, msgToUse, parameter, targetType, converterType);
+				}
+				else {
+					body = getAdvice().handleEmptyBody(null, message, parameter, targetType, converterType);
 				}
 			}
 		}
@@ -235,6 +250,52 @@ public abstract class AbstractMessageConverterMethodArgumentResolver implements
 		return body;
 	}
 
+	/**
+	 * Return the index of the first converter that can read the target type
+	 * of the given key, or -1 if none.
+	 */
+	private int getReadConverterIndex(ConverterCacheKey key) {
+		for (int i = 0; i < this.messageConverters.size(); i++) {
+			if (canRead(i, key)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private boolean canRead(int converterIndex, ConverterCacheKey key) {
+		HttpMessageConverter<?> converter = this.messageConverters.get(converterIndex);
+		return (converter instanceof GenericHttpMessageConverter ?
+				((GenericHttpMessageConverter<?>) converter).canRead(key.type, key.contextClass, key.mediaType) :
+				(key.clazz != null && converter.canRead(key.clazz, key.mediaType)));
+	}
+
+	/**
+	 * Return the index of the converter to use for the given key, based on the
+	 * index cached for the key {@linkplain ConverterCacheKey#withoutParameters()
+	 * without media type parameters}: if the media type of the key has
+	 * parameters, the cached converter and the ones after it are checked
+	 * against the actual media type.
+	 * @param cachedIndex the index cached for the key without parameters
+	 * @param key the actual key
+	 * @param canUse whether the converter at a given index can be used for a key
+	 * @param converterCount the number of converters
+	 * @return the index of the converter, or -1 if none
+	 */
+	static int getConverterIndex(int cachedIndex, ConverterCacheKey key,
+			BiPredicate<Integer, ConverterCacheKey> canUse, int converterCount) {
+
+		if (cachedIndex == -1 || key.mediaType == null || key.mediaType.getParameters().isEmpty()) {
+			return cachedIndex;
+		}
+		for (int i = cachedIndex; i < converterCount; i++) {
+			if (canUse.test(i, key)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
 	/**
 	 * Create a new {@link HttpInputMessage} from the given {@link NativeWebRequest}.
 	 * @param webRequest the web request to create an input message from
@@ -348,4 +409,73 @@ public abstract class AbstractMessageConverterMethodArgumentResolver implements
 		}
 	}
 
+
+	/**
+	 * Key for caching the converter selected for reading or writing a type,
+	 * consisting of the target type, its raw class, the context class and
+	 * the media type, any of which may be {@code null}.
+	 */
+	static final class ConverterCacheKey {
+
+		@Nullable
+		final Type type;
+
+		@Nullable
+		final Class<?> clazz;
+
+		@Nullable
+		final Class<?> contextClass;
+
+		@Nullable
+		final MediaType mediaType;
+
+		private final int hashCode;
+
+		ConverterCacheKey(@Nullable Type type, @Nullable Class<?> clazz,
+				@Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+
+			this.type = type;
+			this.clazz = clazz;
+			this.contextClass = contextClass;
+			this.mediaType = mediaType;
+			int hashCode = ObjectUtils.nullSafeHashCode(type);
+			hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode(clazz);
+			hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode(contextClass);
+			this.hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode(mediaType);
+		}
+
+		/**
+		 * Return a key with the type and subtype of the media type of this key
+		 * only, for use as a cache key that clients cannot vary at will through
+		 * media type parameters.
+		 */
+		ConverterCacheKey withoutParameters() {
+			if (this.mediaType == null || this.mediaType.getParameters().isEmpty()) {
+				return this;
+			}
+			MediaType mediaType = new MediaType(this.mediaType.getType(), this.mediaType.getSubtype());
+			return new ConverterCacheKey(this.type, this.clazz, this.contextClass, mediaType);
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof ConverterCacheKey)) {
+				return false;
+			}
+			ConverterCacheKey otherKey = (ConverterCacheKey) other;
+			return (this.hashCode == otherKey.hashCode &&
+					ObjectUtils.nullSafeEquals(this.type, otherKey.type) &&
+					this.clazz == otherKey.clazz && this.contextClass == otherKey.contextClass &&
+					ObjectUtils.nullSafeEquals(this.mediaType, otherKey.mediaType));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+	}
+
 }
@@ -53,6 +53,7 @@ import org.springframework.http.server.ServletServerHttpResponse;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.ConcurrentLruCache;
 import org.springframework.util.StringUtils;
 import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.accept.ContentNegotiationManager;
@@ -66,6 +67,10 @@ import org.springframework.web.util.UrlPathHelper;
  * Extends {@link AbstractMessageConverterMethodArgumentResolver} with the ability to handle method
  * return values by writing to the response with {@link HttpMessageConverter HttpMessageConverters}.
  *
+ * <p>As of 5.3, the converter to write with is cached per return value type
+ * and per type and subtype of the selected media type, in the same way as
+ * the converter to read with.
+ *
  * @author Arjen Poutsma
  * @author Rossen Stoyanchev
  * @author Brian Clozel
@@ -90,6 +95,8 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 	private static final Type RESOURCE_REGION_LIST_TYPE =
 			new ParameterizedTypeReference<List<ResourceRegion>>() { }.getType();
 
+	private static final int MEDIA_TYPES_CACHE_LIMIT = 256;
+
 
 	private static final UrlPathHelper decodingUrlPathHelper = new UrlPathHelper();
 
@@ -105,6 +112,15 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 
 	private final Set<String> safeExtensions = new HashSet<>();
 
+	private final ConcurrentLruCache<MediaTypesKey, List<MediaType>> mediaTypesToUseCache =
+			new ConcurrentLruCache<>(MEDIA_TYPES_CACHE_LIMIT, this::getMediaTypesToUse);
+
+	private final ConcurrentLruCache<ConverterCacheKey, List<MediaType>> producibleTypesCache =
+			new ConcurrentLruCache<>(MEDIA_TYPES_CACHE_LIMIT, this::getWritableMediaTypes);
+
+	private final ConcurrentLruCache<ConverterCacheKey, Integer> writeConverterCache =
+			new ConcurrentLruCache<>(MEDIA_TYPES_CACHE_LIMIT, this::getWriteConverterIndex);
+
 
 	/**
 	 * Constructor with list of converters only.
@@ -234,15 +250,10 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 				throw new HttpMessageNotWritableException(
 						"No converter found for return value of type: " + valueType);
 			}
-			// <3.2.4> 通过 acceptableTypes 来比对，将符合的 producibleType 添加到 mediaTypesToUse 结果数组中
-			List<MediaType> mediaTypesToUse = new ArrayList<>();
-			for (MediaType requestedType : acceptableTypes) {
-				for (MediaType producibleType : producibleTypes) {
-					if (requestedType.isCompatibleWith(producibleType)) {
-						mediaTypesToUse.add(getMostSpecificMediaType(requestedType, producibleType));
-					}
-				}
-			}
+			// <3.2.4> 通过 acceptableTypes 来比对，将符合的 producibleType 添加到 mediaTypesToUse 结果数组中，
+			// 并按照 MediaType 的 specificity 和 quality 排序。结果按 acceptableTypes 和 producibleTypes 缓存
+			List<MediaType> mediaTypesToUse =
+					this.mediaTypesToUseCache.get(new MediaTypesKey(acceptableTypes, producibleTypes));
 			// <3.2.5> 如果没有符合的，并且 body 非空，则抛出 HttpMediaTypeNotAcceptableException 异常
 			if (mediaTypesToUse.isEmpty()) {
 				if (body != null) {
@@ -253,8 +264,6 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 				}
 				return;
 			}
-			// <3.2.6> 按照 MediaType 的 specificity 和 quality 排序
-			MediaType.sortBySpecificityAndQuality(mediaTypesToUse);
 			// <3.2.7> 选择其中一个最匹配的，主要考虑不包含通配符的。例如 application/json;q=0.8
 			for (MediaType mediaType : mediaTypesToUse) {
 				if (mediaType.isConcrete()) {
@@ -276,44 +285,44 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 		if (selectedMediaType != null) {
 			// <4.1> 移除 quality 。例如，application/json;q=0.8 移除后为 application/json
 			selectedMediaType = selectedMediaType.removeQualityValue();
-			// <4.2> 遍历 messageConverters 数组，
-			for (HttpMessageConverter<?> converter : this.messageConverters) {
-				// <4.3> 判断 HttpMessageConverter 是否支持转换目标类型
+			// <4.2> 获得支持转换目标类型的第一个 HttpMessageConverter 。结果按目标类型和 MediaType 缓存
+			ConverterCacheKey key = new ConverterCacheKey(targetType, valueType, null, selectedMediaType);
+			int converterIndex = getConverterIndex(this.writeConverterCache.get(key.withoutParameters()),
+					key, this::canWrite, this.messageConverters.size());
+			// <4.3> 如果存在，则使用它进行写入
+			if (converterIndex != -1) {
+				HttpMessageConverter<?> converter = this.messageConverters.get(converterIndex);
 				GenericHttpMessageConverter genericConverter = (converter instanceof GenericHttpMessageConverter ?
 						(GenericHttpMessageConverter<?>) converter : null);
-				if (genericConverter != null ?
-						((GenericHttpMessageConverter) converter).canWrite(targetType, valueType, selectedMediaType) :
-						converter.canWrite(valueType, selectedMediaType)) {
-					// <5.1> 如果有 RequestResponseBodyAdvice ，则可以对返回的结果，做修改(这个很有意思)。
-					// 会在 @RequestBody 填充前，@ResponseBody 返回前，做一些事情(一般用于加解密很合适)
-					// https://blog.csdn.net/yanmh007/article/details/88871705
-					body = getAdvice().beforeBodyWrite(body, returnType, selectedMediaType,
-							(Class<? extends HttpMessageConverter<?>>) converter.getClass(),
-							inputMessage, outputMessage);
-					// <5.2> body 非空，则进行写入
-					if (body != null) {
-						// 打印日志
-						Object theBody = body;
-						LogFormatUtils.traceDebug(logger, traceOn ->
-								"Writing [" + LogFormatUtils.formatValue(theBody, !traceOn) + "]");
-						// 添加 CONTENT_DISPOSITION 头。一般情况下用不到，暂时忽略
-						addContentDispositionHeader(inputMessage, outputMessage);
-						// <5.3> 写入内容
-						if (genericConverter != null) {
-							genericConverter.write(body, targetType, selectedMediaType, outputMessage);
-						}
-						else {
-							((HttpMessageConverter) converter).write(body, selectedMediaType, outputMessage);
-						}
+				// <5.1> 如果有 RequestResponseBodyAdvice ，则可以对返回的结果，做修改(这个很有意思)。
+				// 会在 @RequestBody 填充前，@ResponseBody 返回前，做一些事情(一般用于加解密很合适)
+				// https://blog.csdn.net/yanmh007/article/details/88871705
+				body = getAdvice().beforeBodyWrite(body, returnType, selectedMediaType,
+						(Class<? extends HttpMessageConverter<?>>) converter.getClass(),
+						inputMessage, outputMessage);
+				// <5.2> body 非空，则进行写入
+				if (body != null) {
+					// 打印日志
+					Object theBody = body;
+					LogFormatUtils.traceDebug(logger, traceOn ->
+							"Writing [" + LogFormatUtils.formatValue(theBody, !traceOn) + "]");
+					// 添加 CONTENT_DISPOSITION 头。一般情况下用不到，暂时忽略
+					addContentDispositionHeader(inputMessage, outputMessage);
+					// <5.3> 写入内容
+					if (genericConverter != null) {
+						genericConverter.write(body, targetType, selectedMediaType, outputMessage);
 					}
 					else {
-						if (logger.isDebugEnabled()) {
-							logger.debug("Nothing to write: null body");
-						}
+						((HttpMessageConverter) converter).write(body, selectedMediaType, outputMessage);
+					}
+				}
+				else {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Nothing to write: null body");
 					}
-					// <5.4> return 返回。结果整个逻辑
-					return;
 				}
+				// <5.4> return 返回。结果整个逻辑
+				return;
 			}
 		}
 
@@ -393,31 +402,79 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 			return new ArrayList<>(mediaTypes);
 		}
 		// <x> 如果 allSupportedMediaTypes 非空，则遍历 HttpMessageConverter 数组，进行类型匹配
+		// 结果按 valueClass 和 targetType 缓存
 		else if (!this.allSupportedMediaTypes.isEmpty()) {
-			List<MediaType> result = new ArrayList<>();
-			for (HttpMessageConverter<?> converter : this.messageConverters) {
-				if (converter instanceof GenericHttpMessageConverter && targetType != null) {
-					if (((GenericHttpMessageConverter<?>) converter).canWrite(targetType, valueClass, null)) {
-						result.addAll(converter.getSupportedMediaTypes());
-					}
-				}
-				else if (converter.canWrite(valueClass, null)) {
-					result.addAll(converter.getSupportedMediaTypes());
-				}
-			}
-			return result;
+			return this.producibleTypesCache.get(new ConverterCacheKey(targetType, valueClass, null, null));
 		}
 		else {
 			return Collections.singletonList(MediaType.ALL);
 		}
 	}
 
+	/**
+	 * Return the media types of the converters that can write the type of the
+	 * given key, regardless of media type.
+	 */
+	private List<MediaType> getWritableMediaTypes(ConverterCacheKey key) {
+		Assert.state(key.clazz != null, "No value class");
+		List<MediaType> result = new ArrayList<>();
+		for (HttpMessageConverter<?> converter : this.messageConverters) {
+			if (converter instanceof GenericHttpMessageConverter && key.type != null) {
+				if (((GenericHttpMessageConverter<?>) converter).canWrite(key.type, key.clazz, null)) {
+					result.addAll(converter.getSupportedMediaTypes(key.clazz));
+				}
+			}
+			else if (converter.canWrite(key.clazz, null)) {
+				result.addAll(converter.getSupportedMediaTypes(key.clazz));
+			}
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * Return the index of the first converter that can write the type of the
+	 * given key with its media type, or -1 if none.
+	 */
+	private int getWriteConverterIndex(ConverterCacheKey key) {
+		for (int i = 0; i < this.messageConverters.size(); i++) {
+			if (canWrite(i, key)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private boolean canWrite(int converterIndex, ConverterCacheKey key) {
+		Assert.state(key.clazz != null, "No value class");
+		HttpMessageConverter<?> converter = this.messageConverters.get(converterIndex);
+		return (converter instanceof GenericHttpMessageConverter ?
+				((GenericHttpMessageConverter<?>) converter).canWrite(key.type, key.clazz, key.mediaType) :
+				converter.canWrite(key.clazz, key.mediaType));
+	}
+
 	private List<MediaType> getAcceptableMediaTypes(HttpServletRequest request)
 			throws HttpMediaTypeNotAcceptableException {
 
 		return this.contentNegotiationManager.resolveMediaTypes(new ServletWebRequest(request));
 	}
 
+	/**
+	 * Return the compatible combinations of the given acceptable and producible
+	 * media types, sorted by specificity and quality.
+	 */
+	private List<MediaType> getMediaTypesToUse(MediaTypesKey key) {
+		List<MediaType> mediaTypesToUse = new ArrayList<>();
+		for (MediaType requestedType : key.acceptableTypes) {
+			for (MediaType producibleType : key.producibleTypes) {
+				if (requestedType.isCompatibleWith(producibleType)) {
+					mediaTypesToUse.add(getMostSpecificMediaType(requestedType, producibleType));
+				}
+			}
+		}
+		MediaType.sortBySpecificityAndQuality(mediaTypesToUse);
+		return Collections.unmodifiableList(mediaTypesToUse);
+	}
+
 	/**
 	 * Return the more specific of the acceptable and the producible media types
 	 * with the q-value of the former.
@@ -517,4 +574,43 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 				mediaType.getSubtype().endsWith("+xml"));
 	}
 
+
+	/**
+	 * Key for the cache of media types to use, consisting of snapshots of
+	 * the acceptable and the producible media types.
+	 */
+	private static final class MediaTypesKey {
+
+		private final MediaType[] acceptableTypes;
+
+		private final MediaType[] producibleTypes;
+
+		private final int hashCode;
+
+		MediaTypesKey(List<MediaType> acceptableTypes, List<MediaType> producibleTypes) {
+			this.acceptableTypes = acceptableTypes.toArray(new MediaType[0]);
+			this.producibleTypes = producibleTypes.toArray(new MediaType[0]);
+			this.hashCode = 31 * Arrays.hashCode(this.acceptableTypes) + Arrays.hashCode(this.producibleTypes);
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof MediaTypesKey)) {
+				return false;
+			}
+			MediaTypesKey otherKey = (MediaTypesKey) other;
+			return (this.hashCode == otherKey.hashCode &&
+					Arrays.equals(this.acceptableTypes, otherKey.acceptableTypes) &&
+					Arrays.equals(this.producibleTypes, otherKey.producibleTypes));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+	}
+
 }
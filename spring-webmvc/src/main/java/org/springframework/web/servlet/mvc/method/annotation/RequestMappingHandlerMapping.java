@@ -32,6 +32,7 @@ import org.springframework.context.EmbeddedValueResolverAware;
 import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.core.annotation.MergedAnnotation;
 import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.http.server.PathContainer;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Controller;
 import org.springframework.util.Assert;
@@ -53,6 +54,8 @@ import org.springframework.web.servlet.mvc.condition.ConsumesRequestCondition;
 import org.springframework.web.servlet.mvc.condition.RequestCondition;
 import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
 import org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+import org.springframework.web.util.pattern.PathPattern;
 
 /**
  * Creates {@link RequestMappingInfo} instances from type and method-level
@@ -181,6 +184,7 @@ public class RequestMappingHandlerMapping extends RequestMappingInfoHandlerMappi
 	@SuppressWarnings("deprecation")
 	public void afterPropertiesSet() {
 		this.config = new RequestMappingInfo.BuilderConfiguration();
+		this.config.setPatternParser(getPatternParser());
 		this.config.setUrlPathHelper(getUrlPathHelper());
 		this.config.setPathMatcher(getPathMatcher());
 		this.config.setSuffixPatternMatch(useSuffixPatternMatch());
@@ -413,6 +417,11 @@ public class RequestMappingHandlerMapping extends RequestMappingInfoHandlerMappi
 		if (matchingInfo == null) {
 			return null;
 		}
+		if (matchingInfo.getPathPatternsCondition() != null) {
+			PathPattern pathPattern = matchingInfo.getPathPatternsCondition().getFirstPattern();
+			PathContainer path = ServletRequestPathUtils.getOrParseRequestPath(request).pathWithinApplication();
+			return new RequestMatchResult(pathPattern, path);
+		}
 		Set<String> patterns = matchingInfo.getPatternsCondition().getPatterns();
 		String lookupPath = getUrlPathHelper().getLookupPathForRequest(request, LOOKUP_PATH);
 		return new RequestMatchResult(patterns.iterator().next(), lookupPath, getPathMatcher());
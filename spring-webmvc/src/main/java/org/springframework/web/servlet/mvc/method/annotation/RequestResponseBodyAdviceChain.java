@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,8 @@ import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.core.MethodParameter;
 import org.springframework.http.HttpInputMessage;
@@ -37,6 +39,9 @@ import org.springframework.web.method.ControllerAdviceBean;
  * instance may be (and is most likely) wrapped with
  * {@link org.springframework.web.method.ControllerAdviceBean ControllerAdviceBean}.
  *
+ * <p>The advice that applies to a given controller type is determined on first
+ * use for that type, and cached.
+ *
  * @author Rossen Stoyanchev
  * @since 4.2
  */
@@ -46,6 +51,10 @@ class RequestResponseBodyAdviceChain implements RequestBodyAdvice, ResponseBodyA
 
 	private final List<Object> responseBodyAdvice = new ArrayList<>(4);
 
+	private final Map<Class<?>, List<Object>> requestBodyAdviceCache = new ConcurrentHashMap<>(64);
+
+	private final Map<Class<?>, List<Object>> responseBodyAdviceCache = new ConcurrentHashMap<>(64);
+
 
 	/**
 	 * Create an instance from a list of objects that are either of type
@@ -147,18 +156,14 @@ class RequestResponseBodyAdviceChain implements RequestBodyAdvice, ResponseBodyA
 
 	@SuppressWarnings("unchecked")
 	private <A> List<A> getMatchingAdvice(MethodParameter parameter, Class<? extends A> adviceType) {
-		List<Object> availableAdvice = getAdvice(adviceType);
-		if (CollectionUtils.isEmpty(availableAdvice)) {
+		List<Object> applicableAdvice = getApplicableAdvice(parameter.getContainingClass(), adviceType);
+		if (applicableAdvice.isEmpty()) {
 			return Collections.emptyList();
 		}
-		List<A> result = new ArrayList<>(availableAdvice.size());
-		for (Object advice : availableAdvice) {
+		List<A> result = new ArrayList<>(applicableAdvice.size());
+		for (Object advice : applicableAdvice) {
 			if (advice instanceof ControllerAdviceBean) {
-				ControllerAdviceBean adviceBean = (ControllerAdviceBean) advice;
-				if (!adviceBean.isApplicableToBeanType(parameter.getContainingClass())) {
-					continue;
-				}
-				advice = adviceBean.resolveBean();
+				advice = ((ControllerAdviceBean) advice).resolveBean();
 			}
 			if (adviceType.isAssignableFrom(advice.getClass())) {
 				result.add((A) advice);
@@ -167,6 +172,29 @@ class RequestResponseBodyAdviceChain implements RequestBodyAdvice, ResponseBodyA
 		return result;
 	}
 
+	/**
+	 * Return the advice of the given type that applies to the given controller
+	 * type, determining and caching it on first access for that type.
+	 */
+	private List<Object> getApplicableAdvice(Class<?> controllerType, Class<?> adviceType) {
+		List<Object> availableAdvice = getAdvice(adviceType);
+		if (CollectionUtils.isEmpty(availableAdvice)) {
+			return Collections.emptyList();
+		}
+		Map<Class<?>, List<Object>> cache = (RequestBodyAdvice.class == adviceType ?
+				this.requestBodyAdviceCache : this.responseBodyAdviceCache);
+		return cache.computeIfAbsent(controllerType, type -> {
+			List<Object> result = new ArrayList<>(availableAdvice.size());
+			for (Object advice : availableAdvice) {
+				if (!(advice instanceof ControllerAdviceBean) ||
+						((ControllerAdviceBean) advice).isApplicableToBeanType(type)) {
+					result.add(advice);
+				}
+			}
+			return result;
+		});
+	}
+
 	private List<Object> getAdvice(Class<?> adviceType) {
 		if (RequestBodyAdvice.class == adviceType) {
 			return this.requestBodyAdvice;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,7 +17,9 @@
 package org.springframework.web.servlet.mvc.method.annotation;
 
 import java.io.IOException;
-import java.util.LinkedHashSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.function.Consumer;
 
@@ -57,6 +59,11 @@ import org.springframework.util.ObjectUtils;
  * emitter.complete();
  * </pre>
  *
+ * <p>By default, each send writes and flushes on the calling thread, and
+ * blocks while the client is slow to read. Use
+ * {@link #setSendQueue(int, OverflowStrategy)} to have objects queued instead,
+ * and written through Servlet non-blocking I/O as the connection allows.
+ *
  * @author Rossen Stoyanchev
  * @author Juergen Hoeller
  * @since 4.2
@@ -69,8 +76,12 @@ public class ResponseBodyEmitter {
 	@Nullable
 	private Handler handler;
 
+	private int sendQueueCapacity = -1;
+
+	private OverflowStrategy overflowStrategy = OverflowStrategy.ERROR;
+
 	/** Store send data before handler is initialized. */
-	private final Set<DataWithMediaType> earlySendAttempts = new LinkedHashSet<>(8);
+	private final List<Set<DataWithMediaType>> earlySendAttempts = new ArrayList<>(8);
 
 	/** Store complete invocation before handler is initialized. */
 	private boolean complete;
@@ -120,12 +131,51 @@ public class ResponseBodyEmitter {
 		return this.timeout;
 	}
 
+	/**
+	 * Queue sent objects instead of writing them on the sending thread.
+	 * <p>Objects are then written through Servlet non-blocking I/O, on the
+	 * sending thread while the connection can accept more data, and on a
+	 * container thread once it can again. All objects queued in the meantime
+	 * are written and flushed together. A send blocks neither on the
+	 * connection nor on other connections, which makes this mode well suited
+	 * for broadcasting to many clients, some of which may be slow.
+	 * <p>This must be set before the emitter is returned from the controller
+	 * method. An {@link SseEmitter} queues each event as a whole.
+	 * @param capacity the maximum number of queued sends
+	 * @param overflowStrategy what to do with a send that finds the queue full
+	 * @since 5.3
+	 */
+	public synchronized void setSendQueue(int capacity, OverflowStrategy overflowStrategy) {
+		Assert.isTrue(capacity > 0, "Send queue capacity must be greater than 0");
+		Assert.notNull(overflowStrategy, "OverflowStrategy must not be null");
+		Assert.state(this.handler == null, "ResponseBodyEmitter is already initialized");
+		this.sendQueueCapacity = capacity;
+		this.overflowStrategy = overflowStrategy;
+	}
+
+	/**
+	 * Return the configured send queue capacity, or -1 if sent objects are
+	 * written on the sending thread.
+	 * @since 5.3
+	 */
+	public int getSendQueueCapacity() {
+		return this.sendQueueCapacity;
+	}
+
+	/**
+	 * Return the strategy for sends that find the send queue full.
+	 * @since 5.3
+	 */
+	public OverflowStrategy getOverflowStrategy() {
+		return this.overflowStrategy;
+	}
+
 
 	synchronized void initialize(Handler handler) throws IOException {
 		this.handler = handler;
 
-		for (DataWithMediaType sendAttempt : this.earlySendAttempts) {
-			sendInternal(sendAttempt.getData(), sendAttempt.getMediaType());
+		for (Set<DataWithMediaType> sendAttempt : this.earlySendAttempts) {
+			sendInternal(sendAttempt);
 		}
 		this.earlySendAttempts.clear();
 
@@ -180,13 +230,35 @@ public class ResponseBodyEmitter {
 	 */
 	public synchronized void send(Object object, @Nullable MediaType mediaType) throws IOException {
 		Assert.state(!this.complete, "ResponseBodyEmitter is already set complete");
-		sendInternal(object, mediaType);
+		sendInternal(Collections.singleton(new DataWithMediaType(object, mediaType)));
+	}
+
+	/**
+	 * Variant of {@link #send(Object, MediaType)} that sends multiple objects
+	 * together, flushing only once they have all been written, and queueing
+	 * them as a single unit if a {@link #setSendQueue send queue} is used.
+	 * @param items the objects to write, along with MediaType hints
+	 * @throws IOException raised when an I/O error occurs
+	 * @throws java.lang.IllegalStateException wraps any other errors
+	 * @since 5.3
+	 */
+	public synchronized void send(Set<DataWithMediaType> items) throws IOException {
+		Assert.state(!this.complete, "ResponseBodyEmitter is already set complete");
+		if (!items.isEmpty()) {
+			sendInternal(items);
+		}
 	}
 
-	private void sendInternal(Object object, @Nullable MediaType mediaType) throws IOException {
+	private void sendInternal(Set<DataWithMediaType> items) throws IOException {
 		if (this.handler != null) {
+			DataWithMediaType item = (items.size() == 1 ? items.iterator().next() : null);
 			try {
-				this.handler.send(object, mediaType);
+				if (item != null) {
+					this.handler.send(item.getData(), item.getMediaType());
+				}
+				else {
+					this.handler.send(items);
+				}
 			}
 			catch (IOException ex) {
 				this.sendFailed = true;
@@ -194,11 +266,11 @@ public class ResponseBodyEmitter {
 			}
 			catch (Throwable ex) {
 				this.sendFailed = true;
-				throw new IllegalStateException("Failed to send " + object, ex);
+				throw new IllegalStateException("Failed to send " + (item != null ? item.getData() : items), ex);
 			}
 		}
 		else {
-			this.earlySendAttempts.add(new DataWithMediaType(object, mediaType));
+			this.earlySendAttempts.add(items);
 		}
 	}
 
@@ -286,6 +358,12 @@ public class ResponseBodyEmitter {
 
 		void send(Object data, @Nullable MediaType mediaType) throws IOException;
 
+		default void send(Set<DataWithMediaType> items) throws IOException {
+			for (DataWithMediaType item : items) {
+				send(item.getData(), item.getMediaType());
+			}
+		}
+
 		void complete();
 
 		void completeWithError(Throwable failure);
@@ -322,6 +400,36 @@ public class ResponseBodyEmitter {
 		public MediaType getMediaType() {
 			return this.mediaType;
 		}
+
+		@Override
+		public String toString() {
+			return "DataWithMediaType[" + this.data + (this.mediaType != null ? ", " + this.mediaType : "") + "]";
+		}
+	}
+
+
+	/**
+	 * Strategy for a send that finds the {@link #setSendQueue send queue}
+	 * of an emitter full, typically because the client reads too slowly.
+	 * @since 5.3
+	 */
+	public enum OverflowStrategy {
+
+		/**
+		 * Fail the send with an {@link IOException}, and complete request
+		 * processing with that exception, disconnecting the client.
+		 */
+		ERROR,
+
+		/**
+		 * Drop the objects being sent.
+		 */
+		DROP_LATEST,
+
+		/**
+		 * Drop the oldest queued objects to make room for those being sent.
+		 */
+		DROP_OLDEST
 	}
 
 
@@ -19,11 +19,18 @@ package org.springframework.web.servlet.mvc.method.annotation;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
+import javax.servlet.ServletOutputStream;
 import javax.servlet.ServletRequest;
+import javax.servlet.WriteListener;
 import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.core.MethodParameter;
@@ -31,6 +38,7 @@ import org.springframework.core.ReactiveAdapterRegistry;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.task.TaskExecutor;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -40,6 +48,7 @@ import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.http.server.ServletServerHttpResponse;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.FastByteArrayOutputStream;
 import org.springframework.web.accept.ContentNegotiationManager;
 import org.springframework.web.context.request.NativeWebRequest;
 import org.springframework.web.context.request.async.DeferredResult;
@@ -47,6 +56,8 @@ import org.springframework.web.context.request.async.WebAsyncUtils;
 import org.springframework.web.filter.ShallowEtagHeaderFilter;
 import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
 import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.OverflowStrategy;
 
 /**
  * Handler for return values of type {@link ResponseBodyEmitter} and sub-classes
@@ -56,6 +67,9 @@ import org.springframework.web.method.support.ModelAndViewContainer;
  * <p>As of 5.0 also supports reactive return value types for any reactive
  * library with registered adapters in {@link ReactiveAdapterRegistry}.
  *
+ * <p>As of 5.3, emitters with a {@link ResponseBodyEmitter#setSendQueue send queue}
+ * are written through Servlet non-blocking I/O.
+ *
  * @author Rossen Stoyanchev
  * @since 4.2
  */
@@ -179,10 +193,30 @@ public class ResponseBodyEmitterReturnValueHandler implements HandlerMethodRetur
 		DeferredResult<?> deferredResult = new DeferredResult<>(emitter.getTimeout());
 		WebAsyncUtils.getAsyncManager(webRequest).startDeferredResultProcessing(deferredResult, mavContainer);
 
-		HttpMessageConvertingHandler handler = new HttpMessageConvertingHandler(outputMessage, deferredResult);
+		ResponseBodyEmitter.Handler handler;
+		if (emitter.getSendQueueCapacity() > 0) {
+			handler = new QueueingHttpMessageConvertingHandler(outputMessage, response.getOutputStream(),
+					deferredResult, emitter.getSendQueueCapacity(), emitter.getOverflowStrategy());
+		}
+		else {
+			handler = new HttpMessageConvertingHandler(outputMessage, deferredResult);
+		}
 		emitter.initialize(handler);
 	}
 
+	@SuppressWarnings("unchecked")
+	private <T> void writeWithConverters(T data, @Nullable MediaType mediaType, HttpOutputMessage outputMessage)
+			throws IOException {
+
+		for (HttpMessageConverter<?> converter : this.sseMessageConverters) {
+			if (converter.canWrite(data.getClass(), mediaType)) {
+				((HttpMessageConverter<T>) converter).write(data, mediaType, outputMessage);
+				return;
+			}
+		}
+		throw new IllegalArgumentException("No suitable converter for " + data.getClass());
+	}
+
 
 	/**
 	 * ResponseBodyEmitter.Handler that writes with HttpMessageConverter's.
@@ -200,19 +234,16 @@ public class ResponseBodyEmitterReturnValueHandler implements HandlerMethodRetur
 
 		@Override
 		public void send(Object data, @Nullable MediaType mediaType) throws IOException {
-			sendInternal(data, mediaType);
+			writeWithConverters(data, mediaType, this.outputMessage);
+			this.outputMessage.flush();
 		}
 
-		@SuppressWarnings("unchecked")
-		private <T> void sendInternal(T data, @Nullable MediaType mediaType) throws IOException {
-			for (HttpMessageConverter<?> converter : ResponseBodyEmitterReturnValueHandler.this.sseMessageConverters) {
-				if (converter.canWrite(data.getClass(), mediaType)) {
-					((HttpMessageConverter<T>) converter).write(data, mediaType, this.outputMessage);
-					this.outputMessage.flush();
-					return;
-				}
+		@Override
+		public void send(Set<DataWithMediaType> items) throws IOException {
+			for (DataWithMediaType item : items) {
+				writeWithConverters(item.getData(), item.getMediaType(), this.outputMessage);
 			}
-			throw new IllegalArgumentException("No suitable converter for " + data.getClass());
+			this.outputMessage.flush();
 		}
 
 		@Override
@@ -248,6 +279,230 @@ public class ResponseBodyEmitterReturnValueHandler implements HandlerMethodRetur
 	}
 
 
+	/**
+	 * ResponseBodyEmitter.Handler that queues sent objects, and writes them with
+	 * HttpMessageConverter's through Servlet non-blocking I/O.
+	 * <p>Queued objects are written by whichever thread finds the connection
+	 * ready, either a sending thread or a container thread notified through a
+	 * {@link WriteListener}. All objects queued at that point are serialized
+	 * into a single buffer, which is then written and flushed at once.
+	 */
+	private class QueueingHttpMessageConvertingHandler implements ResponseBodyEmitter.Handler {
+
+		private final ServerHttpResponse outputMessage;
+
+		private final ServletOutputStream outputStream;
+
+		private final DeferredResult<?> deferredResult;
+
+		private final int capacity;
+
+		private final OverflowStrategy overflowStrategy;
+
+		/** Sends not written yet, guarded by itself. */
+		private final Deque<Set<DataWithMediaType>> queue = new ArrayDeque<>();
+
+		/** Requests to write, the thread that raises the count from 0 writes. */
+		private final AtomicInteger writeRequests = new AtomicInteger();
+
+		/** Whether data was written but not flushed yet, only accessed while writing. */
+		private boolean flushPending;
+
+		private volatile boolean completing;
+
+		private volatile boolean closed;
+
+		@Nullable
+		private volatile Throwable failure;
+
+		public QueueingHttpMessageConvertingHandler(ServerHttpResponse outputMessage,
+				ServletOutputStream outputStream, DeferredResult<?> deferredResult,
+				int capacity, OverflowStrategy overflowStrategy) {
+
+			this.outputMessage = outputMessage;
+			this.outputStream = outputStream;
+			this.deferredResult = deferredResult;
+			this.capacity = capacity;
+			this.overflowStrategy = overflowStrategy;
+			this.outputStream.setWriteListener(new WriteListener() {
+				@Override
+				public void onWritePossible() {
+					write();
+				}
+				@Override
+				public void onError(Throwable ex) {
+					fail(ex);
+				}
+			});
+		}
+
+		@Override
+		public void send(Object data, @Nullable MediaType mediaType) throws IOException {
+			send(Collections.singleton(new DataWithMediaType(data, mediaType)));
+		}
+
+		@Override
+		public void send(Set<DataWithMediaType> items) throws IOException {
+			synchronized (this.queue) {
+				if (this.closed) {
+					throw new IOException("Response is closed", this.failure);
+				}
+				if (this.queue.size() >= this.capacity) {
+					if (this.overflowStrategy == OverflowStrategy.DROP_LATEST) {
+						return;
+					}
+					else if (this.overflowStrategy == OverflowStrategy.DROP_OLDEST) {
+						this.queue.poll();
+					}
+					else {
+						IOException ex = new IOException("Send queue capacity of " + this.capacity + " exceeded");
+						fail(ex);
+						throw ex;
+					}
+				}
+				this.queue.add(items);
+			}
+			write();
+		}
+
+		@Override
+		public void complete() {
+			this.completing = true;
+			write();
+		}
+
+		@Override
+		public void completeWithError(Throwable failure) {
+			close();
+			this.deferredResult.setErrorResult(failure);
+		}
+
+		@Override
+		public void onTimeout(Runnable callback) {
+			this.deferredResult.onTimeout(() -> {
+				close();
+				callback.run();
+			});
+		}
+
+		@Override
+		public void onError(Consumer<Throwable> callback) {
+			this.deferredResult.onError(ex -> {
+				close();
+				callback.accept(ex);
+			});
+		}
+
+		@Override
+		public void onCompletion(Runnable callback) {
+			this.deferredResult.onCompletion(() -> {
+				close();
+				callback.run();
+			});
+		}
+
+		/**
+		 * Write queued objects for as long as the connection is ready, or let
+		 * the thread that is currently writing do so.
+		 */
+		private void write() {
+			if (this.writeRequests.getAndIncrement() != 0) {
+				return;
+			}
+			int requests = 1;
+			do {
+				writeQueued();
+				requests = this.writeRequests.addAndGet(-requests);
+			}
+			while (requests != 0);
+		}
+
+		private void writeQueued() {
+			try {
+				while (!this.closed && this.outputStream.isReady()) {
+					if (this.flushPending) {
+						this.flushPending = false;
+						this.outputStream.flush();
+						continue;
+					}
+					List<Set<DataWithMediaType>> batch = pollQueued();
+					if (batch.isEmpty()) {
+						if (this.completing) {
+							this.closed = true;
+							this.deferredResult.setResult(null);
+						}
+						return;
+					}
+					FastByteArrayOutputStream buffer = new FastByteArrayOutputStream();
+					HttpOutputMessage bufferMessage = new BufferingOutputMessage(buffer);
+					for (Set<DataWithMediaType> items : batch) {
+						for (DataWithMediaType item : items) {
+							writeWithConverters(item.getData(), item.getMediaType(), bufferMessage);
+						}
+					}
+					// A single write, since the connection may not be ready for another
+					this.outputMessage.getBody().write(buffer.toByteArrayUnsafe(), 0, buffer.size());
+					this.flushPending = true;
+				}
+			}
+			catch (Throwable ex) {
+				fail(ex);
+			}
+		}
+
+		private List<Set<DataWithMediaType>> pollQueued() {
+			synchronized (this.queue) {
+				if (this.queue.isEmpty()) {
+					return Collections.emptyList();
+				}
+				List<Set<DataWithMediaType>> batch = new ArrayList<>(this.queue);
+				this.queue.clear();
+				return batch;
+			}
+		}
+
+		private void fail(Throwable ex) {
+			synchronized (this.queue) {
+				this.failure = ex;
+				close();
+			}
+			this.deferredResult.setErrorResult(ex);
+		}
+
+		private void close() {
+			synchronized (this.queue) {
+				this.closed = true;
+				this.queue.clear();
+			}
+		}
+	}
+
+
+	/**
+	 * HttpOutputMessage that buffers the body, ignoring headers.
+	 */
+	private static class BufferingOutputMessage implements HttpOutputMessage {
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		private final OutputStream body;
+
+		public BufferingOutputMessage(OutputStream body) {
+			this.body = body;
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return this.headers;
+		}
+
+		@Override
+		public OutputStream getBody() {
+			return this.body;
+		}
+	}
+
+
 	/**
 	 * Wrap to silently ignore header changes HttpMessageConverter's that would
 	 * otherwise cause HttpHeaders to raise exceptions.
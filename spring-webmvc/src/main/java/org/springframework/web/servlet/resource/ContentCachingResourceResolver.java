@@ -0,0 +1,430 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.FastByteArrayOutputStream;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * A {@link ResourceResolver} that keeps the content of resolved resources in
+ * memory, along with an ETag, so that frequently requested resources are served
+ * without accessing the file system or class path again.
+ *
+ * <p>Resources of a {@linkplain #setCompressibleMediaTypes compressible} media
+ * type are compressed with gzip once, for requests that accept it, unless the
+ * rest of the chain already resolved an encoded variant, e.g. a pre-built
+ * brotli file found by an {@link EncodedResourceResolver}. Encoded variants
+ * are cached per set of accepted content codings, while resources that have
+ * no encoded variant are cached once. The cache is bounded by a maximum total
+ * size in bytes, with the least recently used variants evicted first.
+ *
+ * <p>CSS files are not compressed by default, since compressed content is
+ * left as is by {@link CssLinkResourceTransformer}, which would then no longer
+ * rewrite the links in them.
+ *
+ * <p>This resolver is meant to be used instead of a {@link CachingResourceResolver},
+ * ahead of all other resolvers. As with the latter, cached resources are not
+ * checked for changes.
+ *
+ * @since 5.3
+ */
+public class ContentCachingResourceResolver extends AbstractResourceResolver {
+
+	/**
+	 * The default media types to compress. {@code text/css} is not included,
+	 * so that the links in CSS files can be rewritten by a
+	 * {@link CssLinkResourceTransformer}.
+	 */
+	public static final List<MediaType> DEFAULT_COMPRESSIBLE_MEDIA_TYPES = Collections.unmodifiableList(Arrays.asList(
+			MediaType.TEXT_HTML,
+			MediaType.TEXT_PLAIN,
+			MediaType.TEXT_XML,
+			MediaType.parseMediaType("text/csv"),
+			MediaType.parseMediaType("text/javascript"),
+			MediaType.parseMediaType("application/javascript"),
+			MediaType.APPLICATION_JSON,
+			MediaType.parseMediaType("application/*+json"),
+			MediaType.APPLICATION_XML,
+			MediaType.parseMediaType("application/*+xml"),
+			MediaType.parseMediaType("image/svg+xml")));
+
+	private static final String GZIP = "gzip";
+
+
+	private final List<MediaType> compressibleMediaTypes = new ArrayList<>(DEFAULT_COMPRESSIBLE_MEDIA_TYPES);
+
+	private final List<String> contentCodings = new ArrayList<>(EncodedResourceResolver.DEFAULT_CODINGS);
+
+	private long maxCacheSize = 10 * 1024 * 1024;
+
+	private long maxResourceSize = 1024 * 1024;
+
+	private final Map<String, CachedResource> cache = new LinkedHashMap<>(64, 0.75f, true);
+
+	private long cacheSize;
+
+
+	/**
+	 * Configure the media types of resources to compress with gzip.
+	 * <p>By default this property is set to {@link #DEFAULT_COMPRESSIBLE_MEDIA_TYPES}.
+	 * @param mediaTypes the media types to compress, possibly empty to turn
+	 * off compression
+	 */
+	public void setCompressibleMediaTypes(List<MediaType> mediaTypes) {
+		this.compressibleMediaTypes.clear();
+		this.compressibleMediaTypes.addAll(mediaTypes);
+	}
+
+	/**
+	 * Return a read-only list with the media types of resources to compress.
+	 */
+	public List<MediaType> getCompressibleMediaTypes() {
+		return Collections.unmodifiableList(this.compressibleMediaTypes);
+	}
+
+	/**
+	 * Configure the supported content codings from the
+	 * {@literal "Accept-Encoding"} header for which to cache resource variants.
+	 * <p>The codings configured here are generally expected to match those
+	 * configured on {@link EncodedResourceResolver#setContentCodings(List)}.
+	 * <p>By default this property is set to {@literal ["br", "gzip"]} based on
+	 * the value of {@link EncodedResourceResolver#DEFAULT_CODINGS}.
+	 * @param codings one or more supported content codings
+	 */
+	public void setContentCodings(List<String> codings) {
+		Assert.notEmpty(codings, "At least one content coding expected");
+		this.contentCodings.clear();
+		this.contentCodings.addAll(codings);
+	}
+
+	/**
+	 * Return a read-only list with the supported content codings.
+	 */
+	public List<String> getContentCodings() {
+		return Collections.unmodifiableList(this.contentCodings);
+	}
+
+	/**
+	 * Set the maximum total size, in bytes, of all cached resource variants.
+	 * <p>By default this is set to 10M.
+	 */
+	public void setMaxCacheSize(long maxCacheSize) {
+		this.maxCacheSize = maxCacheSize;
+	}
+
+	/**
+	 * Return the configured maximum total size of all cached resource variants.
+	 */
+	public long getMaxCacheSize() {
+		return this.maxCacheSize;
+	}
+
+	/**
+	 * Set the maximum size, in bytes, of a resource for it to be cached.
+	 * Larger resources are served from the rest of the chain as usual.
+	 * <p>By default this is set to 1M.
+	 */
+	public void setMaxResourceSize(long maxResourceSize) {
+		this.maxResourceSize = maxResourceSize;
+	}
+
+	/**
+	 * Return the configured maximum size of a resource for it to be cached.
+	 */
+	public long getMaxResourceSize() {
+		return this.maxResourceSize;
+	}
+
+	/**
+	 * Return the current total size, in bytes, of all cached resource variants.
+	 */
+	public long getCacheSize() {
+		synchronized (this.cache) {
+			return this.cacheSize;
+		}
+	}
+
+
+	@Override
+	protected Resource resolveResourceInternal(@Nullable HttpServletRequest request, String requestPath,
+			List<? extends Resource> locations, ResourceResolverChain chain) {
+
+		if (request == null) {
+			return chain.resolveResource(null, requestPath, locations);
+		}
+
+		String codingKey = getContentCodingKey(request);
+		CachedResource cachedResource = getCachedResource(requestPath, codingKey);
+		if (cachedResource != null) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Resource content served from cache");
+			}
+			return cachedResource;
+		}
+
+		Resource resource = chain.resolveResource(request, requestPath, locations);
+		if (resource == null) {
+			return null;
+		}
+		try {
+			cachedResource = loadResource(resource, codingKey != null && codingKey.contains(GZIP));
+		}
+		catch (IOException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to cache content of " + resource, ex);
+			}
+			return resource;
+		}
+		if (cachedResource == null) {
+			return resource;
+		}
+		addToCache(getCacheKey(requestPath, codingKey, cachedResource), cachedResource);
+		return cachedResource;
+	}
+
+	/**
+	 * Look up the cached variant for the given request path and content codings.
+	 * The variant cached under the request path alone is used for all codings,
+	 * unless encoded variants may exist for it.
+	 */
+	@Nullable
+	private CachedResource getCachedResource(String requestPath, @Nullable String codingKey) {
+		synchronized (this.cache) {
+			CachedResource resource = this.cache.get(requestPath);
+			if (StringUtils.hasText(codingKey) && (resource == null || resource.hasEncodedVariants())) {
+				resource = this.cache.get(requestPath + "+encoding=" + codingKey);
+			}
+			return resource;
+		}
+	}
+
+	private static String getCacheKey(String requestPath, @Nullable String codingKey, CachedResource resource) {
+		return (resource.isEncoded() && StringUtils.hasText(codingKey) ?
+				requestPath + "+encoding=" + codingKey : requestPath);
+	}
+
+	@Nullable
+	private String getContentCodingKey(HttpServletRequest request) {
+		String header = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+		if (!StringUtils.hasText(header)) {
+			return null;
+		}
+		return Arrays.stream(StringUtils.tokenizeToStringArray(header, ","))
+				.map(token -> {
+					int index = token.indexOf(';');
+					return (index >= 0 ? token.substring(0, index) : token).trim().toLowerCase();
+				})
+				.filter(this.contentCodings::contains)
+				.sorted()
+				.collect(Collectors.joining(","));
+	}
+
+	@Nullable
+	private CachedResource loadResource(Resource resource, boolean gzipAccepted) throws IOException {
+		if (!resource.isReadable() || resource.contentLength() > Math.min(this.maxResourceSize, this.maxCacheSize)) {
+			return null;
+		}
+		byte[] content;
+		try (InputStream inputStream = resource.getInputStream()) {
+			content = StreamUtils.copyToByteArray(inputStream);
+		}
+
+		HttpHeaders headers = new HttpHeaders();
+		if (resource instanceof HttpResource) {
+			headers.addAll(((HttpResource) resource).getResponseHeaders());
+		}
+		boolean encoded = headers.containsKey(HttpHeaders.CONTENT_ENCODING);
+		boolean compressible = (!encoded && isCompressible(resource));
+		if (compressible) {
+			if (!headers.getVary().contains(HttpHeaders.ACCEPT_ENCODING)) {
+				headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+			}
+			if (gzipAccepted) {
+				byte[] compressed = gzip(content);
+				if (compressed.length < content.length) {
+					content = compressed;
+					headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+					encoded = true;
+				}
+			}
+		}
+		if (headers.getETag() == null) {
+			headers.setETag("\"" + DigestUtils.md5DigestAsHex(content) + "\"");
+		}
+		// Unless gzip was tried already, other codings may yield an encoded variant
+		boolean encodedVariants = (encoded || (compressible && !gzipAccepted));
+		return new CachedResource(resource, content, resource.lastModified(), headers, encoded, encodedVariants);
+	}
+
+	private boolean isCompressible(Resource resource) {
+		MediaType mediaType = MediaTypeFactory.getMediaType(resource).orElse(null);
+		if (mediaType == null) {
+			return false;
+		}
+		for (MediaType compressibleMediaType : this.compressibleMediaTypes) {
+			if (compressibleMediaType.includes(mediaType)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static byte[] gzip(byte[] content) throws IOException {
+		FastByteArrayOutputStream compressed = new FastByteArrayOutputStream(content.length / 2 + 32);
+		try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressed)) {
+			gzipOutputStream.write(content);
+		}
+		return compressed.toByteArrayUnsafe();
+	}
+
+	private void addToCache(String key, CachedResource resource) {
+		synchronized (this.cache) {
+			CachedResource previous = this.cache.put(key, resource);
+			if (previous != null) {
+				this.cacheSize -= previous.content.length;
+			}
+			this.cacheSize += resource.content.length;
+			Iterator<CachedResource> iterator = this.cache.values().iterator();
+			while (this.cacheSize > this.maxCacheSize && iterator.hasNext()) {
+				this.cacheSize -= iterator.next().content.length;
+				iterator.remove();
+			}
+		}
+	}
+
+	@Override
+	protected String resolveUrlPathInternal(String resourceUrlPath,
+			List<? extends Resource> locations, ResourceResolverChain chain) {
+
+		return chain.resolveUrlPath(resourceUrlPath, locations);
+	}
+
+
+	/**
+	 * An {@link HttpResource} with content held in memory.
+	 */
+	static final class CachedResource extends AbstractResource implements HttpResource {
+
+		private final Resource original;
+
+		private final byte[] content;
+
+		private final long lastModified;
+
+		private final HttpHeaders headers;
+
+		private final boolean encoded;
+
+		private final boolean encodedVariants;
+
+		CachedResource(Resource original, byte[] content, long lastModified, HttpHeaders headers,
+				boolean encoded, boolean encodedVariants) {
+
+			this.original = original;
+			this.content = content;
+			this.lastModified = lastModified;
+			this.headers = headers;
+			this.encoded = encoded;
+			this.encodedVariants = encodedVariants;
+		}
+
+		/**
+		 * Whether the content is encoded, as indicated by the
+		 * {@code Content-Encoding} response header.
+		 */
+		public boolean isEncoded() {
+			return this.encoded;
+		}
+
+		/**
+		 * Whether requests with other content codings may be served a
+		 * different, encoded variant of the resource.
+		 */
+		boolean hasEncodedVariants() {
+			return this.encodedVariants;
+		}
+
+		@Override
+		public InputStream getInputStream() {
+			return new ByteArrayInputStream(this.content);
+		}
+
+		@Override
+		public boolean exists() {
+			return true;
+		}
+
+		@Override
+		public long contentLength() {
+			return this.content.length;
+		}
+
+		@Override
+		public long lastModified() {
+			return this.lastModified;
+		}
+
+		@Override
+		public Resource createRelative(String relativePath) throws IOException {
+			return this.original.createRelative(relativePath);
+		}
+
+		@Override
+		@Nullable
+		public String getFilename() {
+			return this.original.getFilename();
+		}
+
+		@Override
+		public String getDescription() {
+			return "Cached " + (this.encoded ? this.headers.getFirst(HttpHeaders.CONTENT_ENCODING) + " " : "") +
+					this.original.getDescription();
+		}
+
+		@Override
+		public HttpHeaders getResponseHeaders() {
+			HttpHeaders headers = new HttpHeaders();
+			headers.addAll(this.headers);
+			return headers;
+		}
+	}
+
+}
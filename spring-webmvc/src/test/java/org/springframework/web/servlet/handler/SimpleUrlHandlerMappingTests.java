@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,8 @@
 package org.springframework.web.servlet.handler;
 
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.junit.jupiter.api.Test;
 
@@ -30,6 +32,7 @@ import org.springframework.web.servlet.HandlerMapping;
 import org.springframework.web.testfixture.servlet.MockHttpServletRequest;
 import org.springframework.web.testfixture.servlet.MockServletContext;
 import org.springframework.web.util.WebUtils;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
@@ -84,6 +87,52 @@ public class SimpleUrlHandlerMappingTests {
 		assertThat(hec.getHandler()).isSameAs(controller);
 	}
 
+	@Test
+	public void urlMappingWithPathPatterns() throws Exception {
+		Object controller = new Object();
+		Object docsController = new Object();
+		Map<String, Object> urlMap = new LinkedHashMap<>();
+		urlMap.put("/*/baz", controller);
+		urlMap.put("/docs/**", docsController);
+		SimpleUrlHandlerMapping handlerMapping = new SimpleUrlHandlerMapping(urlMap);
+		handlerMapping.setPatternParser(new PathPatternParser());
+		handlerMapping.setApplicationContext(new StaticApplicationContext());
+
+		assertThat(handlerMapping.usesPathPatterns()).isTrue();
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/foo/baz");
+		HandlerExecutionChain hec = getHandler(handlerMapping, request);
+		assertThat(hec).isNotNull();
+		assertThat(hec.getHandler()).isSameAs(controller);
+		assertThat(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE)).isEqualTo("/*/baz");
+
+		request = new MockHttpServletRequest("GET", "/docs/spring/index.html");
+		hec = getHandler(handlerMapping, request);
+		assertThat(hec).isNotNull();
+		assertThat(hec.getHandler()).isSameAs(docsController);
+		assertThat(request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE))
+				.isEqualTo("spring/index.html");
+
+		assertThat(handlerMapping.getHandler(new MockHttpServletRequest("GET", "/foo/bar"))).isNull();
+	}
+
+	@Test
+	public void matchWithPathPatterns() {
+		SimpleUrlHandlerMapping handlerMapping = new SimpleUrlHandlerMapping();
+		handlerMapping.setPatternParser(new PathPatternParser());
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/docs/spring/index.html");
+		RequestMatchResult result = handlerMapping.match(request, "/docs/{*path}");
+		assertThat(result).isNotNull();
+		assertThat(result.extractUriTemplateVariables()).containsEntry("path", "/spring/index.html");
+
+		result = handlerMapping.match(request, "/docs/{name:[a-z]+}/index.html");
+		assertThat(result).isNotNull();
+		assertThat(result.extractUriTemplateVariables()).containsEntry("name", "spring");
+
+		assertThat(handlerMapping.match(request, "/api/{*path}")).isNull();
+	}
+
 	@SuppressWarnings("resource")
 	private void checkMappings(String beanName) throws Exception {
 		MockServletContext sc = new MockServletContext("");
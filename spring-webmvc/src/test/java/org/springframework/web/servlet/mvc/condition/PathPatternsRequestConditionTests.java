@@ -0,0 +1,185 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.mvc.condition;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.web.testfixture.servlet.MockHttpServletRequest;
+import org.springframework.web.util.ServletRequestPathUtils;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link PathPatternsRequestCondition}.
+ */
+public class PathPatternsRequestConditionTests {
+
+	private static final PathPatternParser parser = new PathPatternParser();
+
+
+	@Test
+	public void prependSlash() {
+		assertThat(createCondition("foo").getPatternValues()).containsExactly("/foo");
+	}
+
+	@Test
+	public void prependNonEmptyPatternsOnly() {
+		assertThat(createCondition("").getPatternValues()).containsExactly("");
+	}
+
+	@Test
+	public void combineEmptySets() {
+		PathPatternsRequestCondition c1 = createCondition();
+		PathPatternsRequestCondition c2 = createCondition();
+
+		assertThat(c1.combine(c2)).isEqualTo(createCondition(""));
+	}
+
+	@Test
+	public void combineOnePatternWithEmptySet() {
+		PathPatternsRequestCondition c1 = createCondition("/type1", "/type2");
+		PathPatternsRequestCondition c2 = createCondition();
+
+		assertThat(c1.combine(c2)).isEqualTo(createCondition("/type1", "/type2"));
+
+		c1 = createCondition();
+		c2 = createCondition("/method1", "/method2");
+
+		assertThat(c1.combine(c2)).isEqualTo(createCondition("/method1", "/method2"));
+	}
+
+	@Test
+	public void combineMultiplePatterns() {
+		PathPatternsRequestCondition c1 = createCondition("/t1", "/t2");
+		PathPatternsRequestCondition c2 = createCondition("/m1", "/m2");
+
+		assertThat(c1.combine(c2)).isEqualTo(createCondition("/t1/m1", "/t1/m2", "/t2/m1", "/t2/m2"));
+	}
+
+	@Test
+	public void matchDirectPath() {
+		PathPatternsRequestCondition condition = createCondition("/foo");
+		PathPatternsRequestCondition match = condition.getMatchingCondition(createRequest("/foo"));
+
+		assertThat(match).isNotNull();
+	}
+
+	@Test
+	public void matchPattern() {
+		PathPatternsRequestCondition condition = createCondition("/foo/*");
+		PathPatternsRequestCondition match = condition.getMatchingCondition(createRequest("/foo/bar"));
+
+		assertThat(match).isNotNull();
+	}
+
+	@Test
+	public void matchSortPatterns() {
+		PathPatternsRequestCondition condition = createCondition("/*/*", "/foo/bar", "/foo/*");
+		PathPatternsRequestCondition match = condition.getMatchingCondition(createRequest("/foo/bar"));
+
+		assertThat(match).isNotNull();
+		assertThat(match.getPatternValues()).containsExactly("/foo/bar", "/foo/*", "/*/*");
+		assertThat(match.getFirstPattern().getPatternString()).isEqualTo("/foo/bar");
+	}
+
+	@Test
+	public void matchTrailingSlash() {
+		HttpServletRequest request = createRequest("/foo/");
+		PathPatternsRequestCondition condition = createCondition("/foo");
+		PathPatternsRequestCondition match = condition.getMatchingCondition(request);
+
+		assertThat(match).isNotNull();
+		assertThat(match.getPatternValues()).as("Should match by default").containsExactly("/foo");
+
+		PathPatternParser strictParser = new PathPatternParser();
+		strictParser.setMatchOptionalTrailingSeparator(false);
+		condition = new PathPatternsRequestCondition(strictParser, "/foo");
+		match = condition.getMatchingCondition(request);
+
+		assertThat(match).isNull();
+	}
+
+	@Test
+	public void matchPathWithinServletPrefixMapping() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/app/servlet/foo");
+		request.setContextPath("/app");
+		request.setServletPath("/servlet");
+		request.setPathInfo("/foo");
+
+		PathPatternsRequestCondition match = createCondition("/foo").getMatchingCondition(request);
+
+		assertThat(match).isNotNull();
+		assertThat(ServletRequestPathUtils.hasParsedRequestPath(request)).isTrue();
+	}
+
+	@Test
+	public void matchEncodedPath() {
+		PathPatternsRequestCondition condition = createCondition("/foo bar");
+		PathPatternsRequestCondition match = condition.getMatchingCondition(createRequest("/foo%20bar"));
+
+		assertThat(match).isNotNull();
+	}
+
+	@Test
+	public void noMatch() {
+		PathPatternsRequestCondition condition = createCondition("/foo/bar");
+
+		assertThat(condition.getMatchingCondition(createRequest("/foo/baz"))).isNull();
+	}
+
+	@Test
+	public void compareEqualPatterns() {
+		HttpServletRequest request = createRequest("/foo");
+		PathPatternsRequestCondition c1 = createCondition("/fo*");
+		PathPatternsRequestCondition c2 = createCondition("/fo*");
+
+		assertThat(c1.compareTo(c2, request)).isEqualTo(0);
+	}
+
+	@Test
+	public void comparePatternSpecificity() {
+		HttpServletRequest request = createRequest("/foo");
+		PathPatternsRequestCondition c1 = createCondition("/fo*");
+		PathPatternsRequestCondition c2 = createCondition("/foo");
+
+		assertThat(c1.compareTo(c2, request)).isEqualTo(1);
+	}
+
+	@Test
+	public void compareNumberOfMatchingPatterns() {
+		HttpServletRequest request = createRequest("/foo");
+		PathPatternsRequestCondition c1 = createCondition("/foo", "/bar").getMatchingCondition(request);
+		PathPatternsRequestCondition c2 = createCondition("/foo", "/f*").getMatchingCondition(request);
+
+		assertThat(c1).isNotNull();
+		assertThat(c2).isNotNull();
+		assertThat(c1.compareTo(c2, request)).isEqualTo(1);
+	}
+
+
+	private PathPatternsRequestCondition createCondition(String... patterns) {
+		return new PathPatternsRequestCondition(parser, patterns);
+	}
+
+	private HttpServletRequest createRequest(String requestUri) {
+		return new MockHttpServletRequest("GET", requestUri);
+	}
+
+}
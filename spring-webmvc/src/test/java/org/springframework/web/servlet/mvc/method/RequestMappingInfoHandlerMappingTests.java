@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -58,6 +58,7 @@ import org.springframework.web.servlet.mvc.condition.ProducesRequestCondition;
 import org.springframework.web.servlet.mvc.condition.RequestMethodsRequestCondition;
 import org.springframework.web.testfixture.servlet.MockHttpServletRequest;
 import org.springframework.web.util.UrlPathHelper;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
@@ -289,6 +290,25 @@ public class RequestMappingInfoHandlerMappingTests {
 		assertThat(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE)).isEqualTo(path);
 	}
 
+	@SuppressWarnings("unchecked")
+	@Test
+	public void handleMatchWithPathPatterns() {
+		RequestMappingInfo.BuilderConfiguration config = new RequestMappingInfo.BuilderConfiguration();
+		config.setPatternParser(new PathPatternParser());
+		RequestMappingInfo key = RequestMappingInfo.paths("/{path1}/{path2}").options(config).build();
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/1/2");
+		RequestMappingInfo match = key.getMatchingCondition(request);
+		assertThat(match).isNotNull();
+		this.handlerMapping.handleMatch(match, "/1/2", request);
+
+		Map<String, String> uriVariables =
+				(Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+
+		assertThat(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE)).isEqualTo("/{path1}/{path2}");
+		assertThat(uriVariables).containsEntry("path1", "1").containsEntry("path2", "2");
+	}
+
 	@Test
 	public void handleMatchMatrixVariables() {
 		MockHttpServletRequest request;
@@ -239,6 +239,7 @@ public class HttpEntityMethodProcessorMockTests {
 		servletRequest.addHeader("Content-Type", contentType.toString());
 
 		given(stringHttpMessageConverter.getSupportedMediaTypes()).willReturn(Collections.singletonList(contentType));
+		given(stringHttpMessageConverter.getSupportedMediaTypes(any())).willReturn(Collections.singletonList(contentType));
 		given(stringHttpMessageConverter.canRead(String.class, contentType)).willReturn(false);
 
 		assertThatExceptionOfType(HttpMediaTypeNotSupportedException.class).isThrownBy(() ->
@@ -267,6 +268,24 @@ public class HttpEntityMethodProcessorMockTests {
 		verify(stringHttpMessageConverter).write(eq(body), eq(accepted), isA(HttpOutputMessage.class));
 	}
 
+	@Test
+	public void shouldCacheConverterSelection() throws Exception {
+		String body = "Foo";
+		ResponseEntity<String> returnValue = new ResponseEntity<>(body, HttpStatus.OK);
+		initStringMessageConversion(TEXT_PLAIN);
+
+		for (int i = 0; i < 2; i++) {
+			MockHttpServletRequest request = new MockHttpServletRequest("GET", "/foo");
+			request.addHeader("Accept", TEXT_PLAIN.toString());
+			ServletWebRequest webRequest = new ServletWebRequest(request, new MockHttpServletResponse());
+			processor.handleReturnValue(returnValue, returnTypeResponseEntity, new ModelAndViewContainer(), webRequest);
+		}
+
+		verify(stringHttpMessageConverter, times(1)).canWrite(String.class, null);
+		verify(stringHttpMessageConverter, times(1)).canWrite(String.class, TEXT_PLAIN);
+		verify(stringHttpMessageConverter, times(2)).write(eq(body), eq(TEXT_PLAIN), isA(HttpOutputMessage.class));
+	}
+
 	@Test
 	public void shouldHandleReturnValueWithProducibleMediaType() throws Exception {
 		String body = "Foo";
@@ -326,6 +345,7 @@ public class HttpEntityMethodProcessorMockTests {
 
 		given(stringHttpMessageConverter.canWrite(String.class, TEXT_PLAIN)).willReturn(true);
 		given(stringHttpMessageConverter.getSupportedMediaTypes()).willReturn(Collections.singletonList(TEXT_PLAIN));
+		given(stringHttpMessageConverter.getSupportedMediaTypes(any())).willReturn(Collections.singletonList(TEXT_PLAIN));
 
 		assertThatThrownBy(() ->
 				processor.handleReturnValue(
@@ -343,6 +363,7 @@ public class HttpEntityMethodProcessorMockTests {
 
 		given(stringHttpMessageConverter.canWrite(String.class, TEXT_PLAIN)).willReturn(true);
 		given(stringHttpMessageConverter.getSupportedMediaTypes()).willReturn(Collections.singletonList(TEXT_PLAIN));
+		given(stringHttpMessageConverter.getSupportedMediaTypes(any())).willReturn(Collections.singletonList(TEXT_PLAIN));
 
 		assertThatThrownBy(() ->
 				processor.handleReturnValue(
@@ -551,6 +572,7 @@ public class HttpEntityMethodProcessorMockTests {
 
 		given(resourceMessageConverter.canWrite(ByteArrayResource.class, null)).willReturn(true);
 		given(resourceMessageConverter.getSupportedMediaTypes()).willReturn(Collections.singletonList(MediaType.ALL));
+		given(resourceMessageConverter.getSupportedMediaTypes(any())).willReturn(Collections.singletonList(MediaType.ALL));
 		given(resourceMessageConverter.canWrite(ByteArrayResource.class, APPLICATION_OCTET_STREAM)).willReturn(true);
 
 		processor.handleReturnValue(returnValue, returnTypeResponseEntityResource, mavContainer, webRequest);
@@ -710,6 +732,7 @@ public class HttpEntityMethodProcessorMockTests {
 	private void initStringMessageConversion(MediaType accepted) {
 		given(stringHttpMessageConverter.canWrite(String.class, null)).willReturn(true);
 		given(stringHttpMessageConverter.getSupportedMediaTypes()).willReturn(Collections.singletonList(TEXT_PLAIN));
+		given(stringHttpMessageConverter.getSupportedMediaTypes(any())).willReturn(Collections.singletonList(TEXT_PLAIN));
 		given(stringHttpMessageConverter.canWrite(String.class, accepted)).willReturn(true);
 	}
 
@@ -17,10 +17,12 @@
 package org.springframework.web.servlet.mvc.method.annotation;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Serializable;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -194,6 +196,28 @@ public class RequestResponseBodyMethodProcessorTests {
 		assertThat(result).isEqualTo("foobarbaz");
 	}
 
+	@Test
+	public void resolveArgumentWithConverterDependingOnMediaTypeParameter() throws Exception {
+		List<HttpMessageConverter<?>> converters = new ArrayList<>();
+		converters.add(new Utf8OnlyStringHttpMessageConverter());
+		converters.add(new StringHttpMessageConverter());
+		RequestResponseBodyMethodProcessor processor = new RequestResponseBodyMethodProcessor(converters);
+
+		// converter selection is cached per "type/subtype", parameters are checked per request
+		assertThat(resolveString(processor, "text/plain")).isEqualTo("utf8:foo");
+		assertThat(resolveString(processor, "text/plain;charset=ISO-8859-1")).isEqualTo("foo");
+		assertThat(resolveString(processor, "text/plain;charset=UTF-8")).isEqualTo("utf8:foo");
+		assertThat(resolveString(processor, "text/plain")).isEqualTo("utf8:foo");
+	}
+
+	private String resolveString(RequestResponseBodyMethodProcessor processor, String contentType) throws Exception {
+		this.servletRequest = new MockHttpServletRequest("POST", "/");
+		this.servletRequest.setContent("foo".getBytes("UTF-8"));
+		this.servletRequest.setContentType(contentType);
+		this.request = new ServletWebRequest(this.servletRequest, this.servletResponse);
+		return (String) processor.resolveArgument(paramString, container, request, factory);
+	}
+
 	@Test // SPR-9942
 	public void resolveArgumentRequiredNoContent() throws Exception {
 		this.servletRequest.setContent(new byte[0]);
@@ -734,6 +758,23 @@ public class RequestResponseBodyMethodProcessorTests {
 	}
 
 
+	private static class Utf8OnlyStringHttpMessageConverter extends StringHttpMessageConverter {
+
+		@Override
+		public boolean canRead(Class<?> clazz, @Nullable MediaType mediaType) {
+			return (super.canRead(clazz, mediaType) && (mediaType == null ||
+					mediaType.getCharset() == null || mediaType.getCharset().equals(StandardCharsets.UTF_8)));
+		}
+
+		@Override
+		protected String readInternal(Class<? extends String> clazz, HttpInputMessage inputMessage)
+				throws IOException {
+
+			return "utf8:" + super.readInternal(clazz, inputMessage);
+		}
+	}
+
+
 	private static abstract class MyParameterizedController<DTO extends Identifiable> {
 
 		@SuppressWarnings("unused")
@@ -16,11 +16,15 @@
 
 package org.springframework.web.servlet.mvc.method.annotation;
 
+import java.io.ByteArrayOutputStream;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import reactor.core.publisher.EmitterProcessor;
@@ -43,6 +47,7 @@ import org.springframework.web.testfixture.servlet.MockHttpServletRequest;
 import org.springframework.web.testfixture.servlet.MockHttpServletResponse;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -83,6 +88,20 @@ public class ResponseBodyEmitterReturnValueHandlerTests {
 		this.request.setAsyncSupported(true);
 	}
 
+	private NonBlockingOutputStream initNonBlockingResponse() {
+		NonBlockingOutputStream outputStream = new NonBlockingOutputStream();
+		this.response = new MockHttpServletResponse() {
+			@Override
+			public ServletOutputStream getOutputStream() {
+				return outputStream;
+			}
+		};
+		this.webRequest = new ServletWebRequest(this.request, this.response);
+		AsyncWebRequest asyncWebRequest = new StandardServletAsyncWebRequest(this.request, this.response);
+		WebAsyncUtils.getAsyncManager(this.webRequest).setAsyncWebRequest(asyncWebRequest);
+		return outputStream;
+	}
+
 
 	@Test
 	public void supportsReturnTypes() throws Exception {
@@ -221,6 +240,113 @@ public class ResponseBodyEmitterReturnValueHandlerTests {
 						"\n"));
 	}
 
+	@Test
+	public void sseEmitterWithSendQueue() throws Exception {
+		NonBlockingOutputStream outputStream = initNonBlockingResponse();
+		outputStream.ready = false;
+
+		MethodParameter type = on(TestController.class).resolveReturnType(SseEmitter.class);
+		SseEmitter emitter = new SseEmitter();
+		emitter.setSendQueue(10, ResponseBodyEmitter.OverflowStrategy.ERROR);
+		emitter.send(SseEmitter.event().id("1").data("foo"));
+		this.handler.handleReturnValue(emitter, type, this.mavContainer, this.webRequest);
+
+		assertThat(this.request.isAsyncStarted()).isTrue();
+		assertThat(outputStream.listener).isNotNull();
+
+		emitter.send(SseEmitter.event().id("2").data("bar"));
+		emitter.complete();
+		assertThat(outputStream.content.toString("UTF-8")).isEmpty();
+
+		outputStream.ready = true;
+		outputStream.listener.onWritePossible();
+
+		assertThat(this.response.getContentType()).isEqualTo("text/event-stream;charset=UTF-8");
+		assertThat(outputStream.content.toString("UTF-8")).isEqualTo("id:1\ndata:foo\n\nid:2\ndata:bar\n\n");
+		assertThat(outputStream.writeCount).isEqualTo(1);
+		assertThat(outputStream.flushCount).isEqualTo(1);
+
+		MockAsyncContext asyncContext = (MockAsyncContext) this.request.getAsyncContext();
+		assertThat(asyncContext.getDispatchedPath()).isNotNull();
+	}
+
+	@Test
+	public void responseBodyEmitterWithSendQueueWritesOnSendingThreadWhenReady() throws Exception {
+		NonBlockingOutputStream outputStream = initNonBlockingResponse();
+
+		MethodParameter type = on(TestController.class).resolveReturnType(ResponseBodyEmitter.class);
+		ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+		emitter.setSendQueue(10, ResponseBodyEmitter.OverflowStrategy.ERROR);
+		this.handler.handleReturnValue(emitter, type, this.mavContainer, this.webRequest);
+
+		emitter.send("foo");
+		assertThat(outputStream.content.toString("UTF-8")).isEqualTo("foo");
+		assertThat(outputStream.flushCount).isEqualTo(1);
+
+		emitter.send("bar");
+		assertThat(outputStream.content.toString("UTF-8")).isEqualTo("foobar");
+		assertThat(outputStream.flushCount).isEqualTo(2);
+	}
+
+	@Test
+	public void responseBodyEmitterWithSendQueueDropOldest() throws Exception {
+		NonBlockingOutputStream outputStream = initNonBlockingResponse();
+		outputStream.ready = false;
+
+		MethodParameter type = on(TestController.class).resolveReturnType(ResponseBodyEmitter.class);
+		ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+		emitter.setSendQueue(2, ResponseBodyEmitter.OverflowStrategy.DROP_OLDEST);
+		this.handler.handleReturnValue(emitter, type, this.mavContainer, this.webRequest);
+
+		emitter.send("1");
+		emitter.send("2");
+		emitter.send("3");
+
+		outputStream.ready = true;
+		outputStream.listener.onWritePossible();
+		assertThat(outputStream.content.toString("UTF-8")).isEqualTo("23");
+	}
+
+	@Test
+	public void responseBodyEmitterWithSendQueueDropLatest() throws Exception {
+		NonBlockingOutputStream outputStream = initNonBlockingResponse();
+		outputStream.ready = false;
+
+		MethodParameter type = on(TestController.class).resolveReturnType(ResponseBodyEmitter.class);
+		ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+		emitter.setSendQueue(2, ResponseBodyEmitter.OverflowStrategy.DROP_LATEST);
+		this.handler.handleReturnValue(emitter, type, this.mavContainer, this.webRequest);
+
+		emitter.send("1");
+		emitter.send("2");
+		emitter.send("3");
+
+		outputStream.ready = true;
+		outputStream.listener.onWritePossible();
+		assertThat(outputStream.content.toString("UTF-8")).isEqualTo("12");
+	}
+
+	@Test
+	public void responseBodyEmitterWithSendQueueOverflowError() throws Exception {
+		NonBlockingOutputStream outputStream = initNonBlockingResponse();
+		outputStream.ready = false;
+
+		MethodParameter type = on(TestController.class).resolveReturnType(ResponseBodyEmitter.class);
+		ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+		emitter.setSendQueue(1, ResponseBodyEmitter.OverflowStrategy.ERROR);
+		this.handler.handleReturnValue(emitter, type, this.mavContainer, this.webRequest);
+
+		emitter.send("1");
+		assertThatIOException().isThrownBy(() -> emitter.send("2"));
+
+		MockAsyncContext asyncContext = (MockAsyncContext) this.request.getAsyncContext();
+		assertThat(asyncContext.getDispatchedPath()).isNotNull();
+
+		outputStream.ready = true;
+		outputStream.listener.onWritePossible();
+		assertThat(outputStream.content.size()).isEqualTo(0);
+	}
+
 	@Test
 	public void responseBodyFlux() throws Exception {
 
@@ -373,4 +499,48 @@ public class ResponseBodyEmitterReturnValueHandlerTests {
 		}
 	}
 
+
+	private static class NonBlockingOutputStream extends ServletOutputStream {
+
+		private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+		private boolean ready = true;
+
+		private WriteListener listener;
+
+		private int writeCount;
+
+		private int flushCount;
+
+		@Override
+		public boolean isReady() {
+			return this.ready;
+		}
+
+		@Override
+		public void setWriteListener(WriteListener writeListener) {
+			this.listener = writeListener;
+		}
+
+		@Override
+		public void write(int b) {
+			assertThat(this.ready).isTrue();
+			this.writeCount++;
+			this.content.write(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			assertThat(this.ready).isTrue();
+			this.writeCount++;
+			this.content.write(b, off, len);
+		}
+
+		@Override
+		public void flush() {
+			assertThat(this.ready).isTrue();
+			this.flushCount++;
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,8 @@
 package org.springframework.web.servlet.mvc.method.annotation;
 
 import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -118,6 +120,27 @@ public class ResponseBodyEmitterTests {
 		verifyNoMoreInteractions(this.handler);
 	}
 
+	@Test
+	public void sendSetBeforeHandlerInitialized() throws Exception {
+		Set<ResponseBodyEmitter.DataWithMediaType> items = new LinkedHashSet<>();
+		items.add(new ResponseBodyEmitter.DataWithMediaType("foo", MediaType.TEXT_PLAIN));
+		items.add(new ResponseBodyEmitter.DataWithMediaType("bar", MediaType.TEXT_PLAIN));
+		this.emitter.send(items);
+		this.emitter.send("baz", MediaType.TEXT_PLAIN);
+		verifyNoMoreInteractions(this.handler);
+
+		this.emitter.initialize(this.handler);
+		verify(this.handler).send(items);
+		verify(this.handler).send("baz", MediaType.TEXT_PLAIN);
+	}
+
+	@Test
+	public void setSendQueueAfterHandlerInitialized() throws Exception {
+		this.emitter.initialize(this.handler);
+		assertThatIllegalStateException().isThrownBy(() ->
+				this.emitter.setSendQueue(10, ResponseBodyEmitter.OverflowStrategy.ERROR));
+	}
+
 	@Test
 	public void sendAfterHandlerInitializedWithError() throws Exception {
 		this.emitter.initialize(this.handler);
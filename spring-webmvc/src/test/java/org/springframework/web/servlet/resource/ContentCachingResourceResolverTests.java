@@ -0,0 +1,253 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.resource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.testfixture.servlet.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link ContentCachingResourceResolver}.
+ */
+public class ContentCachingResourceResolverTests {
+
+	private static final String CONTENT = String.join("", Collections.nCopies(20, "function foo() { return 42; }\n"));
+
+
+	private final ContentCachingResourceResolver resolver = new ContentCachingResourceResolver();
+
+	private final StubResourceResolver stubResolver = new StubResourceResolver();
+
+	private final ResourceResolverChain chain =
+			new DefaultResourceResolverChain(Arrays.asList(this.resolver, this.stubResolver));
+
+	private final List<Resource> locations = Collections.emptyList();
+
+
+	@Test
+	public void resolveFromCache() throws Exception {
+		this.stubResolver.resource = new NamedResource(CONTENT, "app.js");
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/app.js");
+
+		Resource resolved = this.chain.resolveResource(request, "app.js", this.locations);
+		assertThat(resolved).isInstanceOf(ContentCachingResourceResolver.CachedResource.class);
+		assertThat(resolved.getFilename()).isEqualTo("app.js");
+		assertThat(resolved.contentLength()).isEqualTo(CONTENT.length());
+		assertThat(StreamUtils.copyToString(resolved.getInputStream(), StandardCharsets.UTF_8)).isEqualTo(CONTENT);
+
+		HttpHeaders headers = ((HttpResource) resolved).getResponseHeaders();
+		assertThat(headers.getETag()).startsWith("\"").hasSize(34);
+		assertThat(headers.getVary()).containsExactly("Accept-Encoding");
+		assertThat(headers.containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+
+		assertThat(this.chain.resolveResource(request, "app.js", this.locations)).isSameAs(resolved);
+		assertThat(this.stubResolver.count).isEqualTo(1);
+		assertThat(this.resolver.getCacheSize()).isEqualTo(CONTENT.length());
+	}
+
+	@Test
+	public void resolveGzipped() throws Exception {
+		this.stubResolver.resource = new NamedResource(CONTENT, "app.js");
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/app.js");
+		request.addHeader("Accept-Encoding", "gzip, deflate");
+
+		Resource resolved = this.chain.resolveResource(request, "app.js", this.locations);
+		HttpHeaders headers = ((HttpResource) resolved).getResponseHeaders();
+		assertThat(headers.getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+		assertThat(headers.getVary()).containsExactly("Accept-Encoding");
+		assertThat(((ContentCachingResourceResolver.CachedResource) resolved).isEncoded()).isTrue();
+		assertThat(resolved.contentLength()).isLessThan(CONTENT.length());
+		assertThat(StreamUtils.copyToString(new GZIPInputStream(resolved.getInputStream()), StandardCharsets.UTF_8))
+				.isEqualTo(CONTENT);
+
+		Resource identity = this.chain.resolveResource(new MockHttpServletRequest("GET", "/app.js"), "app.js", this.locations);
+		assertThat(((HttpResource) identity).getResponseHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+		assertThat(((HttpResource) identity).getResponseHeaders().getETag()).isNotEqualTo(headers.getETag());
+		assertThat(this.stubResolver.count).isEqualTo(2);
+	}
+
+	@Test
+	public void resolveNotCompressible() throws Exception {
+		this.stubResolver.resource = new NamedResource(CONTENT, "image.png");
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/image.png");
+		request.addHeader("Accept-Encoding", "gzip");
+
+		Resource resolved = this.chain.resolveResource(request, "image.png", this.locations);
+		HttpHeaders headers = ((HttpResource) resolved).getResponseHeaders();
+		assertThat(headers.containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+		assertThat(headers.containsKey(HttpHeaders.VARY)).isFalse();
+		assertThat(resolved.contentLength()).isEqualTo(CONTENT.length());
+
+		request = new MockHttpServletRequest("GET", "/image.png");
+		request.addHeader("Accept-Encoding", "br");
+		assertThat(this.chain.resolveResource(request, "image.png", this.locations)).isSameAs(resolved);
+		assertThat(this.chain.resolveResource(new MockHttpServletRequest("GET", "/image.png"), "image.png", this.locations))
+				.isSameAs(resolved);
+		assertThat(this.stubResolver.count).isEqualTo(1);
+		assertThat(this.resolver.getCacheSize()).isEqualTo(CONTENT.length());
+	}
+
+	@Test
+	public void resolveIdentityThenGzipped() throws Exception {
+		this.stubResolver.resource = new NamedResource(CONTENT, "app.js");
+		Resource identity = this.chain.resolveResource(new MockHttpServletRequest("GET", "/app.js"), "app.js", this.locations);
+		assertThat(((ContentCachingResourceResolver.CachedResource) identity).isEncoded()).isFalse();
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/app.js");
+		request.addHeader("Accept-Encoding", "gzip");
+		Resource gzipped = this.chain.resolveResource(request, "app.js", this.locations);
+		assertThat(((ContentCachingResourceResolver.CachedResource) gzipped).isEncoded()).isTrue();
+		assertThat(this.chain.resolveResource(request, "app.js", this.locations)).isSameAs(gzipped);
+		assertThat(this.stubResolver.count).isEqualTo(2);
+	}
+
+	@Test
+	public void resolveCssNotCompressed() throws Exception {
+		this.stubResolver.resource = new NamedResource(CONTENT, "main.css");
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/main.css");
+		request.addHeader("Accept-Encoding", "gzip");
+
+		Resource resolved = this.chain.resolveResource(request, "main.css", this.locations);
+		assertThat(((ContentCachingResourceResolver.CachedResource) resolved).isEncoded()).isFalse();
+		assertThat(((HttpResource) resolved).getResponseHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+		assertThat(StreamUtils.copyToString(resolved.getInputStream(), StandardCharsets.UTF_8)).isEqualTo(CONTENT);
+	}
+
+	@Test
+	public void resolvePreEncoded() throws Exception {
+		NamedResource resource = new NamedResource("brotli", "app.js");
+		resource.headers.add(HttpHeaders.CONTENT_ENCODING, "br");
+		resource.headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		this.stubResolver.resource = resource;
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/app.js");
+		request.addHeader("Accept-Encoding", "br, gzip");
+
+		Resource resolved = this.chain.resolveResource(request, "app.js", this.locations);
+		HttpHeaders headers = ((HttpResource) resolved).getResponseHeaders();
+		assertThat(headers.getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("br");
+		assertThat(headers.getVary()).containsExactly("Accept-Encoding");
+		assertThat(StreamUtils.copyToString(resolved.getInputStream(), StandardCharsets.UTF_8)).isEqualTo("brotli");
+	}
+
+	@Test
+	public void resourceTooLarge() {
+		this.resolver.setMaxResourceSize(10);
+		this.stubResolver.resource = new NamedResource(CONTENT, "app.js");
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/app.js");
+
+		Resource resolved = this.chain.resolveResource(request, "app.js", this.locations);
+		assertThat(resolved).isSameAs(this.stubResolver.resource);
+		assertThat(this.resolver.getCacheSize()).isEqualTo(0);
+	}
+
+	@Test
+	public void evictLeastRecentlyUsed() {
+		this.resolver.setMaxCacheSize(CONTENT.length() * 2);
+		this.stubResolver.resource = new NamedResource(CONTENT, "app.js");
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/app.js");
+
+		this.chain.resolveResource(request, "a.js", this.locations);
+		this.chain.resolveResource(request, "b.js", this.locations);
+		this.chain.resolveResource(request, "a.js", this.locations);
+		this.chain.resolveResource(request, "c.js", this.locations);
+		assertThat(this.stubResolver.count).isEqualTo(3);
+		assertThat(this.resolver.getCacheSize()).isEqualTo(CONTENT.length() * 2);
+
+		this.chain.resolveResource(request, "a.js", this.locations);
+		assertThat(this.stubResolver.count).isEqualTo(3);
+		this.chain.resolveResource(request, "b.js", this.locations);
+		assertThat(this.stubResolver.count).isEqualTo(4);
+	}
+
+	@Test
+	public void resolveWithNullRequest() {
+		this.stubResolver.resource = new NamedResource(CONTENT, "app.js");
+
+		Resource resolved = this.chain.resolveResource(null, "app.js", this.locations);
+		assertThat(resolved).isSameAs(this.stubResolver.resource);
+	}
+
+
+	private static class NamedResource extends ByteArrayResource implements HttpResource {
+
+		private final String filename;
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		NamedResource(String content, String filename) {
+			super(content.getBytes(StandardCharsets.UTF_8));
+			this.filename = filename;
+		}
+
+		@Override
+		public String getFilename() {
+			return this.filename;
+		}
+
+		@Override
+		public long lastModified() {
+			return 0;
+		}
+
+		@Override
+		public HttpHeaders getResponseHeaders() {
+			return this.headers;
+		}
+	}
+
+
+	private static class StubResourceResolver implements ResourceResolver {
+
+		@Nullable
+		Resource resource;
+
+		int count;
+
+		@Override
+		@Nullable
+		public Resource resolveResource(@Nullable HttpServletRequest request, String requestPath,
+				List<? extends Resource> locations, ResourceResolverChain chain) {
+
+			this.count++;
+			return this.resource;
+		}
+
+		@Override
+		@Nullable
+		public String resolveUrlPath(String resourcePath, List<? extends Resource> locations,
+				ResourceResolverChain chain) {
+
+			return resourcePath;
+		}
+	}
+
+}
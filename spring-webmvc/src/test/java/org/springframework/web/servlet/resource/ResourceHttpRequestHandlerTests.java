@@ -33,6 +33,7 @@ import org.springframework.core.io.UrlResource;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.util.DigestUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.HttpRequestMethodNotSupportedException;
 import org.springframework.web.accept.ContentNegotiationManager;
@@ -157,6 +158,45 @@ public class ResourceHttpRequestHandlerTests {
 		assertThat(this.response.getHeaders("Accept-Ranges").size()).isEqualTo(1);
 	}
 
+	@Test
+	public void getVersionedResourceWithMatchingETag() throws Exception {
+		VersionResourceResolver versionResolver = new VersionResourceResolver()
+				.addFixedVersionStrategy("versionString", "/**");
+		this.handler.setResourceResolvers(Arrays.asList(versionResolver, new PathResourceResolver()));
+		this.handler.afterPropertiesSet();
+
+		this.request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "versionString/foo.css");
+		this.request.addHeader("If-None-Match", "\"versionString\"");
+		this.handler.handleRequest(this.request, this.response);
+
+		assertThat(this.response.getStatus()).isEqualTo(304);
+		assertThat(this.response.getContentAsByteArray()).isEmpty();
+	}
+
+	@Test
+	public void getContentCachedResource() throws Exception {
+		this.handler.setResourceResolvers(Arrays.asList(new ContentCachingResourceResolver(), new PathResourceResolver()));
+		this.handler.afterPropertiesSet();
+
+		this.request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "foo.css");
+		this.handler.handleRequest(this.request, this.response);
+
+		String eTag = this.response.getHeader("ETag");
+		assertThat(eTag).isEqualTo("\"" + DigestUtils.md5DigestAsHex("h1 { color:red; }".getBytes()) + "\"");
+		assertThat(this.response.getHeader("Vary")).isEqualTo("Accept-Encoding");
+		assertThat(this.response.getContentLength()).isEqualTo(17);
+		assertThat(this.response.getContentAsString()).isEqualTo("h1 { color:red; }");
+
+		this.request = new MockHttpServletRequest("GET", "");
+		this.request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "foo.css");
+		this.request.addHeader("If-None-Match", eTag);
+		this.response = new MockHttpServletResponse();
+		this.handler.handleRequest(this.request, this.response);
+
+		assertThat(this.response.getStatus()).isEqualTo(304);
+		assertThat(this.response.getContentAsByteArray()).isEmpty();
+	}
+
 	@Test
 	@SuppressWarnings("deprecation")
 	public void getResourceHttp10BehaviorCache() throws Exception {